@@ -0,0 +1,57 @@
+package com.chestlock.bench;
+
+import com.chestlock.model.BlockProtection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BlockProtection.canAccess for the owner, a friend and a stranger
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessCheckBenchmark {
+
+    @Param({"0", "5", "40"})
+    public int friends;
+
+    private BlockProtection protection;
+    private UUID owner;
+    private UUID friend;
+    private UUID stranger;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(5);
+        protection = StorageFixture.protection(random, friends);
+        // Fresh copies so the checks don't benefit from identity equality
+        owner = new UUID(protection.getOwner().getMostSignificantBits(), protection.getOwner().getLeastSignificantBits());
+        List<UUID> friendIds = new ArrayList<>(protection.getFriends().keySet());
+        UUID anyFriend = friendIds.isEmpty() ? owner : friendIds.get(friendIds.size() / 2);
+        friend = new UUID(anyFriend.getMostSignificantBits(), anyFriend.getLeastSignificantBits());
+        stranger = new UUID(random.nextLong(), random.nextLong());
+    }
+
+    @Benchmark
+    public boolean owner() {
+        return protection.canAccess(owner);
+    }
+
+    @Benchmark
+    public boolean friend() {
+        return protection.canAccess(friend);
+    }
+
+    @Benchmark
+    public boolean stranger() {
+        return protection.canAccess(stranger);
+    }
+}
@@ -0,0 +1,131 @@
+package com.chestlock.bench;
+
+import com.chestlock.bench.support.BenchPlugin;
+import com.chestlock.bench.support.BenchServer;
+import com.chestlock.data.DatabaseManager;
+import com.chestlock.data.MySQLStorage;
+import com.chestlock.model.BlockProtection;
+import org.bukkit.Location;
+
+import java.util.SplittableRandom;
+
+/**
+ * Two MySQLStorage instances (two "servers") on one database: writes on the first must
+ * show up in the second's fully loaded cache after one change-log poll, and must not
+ * overwrite the second's own writes made while that poll runs.
+ * <p>
+ * Needs a scratch database like {@link MySQLStorageBenchmark}:
+ * {@code ./gradlew clusterSyncCheck -Dchestlock.bench.mysql=localhost:3306/chestlock_bench}
+ */
+public final class ClusterSyncCheck {
+
+    private static final int SIZE = 256;
+
+    private ClusterSyncCheck() {
+    }
+
+    public static void main(String[] args) {
+        Node first = new Node();
+        Node second = new Node();
+        int failures = 0;
+        try {
+            Location[] locations = StorageFixture.locations(SIZE, System.nanoTime());
+            SplittableRandom random = new SplittableRandom(23);
+            BlockProtection[] protections = new BlockProtection[SIZE];
+
+            // Saves
+            for (int i = 0; i < SIZE; i++) {
+                protections[i] = StorageFixture.protection(random, i % 4);
+                first.storage.save(locations[i], protections[i]);
+            }
+            BenchServer.get().drainAsync();
+            int applied = second.storage.getChangeFeed().poll();
+            for (int i = 0; i < SIZE; i++) {
+                BlockProtection seen = second.storage.get(locations[i]);
+                if (seen == null || !seen.getOwner().equals(protections[i].getOwner())
+                        || !seen.getFriends().equals(protections[i].getFriends())) {
+                    failures++;
+                }
+            }
+            System.out.println("saves: " + applied + " changes applied");
+
+            // Own writes are not applied back
+            int echoed = first.storage.getChangeFeed().poll();
+            if (echoed != 0) failures++;
+
+            // Removes, in the other direction
+            for (int i = 0; i < SIZE; i += 2) {
+                second.storage.remove(locations[i]);
+            }
+            BenchServer.get().drainAsync();
+            applied = first.storage.getChangeFeed().poll();
+            for (int i = 0; i < SIZE; i++) {
+                boolean removed = i % 2 == 0;
+                if ((first.storage.get(locations[i]) == null) != removed) {
+                    failures++;
+                }
+            }
+            System.out.println("removes: " + applied + " changes applied");
+
+            // Saves on the second while it polls the first's changes to the same blocks:
+            // the poll must not put back a row read before a save
+            for (int i = 0; i < SIZE; i++) {
+                first.storage.save(locations[i], StorageFixture.protection(random, i % 4));
+            }
+            BenchServer.get().drainAsync();
+            Thread poller = new Thread(second.storage.getChangeFeed()::poll, "ClusterSyncCheck poll");
+            poller.start();
+            for (int i = 0; i < SIZE; i++) {
+                protections[i] = StorageFixture.protection(random, i % 4);
+                second.storage.save(locations[i], protections[i]);
+            }
+            try {
+                poller.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            BenchServer.get().drainAsync();
+            second.storage.getChangeFeed().poll();
+            first.storage.getChangeFeed().poll();
+            int stale = 0;
+            for (int i = 0; i < SIZE; i++) {
+                for (Node node : new Node[]{first, second}) {
+                    BlockProtection seen = node.storage.get(locations[i]);
+                    if (seen == null || !seen.getOwner().equals(protections[i].getOwner())) {
+                        stale++;
+                    }
+                }
+            }
+            failures += stale;
+            System.out.println("saves during a poll: " + stale + " stale");
+
+            for (int i = 0; i < SIZE; i++) {
+                first.storage.remove(locations[i]);
+            }
+            BenchServer.get().drainAsync();
+        } finally {
+            first.close();
+            second.close();
+        }
+
+        System.out.println(failures == 0 ? "OK" : failures + " mismatches");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static final class Node {
+        final BenchPlugin plugin = BenchPlugin.create(BenchPlugin.mysqlConfig());
+        final MySQLStorage storage;
+
+        Node() {
+            DatabaseManager databaseManager = new DatabaseManager(plugin);
+            databaseManager.connect();
+            storage = new MySQLStorage(plugin, databaseManager);
+            storage.loadAll();
+        }
+
+        void close() {
+            storage.close();
+            plugin.deleteDataFolder();
+        }
+    }
+}
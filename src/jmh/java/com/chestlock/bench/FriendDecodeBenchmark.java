@@ -0,0 +1,70 @@
+package com.chestlock.bench;
+
+import com.chestlock.bench.support.BenchBlocks;
+import com.chestlock.bench.support.BenchPlugin;
+import com.chestlock.bench.support.BenchServer;
+import com.chestlock.data.BlockDataHandler;
+import com.chestlock.data.FriendCodec;
+import com.chestlock.data.YamlStorage;
+import com.chestlock.model.BlockProtection;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend-string parsing for tile entities, alone and through BlockDataHandler.getProtection
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendDecodeBenchmark {
+
+    @Param({"0", "1", "10", "40"})
+    public int friends;
+
+    private BenchPlugin plugin;
+    private BlockDataHandler handler;
+    private Block chest;
+    private String encoded;
+    private UUID owner;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        plugin = BenchPlugin.create(null);
+        handler = new BlockDataHandler(plugin, new YamlStorage(plugin));
+
+        BlockProtection protection = StorageFixture.protection(new SplittableRandom(3), friends);
+        owner = protection.getOwner();
+        encoded = FriendCodec.encode(protection);
+
+        chest = BenchBlocks.tile(BenchServer.get().world("world"), 10, 64, 10, Material.CHEST);
+        handler.lockBlock(chest, owner);
+        for (var friend : protection.getFriends().entrySet()) {
+            handler.addFriend(chest, friend.getKey(), friend.getValue());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plugin.deleteDataFolder();
+    }
+
+    @Benchmark
+    public BlockProtection decode() {
+        BlockProtection protection = new BlockProtection(owner);
+        FriendCodec.decode(encoded, protection);
+        return protection;
+    }
+
+    @Benchmark
+    public BlockProtection getProtectionFromTile() {
+        return handler.getProtection(chest);
+    }
+}
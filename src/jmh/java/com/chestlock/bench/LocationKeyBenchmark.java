@@ -0,0 +1,53 @@
+package com.chestlock.bench;
+
+import com.chestlock.bench.support.BenchServer;
+import com.chestlock.data.LocationKeys;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Location key encoding and decoding used by both storage backends
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocationKeyBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private Location[] locations;
+    private String[] keys;
+    private int index;
+
+    @Setup
+    public void setup() {
+        World world = BenchServer.get().world("world");
+        SplittableRandom random = new SplittableRandom(31);
+        locations = new Location[SIZE];
+        keys = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            locations[i] = new Location(world, random.nextInt(-30_000, 30_000), random.nextInt(-64, 320),
+                    random.nextInt(-30_000, 30_000));
+            keys[i] = LocationKeys.toKey(locations[i]);
+        }
+    }
+
+    @Benchmark
+    public String toKey() {
+        index = (index + 1) & (SIZE - 1);
+        return LocationKeys.toKey(locations[index]);
+    }
+
+    @Benchmark
+    public Location toLocation() {
+        index = (index + 1) & (SIZE - 1);
+        return LocationKeys.toLocation(keys[index]);
+    }
+}
@@ -0,0 +1,83 @@
+package com.chestlock.bench;
+
+import com.chestlock.metrics.Counter;
+import com.chestlock.metrics.Histogram;
+import com.chestlock.metrics.ListenerTimer;
+import com.chestlock.metrics.Metrics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of metric collection on hot paths, uncontended (main thread) and with
+ * four threads recording into the same metric
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private Counter counter;
+    private Histogram histogram;
+    private ListenerTimer timer;
+
+    @Setup
+    public void setup() {
+        Metrics metrics = new Metrics();
+        counter = metrics.lookup("yaml", "hit");
+        histogram = metrics.query("get");
+        timer = metrics.listener("interact");
+    }
+
+    @State(Scope.Thread)
+    public static class Values {
+        long value = 1;
+
+        long next() {
+            // Spread samples over many buckets
+            value = value * 6364136223846793005L + 1442695040888963407L;
+            return (value >>> 40) & 0xFFFFF;
+        }
+    }
+
+    @Benchmark
+    public long baseline(Values values) {
+        return values.next();
+    }
+
+    @Benchmark
+    public void counterIncrement() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void histogramRecord(Values values) {
+        histogram.record(values.next());
+    }
+
+    /**
+     * What every instrumented listener pays: two nanoTime calls and a record
+     */
+    @Benchmark
+    public void listenerTimer(Blackhole blackhole) {
+        long start = timer.start();
+        blackhole.consume(start);
+        timer.stop(start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void counterIncrementContended() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void histogramRecordContended(Values values) {
+        histogram.record(values.next());
+    }
+}
@@ -0,0 +1,110 @@
+package com.chestlock.bench;
+
+import com.chestlock.bench.support.BenchPlugin;
+import com.chestlock.bench.support.BenchServer;
+import com.chestlock.data.DatabaseManager;
+import com.chestlock.data.MySQLStorage;
+import com.chestlock.model.BlockProtection;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * get/save/remove on the MySQL backend against a real MariaDB/MySQL server.
+ * <p>
+ * Needs a scratch database, e.g.
+ * {@code -Dchestlock.bench.mysql=localhost:3306/chestlock_bench -Dchestlock.bench.mysql.user=root -Dchestlock.bench.mysql.password=...}
+ * (pass through {@code jmh { jvmArgsAppend = [...] }}). Without it, setup fails.
+ * Tables are created by the normal migrations and left in place.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MySQLStorageBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({"0", "5"})
+    public int friends;
+
+    private BenchPlugin plugin;
+    private DatabaseManager databaseManager;
+    private MySQLStorage storage;
+    private Location[] stored;
+    private Location[] missing;
+    private BlockProtection[] protections;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        plugin = BenchPlugin.create(BenchPlugin.mysqlConfig());
+        databaseManager = new DatabaseManager(plugin);
+        databaseManager.connect();
+        storage = new MySQLStorage(plugin, databaseManager);
+
+        Location[] locations = StorageFixture.locations(SIZE * 2, 13);
+        stored = new Location[SIZE];
+        missing = new Location[SIZE];
+        protections = new BlockProtection[SIZE];
+        SplittableRandom random = new SplittableRandom(17);
+        for (int i = 0; i < SIZE; i++) {
+            stored[i] = locations[i * 2];
+            missing[i] = locations[i * 2 + 1];
+            protections[i] = StorageFixture.protection(random, friends);
+            storage.save(stored[i], protections[i]);
+            storage.remove(missing[i]);
+        }
+        BenchServer.get().drainAsync();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (databaseManager != null) {
+            databaseManager.disconnect();
+        }
+        if (plugin != null) {
+            plugin.deleteDataFolder();
+        }
+    }
+
+    /**
+     * Served from the in-memory cache
+     */
+    @Benchmark
+    public BlockProtection getHit() {
+        index = (index + 1) & (SIZE - 1);
+        return storage.get(stored[index]);
+    }
+
+    /**
+     * Without loadAll the cache is not authoritative, so every miss is a database round trip
+     */
+    @Benchmark
+    public BlockProtection getMiss() {
+        index = (index + 1) & (SIZE - 1);
+        return storage.get(missing[index]);
+    }
+
+    /**
+     * save is asynchronous; wait for the write so the database cost is measured
+     */
+    @Benchmark
+    public void save() {
+        index = (index + 1) & (SIZE - 1);
+        storage.save(stored[index], protections[index]);
+        BenchServer.get().drainAsync();
+    }
+
+    @Benchmark
+    public void removeAndSave() {
+        index = (index + 1) & (SIZE - 1);
+        storage.remove(stored[index]);
+        storage.save(stored[index], protections[index]);
+        BenchServer.get().drainAsync();
+    }
+}
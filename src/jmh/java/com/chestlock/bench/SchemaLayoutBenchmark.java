@@ -0,0 +1,214 @@
+package com.chestlock.bench;
+
+import com.chestlock.bench.support.BenchPlugin;
+import com.chestlock.data.BlockPositions;
+import com.chestlock.data.DatabaseManager;
+import com.chestlock.data.UuidBytes;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point lookups on the schema v1 layout (world name, x/y/z, UUID strings) versus the
+ * v2 layout (world id, packed pos, binary UUIDs), each on its own seeded table.
+ * <p>
+ * Needs a scratch database like {@link MySQLStorageBenchmark}. The tables
+ * (bench_layout_v1 / bench_layout_v2) are seeded once with {@code rows} protections and
+ * reused by later runs; data and index sizes are printed after seeding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaLayoutBenchmark {
+
+    private static final String[] WORLDS = {"world", "world_nether", "world_the_end"};
+    private static final int SEED_BATCH = 5000;
+    private static final int PROBES = 4096;
+
+    @Param({"v1", "v2"})
+    public String layout;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private BenchPlugin plugin;
+    private DatabaseManager databaseManager;
+    private Connection conn;
+    private PreparedStatement lookup;
+    private int[][] probes;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        plugin = BenchPlugin.create(BenchPlugin.mysqlConfig());
+        databaseManager = new DatabaseManager(plugin);
+        databaseManager.connect();
+        conn = databaseManager.getConnection();
+
+        String table = "bench_layout_" + layout;
+        createTable(table);
+        if (count(table) != rows) {
+            seed(table);
+        }
+        printSizes(table);
+
+        lookup = conn.prepareStatement(layout.equals("v1")
+                ? "SELECT id, owner, allow_hopper, allow_redstone FROM " + table + " WHERE world = ? AND x = ? AND y = ? AND z = ?"
+                : "SELECT id, owner, allow_hopper, allow_redstone FROM " + table + " WHERE world_id = ? AND pos = ?");
+
+        // Random rows that exist, so every probe is an index hit
+        SplittableRandom random = new SplittableRandom(29);
+        probes = new int[PROBES][];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = position(random.nextInt(rows));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (conn != null) {
+            conn.close();
+        }
+        if (databaseManager != null) {
+            databaseManager.disconnect();
+        }
+        if (plugin != null) {
+            plugin.deleteDataFolder();
+        }
+    }
+
+    @Benchmark
+    public boolean pointLookup() throws SQLException {
+        index = (index + 1) & (PROBES - 1);
+        int[] probe = probes[index];
+        if (layout.equals("v1")) {
+            lookup.setString(1, WORLDS[probe[0]]);
+            lookup.setInt(2, probe[1]);
+            lookup.setInt(3, probe[2]);
+            lookup.setInt(4, probe[3]);
+        } else {
+            lookup.setInt(1, probe[0] + 1);
+            lookup.setLong(2, BlockPositions.pack(probe[1], probe[2], probe[3]));
+        }
+        try (ResultSet rs = lookup.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * World index and coordinates of the n-th seeded row (unique per n)
+     */
+    private static int[] position(int n) {
+        int column = n / WORLDS.length;
+        return new int[]{n % WORLDS.length, (column % 2048) - 1024, (column / 2048) % 384 - 64, column / (2048 * 384) - 1024};
+    }
+
+    private void createTable(String table) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (layout.equals("v1")) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                        "  id INT AUTO_INCREMENT PRIMARY KEY," +
+                        "  world VARCHAR(255) NOT NULL," +
+                        "  x INT NOT NULL, y INT NOT NULL, z INT NOT NULL," +
+                        "  owner VARCHAR(36) NOT NULL," +
+                        "  allow_hopper BOOLEAN DEFAULT FALSE," +
+                        "  allow_redstone BOOLEAN DEFAULT TRUE," +
+                        "  UNIQUE KEY unique_location (world, x, y, z)," +
+                        "  INDEX idx_owner (owner)" +
+                        ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+            } else {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                        "  id INT AUTO_INCREMENT PRIMARY KEY," +
+                        "  world_id INT NOT NULL," +
+                        "  pos BIGINT NOT NULL," +
+                        "  chunk_x INT NOT NULL, chunk_z INT NOT NULL," +
+                        "  owner BINARY(16) NOT NULL," +
+                        "  allow_hopper BOOLEAN DEFAULT FALSE," +
+                        "  allow_redstone BOOLEAN DEFAULT TRUE," +
+                        "  UNIQUE KEY unique_position (world_id, pos)," +
+                        "  INDEX idx_chunk (world_id, chunk_x, chunk_z)," +
+                        "  INDEX idx_owner (owner)" +
+                        ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+            }
+        }
+    }
+
+    private int count(String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private void seed(String table) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("TRUNCATE TABLE " + table);
+        }
+
+        String sql = layout.equals("v1")
+                ? "INSERT INTO " + table + " (world, x, y, z, owner, allow_hopper, allow_redstone) VALUES (?, ?, ?, ?, ?, ?, ?)"
+                : "INSERT INTO " + table + " (world_id, pos, chunk_x, chunk_z, owner, allow_hopper, allow_redstone) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        SplittableRandom random = new SplittableRandom(31);
+        UUID[] owners = new UUID[5000];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int n = 0; n < rows; n++) {
+                int[] p = position(n);
+                UUID owner = owners[random.nextInt(owners.length)];
+                if (layout.equals("v1")) {
+                    stmt.setString(1, WORLDS[p[0]]);
+                    stmt.setInt(2, p[1]);
+                    stmt.setInt(3, p[2]);
+                    stmt.setInt(4, p[3]);
+                    stmt.setString(5, owner.toString());
+                } else {
+                    stmt.setInt(1, p[0] + 1);
+                    stmt.setLong(2, BlockPositions.pack(p[1], p[2], p[3]));
+                    stmt.setInt(3, BlockPositions.toChunk(p[1]));
+                    stmt.setInt(4, BlockPositions.toChunk(p[3]));
+                    stmt.setBytes(5, UuidBytes.toBytes(owner));
+                }
+                stmt.setBoolean(6, random.nextBoolean());
+                stmt.setBoolean(7, random.nextBoolean());
+                stmt.addBatch();
+
+                if ((n + 1) % SEED_BATCH == 0) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            stmt.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void printSizes(String table) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE TABLE " + table);
+        }
+        String sql = "SELECT data_length, index_length FROM information_schema.TABLES " +
+                "WHERE table_schema = DATABASE() AND table_name = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    System.out.printf("%n%s: %d rows, data %.1f MiB, secondary indexes %.1f MiB%n", table, rows,
+                            rs.getLong(1) / 1048576.0, rs.getLong(2) / 1048576.0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.chestlock.bench;
+
+import com.chestlock.bench.support.BenchPlugin;
+import com.chestlock.data.YamlStorage;
+import com.chestlock.model.BlockProtection;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * get/save/remove on the YAML backend (an in-memory map keyed by location string)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int SIZE = 16_384;
+
+    @Param({"0", "5"})
+    public int friends;
+
+    private BenchPlugin plugin;
+    private YamlStorage storage;
+    private Location[] stored;
+    private Location[] missing;
+    private BlockProtection[] protections;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        plugin = BenchPlugin.create(null);
+        storage = new YamlStorage(plugin);
+
+        Location[] locations = StorageFixture.locations(SIZE * 2, 7);
+        stored = new Location[SIZE];
+        missing = new Location[SIZE];
+        protections = new BlockProtection[SIZE];
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < SIZE; i++) {
+            stored[i] = locations[i * 2];
+            missing[i] = locations[i * 2 + 1];
+            protections[i] = StorageFixture.protection(random, friends);
+            storage.save(stored[i], protections[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plugin.deleteDataFolder();
+    }
+
+    @Benchmark
+    public BlockProtection getHit() {
+        index = (index + 1) & (SIZE - 1);
+        return storage.get(stored[index]);
+    }
+
+    @Benchmark
+    public BlockProtection getMiss() {
+        index = (index + 1) & (SIZE - 1);
+        return storage.get(missing[index]);
+    }
+
+    @Benchmark
+    public void save() {
+        index = (index + 1) & (SIZE - 1);
+        storage.save(stored[index], protections[index]);
+    }
+
+    /**
+     * remove followed by save so the map size stays constant
+     */
+    @Benchmark
+    public void removeAndSave() {
+        index = (index + 1) & (SIZE - 1);
+        storage.remove(stored[index]);
+        storage.save(stored[index], protections[index]);
+    }
+}
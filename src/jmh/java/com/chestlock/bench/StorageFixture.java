@@ -0,0 +1,54 @@
+package com.chestlock.bench;
+
+import com.chestlock.bench.support.BenchServer;
+import com.chestlock.model.BlockProtection;
+import com.chestlock.model.BlockProtection.FriendPermission;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Generates locations and protections shared by the storage benchmarks
+ */
+final class StorageFixture {
+
+    private StorageFixture() {
+    }
+
+    /**
+     * Distinct block locations spread over a few worlds
+     */
+    static Location[] locations(int count, long seed) {
+        World[] worlds = {
+                BenchServer.get().world("world"),
+                BenchServer.get().world("world_nether"),
+                BenchServer.get().world("world_the_end")
+        };
+        SplittableRandom random = new SplittableRandom(seed);
+        Location[] locations = new Location[count];
+        for (int i = 0; i < count; i++) {
+            // Walk a column grid so every location is unique
+            int x = (i % 4096) - 2048;
+            int z = (i / 4096) - 2048;
+            int y = random.nextInt(-64, 320);
+            locations[i] = new Location(worlds[i % worlds.length], x, y, z);
+        }
+        return locations;
+    }
+
+    /**
+     * A protection with the given number of friends
+     */
+    static BlockProtection protection(SplittableRandom random, int friends) {
+        BlockProtection protection = new BlockProtection(new UUID(random.nextLong(), random.nextLong()));
+        protection.setAllowHopper(random.nextBoolean());
+        protection.setAllowRedstone(random.nextBoolean());
+        for (int i = 0; i < friends; i++) {
+            protection.addFriend(new UUID(random.nextLong(), random.nextLong()),
+                    random.nextBoolean() ? FriendPermission.READ_ONLY : FriendPermission.READ_WRITE);
+        }
+        return protection;
+    }
+}
@@ -0,0 +1,59 @@
+package com.chestlock.bench;
+
+import com.chestlock.bench.support.BenchPlugin;
+import com.chestlock.data.YamlStorage;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full YamlStorage.saveAll/loadAll cycles at server-sized data sets.
+ * Each call is measured once (single shot), so few iterations are needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class YamlBulkBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int entries;
+
+    private BenchPlugin plugin;
+    private YamlStorage storage;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        plugin = BenchPlugin.create(null);
+        storage = new YamlStorage(plugin);
+
+        Location[] locations = StorageFixture.locations(entries, 23);
+        SplittableRandom random = new SplittableRandom(29);
+        for (Location location : locations) {
+            // Most real locks have no friends; a few have several
+            int friends = random.nextInt(10) == 0 ? random.nextInt(1, 6) : 0;
+            storage.save(location, StorageFixture.protection(random, friends));
+        }
+        // loadAll needs a file to read
+        storage.saveAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plugin.deleteDataFolder();
+    }
+
+    @Benchmark
+    public void saveAll() {
+        storage.saveAll();
+    }
+
+    @Benchmark
+    public void loadAll() {
+        storage.loadAll();
+    }
+}
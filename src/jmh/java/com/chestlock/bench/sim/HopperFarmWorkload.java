@@ -0,0 +1,72 @@
+package com.chestlock.bench.sim;
+
+import com.chestlock.listeners.HopperListener;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Hopper farms: chests draining into hoppers, one transfer per hopper every 8 ticks.
+ * A third of the chests are locked with hoppers allowed, a third locked without,
+ * a third unlocked.
+ */
+final class HopperFarmWorkload implements Workload {
+
+    private static final int TRANSFER_COOLDOWN = 8;
+
+    private final int hoppers;
+    private final ItemStack item;
+    private HopperListener listener;
+    private Inventory[] sources;
+    private Inventory[] destinations;
+
+    HopperFarmWorkload(int hoppers) {
+        this.hoppers = hoppers;
+        this.item = new ItemStack(Material.IRON_INGOT);
+    }
+
+    @Override
+    public String getName() {
+        return "hopper-farms(" + hoppers + ")";
+    }
+
+    @Override
+    public void setup(SimContext context) {
+        listener = context.listener(HopperListener.class);
+        sources = new Inventory[hoppers];
+        destinations = new Inventory[hoppers];
+
+        for (int i = 0; i < hoppers; i++) {
+            int x = i % 100;
+            int z = i / 100;
+            Block chest = context.tile(x, 65, z, Material.CHEST);
+            Block hopper = context.tile(x, 64, z, Material.HOPPER);
+
+            switch (i % 3) {
+                case 0:
+                    context.lock(chest, context.randomPlayer());
+                    context.setAllowHopper(chest, true);
+                    break;
+                case 1:
+                    context.lock(chest, context.randomPlayer());
+                    break;
+                default:
+                    break;
+            }
+            sources[i] = context.inventory(chest);
+            destinations[i] = context.inventory(hopper);
+        }
+    }
+
+    @Override
+    public void tick(int tick, TickRecorder recorder) {
+        for (int i = tick % TRANSFER_COOLDOWN; i < hoppers; i += TRANSFER_COOLDOWN) {
+            InventoryMoveItemEvent event = new InventoryMoveItemEvent(sources[i], item, destinations[i], false);
+            long start = System.nanoTime();
+            listener.onHopperMove(event);
+            recorder.add(ListenerKind.HOPPER, System.nanoTime() - start);
+        }
+    }
+}
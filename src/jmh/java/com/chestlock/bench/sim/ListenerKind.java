@@ -0,0 +1,22 @@
+package com.chestlock.bench.sim;
+
+/**
+ * Listeners measured by the simulator
+ */
+enum ListenerKind {
+    HOPPER("HopperListener"),
+    INTERACT("BlockInteractListener"),
+    INVENTORY("InventoryListener"),
+    EXPLOSION("ExplosionListener"),
+    PISTON("PistonListener");
+
+    private final String displayName;
+
+    ListenerKind(String displayName) {
+        this.displayName = displayName;
+    }
+
+    String getDisplayName() {
+        return displayName;
+    }
+}
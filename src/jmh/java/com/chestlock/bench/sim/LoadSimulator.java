@@ -0,0 +1,119 @@
+package com.chestlock.bench.sim;
+
+import com.chestlock.bench.support.BenchPlugin;
+import com.chestlock.bench.support.BenchServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Offline load simulator: enables the plugin against the stand-in server, drives the
+ * protection listeners with synthetic workloads and reports listener time per tick.
+ * <p>
+ * Options (defaults in brackets):
+ * <pre>
+ *   --backends yaml,mysql   storage backends to run [yaml]; mysql needs -Dchestlock.bench.mysql
+ *   --ticks N               measured ticks [1200]
+ *   --warmup-ticks N        unmeasured ticks first [400]
+ *   --protections N         extra locked blocks in storage [100000]
+ *   --players N             players browsing storage rooms [40]
+ *   --hoppers N             hoppers in farms [2000]
+ *   --cannons N             TNT cannons [2]
+ *   --doors N               piston doors [50]
+ *   --seed N                random seed [1]
+ * </pre>
+ * Set any workload size to 0 to leave it out.
+ */
+public final class LoadSimulator {
+
+    private static final double TICK_BUDGET_MS = 50.0;
+
+    private LoadSimulator() {
+    }
+
+    public static void main(String[] args) {
+        SimOptions options = SimOptions.parse(args);
+        for (String backend : options.getList("backends", "yaml")) {
+            run(backend, options);
+        }
+        System.exit(0);
+    }
+
+    private static void run(String backend, SimOptions options) {
+        int ticks = options.getInt("ticks", 1200);
+        int warmupTicks = options.getInt("warmup-ticks", 400);
+        int protections = options.getInt("protections", 100_000);
+        int players = Math.max(1, options.getInt("players", 40));
+
+        String config;
+        switch (backend) {
+            case "YAML":
+                config = null;
+                break;
+            case "MYSQL":
+                config = BenchPlugin.mysqlConfig();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+
+        BenchPlugin plugin = BenchPlugin.create(config);
+        try {
+            plugin.enable();
+            SimContext context = new SimContext(plugin, options.getLong("seed", 1), players);
+
+            List<Workload> workloads = new ArrayList<>();
+            if (options.getInt("hoppers", 2000) > 0) workloads.add(new HopperFarmWorkload(options.getInt("hoppers", 2000)));
+            if (options.getInt("players", 40) > 0) workloads.add(new StorageRoomWorkload(players));
+            if (options.getInt("cannons", 2) > 0) workloads.add(new TntCannonWorkload(options.getInt("cannons", 2)));
+            if (options.getInt("doors", 50) > 0) workloads.add(new PistonDoorWorkload(options.getInt("doors", 50)));
+
+            long setupStart = System.nanoTime();
+            context.populateStorage(protections);
+            for (Workload workload : workloads) {
+                workload.setup(context);
+            }
+            BenchServer.get().drainAsync();
+            long setupMillis = (System.nanoTime() - setupStart) / 1_000_000;
+
+            TickRecorder recorder = new TickRecorder(ticks);
+            for (int tick = 0; tick < warmupTicks + ticks; tick++) {
+                recorder.setRecording(tick >= warmupTicks);
+                for (Workload workload : workloads) {
+                    workload.tick(tick, recorder);
+                }
+                recorder.endTick();
+            }
+
+            report(backend, protections, setupMillis, workloads, recorder);
+        } finally {
+            plugin.disable();
+            BenchServer.get().drainAsync();
+            plugin.deleteDataFolder();
+        }
+    }
+
+    private static void report(String backend, int protections, long setupMillis, List<Workload> workloads,
+                               TickRecorder recorder) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "backend=%s protections=%d ticks=%d setup=%dms%n",
+                backend, protections, recorder.getTicks(), setupMillis);
+        StringBuilder names = new StringBuilder();
+        for (Workload workload : workloads) {
+            if (names.length() > 0) names.append(", ");
+            names.append(workload.getName());
+        }
+        System.out.println("workloads: " + names);
+        System.out.printf(Locale.ROOT, "%-24s %12s %10s %10s %10s%n", "listener", "events/tick", "p50 ms", "p99 ms", "max ms");
+        for (ListenerKind kind : ListenerKind.values()) {
+            double[] summary = recorder.summary(kind);
+            System.out.printf(Locale.ROOT, "%-24s %12.1f %10.3f %10.3f %10.3f%n",
+                    kind.getDisplayName(), recorder.eventsPerTick(kind), summary[0], summary[1], summary[2]);
+        }
+        double[] total = recorder.totalSummary();
+        System.out.printf(Locale.ROOT, "%-24s %12s %10.3f %10.3f %10.3f%n", "all listeners", "", total[0], total[1], total[2]);
+        System.out.printf(Locale.ROOT, "p99 uses %.1f%% of the %.0f ms tick budget%n",
+                total[1] / TICK_BUDGET_MS * 100, TICK_BUDGET_MS);
+    }
+}
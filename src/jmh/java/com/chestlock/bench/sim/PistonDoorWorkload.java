@@ -0,0 +1,89 @@
+package com.chestlock.bench.sim;
+
+import com.chestlock.listeners.PistonListener;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Piston doors: each 2x3 door has six sticky pistons pushing two blocks each and
+ * toggles every 100 ticks. One door in ten has a locked door block in its path.
+ */
+final class PistonDoorWorkload implements Workload {
+
+    private static final int TOGGLE_INTERVAL = 100;
+    private static final int PISTONS_PER_DOOR = 6;
+    private static final int BASE_X = 3000;
+
+    private final int doors;
+    private PistonListener listener;
+    private Block[][] pistons;
+    private List<List<Block>> moved;
+
+    PistonDoorWorkload(int doors) {
+        this.doors = doors;
+    }
+
+    @Override
+    public String getName() {
+        return "piston-doors(" + doors + ")";
+    }
+
+    @Override
+    public void setup(SimContext context) {
+        listener = context.listener(PistonListener.class);
+        pistons = new Block[doors][PISTONS_PER_DOOR];
+        moved = new ArrayList<>();
+
+        for (int d = 0; d < doors; d++) {
+            int x = BASE_X + d * 8;
+            for (int p = 0; p < PISTONS_PER_DOOR; p++) {
+                int y = 64 + p % 3;
+                int z = p < 3 ? 0 : 5;
+                pistons[d][p] = context.plain(x, y, z, Material.STICKY_PISTON);
+
+                List<Block> blocks = new ArrayList<>();
+                blocks.add(context.plain(x, y, z == 0 ? 1 : 4, Material.OAK_PLANKS));
+                int dz = z == 0 ? 2 : 3;
+                if (d % 10 == 0 && p == 0) {
+                    Block door = context.plain(x, y, dz, Material.OAK_DOOR);
+                    context.lock(door, context.randomPlayer());
+                    blocks.add(door);
+                } else {
+                    blocks.add(context.plain(x, y, dz, Material.OAK_PLANKS));
+                }
+                moved.add(blocks);
+            }
+        }
+    }
+
+    @Override
+    public void tick(int tick, TickRecorder recorder) {
+        for (int d = 0; d < doors; d++) {
+            int phase = (tick + d * 3) % TOGGLE_INTERVAL;
+            // Open at phase 0, close half an interval later
+            if (phase != 0 && phase != TOGGLE_INTERVAL / 2) continue;
+
+            for (int p = 0; p < PISTONS_PER_DOOR; p++) {
+                List<Block> blocks = moved.get(d * PISTONS_PER_DOOR + p);
+                BlockFace face = p < 3 ? BlockFace.SOUTH : BlockFace.NORTH;
+                long start;
+                if (phase == 0) {
+                    BlockPistonExtendEvent event = new BlockPistonExtendEvent(pistons[d][p], blocks, face);
+                    start = System.nanoTime();
+                    listener.onPistonExtend(event);
+                } else {
+                    BlockPistonRetractEvent event = new BlockPistonRetractEvent(pistons[d][p], blocks, face);
+                    start = System.nanoTime();
+                    listener.onPistonRetract(event);
+                }
+                recorder.add(ListenerKind.PISTON, System.nanoTime() - start);
+            }
+        }
+    }
+}
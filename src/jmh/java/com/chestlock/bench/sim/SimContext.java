@@ -0,0 +1,119 @@
+package com.chestlock.bench.sim;
+
+import com.chestlock.bench.support.BenchBlocks;
+import com.chestlock.bench.support.BenchPlayers;
+import com.chestlock.bench.support.BenchPlugin;
+import com.chestlock.bench.support.BenchServer;
+import com.chestlock.bench.support.Stubs;
+import com.chestlock.model.BlockProtection.FriendPermission;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.Inventory;
+
+import java.util.*;
+
+/**
+ * Shared state for workloads: the enabled plugin, the world, players and block helpers
+ */
+final class SimContext {
+
+    private final BenchPlugin plugin;
+    private final World world;
+    private final SplittableRandom random;
+    private final List<Player> players;
+
+    SimContext(BenchPlugin plugin, long seed, int playerCount) {
+        this.plugin = plugin;
+        this.world = BenchServer.get().world("world");
+        this.random = new SplittableRandom(seed);
+        this.players = new ArrayList<>();
+        Set<String> permissions = Set.of("chestlock.lock");
+        for (int i = 0; i < playerCount; i++) {
+            players.add(BenchPlayers.player("player" + i, permissions));
+        }
+    }
+
+    BenchPlugin getPlugin() {
+        return plugin;
+    }
+
+    World getWorld() {
+        return world;
+    }
+
+    SplittableRandom getRandom() {
+        return random;
+    }
+
+    List<Player> getPlayers() {
+        return players;
+    }
+
+    Player randomPlayer() {
+        return players.get(random.nextInt(players.size()));
+    }
+
+    <T extends Listener> T listener(Class<T> type) {
+        return BenchServer.get().listener(type);
+    }
+
+    Block tile(int x, int y, int z, Material type) {
+        return BenchBlocks.tile(world, x, y, z, type);
+    }
+
+    Block plain(int x, int y, int z, Material type) {
+        return BenchBlocks.plain(world, x, y, z, type);
+    }
+
+    /**
+     * Lock through BlockDataHandler, optionally adding friends
+     */
+    void lock(Block block, Player owner, Player... friends) {
+        plugin.getDataHandler().lockBlock(block, owner.getUniqueId());
+        for (Player friend : friends) {
+            plugin.getDataHandler().addFriend(block, friend.getUniqueId(), FriendPermission.READ_WRITE);
+        }
+    }
+
+    void setAllowHopper(Block block, boolean allowHopper) {
+        plugin.getDataHandler().updateSettings(block, allowHopper, true);
+    }
+
+    /**
+     * A container inventory located at the block
+     */
+    Inventory inventory(Block block) {
+        Location location = block.getLocation();
+        return Stubs.proxy(Inventory.class, Map.of("getLocation", args -> location.clone()));
+    }
+
+    /**
+     * Fill storage with locked non-tile blocks that the workloads never touch,
+     * so lookups run against a realistically sized backend
+     */
+    void populateStorage(int count) {
+        int[] position = new int[3];
+        Map<String, Stubs.Answer> stateAnswers = new HashMap<>();
+        BlockState state = Stubs.proxy(BlockState.class, stateAnswers);
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("getType", args -> Material.OAK_DOOR);
+        answers.put("getWorld", args -> world);
+        answers.put("getState", args -> state);
+        answers.put("getLocation", args -> new Location(world, position[0], position[1], position[2]));
+        Block cursor = Stubs.proxy(Block.class, answers);
+
+        for (int i = 0; i < count; i++) {
+            // Far from the workload regions, one door per column
+            position[0] = 100_000 + (i % 1000) * 2;
+            position[1] = 64;
+            position[2] = 100_000 + (i / 1000) * 2;
+            plugin.getDataHandler().lockBlock(cursor, randomPlayer().getUniqueId());
+        }
+        BenchServer.get().drainAsync();
+    }
+}
@@ -0,0 +1,59 @@
+package com.chestlock.bench.sim;
+
+import java.util.*;
+
+/**
+ * Command line options: {@code --name value} or {@code --name=value}
+ */
+final class SimOptions {
+
+    private final Map<String, String> values;
+
+    private SimOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static SimOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String name = arg.substring(2);
+            int eq = name.indexOf('=');
+            if (eq >= 0) {
+                values.put(name.substring(0, eq), name.substring(eq + 1));
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                values.put(name, args[++i]);
+            } else {
+                values.put(name, "true");
+            }
+        }
+        return new SimOptions(values);
+    }
+
+    int getInt(String name, int def) {
+        String value = values.get(name);
+        return value == null ? def : Integer.parseInt(value);
+    }
+
+    long getLong(String name, long def) {
+        String value = values.get(name);
+        return value == null ? def : Long.parseLong(value);
+    }
+
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    List<String> getList(String name, String def) {
+        List<String> list = new ArrayList<>();
+        for (String part : values.getOrDefault(name, def).split(",")) {
+            if (!part.isBlank()) {
+                list.add(part.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,119 @@
+package com.chestlock.bench.sim;
+
+import com.chestlock.bench.support.Stubs;
+import com.chestlock.listeners.BlockInteractListener;
+import com.chestlock.listeners.InventoryListener;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Storage-room browsing: players right-click chests and barrels (own, shared and
+ * other players') and walk through locked doors. Each player acts about once a second.
+ */
+final class StorageRoomWorkload implements Workload {
+
+    private static final int CHESTS_PER_PLAYER = 54;
+    private static final int DOORS_PER_PLAYER = 4;
+
+    private final int players;
+    private SimContext context;
+    private BlockInteractListener interactListener;
+    private InventoryListener inventoryListener;
+    private Block[] containers;
+    private Inventory[] inventories;
+    private Block[] doors;
+
+    StorageRoomWorkload(int players) {
+        this.players = players;
+    }
+
+    @Override
+    public String getName() {
+        return "storage-rooms(" + players + " players)";
+    }
+
+    @Override
+    public void setup(SimContext context) {
+        this.context = context;
+        interactListener = context.listener(BlockInteractListener.class);
+        inventoryListener = context.listener(InventoryListener.class);
+
+        int count = Math.min(players, context.getPlayers().size());
+        containers = new Block[count * CHESTS_PER_PLAYER];
+        inventories = new Inventory[containers.length];
+        doors = new Block[count * DOORS_PER_PLAYER];
+
+        int index = 0;
+        for (int p = 0; p < count; p++) {
+            Player owner = context.getPlayers().get(p);
+            Player friend = context.getPlayers().get((p + 1) % count);
+            for (int c = 0; c < CHESTS_PER_PLAYER; c++, index++) {
+                // Rooms are laid out along x from 1000, one 9x6 wall per player
+                Block block = context.tile(1000 + p * 10 + c % 9, 64 + c / 9, 0,
+                        c % 3 == 0 ? Material.BARREL : Material.CHEST);
+                if (c % 6 == 0) {
+                    context.lock(block, owner, friend);
+                } else if (c % 6 != 5) {
+                    context.lock(block, owner);
+                }
+                containers[index] = block;
+                inventories[index] = context.inventory(block);
+            }
+            for (int d = 0; d < DOORS_PER_PLAYER; d++) {
+                Block door = context.plain(1000 + p * 10 + d, 64, 2, Material.OAK_DOOR);
+                if (d != 0) {
+                    context.lock(door, owner, friend);
+                }
+                doors[p * DOORS_PER_PLAYER + d] = door;
+            }
+        }
+    }
+
+    @Override
+    public void tick(int tick, TickRecorder recorder) {
+        SplittableRandom random = context.getRandom();
+        for (Player player : context.getPlayers()) {
+            if (random.nextInt(20) != 0) continue;
+
+            if (random.nextInt(5) == 0) {
+                interact(player, doors[random.nextInt(doors.length)], recorder);
+                continue;
+            }
+
+            // Mostly browse nearby rooms, which includes other players' chests
+            int index = random.nextInt(containers.length);
+            if (interact(player, containers[index], recorder)) {
+                open(player, inventories[index], recorder);
+            }
+        }
+    }
+
+    private boolean interact(Player player, Block block, TickRecorder recorder) {
+        PlayerInteractEvent event = new PlayerInteractEvent(player, Action.RIGHT_CLICK_BLOCK, null, block, BlockFace.NORTH);
+        long start = System.nanoTime();
+        interactListener.onPlayerInteract(event);
+        recorder.add(ListenerKind.INTERACT, System.nanoTime() - start);
+        return !event.isCancelled();
+    }
+
+    private void open(Player player, Inventory inventory, TickRecorder recorder) {
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("getPlayer", args -> player);
+        answers.put("getTopInventory", args -> inventory);
+        InventoryOpenEvent event = new InventoryOpenEvent(Stubs.proxy(InventoryView.class, answers));
+        long start = System.nanoTime();
+        inventoryListener.onInventoryOpen(event);
+        recorder.add(ListenerKind.INVENTORY, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,90 @@
+package com.chestlock.bench.sim;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates listener time per simulated tick and summarizes it as percentiles
+ */
+final class TickRecorder {
+
+    private static final int KINDS = ListenerKind.values().length;
+
+    private final long[][] nanosPerTick;
+    private final long[] totalPerTick;
+    private final long[] events;
+    private final long[] current;
+    private int tick;
+    private boolean recording;
+
+    TickRecorder(int ticks) {
+        this.nanosPerTick = new long[KINDS][ticks];
+        this.totalPerTick = new long[ticks];
+        this.events = new long[KINDS];
+        this.current = new long[KINDS];
+    }
+
+    /**
+     * Warmup ticks run the same work but are not recorded
+     */
+    void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    void add(ListenerKind kind, long nanos) {
+        current[kind.ordinal()] += nanos;
+        if (recording) {
+            events[kind.ordinal()]++;
+        }
+    }
+
+    void endTick() {
+        if (recording) {
+            long total = 0;
+            for (int i = 0; i < KINDS; i++) {
+                nanosPerTick[i][tick] = current[i];
+                total += current[i];
+            }
+            totalPerTick[tick] = total;
+            tick++;
+        }
+        Arrays.fill(current, 0);
+    }
+
+    int getTicks() {
+        return tick;
+    }
+
+    double eventsPerTick(ListenerKind kind) {
+        return tick == 0 ? 0 : (double) events[kind.ordinal()] / tick;
+    }
+
+    /**
+     * p50, p99 and max in milliseconds
+     */
+    double[] summary(ListenerKind kind) {
+        return summarize(nanosPerTick[kind.ordinal()]);
+    }
+
+    double[] totalSummary() {
+        return summarize(totalPerTick);
+    }
+
+    private double[] summarize(long[] samples) {
+        if (tick == 0) return new double[3];
+        long[] sorted = Arrays.copyOf(samples, tick);
+        Arrays.sort(sorted);
+        return new double[] {
+                millis(sorted[percentileIndex(tick, 0.50)]),
+                millis(sorted[percentileIndex(tick, 0.99)]),
+                millis(sorted[tick - 1])
+        };
+    }
+
+    private static int percentileIndex(int count, double percentile) {
+        return Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.chestlock.bench.sim;
+
+import com.chestlock.bench.support.Stubs;
+import com.chestlock.listeners.ExplosionListener;
+import org.bukkit.ExplosionResult;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * TNT cannons firing volleys into a base: each cannon fires every 40 ticks, each
+ * TNT explodes with a block list of about 60 blocks around its impact point.
+ * About one block in ten of the base is a container or door, half of them locked.
+ */
+final class TntCannonWorkload implements Workload {
+
+    private static final int VOLLEY_INTERVAL = 40;
+    private static final int TNT_PER_VOLLEY = 12;
+    private static final int RADIUS = 3;
+    private static final int BASE_X = -2000;
+    private static final int BASE_SIZE = 32;
+
+    private final int cannons;
+    private SimContext context;
+    private ExplosionListener listener;
+    private Entity tnt;
+
+    TntCannonWorkload(int cannons) {
+        this.cannons = cannons;
+    }
+
+    @Override
+    public String getName() {
+        return "tnt-cannons(" + cannons + ")";
+    }
+
+    @Override
+    public void setup(SimContext context) {
+        this.context = context;
+        listener = context.listener(ExplosionListener.class);
+        tnt = Stubs.proxy(Entity.class, Map.of());
+
+        SplittableRandom random = new SplittableRandom(41);
+        for (int x = 0; x < BASE_SIZE; x++) {
+            for (int z = 0; z < BASE_SIZE; z++) {
+                for (int y = 60; y < 68; y++) {
+                    if (random.nextInt(10) != 0) continue;
+                    Block block = random.nextBoolean()
+                            ? context.tile(BASE_X + x, y, z, Material.CHEST)
+                            : context.plain(BASE_X + x, y, z, Material.OAK_DOOR);
+                    if (random.nextBoolean()) {
+                        context.lock(block, context.randomPlayer());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void tick(int tick, TickRecorder recorder) {
+        SplittableRandom random = context.getRandom();
+        World world = context.getWorld();
+        for (int cannon = 0; cannon < cannons; cannon++) {
+            // Stagger cannons across the interval
+            if ((tick + cannon * 7) % VOLLEY_INTERVAL != 0) continue;
+
+            for (int t = 0; t < TNT_PER_VOLLEY; t++) {
+                int cx = BASE_X + random.nextInt(BASE_SIZE);
+                int cy = 60 + random.nextInt(8);
+                int cz = random.nextInt(BASE_SIZE);
+
+                List<Block> blocks = new ArrayList<>();
+                for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+                    for (int dy = -RADIUS; dy <= RADIUS; dy++) {
+                        for (int dz = -RADIUS; dz <= RADIUS; dz++) {
+                            if (dx * dx + dy * dy + dz * dz > RADIUS * RADIUS) continue;
+                            // Vanilla ray casting only reaches part of the sphere
+                            if (random.nextInt(2) == 0) continue;
+                            blocks.add(world.getBlockAt(cx + dx, cy + dy, cz + dz));
+                        }
+                    }
+                }
+
+                EntityExplodeEvent event = new EntityExplodeEvent(tnt, new Location(world, cx, cy, cz), blocks, 0.3f,
+                        ExplosionResult.DESTROY);
+                long start = System.nanoTime();
+                listener.onEntityExplode(event);
+                recorder.add(ListenerKind.EXPLOSION, System.nanoTime() - start);
+            }
+        }
+    }
+}
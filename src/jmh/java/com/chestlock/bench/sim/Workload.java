@@ -0,0 +1,13 @@
+package com.chestlock.bench.sim;
+
+/**
+ * A synthetic traffic pattern that places its blocks once and fires events every tick
+ */
+interface Workload {
+
+    String getName();
+
+    void setup(SimContext context);
+
+    void tick(int tick, TickRecorder recorder);
+}
@@ -0,0 +1,86 @@
+package com.chestlock.bench.support;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.TileState;
+import org.bukkit.persistence.PersistentDataContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block stand-ins: plain blocks (doors etc.) and tile entities with a map-backed
+ * PersistentDataContainer
+ */
+public final class BenchBlocks {
+
+    private BenchBlocks() {
+    }
+
+    /**
+     * A non-tile block such as a door, placed in its world
+     */
+    public static Block plain(World world, int x, int y, int z, Material type) {
+        Block block = create(world, x, y, z, type, false);
+        BenchServer.get().place(block);
+        return block;
+    }
+
+    /**
+     * A tile entity block (chest, furnace...) placed in its world; its state
+     * snapshots share one PDC
+     */
+    public static Block tile(World world, int x, int y, int z, Material type) {
+        Block block = create(world, x, y, z, type, true);
+        BenchServer.get().place(block);
+        return block;
+    }
+
+    static Block create(World world, int x, int y, int z, Material type, boolean tile) {
+        Location location = new Location(world, x, y, z);
+        Map<String, Stubs.Answer> stateAnswers = new HashMap<>();
+        stateAnswers.put("getType", args -> type);
+        stateAnswers.put("getLocation", args -> location.clone());
+        stateAnswers.put("update", args -> true);
+
+        BlockState state;
+        if (tile) {
+            PersistentDataContainer pdc = pdc();
+            stateAnswers.put("getPersistentDataContainer", args -> pdc);
+            state = Stubs.proxy(TileState.class, stateAnswers);
+        } else {
+            state = Stubs.proxy(BlockState.class, stateAnswers);
+        }
+
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("getType", args -> type);
+        answers.put("getWorld", args -> world);
+        answers.put("getLocation", args -> location.clone());
+        answers.put("getState", args -> state);
+        answers.put("getX", args -> x);
+        answers.put("getY", args -> y);
+        answers.put("getZ", args -> z);
+        Block block = Stubs.proxy(Block.class, answers);
+        stateAnswers.put("getBlock", args -> block);
+        return block;
+    }
+
+    /**
+     * A map-backed PersistentDataContainer
+     */
+    public static PersistentDataContainer pdc() {
+        Map<NamespacedKey, Object> values = new HashMap<>();
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("set", args -> values.put((NamespacedKey) args[0], args[2]));
+        answers.put("get", args -> values.get(args[0]));
+        answers.put("getOrDefault", args -> values.getOrDefault(args[0], args[2]));
+        answers.put("has", args -> values.containsKey(args[0]));
+        answers.put("remove", args -> values.remove(args[0]));
+        answers.put("isEmpty", args -> values.isEmpty());
+        return Stubs.proxy(PersistentDataContainer.class, answers);
+    }
+}
@@ -0,0 +1,29 @@
+package com.chestlock.bench.support;
+
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Player stand-ins with a fixed permission set; messages are discarded
+ */
+public final class BenchPlayers {
+
+    private BenchPlayers() {
+    }
+
+    public static Player player(String name, Set<String> permissions) {
+        UUID uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes());
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("getUniqueId", args -> uuid);
+        answers.put("getName", args -> name);
+        answers.put("getDisplayName", args -> name);
+        answers.put("getLocale", args -> "ko_kr");
+        answers.put("isOnline", args -> true);
+        answers.put("hasPermission", args -> args[0] instanceof String && permissions.contains(args[0]));
+        return Stubs.proxy(Player.class, answers);
+    }
+}
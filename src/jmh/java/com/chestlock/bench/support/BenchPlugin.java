@@ -0,0 +1,132 @@
+package com.chestlock.bench.support;
+
+import com.chestlock.ChestLock;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Level;
+
+/**
+ * ChestLock created through the plugin initialization constructor, with a
+ * temporary data folder, so storage and handlers can run outside a server
+ */
+public class BenchPlugin extends ChestLock {
+
+    @SuppressWarnings("deprecation")
+    private BenchPlugin(File dataFolder) {
+        super(new JavaPluginLoader(BenchServer.get().server()),
+                description(),
+                dataFolder,
+                new File(dataFolder, "ChestLock.jar"));
+        getLogger().setLevel(Level.WARNING);
+        BenchServer.get().registerPlugin(this);
+    }
+
+    /**
+     * Create a plugin with a fresh temporary data folder
+     * @param configYaml Extra config written to config.yml (may be null)
+     */
+    public static BenchPlugin create(String configYaml) {
+        try {
+            File dataFolder = Files.createTempDirectory("chestlock-bench").toFile();
+            if (configYaml != null) {
+                Files.write(new File(dataFolder, "config.yml").toPath(), configYaml.getBytes(StandardCharsets.UTF_8));
+            }
+            return new BenchPlugin(dataFolder);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create bench data folder", e);
+        }
+    }
+
+    /**
+     * storage config for the database named by -Dchestlock.bench.mysql=host:port/database
+     * (with optional -Dchestlock.bench.mysql.user and .password)
+     */
+    public static String mysqlConfig() {
+        String target = System.getProperty("chestlock.bench.mysql");
+        if (target == null || target.indexOf('/') < 0) {
+            throw new IllegalStateException("Set -Dchestlock.bench.mysql=host:port/database to use the MySQL backend");
+        }
+        String hostPort = target.substring(0, target.indexOf('/'));
+        String database = target.substring(target.indexOf('/') + 1);
+        int colon = hostPort.indexOf(':');
+        String host = colon >= 0 ? hostPort.substring(0, colon) : hostPort;
+        String port = colon >= 0 ? hostPort.substring(colon + 1) : "3306";
+
+        return String.join("\n",
+                "storage:",
+                "  type: MYSQL",
+                "  mysql:",
+                "    host: " + host,
+                "    port: " + port,
+                "    database: " + database,
+                "    username: " + System.getProperty("chestlock.bench.mysql.user", "root"),
+                "    password: '" + System.getProperty("chestlock.bench.mysql.password", "") + "'",
+                // Benchmarks use the storage right after connect
+                "    migration:",
+                "      background: false",
+                "");
+    }
+
+    /**
+     * Run the real onEnable (storage, caches, listeners) against the stand-in server
+     */
+    public void enable() {
+        BenchServer.get().reset();
+        BenchServer.get().registerCommand(command("chestlock", this));
+        setEnabled(true);
+        // Protections load in the background; wait until lookups are live
+        BenchServer.get().drainAsync();
+    }
+
+    /**
+     * Run onDisable (flushes storage)
+     */
+    public void disable() {
+        setEnabled(false);
+    }
+
+    /**
+     * Delete the temporary data folder
+     */
+    public void deleteDataFolder() {
+        File[] files = getDataFolder().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        getDataFolder().delete();
+    }
+
+    private static PluginDescriptionFile description() {
+        try (InputStream in = ChestLock.class.getClassLoader().getResourceAsStream("plugin.yml")) {
+            if (in == null) {
+                throw new IllegalStateException("plugin.yml is not on the classpath");
+            }
+            return new PluginDescriptionFile(in);
+        } catch (IOException | InvalidDescriptionException e) {
+            throw new IllegalStateException("Failed to read plugin.yml", e);
+        }
+    }
+
+    private static PluginCommand command(String name, Plugin owner) {
+        // PluginCommand is final with a protected constructor; the server normally builds it
+        try {
+            Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(name, owner);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create command " + name, e);
+        }
+    }
+}
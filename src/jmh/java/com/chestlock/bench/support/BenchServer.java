@@ -0,0 +1,216 @@
+package com.chestlock.bench.support;
+
+import com.chestlock.ChestLock;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process stand-in for the Bukkit server: worlds with a block registry, a scheduler
+ * that runs sync tasks inline and async tasks on a single worker, and a plugin manager
+ * that only records registered listeners.
+ * Installed once per JVM with {@link #get()}.
+ */
+public final class BenchServer {
+
+    private static BenchServer instance;
+
+    private final Logger logger;
+    private final Map<String, World> worlds;
+    private final Map<UUID, World> worldsById;
+    private final Map<Location, Block> blocks;
+    private final Map<String, PluginCommand> commands;
+    private final List<Listener> listeners;
+    private final List<ChestLock> plugins;
+    private final ExecutorService asyncPool;
+    private final Server server;
+
+    private BenchServer() {
+        this.logger = Logger.getLogger("BenchServer");
+        this.logger.setLevel(Level.WARNING);
+        this.worlds = new ConcurrentHashMap<>();
+        this.worldsById = new ConcurrentHashMap<>();
+        this.blocks = new ConcurrentHashMap<>();
+        this.commands = new ConcurrentHashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.plugins = new CopyOnWriteArrayList<>();
+        // One async thread keeps task order and makes drainAsync() exact
+        this.asyncPool = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bench-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        BukkitScheduler scheduler = createScheduler();
+        Map<String, Stubs.Answer> pluginManagerAnswers = new HashMap<>();
+        pluginManagerAnswers.put("registerEvents", args -> listeners.add((Listener) args[0]));
+        PluginManager pluginManager = Stubs.proxy(PluginManager.class, pluginManagerAnswers);
+
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("getLogger", args -> logger);
+        answers.put("getName", args -> "ChestLockBench");
+        answers.put("getVersion", args -> "bench");
+        answers.put("getBukkitVersion", args -> "1.21.3-R0.1-SNAPSHOT");
+        answers.put("getScheduler", args -> scheduler);
+        answers.put("getPluginManager", args -> pluginManager);
+        answers.put("getOnlinePlayers", args -> Collections.emptyList());
+        answers.put("getWorlds", args -> new ArrayList<>(worlds.values()));
+        answers.put("getWorld", args -> args[0] instanceof UUID ? worldsById.get(args[0]) : worlds.get(args[0]));
+        answers.put("isPrimaryThread", args -> true);
+        answers.put("getPluginCommand", args -> commands.get(args[0]));
+        this.server = Stubs.proxy(Server.class, answers);
+    }
+
+    /**
+     * The shared stand-in server (installed into Bukkit on first use)
+     */
+    public static synchronized BenchServer get() {
+        if (instance == null) {
+            instance = new BenchServer();
+            Bukkit.setServer(instance.server);
+        }
+        return instance;
+    }
+
+    public Server server() {
+        return server;
+    }
+
+    public Logger logger() {
+        return logger;
+    }
+
+    /**
+     * Get or create a world stand-in
+     */
+    public World world(String name) {
+        return worlds.computeIfAbsent(name, key -> {
+            UUID uid = UUID.nameUUIDFromBytes(key.getBytes());
+            Map<String, Stubs.Answer> answers = new HashMap<>();
+            answers.put("getName", args -> key);
+            answers.put("getUID", args -> uid);
+            answers.put("getMinHeight", args -> -64);
+            answers.put("getMaxHeight", args -> 320);
+            answers.put("getBlockAt", args -> args.length == 1
+                    ? blockAt((Location) args[0])
+                    : blockAt(new Location(worlds.get(key), (int) args[0], (int) args[1], (int) args[2])));
+            World world = Stubs.proxy(World.class, answers);
+            worldsById.put(uid, world);
+            return world;
+        });
+    }
+
+    /**
+     * Make a block resolvable through World.getBlockAt and Location.getBlock
+     */
+    public void place(Block block) {
+        blocks.put(block.getLocation(), block);
+    }
+
+    /**
+     * Remove all placed blocks and recorded listeners
+     */
+    public void reset() {
+        blocks.clear();
+        listeners.clear();
+        commands.clear();
+    }
+
+    /**
+     * Include a plugin's I/O executor in {@link #drainAsync()}
+     */
+    public void registerPlugin(ChestLock plugin) {
+        plugins.add(plugin);
+    }
+
+    /**
+     * Make a command resolvable through JavaPlugin.getCommand
+     */
+    public void registerCommand(PluginCommand command) {
+        commands.put(command.getName().toLowerCase(Locale.ROOT), command);
+    }
+
+    /**
+     * The first registered listener of the given type
+     */
+    public <T extends Listener> T listener(Class<T> type) {
+        for (Listener listener : listeners) {
+            if (type.isInstance(listener)) {
+                return type.cast(listener);
+            }
+        }
+        throw new IllegalStateException(type.getSimpleName() + " was not registered");
+    }
+
+    /**
+     * Wait for queued async tasks and plugin I/O tasks to finish
+     */
+    public void drainAsync() {
+        // Tasks on one side can queue more on the other; settle when both are idle
+        boolean idle;
+        do {
+            try {
+                asyncPool.submit(() -> { }).get(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException("Async pool did not drain", e);
+            }
+            idle = true;
+            for (ChestLock plugin : plugins) {
+                if (plugin.getIoExecutor().isShutdown()) continue;
+                if (plugin.getIoExecutor().getDepth() > 0) {
+                    idle = false;
+                    if (!plugin.getIoExecutor().awaitIdle(30, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("I/O executor did not drain");
+                    }
+                }
+            }
+        } while (!idle);
+    }
+
+    private Block blockAt(Location location) {
+        Location key = new Location(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        Block block = blocks.get(key);
+        if (block == null) {
+            // Unplaced positions behave like plain stone
+            block = BenchBlocks.create(key.getWorld(), key.getBlockX(), key.getBlockY(), key.getBlockZ(), Material.STONE, false);
+        }
+        return block;
+    }
+
+    private BukkitScheduler createScheduler() {
+        BukkitTask task = Stubs.proxy(BukkitTask.class, Map.of());
+
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("runTask", args -> {
+            ((Runnable) args[1]).run();
+            return task;
+        });
+        answers.put("runTaskAsynchronously", args -> {
+            asyncPool.execute((Runnable) args[1]);
+            return task;
+        });
+        // Delayed and repeating tasks are not simulated
+        answers.put("runTaskLater", args -> task);
+        answers.put("runTaskLaterAsynchronously", args -> task);
+        answers.put("runTaskTimer", args -> task);
+        answers.put("runTaskTimerAsynchronously", args -> task);
+        return Stubs.proxy(BukkitScheduler.class, answers);
+    }
+}
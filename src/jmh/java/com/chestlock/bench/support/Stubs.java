@@ -0,0 +1,65 @@
+package com.chestlock.bench.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * Builds lightweight stand-ins for Bukkit interfaces with java.lang.reflect.Proxy.
+ * Only the methods given in the answer map are implemented; everything else
+ * returns the type's default value.
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * Answers a call by method name (arguments are passed through)
+     */
+    @FunctionalInterface
+    public interface Answer {
+        Object answer(Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T proxy(Class<T> type, Map<String, Answer> answers, Class<?>... extraTypes) {
+        Class<?>[] types = new Class<?>[extraTypes.length + 1];
+        types[0] = type;
+        System.arraycopy(extraTypes, 0, types, 1, extraTypes.length);
+
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Answer answer = answers.get(method.getName());
+                if (answer != null) {
+                    return answer.answer(args == null ? new Object[0] : args);
+                }
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return type.getSimpleName() + "Stub";
+                    default:
+                        return defaultValue(method.getReturnType());
+                }
+            }
+        };
+        return (T) Proxy.newProxyInstance(Stubs.class.getClassLoader(), types, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        if (type == double.class) return 0d;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        return 0;
+    }
+}
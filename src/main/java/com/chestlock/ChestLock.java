@@ -2,13 +2,28 @@ package com.chestlock;
 
 import com.chestlock.commands.ChestLockCommand;
 import com.chestlock.data.*;
+import com.chestlock.gui.MenuListener;
+import com.chestlock.gui.MenuManager;
+import com.chestlock.gui.OnlinePlayerIndex;
 import com.chestlock.listeners.*;
+import com.chestlock.message.MessageCatalog;
+import com.chestlock.metrics.Metrics;
+import com.chestlock.metrics.PrometheusExporter;
+import com.chestlock.metrics.SlowEventWatchdog;
+import com.chestlock.permission.PermissionCache;
 import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 
+import java.io.File;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Main plugin class for ChestLock
@@ -16,10 +31,36 @@ import java.util.Set;
  */
 public class ChestLock extends JavaPlugin {
 
+    // storage.mysql keys of the primary connection (pool.* and the replica's are added to these)
+    private static final Set<String> CONNECTION_SETTINGS = Set.of("host", "port", "database", "username", "password");
+
     private static ChestLock instance;
     private BlockDataHandler dataHandler;
     private DatabaseManager databaseManager;
+    private PermissionCache permissionCache;
+    private MessageCatalog messages;
+    private MenuManager menuManager;
+    private OnlinePlayerIndex onlinePlayerIndex;
+    private NameCache nameCache;
+    private ExpirySweeper expirySweeper;
     private Set<Material> lockableBlocks;
+    // Storage settings the running storage was built from, compared on reload
+    private Map<String, Object> appliedStorageSettings;
+    private final Metrics metrics = new Metrics();
+    private IoExecutor ioExecutor;
+    private PrometheusExporter metricsExporter;
+    private SlowEventWatchdog watchdog;
+
+    public ChestLock() {
+        super();
+    }
+
+    /**
+     * Initialization constructor for running outside a server (benchmarks and simulations)
+     */
+    protected ChestLock(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     @Override
     public void onEnable() {
@@ -28,6 +69,12 @@ public class ChestLock extends JavaPlugin {
         // Save default config
         saveDefaultConfig();
 
+        // Compile messages
+        messages = MessageCatalog.load(this);
+
+        // Storage I/O runs on ChestLock's own bounded executor
+        ioExecutor = new IoExecutor(this);
+
         // Initialize storage based on config
         IBlockStorage storage = initializeStorage();
         if (storage == null) {
@@ -35,26 +82,85 @@ public class ChestLock extends JavaPlugin {
             getServer().getPluginManager().disablePlugin(this);
             return;
         }
+        databaseManager = storage instanceof MySQLStorage ? ((MySQLStorage) storage).getDatabaseManager() : null;
+        appliedStorageSettings = storageSettings(storage instanceof MySQLStorage ? "MYSQL" : "YAML");
 
         // Initialize data handler
         dataHandler = new BlockDataHandler(this, storage);
-        dataHandler.loadAll();
+        dataHandler.loadAllAsync();
+
+        // Player name cache, persisted in the same backend
+        nameCache = new NameCache(this, createNameStore(storage));
 
         // Load lockable blocks from config
         loadLockableBlocks();
 
+        // Cache per-player permission state
+        permissionCache = new PermissionCache(this);
+        permissionCache.start();
+
+        // Menu session registry and online player index
+        menuManager = new MenuManager(this);
+        onlinePlayerIndex = new OnlinePlayerIndex();
+        for (Player player : getServer().getOnlinePlayers()) {
+            onlinePlayerIndex.add(player);
+        }
+
+        // Periodic metrics export and slow handler diagnostics
+        metricsExporter = new PrometheusExporter(this);
+        metricsExporter.start();
+        watchdog = new SlowEventWatchdog(this);
+        watchdog.start();
+
         // Register commands
         getCommand("chestlock").setExecutor(new ChestLockCommand(this));
 
         // Register listeners
         registerListeners();
 
+        // Index tile entity protections in loaded chunks from now on
+        dataHandler.getTileIndex().start();
+
+        // Drop location-based protections whose block has disappeared
+        dataHandler.getOrphanCollector().start();
+
+        // Remove protections of long-inactive owners in the background
+        expirySweeper = new ExpirySweeper(this);
+        expirySweeper.start();
+
         getLogger().info("ChestLock has been enabled!");
         getLogger().info("Loaded " + lockableBlocks.size() + " lockable block types");
     }
 
     @Override
     public void onDisable() {
+        if (permissionCache != null) {
+            permissionCache.stop();
+        }
+
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+
+        if (expirySweeper != null) {
+            expirySweeper.stop();
+        }
+
+        // Close open menus
+        if (menuManager != null) {
+            menuManager.closeAll();
+        }
+
+        // Flush player names
+        if (nameCache != null) {
+            nameCache.close();
+        }
+
+        // Let queued storage work finish while the database is still connected
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+        }
+
         // Save and close storage
         if (dataHandler != null) {
             dataHandler.close();
@@ -77,18 +183,7 @@ public class ChestLock extends JavaPlugin {
         getLogger().info("Initializing storage type: " + storageType);
 
         try {
-            if (storageType.equals("MYSQL")) {
-                // Initialize MySQL storage
-                databaseManager = new DatabaseManager(this);
-                databaseManager.connect();
-
-                getLogger().info("Using MySQL storage");
-                return new MySQLStorage(this, databaseManager);
-            } else {
-                // Default to YAML storage
-                getLogger().info("Using YAML storage");
-                return new YamlStorage(this);
-            }
+            return createStorage(storageType);
         } catch (Exception e) {
             getLogger().severe("Failed to initialize " + storageType + " storage: " + e.getMessage());
 
@@ -105,6 +200,32 @@ public class ChestLock extends JavaPlugin {
         }
     }
 
+    private IBlockStorage createStorage(String storageType) {
+        if (storageType.equals("MYSQL")) {
+            // Initialize MySQL storage
+            DatabaseManager manager = new DatabaseManager(this);
+            try {
+                manager.connect();
+            } catch (RuntimeException e) {
+                manager.disconnect();
+                throw e;
+            }
+
+            getLogger().info("Using MySQL storage");
+            return new MySQLStorage(this, manager);
+        }
+
+        // Default to YAML storage
+        getLogger().info("Using YAML storage");
+        return new YamlStorage(this);
+    }
+
+    private NameStore createNameStore(IBlockStorage storage) {
+        return storage instanceof MySQLStorage
+                ? new MySQLNameStore(this, ((MySQLStorage) storage).getDatabaseManager())
+                : new YamlNameStore(this);
+    }
+
     private void registerListeners() {
         getServer().getPluginManager().registerEvents(new BlockInteractListener(this), this);
         getServer().getPluginManager().registerEvents(new BlockBreakListener(this), this);
@@ -113,10 +234,15 @@ public class ChestLock extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new PistonListener(this), this);
         getServer().getPluginManager().registerEvents(new ExplosionListener(this), this);
         getServer().getPluginManager().registerEvents(new InventoryListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
+        getServer().getPluginManager().registerEvents(new ChunkListener(this), this);
+        getServer().getPluginManager().registerEvents(new BlockRemovalListener(this), this);
+        getServer().getPluginManager().registerEvents(new MenuListener(this, menuManager), this);
     }
 
     private void loadLockableBlocks() {
-        lockableBlocks = new HashSet<>();
+        // Build the new table first so lookups never see a half-filled set
+        Set<Material> materials = new HashSet<>();
 
         List<String> containers = getConfig().getStringList("lockable-blocks.containers");
         List<String> shulkerBoxes = getConfig().getStringList("lockable-blocks.shulker-boxes");
@@ -124,18 +250,20 @@ public class ChestLock extends JavaPlugin {
         List<String> trapdoors = getConfig().getStringList("lockable-blocks.trapdoors");
         List<String> gates = getConfig().getStringList("lockable-blocks.gates");
 
-        loadMaterialList(containers);
-        loadMaterialList(shulkerBoxes);
-        loadMaterialList(doors);
-        loadMaterialList(trapdoors);
-        loadMaterialList(gates);
+        loadMaterialList(materials, containers);
+        loadMaterialList(materials, shulkerBoxes);
+        loadMaterialList(materials, doors);
+        loadMaterialList(materials, trapdoors);
+        loadMaterialList(materials, gates);
+
+        lockableBlocks = materials;
     }
 
-    private void loadMaterialList(List<String> materials) {
+    private void loadMaterialList(Set<Material> target, List<String> materials) {
         for (String materialName : materials) {
             try {
                 Material material = Material.valueOf(materialName.toUpperCase());
-                lockableBlocks.add(material);
+                target.add(material);
             } catch (IllegalArgumentException e) {
                 getLogger().warning("Invalid material in config: " + materialName);
             }
@@ -150,27 +278,166 @@ public class ChestLock extends JavaPlugin {
         return dataHandler;
     }
 
+    public PermissionCache getPermissionCache() {
+        return permissionCache;
+    }
+
+    public MenuManager getMenuManager() {
+        return menuManager;
+    }
+
+    public OnlinePlayerIndex getOnlinePlayerIndex() {
+        return onlinePlayerIndex;
+    }
+
+    public NameCache getNameCache() {
+        return nameCache;
+    }
+
+    public ExpirySweeper getExpirySweeper() {
+        return expirySweeper;
+    }
+
+    public DatabaseManager getDatabaseManager() {
+        return databaseManager;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Executor for storage and database I/O (created on first use when storage runs
+     * without onEnable, as in benchmarks)
+     */
+    public synchronized IoExecutor getIoExecutor() {
+        if (ioExecutor == null) {
+            ioExecutor = new IoExecutor(this);
+        }
+        return ioExecutor;
+    }
+
+    public SlowEventWatchdog getWatchdog() {
+        return watchdog;
+    }
+
     public static ChestLock getInstance() {
         return instance;
     }
 
-    public String getMessage(String path) {
-        String prefix = getConfig().getString("messages.prefix", "");
-        String message = getConfig().getString("messages." + path, "");
-        return colorize(prefix + " " + message);
+    public MessageCatalog getMessages() {
+        return messages;
     }
 
-    public String getMessageWithoutPrefix(String path) {
-        return colorize(getConfig().getString("messages." + path, ""));
+    public String getMessage(String path) {
+        return messages.prefixed(path).render();
     }
 
-    private String colorize(String message) {
-        return message.replace("&", "§");
+    public String getMessageWithoutPrefix(String path) {
+        return messages.plain(path).render();
     }
 
     public void reloadConfiguration() {
         reloadConfig();
+        messages = MessageCatalog.load(this);
+
         loadLockableBlocks();
-        dataHandler.loadAll();
+        permissionCache.start();
+        metricsExporter.start();
+        watchdog.start();
+        expirySweeper.start();
+        dataHandler.getOrphanCollector().start();
+
+        if (dataHandler.getStorage() instanceof MySQLStorage) {
+            ((MySQLStorage) dataHandler.getStorage()).applySettings();
+        }
+
+        // Protection data stays in memory unless the storage settings changed
+        String storageType = getConfig().getString("storage.type", "YAML").toUpperCase();
+        Map<String, Object> settings = storageSettings(storageType);
+        if (!settings.equals(appliedStorageSettings)) {
+            reloadStorage(storageType, settings);
+        }
+    }
+
+    /**
+     * Switch to the storage described by the current config. Live data is copied over
+     * when the new storage points at a different place.
+     */
+    private void reloadStorage(String storageType, Map<String, Object> settings) {
+        if (!dataHandler.isReady()) {
+            getLogger().warning("Protections are still loading, storage changes apply on the next reload");
+            return;
+        }
+
+        boolean migrate = !storageTarget(settings).equals(storageTarget(appliedStorageSettings));
+        if (!migrate && databaseManager != null && !databaseManager.isAvailable()) {
+            // Spooled writes only live in the current storage until the database is back
+            getLogger().warning("Database is unavailable, storage changes apply on the next reload");
+            return;
+        }
+
+        getLogger().info("Storage settings changed, switching to " + storageType + " storage"
+                + (migrate ? " and migrating live data" : ""));
+
+        IBlockStorage next;
+        try {
+            next = createStorage(storageType);
+        } catch (Exception e) {
+            getLogger().severe("Failed to initialize " + storageType + " storage, keeping the current one: " + e.getMessage());
+            return;
+        }
+
+        boolean started = dataHandler.switchStorage(next, migrate, storage -> {
+            // The old pool closes right after this, so names move to the new backend too
+            nameCache.close();
+            nameCache = new NameCache(this, createNameStore(storage));
+            databaseManager = storage instanceof MySQLStorage ? ((MySQLStorage) storage).getDatabaseManager() : null;
+            appliedStorageSettings = settings;
+            getLogger().info("Now using " + dataHandler.getBackendName() + " storage");
+        });
+        if (!started) {
+            getLogger().warning("Storage is busy, storage changes apply on the next reload");
+        }
+    }
+
+    /**
+     * Storage settings that need a new storage when changed, flattened for comparison.
+     * Other MySQL settings are applied in place or at the next restart.
+     */
+    private Map<String, Object> storageSettings(String storageType) {
+        Map<String, Object> settings = new TreeMap<>();
+        settings.put("type", storageType);
+
+        // YAML has no settings of its own, so MySQL edits don't touch a YAML server's data
+        ConfigurationSection section = getConfig().getConfigurationSection("storage.mysql");
+        if (storageType.equals("MYSQL") && section != null) {
+            for (Map.Entry<String, Object> entry : section.getValues(true).entrySet()) {
+                if (!(entry.getValue() instanceof ConfigurationSection) && isConnectionSetting(entry.getKey())) {
+                    settings.put("mysql." + entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Whether a storage.mysql key is used to open the primary or replica pool
+     */
+    private static boolean isConnectionSetting(String key) {
+        return CONNECTION_SETTINGS.contains(key) || key.startsWith("pool.")
+                || (key.startsWith("replica.") && !key.equals("replica.pin-duration"));
+    }
+
+    /**
+     * Where protections are stored: the backend type, plus the database for MySQL
+     */
+    private String storageTarget(Map<String, Object> settings) {
+        Object storageType = settings.get("type");
+        if (!"MYSQL".equals(storageType)) return String.valueOf(storageType);
+
+        return storageType + "://" + settings.getOrDefault("mysql.host", "localhost")
+                + ":" + settings.getOrDefault("mysql.port", 3306)
+                + "/" + settings.getOrDefault("mysql.database", "chestlock");
     }
 }
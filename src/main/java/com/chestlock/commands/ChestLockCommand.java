@@ -1,20 +1,46 @@
 package com.chestlock.commands;
 
 import com.chestlock.ChestLock;
+import com.chestlock.data.DatabaseManager;
+import com.chestlock.data.IBlockStorage;
+import com.chestlock.data.MySQLStorage;
+import com.chestlock.data.OrphanCollector;
+import com.chestlock.data.Region;
+import com.chestlock.data.RegionOperation;
+import com.chestlock.data.StorageConverter;
+import com.chestlock.data.TileIndex;
+import com.chestlock.metrics.Counter;
+import com.chestlock.metrics.Histogram;
+import com.chestlock.metrics.ListenerTimer;
+import com.chestlock.metrics.Metrics;
+import com.chestlock.metrics.SlowEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * Main command handler for /chestlock
  */
 public class ChestLockCommand implements CommandExecutor {
 
     private final ChestLock plugin;
+    private final StorageConverter converter;
+    private RegionOperation regionOperation;
 
     public ChestLockCommand(ChestLock plugin) {
         this.plugin = plugin;
+        this.converter = new StorageConverter(plugin);
     }
 
     @Override
@@ -33,11 +59,53 @@ public class ChestLockCommand implements CommandExecutor {
 
             case "reload":
                 if (!sender.hasPermission("chestlock.admin")) {
-                    sender.sendMessage(plugin.getMessage("no-permission"));
+                    plugin.getMessages().send(sender, "no-permission");
                     return true;
                 }
                 plugin.reloadConfiguration();
-                sender.sendMessage(plugin.getMessage("prefix") + " §a설정이 리로드되었습니다!");
+                plugin.getMessages().send(sender, "reloaded");
+
+                return true;
+
+            case "stats":
+                if (!sender.hasPermission("chestlock.admin")) {
+                    plugin.getMessages().send(sender, "no-permission");
+                    return true;
+                }
+                sendStats(sender);
+                return true;
+
+            case "slow":
+                if (!sender.hasPermission("chestlock.admin")) {
+                    plugin.getMessages().send(sender, "no-permission");
+                    return true;
+                }
+                int count = 10;
+                if (args.length > 1) {
+                    try {
+                        count = Math.max(1, Integer.parseInt(args[1]));
+                    } catch (NumberFormatException e) {
+                        sender.sendMessage("§c숫자를 입력하세요: /chestlock slow [개수]");
+                        return true;
+                    }
+                }
+                sendSlowEvents(sender, count);
+                return true;
+
+            case "convert":
+                if (!sender.hasPermission("chestlock.admin")) {
+                    plugin.getMessages().send(sender, "no-permission");
+                    return true;
+                }
+                convert(sender, args);
+                return true;
+
+            case "region":
+                if (!sender.hasPermission("chestlock.admin")) {
+                    plugin.getMessages().send(sender, "no-permission");
+                    return true;
+                }
+                region(sender, args);
                 return true;
 
             case "version":
@@ -58,10 +126,276 @@ public class ChestLockCommand implements CommandExecutor {
         sender.sendMessage("");
         sender.sendMessage("§e/chestlock help §7- 도움말 표시");
         sender.sendMessage("§e/chestlock reload §7- 설정 리로드 §c(관리자)");
+        sender.sendMessage("§e/chestlock stats §7- 성능 통계 §c(관리자)");
+        sender.sendMessage("§e/chestlock slow [개수] §7- 최근 느린 이벤트 §c(관리자)");
+        sender.sendMessage("§e/chestlock convert <yaml|mysql> <yaml|mysql> §7- 저장소 데이터 변환 §c(관리자)");
+        sender.sendMessage("§e/chestlock region <unlock|transfer|purge|status|cancel> §7- 영역 일괄 작업 §c(관리자)");
         sender.sendMessage("§e/chestlock about §7- 플러그인 정보");
         sender.sendMessage("");
         sender.sendMessage("§7블록을 잠그려면:");
         sender.sendMessage("§e스니킹(Shift) + 우클릭 §7- 잠금 메뉴 열기");
         sender.sendMessage("§8§m                                    ");
     }
+
+    private void convert(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sender.sendMessage("§c사용법: /chestlock convert <yaml|mysql> <yaml|mysql>");
+            return;
+        }
+
+        String from = args[1].toUpperCase(Locale.ROOT);
+        String to = args[2].toUpperCase(Locale.ROOT);
+        if (!isStorageType(from) || !isStorageType(to) || from.equals(to)) {
+            sender.sendMessage("§c서로 다른 저장소를 지정하세요: yaml, mysql");
+            return;
+        }
+        if (!plugin.getDataHandler().isReady()) {
+            sender.sendMessage("§c보호 데이터를 불러오는 중입니다. 잠시 후 다시 시도하세요");
+            return;
+        }
+
+        if (!converter.start(from, to, sender::sendMessage)) {
+            sender.sendMessage("§c이미 변환이 진행 중입니다");
+            return;
+        }
+        sender.sendMessage("§e" + from + " → " + to + " 변환을 백그라운드에서 시작합니다");
+    }
+
+    private void region(CommandSender sender, String[] args) {
+        String action = args.length > 1 ? args[1].toLowerCase(Locale.ROOT) : "";
+        boolean running = regionOperation != null && !regionOperation.isFinished();
+
+        switch (action) {
+            case "status":
+                sender.sendMessage(running ? regionOperation.status() : "§7진행 중인 영역 작업이 없습니다");
+                return;
+            case "cancel":
+                if (running) {
+                    regionOperation.cancel();
+                } else {
+                    sender.sendMessage("§7진행 중인 영역 작업이 없습니다");
+                }
+                return;
+            case "unlock":
+            case "transfer":
+            case "purge":
+                break;
+            default:
+                sendRegionUsage(sender);
+                return;
+        }
+
+        if (running) {
+            sender.sendMessage("§c이미 영역 작업이 진행 중입니다 (/chestlock region status, cancel)");
+            return;
+        }
+        if (!plugin.getDataHandler().isReady()) {
+            sender.sendMessage("§c보호 데이터를 불러오는 중입니다. 잠시 후 다시 시도하세요");
+            return;
+        }
+
+        RegionOperation.Type type = RegionOperation.Type.valueOf(action.toUpperCase(Locale.ROOT));
+        int areaStart = type == RegionOperation.Type.PURGE ? 2 : 3;
+        UUID player = null;
+        if (type != RegionOperation.Type.PURGE) {
+            player = args.length > 2 ? findPlayer(args[2]) : null;
+            if (player == null) {
+                sender.sendMessage("§c접속 중인 플레이어 이름이나 UUID를 입력하세요");
+                sendRegionUsage(sender);
+                return;
+            }
+        }
+
+        Region region = parseRegion(sender, args, areaStart);
+        if (region == null) {
+            sendRegionUsage(sender);
+            return;
+        }
+        long maxChunks = Math.max(1, plugin.getConfig().getLong("performance.region.max-chunks", 20000));
+        if (region.getChunkCount() > maxChunks) {
+            sender.sendMessage("§c영역이 너무 큽니다: 청크 " + region.getChunkCount() + "개 (최대 " + maxChunks + "개)");
+            return;
+        }
+
+        regionOperation = new RegionOperation(plugin, type, region, player, sender::sendMessage);
+        regionOperation.start();
+        sender.sendMessage("§e" + region + " 영역의 " + type + " 작업을 시작합니다 (청크 " + region.getChunkCount() + "개)");
+    }
+
+    /**
+     * cuboid x1 y1 z1 x2 y2 z2 [world] | radius r | chunks cx1 cz1 cx2 cz2 [world]
+     * @return null (after telling the sender why) if the arguments don't describe a region
+     */
+    private Region parseRegion(CommandSender sender, String[] args, int start) {
+        if (args.length <= start) return null;
+
+        String shape = args[start].toLowerCase(Locale.ROOT);
+        try {
+            switch (shape) {
+                case "cuboid": {
+                    if (args.length < start + 7) return null;
+                    World world = regionWorld(sender, args, start + 7);
+                    if (world == null) return null;
+                    return Region.cuboid(world,
+                            Integer.parseInt(args[start + 1]), Integer.parseInt(args[start + 2]), Integer.parseInt(args[start + 3]),
+                            Integer.parseInt(args[start + 4]), Integer.parseInt(args[start + 5]), Integer.parseInt(args[start + 6]));
+                }
+                case "radius": {
+                    if (args.length < start + 2) return null;
+                    if (!(sender instanceof Player)) {
+                        sender.sendMessage("§c반경은 플레이어 위치를 기준으로 합니다. 콘솔에서는 cuboid나 chunks를 사용하세요");
+                        return null;
+                    }
+                    int radius = Integer.parseInt(args[start + 1]);
+                    if (radius < 0) return null;
+                    Location location = ((Player) sender).getLocation();
+                    return Region.radius(location.getWorld(), location.getBlockX(), location.getBlockZ(), radius);
+                }
+                case "chunks": {
+                    if (args.length < start + 5) return null;
+                    World world = regionWorld(sender, args, start + 5);
+                    if (world == null) return null;
+                    return Region.chunks(world,
+                            Integer.parseInt(args[start + 1]), Integer.parseInt(args[start + 2]),
+                            Integer.parseInt(args[start + 3]), Integer.parseInt(args[start + 4]));
+                }
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            sender.sendMessage("§c좌표는 정수로 입력하세요");
+            return null;
+        }
+    }
+
+    /**
+     * World named at the given argument, or the player's own world when it is left out
+     */
+    private World regionWorld(CommandSender sender, String[] args, int index) {
+        if (args.length > index) {
+            World world = Bukkit.getWorld(args[index]);
+            if (world == null) {
+                sender.sendMessage("§c월드를 찾을 수 없습니다: " + args[index]);
+            }
+            return world;
+        }
+        if (sender instanceof Player) {
+            return ((Player) sender).getWorld();
+        }
+        sender.sendMessage("§c콘솔에서는 월드 이름을 입력하세요");
+        return null;
+    }
+
+    /**
+     * Online player by exact name, or any player by UUID
+     */
+    private static UUID findPlayer(String name) {
+        Player online = Bukkit.getPlayerExact(name);
+        if (online != null) return online.getUniqueId();
+        try {
+            return UUID.fromString(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void sendRegionUsage(CommandSender sender) {
+        sender.sendMessage("§c사용법: /chestlock region unlock <플레이어> <영역> §7- 해당 플레이어의 보호 해제");
+        sender.sendMessage("§c       /chestlock region transfer <플레이어> <영역> §7- 모든 보호를 플레이어에게 이전");
+        sender.sendMessage("§c       /chestlock region purge <영역> §7- 모든 보호 삭제");
+        sender.sendMessage("§c       /chestlock region <status|cancel> §7- 진행 상황, 취소");
+        sender.sendMessage("§7영역: cuboid <x1> <y1> <z1> <x2> <y2> <z2> [월드] | radius <반경> | chunks <cx1> <cz1> <cx2> <cz2> [월드]");
+    }
+
+    private static boolean isStorageType(String type) {
+        return type.equals("YAML") || type.equals("MYSQL");
+    }
+
+    private void sendStats(CommandSender sender) {
+        Metrics metrics = plugin.getMetrics();
+
+        sender.sendMessage("§8§m                                    ");
+        sender.sendMessage("§6§lChestLock §7- 성능 통계");
+        sender.sendMessage("§e리스너 §7(호출 / p50 / p99 / 최대)");
+        for (ListenerTimer timer : metrics.getListeners().values()) {
+            sender.sendMessage("§f " + timer.getName() + " §7" + latency(timer.getHistogram()));
+        }
+
+        StringBuilder lookups = new StringBuilder();
+        for (Map.Entry<String, Counter> entry : metrics.getLookups().entrySet()) {
+            if (lookups.length() > 0) lookups.append("§8, ");
+            lookups.append("§7").append(entry.getKey()).append(" §f").append(entry.getValue().get());
+        }
+        sender.sendMessage("§e저장소 조회 " + (lookups.length() > 0 ? lookups : "§7없음"));
+        sender.sendMessage("§ePDC 디코드 §f" + metrics.getPdcDecodes().get());
+        TileIndex tileIndex = plugin.getDataHandler().getTileIndex();
+        sender.sendMessage("§e타일 보호 인덱스 §f" + tileIndex.size() + "개"
+                + " §7/ 스캔 대기 청크 §f" + tileIndex.getScanQueueSize()
+                + " §7/ 청크 로드 시 적용할 변경 §f" + tileIndex.getPendingEditCount()
+                + (tileIndex.isLoaded() ? "" : " §7(불러오는 중)"));
+        OrphanCollector orphans = plugin.getDataHandler().getOrphanCollector();
+        sender.sendMessage("§e블록이 사라진 보호 정리 §f" + orphans.getRemovedCount() + "개"
+                + " §7/ 확인 대기 §f" + orphans.getQueueSize());
+
+        for (Map.Entry<String, Histogram> entry : metrics.getQueries().entrySet()) {
+            sender.sendMessage("§eDB " + entry.getKey() + " §7" + latency(entry.getValue()));
+        }
+        for (Map.Entry<String, Histogram> entry : metrics.getBatchSizes().entrySet()) {
+            Histogram.Snapshot snapshot = entry.getValue().snapshot();
+            sender.sendMessage(String.format(Locale.ROOT, "§e배치 %s §7%d회, 평균 %.1f, 최대 %d",
+                    entry.getKey(), snapshot.getCount(), snapshot.getMean(), snapshot.getMax()));
+        }
+        sender.sendMessage("§eDB 대기열 §f" + metrics.getDbQueueDepth()
+                + " §7/ 풀 대기 " + latency(metrics.getPoolWait())
+                + " §7/ 시간 초과 §f" + metrics.getPoolTimeouts().get());
+        sender.sendMessage("§eI/O 작업 §f" + plugin.getIoExecutor().getDepth()
+                + " §7/ 대기 " + latency(metrics.getIoQueueWait())
+                + " §7/ 거부 §f" + metrics.getIoRejected().get());
+        DatabaseManager databaseManager = plugin.getDatabaseManager();
+        if (databaseManager != null) {
+            sender.sendMessage("§eDB 서킷 §f" + databaseManager.getBreakerState());
+            IBlockStorage storage = plugin.getDataHandler().getStorage();
+            if (storage instanceof MySQLStorage) {
+                sender.sendMessage("§eDB 전송 대기 §f" + ((MySQLStorage) storage).getPendingWrites() + "§7개 (로컬 outbox)");
+            }
+            if (databaseManager.hasReplica()) {
+                sender.sendMessage("§eDB 복제본 " + (databaseManager.isReplicaActive() ? "§a읽기 사용 중" : "§c장애 (기본 서버에서 읽는 중)"));
+            }
+        }
+        sender.sendMessage("§e전체 로드 §7" + latency(metrics.getLoadDuration()));
+        sender.sendMessage("§e전체 저장 §7" + latency(metrics.getSaveDuration()));
+        sender.sendMessage("§8§m                                    ");
+    }
+
+    private void sendSlowEvents(CommandSender sender, int count) {
+        List<SlowEvent> events = plugin.getWatchdog().getRecent(count);
+        if (events.isEmpty()) {
+            sender.sendMessage("§8[§6ChestLock§8] §7기록된 느린 이벤트가 없습니다.");
+            return;
+        }
+
+        SimpleDateFormat time = new SimpleDateFormat("HH:mm:ss");
+        sender.sendMessage("§8§m                                    ");
+        sender.sendMessage("§6§lChestLock §7- 최근 느린 이벤트 (" + events.size() + "/"
+                + plugin.getWatchdog().getHistorySize() + ")");
+        for (SlowEvent event : events) {
+            sender.sendMessage(String.format(Locale.ROOT, "§7%s §e%s §f%.2fms §7(예산 %.2fms) §f%s",
+                    time.format(new Date(event.getTimestamp())), event.getListener(),
+                    event.getElapsedNanos() / 1_000_000.0, event.getBudgetNanos() / 1_000_000.0, event.getBlock()));
+            sender.sendMessage(String.format(Locale.ROOT, "  §7%s %s 조회 %d회 §8| §7cache %.2fms pdc %.2fms db %.2fms",
+                    event.getBackend(), event.getPath(), event.getLookups(),
+                    event.getCacheNanos() / 1_000_000.0, event.getPdcNanos() / 1_000_000.0,
+                    event.getDbNanos() / 1_000_000.0));
+        }
+        sender.sendMessage("§8§m                                    ");
+    }
+
+    private static String latency(Histogram histogram) {
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        return String.format(Locale.ROOT, "§f%d §7/ §f%.2fms §7/ §f%.2fms §7/ §f%.2fms",
+                snapshot.getCount(),
+                snapshot.getValueAt(0.5) / 1_000_000.0,
+                snapshot.getValueAt(0.99) / 1_000_000.0,
+                snapshot.getMax() / 1_000_000.0);
+    }
 }
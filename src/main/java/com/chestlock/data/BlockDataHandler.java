@@ -1,10 +1,14 @@
 package com.chestlock.data;
 
 import com.chestlock.ChestLock;
+import com.chestlock.metrics.LookupTrace;
+import com.chestlock.metrics.Metrics;
 import com.chestlock.model.BlockProtection;
 import com.chestlock.model.BlockProtection.FriendPermission;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.TileState;
@@ -12,6 +16,12 @@ import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Handles block protection data using PersistentDataContainer for TileEntities
@@ -19,21 +29,40 @@ import java.util.*;
  */
 public class BlockDataHandler {
     private final ChestLock plugin;
+    private final Metrics metrics;
     private final NamespacedKey ownerKey;
     private final NamespacedKey friendsKey;
     private final NamespacedKey hopperKey;
     private final NamespacedKey redstoneKey;
 
     // Storage for non-tile-entity blocks (YAML or MySQL)
-    private final IBlockStorage storage;
+    private volatile IBlockStorage storage;
+    // Owners of tile entity protections, readable without loading chunks
+    private final TileIndex tileIndex;
+    // Location-based protections per owner (tile entities are counted by the index)
+    private final OwnerCounts ownerCounts;
+    // Drops location-based protections whose block is gone
+    private final OrphanCollector orphanCollector;
+
+    // Readiness gate: location-based lookups answer LOADING until storage has loaded
+    private volatile boolean ready;
+    private CompletableFuture<Void> loading = CompletableFuture.completedFuture(null);
+    // Storage being prepared by switchStorage; whoever takes it out closes it
+    private final AtomicReference<IBlockStorage> switching = new AtomicReference<>();
+    // Location-based writes made while loading, applied once the loaded data is in place (main thread only)
+    private final List<Runnable> deferredWrites = new ArrayList<>();
 
     public BlockDataHandler(ChestLock plugin, IBlockStorage storage) {
         this.plugin = plugin;
+        this.metrics = plugin.getMetrics();
         this.ownerKey = new NamespacedKey(plugin, "owner");
         this.friendsKey = new NamespacedKey(plugin, "friends");
         this.hopperKey = new NamespacedKey(plugin, "hopper");
         this.redstoneKey = new NamespacedKey(plugin, "redstone");
         this.storage = storage;
+        this.tileIndex = new TileIndex(plugin, ownerKey);
+        this.ownerCounts = new OwnerCounts(plugin);
+        this.orphanCollector = new OrphanCollector(plugin);
     }
 
     /**
@@ -70,11 +99,155 @@ public class BlockDataHandler {
      * Get protection data for a block
      */
     public BlockProtection getProtection(Block block) {
+        LookupTrace trace = LookupTrace.current();
+        long start = System.nanoTime();
+        BlockProtection protection;
         if (isTileEntity(block)) {
-            return getProtectionFromTileEntity(block);
+            protection = getProtectionFromTileEntity(block);
+            trace.stage(LookupTrace.Stage.PDC, System.nanoTime() - start);
         } else {
-            return getProtectionFromLocation(block.getLocation());
+            protection = getProtectionFromLocation(block.getLocation());
         }
+        trace.lookup(block, System.nanoTime() - start);
+        return protection;
+    }
+
+    /**
+     * Owner of the protection at a location. Answers from the tile entity index and
+     * location storage when the chunk isn't loaded, so it never loads one.
+     * @return null if unprotected (or not known while protections are loading)
+     */
+    public UUID getOwner(Location location) {
+        World world = location.getWorld();
+        if (world.isChunkLoaded(BlockPositions.toChunk(location.getBlockX()), BlockPositions.toChunk(location.getBlockZ()))) {
+            BlockProtection protection = getProtection(location.getBlock());
+            return protection == null || protection.isPlaceholder() ? null : protection.getOwner();
+        }
+
+        UUID owner = tileIndex.getOwner(location);
+        if (owner != null) return owner;
+        BlockProtection protection = getProtectionFromLocation(location);
+        return protection == null || protection.isPlaceholder() ? null : protection.getOwner();
+    }
+
+    /**
+     * Remove an expired location-based protection if it still belongs to the given owner
+     * (it may have been unlocked or relocked since it was read). Main thread.
+     * @return Whether the protection was removed
+     */
+    public boolean removeExpired(Location location, UUID owner) {
+        return removeStored(location, owner);
+    }
+
+    /**
+     * Unlock an expired tile entity protection if the index still has it for the given
+     * owner: in the block if its chunk is loaded, otherwise when the chunk is next
+     * scanned or the block read. Main thread.
+     * @return Whether the protection was removed
+     */
+    public boolean removeExpiredTile(Location location, UUID owner) {
+        if (!owner.equals(tileIndex.getOwner(location))) return false;
+
+        if (location.getWorld().isChunkLoaded(BlockPositions.toChunk(location.getBlockX()),
+                BlockPositions.toChunk(location.getBlockZ()))) {
+            return editTile(location.getBlock(), owner, null);
+        }
+        tileIndex.deferEdit(LocationKeys.toKey(location), null);
+        return true;
+    }
+
+    /**
+     * Remove a location-based protection whose block is gone or no longer lockable
+     * (burnt, broken by physics, edited or regenerated outside the game). Main thread.
+     * @return Whether a protection was removed
+     */
+    public boolean removeOrphan(Location location) {
+        return removeStored(location, null);
+    }
+
+    /**
+     * Remove a location-based protection without touching the block (main thread)
+     * @param owner Only remove it if it belongs to this owner, null for any owner
+     * @return Whether a protection was removed
+     */
+    public boolean removeStored(Location location, UUID owner) {
+        if (!ready) return false;
+
+        BlockProtection protection = storage.get(location);
+        if (protection == null || protection.isPlaceholder()) return false;
+        if (owner != null && !protection.getOwner().equals(owner)) return false;
+
+        storage.remove(location);
+        ownerCounts.decrement(protection.getOwner());
+        return true;
+    }
+
+    /**
+     * Give a location-based protection to another owner, keeping its friends and
+     * settings, without touching the block (main thread)
+     * @param from Only transfer it if it belongs to this owner, null for any owner
+     * @return Whether a protection was transferred
+     */
+    public boolean transferStored(Location location, UUID from, UUID newOwner) {
+        if (!ready) return false;
+
+        BlockProtection protection = storage.get(location);
+        if (protection == null || protection.isPlaceholder()) return false;
+        if (from != null && !protection.getOwner().equals(from)) return false;
+        if (protection.getOwner().equals(newOwner)) return false;
+
+        storage.save(location, withOwner(protection, newOwner));
+        ownerCounts.decrement(protection.getOwner());
+        ownerCounts.increment(newOwner);
+        return true;
+    }
+
+    /**
+     * Unlock or transfer a tile entity protection in a loaded chunk (main thread)
+     * @param from Only change it if it belongs to this owner, null for any owner
+     * @param newOwner New owner, null to unlock
+     * @return Whether a protection was changed
+     */
+    public boolean editTile(Block block, UUID from, UUID newOwner) {
+        BlockProtection protection = getProtectionFromTileEntity(block);
+        if (protection == null) return false;
+        if (from != null && !protection.getOwner().equals(from)) return false;
+
+        if (newOwner == null) {
+            unlockTileEntity(block);
+            return true;
+        }
+        if (protection.getOwner().equals(newOwner)) return false;
+
+        writeTileOwner(block, newOwner);
+        tileIndex.put(block.getLocation(), newOwner);
+        return true;
+    }
+
+    private static BlockProtection withOwner(BlockProtection protection, UUID owner) {
+        BlockProtection copy = new BlockProtection(owner);
+        for (Map.Entry<UUID, FriendPermission> friend : protection.getFriends().entrySet()) {
+            copy.addFriend(friend.getKey(), friend.getValue());
+        }
+        copy.setAllowHopper(protection.isAllowHopper());
+        copy.setAllowRedstone(protection.isAllowRedstone());
+        return copy;
+    }
+
+    /**
+     * Number of blocks a player has locked, from counters kept on lock and unlock
+     */
+    public int getOwnedCount(UUID owner) {
+        return ownerCounts.get(owner) + tileIndex.countOwned(owner);
+    }
+
+    /**
+     * All protected positions: location storage plus indexed tile entities
+     */
+    public Set<Location> getProtectedLocations() {
+        Set<Location> locations = new HashSet<>(storage.getProtectedLocations());
+        locations.addAll(tileIndex.getLocations());
+        return locations;
     }
 
     /**
@@ -89,9 +262,10 @@ public class BlockDataHandler {
      */
     public void addFriend(Block block, UUID friendUuid, FriendPermission permission) {
         BlockProtection protection = getProtection(block);
-        if (protection != null) {
+        // Stand-ins while storage can't answer are never written back
+        if (protection != null && !protection.isPlaceholder()) {
             protection.addFriend(friendUuid, permission);
-            saveProtection(block, protection);
+            updateProtection(block, protection, ProtectionDelta.friendAdded(friendUuid, permission));
         }
     }
 
@@ -100,9 +274,10 @@ public class BlockDataHandler {
      */
     public void removeFriend(Block block, UUID friendUuid) {
         BlockProtection protection = getProtection(block);
-        if (protection != null) {
+        // Stand-ins while storage can't answer are never written back
+        if (protection != null && !protection.isPlaceholder()) {
             protection.removeFriend(friendUuid);
-            saveProtection(block, protection);
+            updateProtection(block, protection, ProtectionDelta.friendRemoved(friendUuid));
         }
     }
 
@@ -111,21 +286,20 @@ public class BlockDataHandler {
      */
     public void updateSettings(Block block, boolean allowHopper, boolean allowRedstone) {
         BlockProtection protection = getProtection(block);
-        if (protection != null) {
+        // Stand-ins while storage can't answer are never written back
+        if (protection != null && !protection.isPlaceholder()) {
             protection.setAllowHopper(allowHopper);
             protection.setAllowRedstone(allowRedstone);
-            saveProtection(block, protection);
+            updateProtection(block, protection, ProtectionDelta.settings(allowHopper, allowRedstone));
         }
     }
 
-    /**
-     * Save protection data
-     */
-    private void saveProtection(Block block, BlockProtection protection) {
+    private void updateProtection(Block block, BlockProtection protection, ProtectionDelta delta) {
         if (isTileEntity(block)) {
+            // The container is rewritten whole either way
             saveProtectionToTileEntity(block, protection);
         } else {
-            saveProtectionToLocation(block.getLocation(), protection);
+            updateProtectionAtLocation(block.getLocation(), protection, delta);
         }
     }
 
@@ -143,6 +317,7 @@ public class BlockDataHandler {
             pdc.set(redstoneKey, PersistentDataType.BYTE, (byte) 1);
 
             tileState.update();
+            tileIndex.put(block.getLocation(), owner);
         }
     }
 
@@ -158,10 +333,37 @@ public class BlockDataHandler {
             pdc.remove(redstoneKey);
 
             tileState.update();
+            tileIndex.remove(block.getLocation());
         }
     }
 
+    /**
+     * Set or clear the owner in a tile entity's container; friends and settings are
+     * kept on a transfer. The index is the caller's business.
+     * @param owner New owner, null to unlock
+     */
+    void writeTileOwner(Block block, UUID owner) {
+        BlockState state = block.getState();
+        if (!(state instanceof TileState)) return;
+
+        TileState tileState = (TileState) state;
+        PersistentDataContainer pdc = tileState.getPersistentDataContainer();
+        if (owner == null) {
+            pdc.remove(ownerKey);
+            pdc.remove(friendsKey);
+            pdc.remove(hopperKey);
+            pdc.remove(redstoneKey);
+        } else {
+            if (!pdc.has(ownerKey, PersistentDataType.STRING)) return;
+            pdc.set(ownerKey, PersistentDataType.STRING, owner.toString());
+        }
+        tileState.update();
+    }
+
     private BlockProtection getProtectionFromTileEntity(Block block) {
+        // A region edit made while the chunk was unloaded
+        tileIndex.applyPendingEdit(block);
+
         BlockState state = block.getState();
         if (state instanceof TileState) {
             TileState tileState = (TileState) state;
@@ -176,21 +378,10 @@ public class BlockDataHandler {
 
             UUID owner = UUID.fromString(ownerStr);
             BlockProtection protection = new BlockProtection(owner);
+            metrics.getPdcDecodes().increment();
 
             // Load friends
-            String friendsStr = pdc.get(friendsKey, PersistentDataType.STRING);
-            if (friendsStr != null && !friendsStr.isEmpty()) {
-                String[] friendEntries = friendsStr.split(";");
-                for (String entry : friendEntries) {
-                    if (entry.isEmpty()) continue;
-                    String[] parts = entry.split(":");
-                    if (parts.length == 2) {
-                        UUID friendUuid = UUID.fromString(parts[0]);
-                        FriendPermission perm = FriendPermission.valueOf(parts[1]);
-                        protection.addFriend(friendUuid, perm);
-                    }
-                }
-            }
+            FriendCodec.decode(pdc.get(friendsKey, PersistentDataType.STRING), protection);
 
             // Load settings
             Byte hopperByte = pdc.get(hopperKey, PersistentDataType.BYTE);
@@ -217,16 +408,7 @@ public class BlockDataHandler {
             pdc.set(ownerKey, PersistentDataType.STRING, protection.getOwner().toString());
 
             // Save friends as "uuid:permission;uuid:permission"
-            StringBuilder friendsBuilder = new StringBuilder();
-            for (Map.Entry<UUID, FriendPermission> entry : protection.getFriends().entrySet()) {
-                if (friendsBuilder.length() > 0) {
-                    friendsBuilder.append(";");
-                }
-                friendsBuilder.append(entry.getKey().toString())
-                        .append(":")
-                        .append(entry.getValue().name());
-            }
-            pdc.set(friendsKey, PersistentDataType.STRING, friendsBuilder.toString());
+            pdc.set(friendsKey, PersistentDataType.STRING, FriendCodec.encode(protection));
 
             pdc.set(hopperKey, PersistentDataType.BYTE, (byte) (protection.isAllowHopper() ? 1 : 0));
             pdc.set(redstoneKey, PersistentDataType.BYTE, (byte) (protection.isAllowRedstone() ? 1 : 0));
@@ -239,39 +421,278 @@ public class BlockDataHandler {
 
     private void lockRegularBlock(Block block, UUID owner) {
         BlockProtection protection = new BlockProtection(owner);
-        storage.save(block.getLocation(), protection);
+        saveProtectionToLocation(block.getLocation(), protection);
+        ownerCounts.increment(owner);
     }
 
     private void unlockRegularBlock(Block block) {
-        storage.remove(block.getLocation());
+        Location location = block.getLocation();
+        if (!ready) {
+            // The recount after loading includes it
+            deferredWrites.add(() -> storage.remove(location));
+            return;
+        }
+        BlockProtection previous = storage.get(location);
+        storage.remove(location);
+        if (previous != null && !previous.isPlaceholder()) {
+            ownerCounts.decrement(previous.getOwner());
+        }
     }
 
     private BlockProtection getProtectionFromLocation(Location location) {
+        if (!ready) return BlockProtection.LOADING;
         return storage.get(location);
     }
 
     private void saveProtectionToLocation(Location location, BlockProtection protection) {
+        if (!ready) {
+            deferredWrites.add(() -> storage.save(location, protection));
+            return;
+        }
         storage.save(location, protection);
     }
 
+    private void updateProtectionAtLocation(Location location, BlockProtection protection, ProtectionDelta delta) {
+        if (!ready) {
+            deferredWrites.add(() -> storage.update(location, protection, delta));
+            return;
+        }
+        storage.update(location, protection, delta);
+    }
+
     /**
      * Save all location-based protections
      */
     public void saveAll() {
+        long start = System.nanoTime();
         storage.saveAll();
+        metrics.getSaveDuration().recordSince(start);
     }
 
     /**
      * Load all location-based protections
      */
     public void loadAll() {
-        storage.loadAll();
+        loadInto(storage);
+    }
+
+    /**
+     * Load location-based protections on a background thread. Until it finishes,
+     * location-based blocks report LOADING and writes to them are deferred.
+     */
+    public void loadAllAsync() {
+        if (!ready && !loading.isDone()) return;
+
+        ready = false;
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        loading = future;
+        boolean accepted = plugin.getIoExecutor().execute(() -> {
+            try {
+                loadAll();
+                future.complete(null);
+            } catch (RuntimeException e) {
+                plugin.getLogger().severe("Failed to load protections: " + e.getMessage());
+                future.completeExceptionally(e);
+            }
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, this::markReady);
+            }
+        });
+        if (!accepted) {
+            // Keep serving what is already loaded
+            plugin.getLogger().severe("Storage I/O queue is full, protections were not reloaded");
+            future.complete(null);
+            markReady();
+        }
+    }
+
+    /**
+     * Replace the storage backend without a restart. Lookups are gated as while loading;
+     * the new storage is loaded (and, if migrating, receives the current live data) in the
+     * background, then swapped in on the main thread and the old one is closed.
+     * @param callback Called on the main thread with the new storage once it is in use,
+     *                 before the old one is closed (not called if the switch failed)
+     * @return false if data is still loading or the I/O queue is full, and the switch was not started
+     */
+    public boolean switchStorage(IBlockStorage next, boolean migrate, Consumer<IBlockStorage> callback) {
+        if (!ready) return false;
+
+        IBlockStorage previous = storage;
+        Map<String, BlockProtection> live = migrate ? previous.exportAll() : null;
+
+        ready = false;
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        loading = future;
+        switching.set(next);
+        boolean accepted = plugin.getIoExecutor().execute(() -> {
+            boolean success;
+            try {
+                loadInto(next);
+                // Live data wins over whatever the new backend already held
+                success = live == null || next.importAll(live);
+            } catch (RuntimeException e) {
+                plugin.getLogger().severe("Failed to prepare new storage: " + e.getMessage());
+                success = false;
+            }
+            future.complete(null);
+
+            boolean switched = success;
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    // Closed by close() if the plugin was disabled meanwhile
+                    if (!switching.compareAndSet(next, null)) return;
+                    if (switched) {
+                        storage = next;
+                    }
+                    markReady();
+                    if (switched) {
+                        callback.accept(next);
+                        previous.close();
+                    } else {
+                        plugin.getLogger().warning("Keeping the current storage");
+                        next.close();
+                    }
+                });
+            } else if (switching.compareAndSet(next, null)) {
+                // Disabled meanwhile: onDisable already closed the previous storage
+                next.close();
+            }
+        });
+        if (!accepted) {
+            switching.set(null);
+            future.complete(null);
+            markReady();
+            next.close();
+            return false;
+        }
+        return true;
+    }
+
+    private void loadInto(IBlockStorage target) {
+        long start = System.nanoTime();
+        target.loadAll();
+        metrics.getLoadDuration().recordSince(start);
+    }
+
+    /**
+     * Whether location-based protections are loaded and lookups are authoritative
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    private void markReady() {
+        if (ready) return;
+
+        ready = true;
+        for (Runnable write : deferredWrites) {
+            write.run();
+        }
+        if (!deferredWrites.isEmpty()) {
+            plugin.getLogger().info("Applied " + deferredWrites.size() + " protection changes made while loading");
+        }
+        deferredWrites.clear();
+        if (storage instanceof MySQLStorage) {
+            MySQLStorage mysql = (MySQLStorage) storage;
+            mysql.setOwnerListener(ownerCounts::ownerChanged);
+            // The first load failed and was retried in the background
+            mysql.setLoadListener(() -> {
+                if (plugin.isEnabled()) {
+                    Bukkit.getScheduler().runTask(plugin, () -> ownerCounts.reconcile(mysql));
+                }
+            });
+        }
+        if (plugin.isEnabled()) {
+            ownerCounts.reconcile(storage);
+        }
+    }
+
+    /**
+     * The storage backend currently in use
+     */
+    public IBlockStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Storage backend name for diagnostics
+     */
+    public String getBackendName() {
+        return storage instanceof MySQLStorage ? "MYSQL" : "YAML";
+    }
+
+    /**
+     * Recount location-based protections per owner after the storage was written to
+     * directly (main thread). While loading, the count runs once the load is in place.
+     */
+    public void recountOwners() {
+        if (ready) {
+            ownerCounts.reconcile(storage);
+        }
+    }
+
+    public TileIndex getTileIndex() {
+        return tileIndex;
+    }
+
+    public OrphanCollector getOrphanCollector() {
+        return orphanCollector;
     }
 
     /**
      * Close storage resources
      */
     public void close() {
+        tileIndex.stop();
+        orphanCollector.stop();
+        if (!ready && !awaitLoading()) {
+            // Never save a half-loaded data set over the full one
+            IBlockStorage next = switching.getAndSet(null);
+            if (next != null) {
+                // Only the new storage is incomplete; the current one is still whole
+                abandon(next);
+                storage.close();
+            } else {
+                abandon(storage);
+            }
+            return;
+        }
+        markReady();
+        IBlockStorage next = switching.getAndSet(null);
+        if (next != null) {
+            // Loaded, but the main thread task that would have swapped it in never ran
+            next.close();
+        }
         storage.close();
     }
+
+    /**
+     * Wait for a running load, for at most the I/O shutdown timeout
+     * @return false if it is still running
+     */
+    private boolean awaitLoading() {
+        long timeout = Math.max(1, plugin.getConfig().getLong("performance.io.shutdown-timeout", 30));
+        try {
+            loading.get(timeout, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // Already logged by the loading task
+        } catch (TimeoutException e) {
+            plugin.getLogger().warning("Protections still loading after " + timeout + "s, not saving them");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Release a storage whose load did not finish without saving its partial data
+     */
+    private void abandon(IBlockStorage target) {
+        // YAML only holds the partial data; MySQL sends nothing but its own queued writes
+        if (target instanceof MySQLStorage) {
+            target.close();
+        }
+    }
 }
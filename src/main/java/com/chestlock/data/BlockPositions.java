@@ -0,0 +1,49 @@
+package com.chestlock.data;
+
+/**
+ * Block coordinates packed into one long (MySQL pos column): 26 bits x, 26 bits z, 12 bits y.
+ * Covers x/z of +-33,554,431 and y of -2048..2047, which holds every vanilla world.
+ */
+public final class BlockPositions {
+
+    private BlockPositions() {
+    }
+
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long pos) {
+        return (int) (pos >> 38);
+    }
+
+    public static int unpackY(long pos) {
+        return (int) (pos << 52 >> 52);
+    }
+
+    public static int unpackZ(long pos) {
+        return (int) (pos << 26 >> 38);
+    }
+
+    /**
+     * Chunk coordinate of a block coordinate (floor division by 16)
+     */
+    public static int toChunk(int blockCoordinate) {
+        return blockCoordinate >> 4;
+    }
+
+    /**
+     * Chunk coordinates packed into one long: x in the high half, z in the low half
+     */
+    public static long packChunk(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public static int chunkX(long chunk) {
+        return (int) (chunk >> 32);
+    }
+
+    public static int chunkZ(long chunk) {
+        return (int) chunk;
+    }
+}
@@ -0,0 +1,26 @@
+package com.chestlock.data;
+
+import com.chestlock.model.BlockProtection;
+
+/**
+ * Buffered writer for bulk imports into a storage. Writes are applied in batches;
+ * failures surface as unchecked exceptions from write, flush or close.
+ */
+public interface BulkWriter extends AutoCloseable {
+
+    /**
+     * Queue a protection (keyed by location key), overwriting an existing entry
+     */
+    void write(String key, BlockProtection protection);
+
+    /**
+     * Apply queued writes
+     */
+    void flush();
+
+    /**
+     * Flush and release resources
+     */
+    @Override
+    void close();
+}
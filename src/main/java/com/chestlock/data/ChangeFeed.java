@@ -0,0 +1,253 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import com.chestlock.metrics.Counter;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Cross-server change log in the chestlock_changes table. Every mutation adds a row
+ * (world id, pos, writing node) in its own transaction; each node polls for rows by
+ * ascending id and hands other nodes' changes to its storage.
+ * <p>
+ * Ids are assigned at insert but become visible at commit, so a lower id can show up
+ * after a higher one. Skipped ids are re-checked for a while before they are given up
+ * (rolled back inserts leave permanent gaps).
+ * <p>
+ * The feed is normally positioned before a full snapshot is read. If that load failed it
+ * positions itself on its first poll and has the storage drop what it cached until then.
+ */
+public class ChangeFeed {
+
+    /**
+     * Applies a change made by another node
+     */
+    public interface Handler {
+        void changed(Connection conn, int worldId, long pos) throws SQLException;
+    }
+
+    private static final int POLL_LIMIT = 1000;
+    private static final int MAX_GAPS = 1000;
+    private static final long GAP_TIMEOUT_NANOS = 60_000_000_000L;
+    // Polls between pruning old entries
+    private static final int PRUNE_EVERY = 300;
+
+    private final ChestLock plugin;
+    private final DatabaseManager databaseManager;
+    private final byte[] node;
+    private final Counter applied;
+    private final Handler handler;
+    private final Runnable reset;
+
+    private final Object lock = new Object();
+    private long lastId = -1;
+    // Skipped id -> when it was first skipped
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private int polls;
+    private BukkitTask task;
+    // Set once the storage has asked for polling
+    private boolean started;
+
+    /**
+     * @param reset Drops cached state that may predate the position (called when the
+     *              feed positions itself without a snapshot)
+     */
+    public ChangeFeed(ChestLock plugin, DatabaseManager databaseManager, Handler handler, Runnable reset) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.node = UuidBytes.toBytes(UUID.randomUUID());
+        this.handler = handler;
+        this.reset = reset;
+        this.applied = plugin.getMetrics().getRegistry().counter("chestlock_sync_changes_applied_total",
+                "Protection changes from other servers applied to the cache");
+    }
+
+    /**
+     * Log a change inside the caller's transaction
+     */
+    public void record(Connection conn, int worldId, long pos) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO chestlock_changes (world_id, pos, node) VALUES (?, ?, ?)")) {
+            stmt.setInt(1, worldId);
+            stmt.setLong(2, pos);
+            stmt.setBytes(3, node);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Log several changes in one world inside the caller's transaction
+     */
+    public void recordAll(Connection conn, int worldId, Collection<Long> positions) throws SQLException {
+        if (positions.isEmpty()) return;
+
+        StringBuilder sql = new StringBuilder("INSERT INTO chestlock_changes (world_id, pos, node) VALUES ");
+        for (int i = 0; i < positions.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            for (long pos : positions) {
+                stmt.setInt(i++, worldId);
+                stmt.setLong(i++, pos);
+                stmt.setBytes(i++, node);
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Current end of the log. Call before reading a full snapshot so that changes
+     * committed while it is read are applied afterwards.
+     */
+    public void markPosition(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM chestlock_changes")) {
+            rs.next();
+            synchronized (lock) {
+                lastId = rs.getLong(1);
+                gaps.clear();
+            }
+        }
+    }
+
+    /**
+     * Start polling every interval seconds (no-op if already running or disabled in config)
+     */
+    public synchronized void start() {
+        started = true;
+        if (task != null || !plugin.isEnabled()) return;
+        if (!plugin.getConfig().getBoolean("storage.mysql.sync.enabled", true)) return;
+
+        long interval = Math.max(1, plugin.getConfig().getLong("storage.mysql.sync.poll-interval", 2)) * 20L;
+        // The timer only hands the poll to the I/O executor (skipped while it is saturated)
+        task = Bukkit.getScheduler().runTaskTimer(plugin, () -> plugin.getIoExecutor().execute(this::poll), interval, interval);
+    }
+
+    public synchronized void stop() {
+        started = false;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Pick up changed sync settings if polling was started
+     */
+    public synchronized void restart() {
+        if (!started) return;
+
+        stop();
+        start();
+    }
+
+    /**
+     * Read and apply new changes (runs off the main thread)
+     * @return Number of changes from other nodes that were applied
+     */
+    public int poll() {
+        if (!databaseManager.isAvailable() || !databaseManager.isSchemaReady()) return 0;
+
+        synchronized (lock) {
+            int count = 0;
+            // From the replica if there is one: the log and the rows it points to
+            // then come from the same point in replication
+            try (Connection conn = databaseManager.getReadConnection()) {
+                if (lastId < 0) {
+                    // No snapshot has been read: follow changes from here on
+                    markPosition(conn);
+                    reset.run();
+                    plugin.getLogger().warning("Following database changes without a full load; cached protections were dropped");
+                    return 0;
+                }
+                count += pollGaps(conn);
+                count += pollNew(conn);
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to poll database changes: " + e.getMessage());
+                databaseManager.reportFailure(e);
+            }
+            if (++polls % PRUNE_EVERY == 0) {
+                prune();
+            }
+            applied.add(count);
+            return count;
+        }
+    }
+
+    private int pollNew(Connection conn) throws SQLException {
+        String sql = "SELECT id, world_id, pos, node FROM chestlock_changes WHERE id > ? ORDER BY id LIMIT " + POLL_LIMIT;
+        int count = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, lastId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    long now = System.nanoTime();
+                    for (long missing = lastId + 1; missing < id && gaps.size() < MAX_GAPS; missing++) {
+                        gaps.put(missing, now);
+                    }
+                    lastId = id;
+                    count += apply(conn, rs);
+                }
+            }
+        }
+        return count;
+    }
+
+    private int pollGaps(Connection conn) throws SQLException {
+        if (gaps.isEmpty()) return 0;
+
+        long now = System.nanoTime();
+        gaps.values().removeIf(since -> now - since > GAP_TIMEOUT_NANOS);
+        if (gaps.isEmpty()) return 0;
+
+        StringBuilder sql = new StringBuilder("SELECT id, world_id, pos, node FROM chestlock_changes WHERE id IN (");
+        int i = 0;
+        for (Long ignored : gaps.keySet()) {
+            sql.append(i++ == 0 ? "?" : ",?");
+        }
+        sql.append(")");
+
+        int count = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            i = 1;
+            for (long id : gaps.keySet()) {
+                stmt.setLong(i++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    gaps.remove(rs.getLong("id"));
+                    count += apply(conn, rs);
+                }
+            }
+        }
+        return count;
+    }
+
+    private int apply(Connection conn, ResultSet rs) throws SQLException {
+        if (Arrays.equals(node, rs.getBytes("node"))) return 0;
+
+        handler.changed(conn, rs.getInt("world_id"), rs.getLong("pos"));
+        return 1;
+    }
+
+    /**
+     * Drop entries every node has had time to read
+     */
+    private void prune() {
+        long retention = Math.max(60, plugin.getConfig().getLong("storage.mysql.sync.retention", 3600));
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "DELETE FROM chestlock_changes WHERE changed_at < NOW() - INTERVAL ? SECOND LIMIT 10000")) {
+            stmt.setLong(1, retention);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to prune database changes: " + e.getMessage());
+            databaseManager.reportFailure(e);
+        }
+    }
+}
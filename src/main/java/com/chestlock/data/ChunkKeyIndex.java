@@ -0,0 +1,94 @@
+package com.chestlock.data;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Location keys grouped by world and chunk, kept next to an in-memory protection map
+ * so per-chunk lookups don't walk every protection. Safe to use from any thread.
+ */
+public final class ChunkKeyIndex {
+
+    // World -> packed chunk -> location keys
+    private final Map<String, Map<Long, Set<String>>> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Index built from existing keys
+     */
+    public static ChunkKeyIndex of(Collection<String> keys) {
+        ChunkKeyIndex index = new ChunkKeyIndex();
+        for (String key : keys) {
+            index.add(key);
+        }
+        return index;
+    }
+
+    public void add(String key) {
+        int[] split = split(key);
+        Long chunk = split == null ? null : chunkOf(key, split);
+        if (chunk == null) return;
+
+        worlds.computeIfAbsent(key.substring(0, split[0]), world -> new ConcurrentHashMap<>())
+                .compute(chunk, (id, keys) -> {
+                    if (keys == null) {
+                        keys = ConcurrentHashMap.newKeySet();
+                    }
+                    keys.add(key);
+                    return keys;
+                });
+    }
+
+    public void remove(String key) {
+        int[] split = split(key);
+        Long chunk = split == null ? null : chunkOf(key, split);
+        if (chunk == null) return;
+
+        Map<Long, Set<String>> chunks = worlds.get(key.substring(0, split[0]));
+        if (chunks == null) return;
+        chunks.computeIfPresent(chunk, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Keys in the given chunks of a world
+     * @param chunks Chunks packed with {@link BlockPositions#packChunk}
+     */
+    public Set<String> get(String world, Collection<Long> chunks) {
+        Set<String> found = new HashSet<>();
+        Map<Long, Set<String>> worldChunks = worlds.get(world);
+        if (worldChunks == null) return found;
+
+        for (long chunk : chunks) {
+            Set<String> keys = worldChunks.get(chunk);
+            if (keys != null) {
+                found.addAll(keys);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Positions of the commas in "world,x,y,z" (world names may contain commas), null if malformed
+     */
+    private static int[] split(String key) {
+        int third = key.lastIndexOf(',');
+        int second = third > 0 ? key.lastIndexOf(',', third - 1) : -1;
+        int first = second > 0 ? key.lastIndexOf(',', second - 1) : -1;
+        return first > 0 ? new int[] {first, second, third} : null;
+    }
+
+    private static Long chunkOf(String key, int[] split) {
+        try {
+            int x = Integer.parseInt(key.substring(split[0] + 1, split[1]));
+            int z = Integer.parseInt(key.substring(split[2] + 1));
+            return BlockPositions.packChunk(BlockPositions.toChunk(x), BlockPositions.toChunk(z));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.chestlock.data;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Circuit breaker for database access. Consecutive failures (errors or calls slower
+ * than the slow-call threshold) open the circuit; while open, callers fail fast
+ * instead of waiting on the pool. A health probe moves it to half-open and, once
+ * pending work has been replayed, closed again.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Breaker states
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long slowCallNanos;
+    private final AtomicInteger consecutiveFailures;
+    private final Consumer<State> onTransition;
+    private volatile State state;
+
+    /**
+     * @param failureThreshold Consecutive failures before opening
+     * @param slowCallMillis Calls slower than this count as failures (0 disables)
+     * @param onTransition Called after every state change
+     */
+    public CircuitBreaker(int failureThreshold, long slowCallMillis, Consumer<State> onTransition) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.slowCallNanos = slowCallMillis > 0 ? slowCallMillis * 1_000_000L : Long.MAX_VALUE;
+        this.consecutiveFailures = new AtomicInteger();
+        this.onTransition = onTransition;
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * Whether regular traffic may use the database
+     */
+    public boolean allowRequest() {
+        return state == State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Record a finished call and its duration
+     */
+    public void recordSuccess(long elapsedNanos) {
+        if (elapsedNanos > slowCallNanos) {
+            recordFailure();
+            return;
+        }
+        consecutiveFailures.set(0);
+    }
+
+    public void recordFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && state == State.CLOSED) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * Probe succeeded: stop failing fast for the probe, but keep traffic away until recovery finishes
+     */
+    public void halfOpen() {
+        if (state == State.OPEN) {
+            transition(State.HALF_OPEN);
+        }
+    }
+
+    /**
+     * Recovery finished: resume normal traffic
+     */
+    public void close() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Probe or recovery failed
+     */
+    public void reopen() {
+        if (state != State.OPEN) {
+            transition(State.OPEN);
+        }
+    }
+
+    private synchronized void transition(State next) {
+        if (state == next) return;
+        state = next;
+        onTransition.accept(next);
+    }
+}
@@ -2,23 +2,61 @@ package com.chestlock.data;
 
 import com.chestlock.ChestLock;
 import com.chestlock.data.migration.DatabaseMigrator;
+import com.chestlock.metrics.PoolMetricsTrackerFactory;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.function.BooleanSupplier;
 
 /**
  * Manages MySQL/MariaDB connections using HikariCP connection pooling
- * with automatic schema migration support
+ * with automatic schema migration support. Access goes through a circuit
+ * breaker so a failing database makes callers fail fast instead of blocking.
+ * An optional read replica gets its own pool for reads that tolerate lag.
  */
 public class DatabaseManager {
 
+    // How long reads stay on the primary after the replica failed
+    private static final long REPLICA_RETRY_NANOS = 30_000_000_000L;
+    // MySQL "Lock wait timeout exceeded"
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
     private final ChestLock plugin;
     private HikariDataSource dataSource;
+    private HikariDataSource replicaSource;
+    private volatile long replicaDownSince;
+    private volatile boolean replicaDown;
+    // Longest wait for a pool connection on the main thread (milliseconds)
+    private long lookupTimeout = 250;
+    private CircuitBreaker breaker;
+    private BukkitTask probeTask;
+    private volatile BooleanSupplier recoveryHandler;
+    private boolean backgroundMigrations;
+    private volatile boolean schemaReady;
+    // False for a short-lived pool (conversions) that must not replace the active one's gauges
+    private final boolean exportMetrics;
 
     public DatabaseManager(ChestLock plugin) {
+        this(plugin, true);
+    }
+
+    /**
+     * @param exportMetrics Whether the breaker and pool publish gauges (only the pool in use should)
+     */
+    public DatabaseManager(ChestLock plugin, boolean exportMetrics) {
         this.plugin = plugin;
+        this.exportMetrics = exportMetrics;
+        this.breaker = new CircuitBreaker(3, 0, this::onBreakerTransition);
     }
 
     /**
@@ -33,7 +71,84 @@ public class DatabaseManager {
         int maxPoolSize = plugin.getConfig().getInt("storage.mysql.pool.maximum-pool-size", 10);
         int minIdle = plugin.getConfig().getInt("storage.mysql.pool.minimum-idle", 2);
         long connectionTimeout = plugin.getConfig().getLong("storage.mysql.pool.connection-timeout", 30000);
+        lookupTimeout = Math.max(1, plugin.getConfig().getLong("storage.mysql.pool.lookup-timeout", 250));
+        backgroundMigrations = plugin.getConfig().getBoolean("storage.mysql.migration.background", true);
+
+        breaker = new CircuitBreaker(
+                plugin.getConfig().getInt("storage.mysql.circuit-breaker.failure-threshold", 3),
+                plugin.getConfig().getLong("storage.mysql.circuit-breaker.slow-call-threshold", 2000),
+                this::onBreakerTransition);
+        if (exportMetrics) {
+            plugin.getMetrics().getRegistry().gauge("chestlock_db_circuit_state",
+                    "Database circuit breaker state (0 closed, 1 open, 2 half-open)", () -> breaker.getState().ordinal());
+        }
+
+        HikariConfig config = poolConfig(host, port, database, username, password, maxPoolSize, minIdle, connectionTimeout);
+
+        // Connection pool name
+        config.setPoolName(exportMetrics ? "ChestLock-HikariCP" : "ChestLock-HikariCP-Convert");
+
+        // Pool wait times and occupancy for /chestlock stats and the metrics export
+        if (exportMetrics) {
+            config.setMetricsTrackerFactory(new PoolMetricsTrackerFactory(plugin.getMetrics()));
+        }
+
+        try {
+            dataSource = new HikariDataSource(config);
+            plugin.getLogger().info("Successfully connected to MySQL database!");
+            plugin.getLogger().info(String.format("Connection: %s:%d/%s", host, port, database));
+
+            // Run database migrations now, or leave them to the background load
+            if (backgroundMigrations) {
+                plugin.getLogger().info("Schema migrations run in the background while protections load");
+            } else {
+                ensureSchema();
+            }
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to connect to MySQL database!");
+            plugin.getLogger().severe("Error: " + e.getMessage());
+            plugin.getLogger().severe("Falling back to YAML storage...");
+            throw new RuntimeException("Failed to initialize database connection", e);
+        }
+
+        if (plugin.getConfig().getBoolean("storage.mysql.replica.enabled", false)) {
+            connectReplica(database, username, password);
+        }
+    }
+
+    /**
+     * Open the read replica pool. A replica that can't be reached is not fatal:
+     * reads stay on the primary.
+     */
+    private void connectReplica(String database, String username, String password) {
+        String host = plugin.getConfig().getString("storage.mysql.replica.host", "localhost");
+        int port = plugin.getConfig().getInt("storage.mysql.replica.port", 3306);
+        String replicaDatabase = orDefault(plugin.getConfig().getString("storage.mysql.replica.database"), database);
+        String replicaUsername = orDefault(plugin.getConfig().getString("storage.mysql.replica.username"), username);
+        String replicaPassword = orDefault(plugin.getConfig().getString("storage.mysql.replica.password"), password);
+        int maxPoolSize = plugin.getConfig().getInt("storage.mysql.replica.maximum-pool-size", 5);
+        // Short: a replica that doesn't answer only delays the fallback to the primary
+        long connectionTimeout = Math.max(250, plugin.getConfig().getLong("storage.mysql.replica.connection-timeout", 1000));
+
+        HikariConfig config = poolConfig(host, port, replicaDatabase, replicaUsername, replicaPassword,
+                maxPoolSize, 1, connectionTimeout);
+        config.setPoolName("ChestLock-HikariCP-Replica");
+        config.setReadOnly(true);
+
+        try {
+            replicaSource = new HikariDataSource(config);
+            plugin.getLogger().info(String.format("Read replica: %s:%d/%s", host, port, replicaDatabase));
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to connect to the read replica, reading from the primary: " + e.getMessage());
+        }
+    }
 
+    private static String orDefault(String value, String fallback) {
+        return value == null || value.isEmpty() ? fallback : value;
+    }
+
+    private static HikariConfig poolConfig(String host, int port, String database, String username, String password,
+                                           int maxPoolSize, int minIdle, long connectionTimeout) {
         HikariConfig config = new HikariConfig();
         config.setJdbcUrl(String.format("jdbc:mariadb://%s:%d/%s", host, port, database));
         config.setUsername(username);
@@ -53,38 +168,37 @@ public class DatabaseManager {
         config.addDataSourceProperty("cacheServerConfiguration", "true");
         config.addDataSourceProperty("elideSetAutoCommits", "true");
         config.addDataSourceProperty("maintainTimeStats", "false");
-
-        // Connection pool name
-        config.setPoolName("ChestLock-HikariCP");
-
-        try {
-            dataSource = new HikariDataSource(config);
-            plugin.getLogger().info("Successfully connected to MySQL database!");
-            plugin.getLogger().info(String.format("Connection: %s:%d/%s", host, port, database));
-
-            // Run database migrations
-            runMigrations();
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to connect to MySQL database!");
-            plugin.getLogger().severe("Error: " + e.getMessage());
-            plugin.getLogger().severe("Falling back to YAML storage...");
-            throw new RuntimeException("Failed to initialize database connection", e);
-        }
+        return config;
     }
 
     /**
-     * Run database schema migrations
+     * Bring the schema up to date, blocking until done. Callers that touch the tables off
+     * the main thread call this first; after the first success it returns immediately.
      */
-    private void runMigrations() {
+    public synchronized void ensureSchema() {
+        if (schemaReady) return;
+
         plugin.getLogger().info("Checking database schema version...");
         DatabaseMigrator migrator = new DatabaseMigrator(plugin, this);
         migrator.migrate();
+        schemaReady = true;
+    }
+
+    /**
+     * Whether migrations have finished and the tables have the current layout
+     */
+    public boolean isSchemaReady() {
+        return schemaReady;
     }
 
     /**
      * Close the database connection pool
      */
     public void disconnect() {
+        cancelProbe();
+        if (replicaSource != null && !replicaSource.isClosed()) {
+            replicaSource.close();
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             plugin.getLogger().info("Disconnected from MySQL database");
@@ -92,15 +206,231 @@ public class DatabaseManager {
     }
 
     /**
-     * Get a connection from the pool
+     * Get a connection from the pool, failing fast while the circuit is open
      */
     public Connection getConnection() throws SQLException {
+        if (!breaker.allowRequest()) {
+            throw new SQLTransientConnectionException("Database unavailable (circuit " + breaker.getState() + ")");
+        }
+        try {
+            return acquire();
+        } catch (SQLException e) {
+            breaker.recordFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * Get a connection for reads that tolerate replication lag (full loads, listings,
+     * change polling): the replica if one is configured and reachable, otherwise the primary.
+     * Reads that must see this server's own recent writes use {@link #getConnection()}.
+     */
+    public Connection getReadConnection() throws SQLException {
+        Connection conn = replicaConnection(-1);
+        return conn != null ? conn : getConnection();
+    }
+
+    /**
+     * Get a connection for a lookup on the main thread, waiting at most lookup-timeout for a
+     * free one instead of the pool's connection-timeout. Running out of time means the pool
+     * is busy rather than the database down, so it doesn't count toward the breaker.
+     * @param primary Whether the read must see this server's own recent writes
+     */
+    public Connection getLookupConnection(boolean primary) throws SQLException {
+        if (!breaker.allowRequest()) {
+            throw new SQLTransientConnectionException("Database unavailable (circuit " + breaker.getState() + ")");
+        }
+        if (!primary) {
+            Connection conn = replicaConnection(lookupTimeout);
+            if (conn != null) return conn;
+        }
+        if (dataSource == null || dataSource.isClosed()) {
+            throw new SQLException("DataSource is not initialized or has been closed");
+        }
+        try {
+            return acquire(dataSource, lookupTimeout);
+        } catch (SQLTransientConnectionException e) {
+            throw e;
+        } catch (SQLException e) {
+            breaker.recordFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * A replica connection, or null if there is no usable replica
+     * @param timeoutMillis Longest wait for a free connection, -1 for the pool's own timeout
+     */
+    private Connection replicaConnection(long timeoutMillis) {
+        HikariDataSource replica = replicaSource;
+        if (replica == null || replica.isClosed()
+                || (replicaDown && System.nanoTime() - replicaDownSince < REPLICA_RETRY_NANOS)) {
+            return null;
+        }
+        try {
+            Connection conn = timeoutMillis < 0 ? replica.getConnection() : acquire(replica, timeoutMillis);
+            if (replicaDown) {
+                replicaDown = false;
+                plugin.getLogger().info("Read replica reachable again");
+            }
+            return conn;
+        } catch (SQLException e) {
+            if (!replicaDown) {
+                plugin.getLogger().warning("Read replica unavailable, reading from the primary: " + e.getMessage());
+            }
+            replicaDownSince = System.nanoTime();
+            replicaDown = true;
+            return null;
+        }
+    }
+
+    private static Connection acquire(HikariDataSource source, long timeoutMillis) throws SQLException {
+        HikariPoolMXBean pool = source.getHikariPoolMXBean();
+        return pool instanceof HikariPool ? ((HikariPool) pool).getConnection(timeoutMillis) : source.getConnection();
+    }
+
+    /**
+     * Whether a read replica pool is configured
+     */
+    public boolean hasReplica() {
+        return replicaSource != null;
+    }
+
+    /**
+     * Whether reads currently go to the replica
+     */
+    public boolean isReplicaActive() {
+        return replicaSource != null && !replicaSource.isClosed() && !replicaDown;
+    }
+
+    /**
+     * Get a connection regardless of the breaker, for replaying pending writes while half-open
+     */
+    Connection getRecoveryConnection() throws SQLException {
+        return acquire();
+    }
+
+    private Connection acquire() throws SQLException {
         if (dataSource == null || dataSource.isClosed()) {
             throw new SQLException("DataSource is not initialized or has been closed");
         }
         return dataSource.getConnection();
     }
 
+    /**
+     * Report a completed database operation (slow ones count as failures)
+     */
+    public void reportSuccess(long elapsedNanos) {
+        breaker.recordSuccess(elapsedNanos);
+    }
+
+    /**
+     * Report a failed database operation
+     */
+    public void reportFailure(SQLException e) {
+        // A rejected statement (constraint, bad data) says nothing about the database's health
+        if (!isConnectionError(e)) return;
+        // Fail-fast rejections are not new evidence
+        if (!(e instanceof SQLTransientConnectionException) || breaker.allowRequest()) {
+            breaker.recordFailure();
+        }
+    }
+
+    /**
+     * Whether an error means the database couldn't be reached or may accept the same
+     * statement when retried (lost connection, timeout, deadlock), rather than rejecting it
+     */
+    public static boolean isConnectionError(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        // 08: connection exception, 40: transaction rollback
+        return state == null || state.startsWith("08") || state.startsWith("40")
+                || e.getErrorCode() == ER_LOCK_WAIT_TIMEOUT;
+    }
+
+    /**
+     * Whether regular traffic may use the database
+     */
+    public boolean isAvailable() {
+        return breaker.allowRequest();
+    }
+
+    public CircuitBreaker.State getBreakerState() {
+        return breaker.getState();
+    }
+
+    /**
+     * Called on the probe thread once the database answers again; returns true when
+     * pending work has been replayed and traffic can resume
+     */
+    public void setRecoveryHandler(BooleanSupplier recoveryHandler) {
+        this.recoveryHandler = recoveryHandler;
+    }
+
+    private void onBreakerTransition(CircuitBreaker.State state) {
+        switch (state) {
+            case OPEN:
+                plugin.getLogger().warning("Database unavailable, switching to cache-only mode (writes are spooled)");
+                scheduleProbe();
+                break;
+            case HALF_OPEN:
+                plugin.getLogger().info("Database reachable again, replaying spooled writes...");
+                break;
+            case CLOSED:
+                cancelProbe();
+                plugin.getLogger().info("Database recovered, leaving cache-only mode");
+                break;
+        }
+    }
+
+    private synchronized void scheduleProbe() {
+        if (probeTask != null || !plugin.isEnabled()) return;
+        long interval = Math.max(1, plugin.getConfig().getLong("storage.mysql.circuit-breaker.probe-interval", 5)) * 20L;
+        probeTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> plugin.getIoExecutor().execute(this::probe), interval, interval);
+    }
+
+    private synchronized void cancelProbe() {
+        if (probeTask != null) {
+            probeTask.cancel();
+            probeTask = null;
+        }
+    }
+
+    private void probe() {
+        if (breaker.getState() != CircuitBreaker.State.OPEN) return;
+
+        try (Connection conn = acquire()) {
+            if (!conn.isValid(2)) return;
+        } catch (SQLException e) {
+            return;
+        }
+
+        breaker.halfOpen();
+        BooleanSupplier handler = recoveryHandler;
+        boolean recovered;
+        try {
+            recovered = handler == null || handler.getAsBoolean();
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Replaying spooled writes failed: " + e.getMessage());
+            recovered = false;
+        }
+        if (recovered) {
+            breaker.close();
+        } else {
+            breaker.reopen();
+        }
+    }
+
+    /**
+     * Whether this pool publishes gauges (false for a short-lived conversion pool)
+     */
+    public boolean exportsMetrics() {
+        return exportMetrics;
+    }
+
     /**
      * Check if the database is connected
      */
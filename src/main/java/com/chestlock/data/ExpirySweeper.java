@@ -0,0 +1,257 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import com.chestlock.metrics.Counter;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removes protections whose owner has not been online for a configured number of days.
+ * Walks storage, then the tile entity index, one page at a time on the I/O executor
+ * (one page in flight, one page per interval) and removes the expired ones on the main
+ * thread, so a pass never stalls a tick however many protections there are. Tile
+ * entities in chunks that aren't loaded are unlocked when the chunk is next scanned.
+ * <p>
+ * The position in the pass is saved to expiry-cursor.dat, so a restart continues
+ * where the last run stopped. Owners without any recorded last-seen time are kept.
+ */
+public class ExpirySweeper {
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    // Pages between cursor saves
+    private static final int SAVE_EVERY = 30;
+    // Saved in place of the backend name while the tile entity index is swept
+    private static final String TILES = "TILES";
+
+    private final ChestLock plugin;
+    private final File cursorFile;
+    private final Counter expired;
+    private final AtomicBoolean running;
+    // Owner -> last seen (0 if unknown) for the current pass, raised by joins and quits
+    private final Map<UUID, Long> seenCache;
+    private volatile boolean cursorLoaded;
+    private volatile String backend;
+    private volatile String cursor;
+    // No new pass before this time (epoch millis)
+    private volatile long restUntil;
+    private int pages;
+    private volatile long inactiveMillis;
+    private volatile int batchSize;
+    private volatile long restMillis;
+    private BukkitTask task;
+
+    public ExpirySweeper(ChestLock plugin) {
+        this.plugin = plugin;
+        this.cursorFile = new File(plugin.getDataFolder(), "expiry-cursor.dat");
+        this.running = new AtomicBoolean();
+        this.seenCache = new ConcurrentHashMap<>();
+        this.expired = plugin.getMetrics().getRegistry().counter("chestlock_expired_protections_total",
+                "Protections removed because their owner was inactive");
+    }
+
+    /**
+     * (Re)start from the current config (no-op when expiry is disabled)
+     */
+    public void start() {
+        stop();
+        if (!plugin.getConfig().getBoolean("expiry.enabled", false)) return;
+
+        inactiveMillis = Math.max(1, plugin.getConfig().getLong("expiry.inactive-days", 365)) * DAY_MILLIS;
+        batchSize = Math.max(1, plugin.getConfig().getInt("expiry.batch-size", 200));
+        restMillis = Math.max(1, plugin.getConfig().getLong("expiry.rescan-interval", 24)) * HOUR_MILLIS;
+        long interval = Math.max(1, plugin.getConfig().getLong("expiry.interval", 20));
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, interval, interval);
+    }
+
+    /**
+     * Stop the timer and save the position in the pass (blocking)
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+            if (cursorLoaded) {
+                saveCursor();
+            }
+        }
+    }
+
+    /**
+     * A player joined or left: their protections are not expired (main thread)
+     */
+    public void seen(UUID player) {
+        seenCache.merge(player, System.currentTimeMillis(), Math::max);
+    }
+
+    private void tick() {
+        // Lookups aren't authoritative until storage has loaded
+        if (!plugin.getDataHandler().isReady()) return;
+        if (System.currentTimeMillis() < restUntil) return;
+        if (!running.compareAndSet(false, true)) return;
+
+        if (!plugin.getIoExecutor().execute(this::sweepPage)) {
+            // Saturated, try again next interval
+            running.set(false);
+        }
+    }
+
+    /**
+     * Read one page and hand its expired protections to the main thread
+     */
+    private void sweepPage() {
+        try {
+            if (!cursorLoaded) {
+                loadCursor();
+                cursorLoaded = true;
+                if (System.currentTimeMillis() < restUntil) return;
+            }
+
+            BlockDataHandler dataHandler = plugin.getDataHandler();
+            String name = dataHandler.getBackendName();
+            boolean tiles = TILES.equals(backend);
+            if (!tiles && !name.equals(backend)) {
+                // Cursors only mean something to the storage that made them
+                backend = name;
+                cursor = null;
+            }
+            if (cursor == null && !tiles) {
+                // New pass; kept until then so removals still queued see joins
+                seenCache.clear();
+            }
+            // Until the saved index is read it only knows scanned chunks
+            if (tiles && !dataHandler.getTileIndex().isLoaded()) return;
+
+            OwnerPage page = tiles
+                    ? dataHandler.getTileIndex().ownerPage(cursor, batchSize)
+                    : dataHandler.getStorage().ownerPage(cursor, batchSize);
+            Map<String, UUID> candidates = findExpired(page.getOwners());
+            if (!candidates.isEmpty() && plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> removeExpired(candidates, tiles));
+            }
+
+            cursor = page.getNext();
+            if (cursor == null && !tiles) {
+                // Tile entities next
+                backend = TILES;
+                saveCursor();
+            } else if (cursor == null) {
+                // Pass complete
+                backend = name;
+                restUntil = System.currentTimeMillis() + restMillis;
+                saveCursor();
+            } else if (++pages % SAVE_EVERY == 0) {
+                saveCursor();
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Failed to check protections for expiry: " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, UUID> findExpired(Map<String, UUID> owners) {
+        Set<UUID> unknown = new HashSet<>();
+        for (UUID owner : owners.values()) {
+            if (!seenCache.containsKey(owner)) {
+                unknown.add(owner);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            Map<UUID, Long> seen = plugin.getNameCache().loadLastSeen(unknown);
+            for (UUID owner : unknown) {
+                Long time = seen.get(owner);
+                if (time == null) {
+                    // Not recorded since expiry was added: fall back to the server's player data
+                    time = Bukkit.getOfflinePlayer(owner).getLastPlayed();
+                }
+                // A join meanwhile wins
+                seenCache.merge(owner, time, Math::max);
+            }
+        }
+
+        long cutoff = System.currentTimeMillis() - inactiveMillis;
+        Map<String, UUID> candidates = new LinkedHashMap<>();
+        for (Map.Entry<String, UUID> entry : owners.entrySet()) {
+            if (isExpired(entry.getValue(), cutoff)) {
+                candidates.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (candidates.isEmpty()) return candidates;
+
+        // Times cached earlier in the pass may be stale (seen on another server since)
+        Set<UUID> cached = new HashSet<>(candidates.values());
+        cached.removeAll(unknown);
+        if (!cached.isEmpty()) {
+            for (Map.Entry<UUID, Long> entry : plugin.getNameCache().loadLastSeen(cached).entrySet()) {
+                seenCache.merge(entry.getKey(), entry.getValue(), Math::max);
+            }
+            candidates.values().removeIf(owner -> !isExpired(owner, cutoff));
+        }
+        return candidates;
+    }
+
+    private boolean isExpired(UUID owner, long cutoff) {
+        long seen = seenCache.getOrDefault(owner, 0L);
+        return seen > 0 && seen < cutoff;
+    }
+
+    private void removeExpired(Map<String, UUID> candidates, boolean tiles) {
+        long cutoff = System.currentTimeMillis() - inactiveMillis;
+        int removed = 0;
+        for (Map.Entry<String, UUID> entry : candidates.entrySet()) {
+            UUID owner = entry.getValue();
+            // Joined since the page was read
+            if (Bukkit.getPlayer(owner) != null || !isExpired(owner, cutoff)) continue;
+
+            // Worlds that aren't loaded are checked again next pass
+            Location location = LocationKeys.toLocation(entry.getKey());
+            if (location == null) continue;
+            BlockDataHandler dataHandler = plugin.getDataHandler();
+            if (tiles ? dataHandler.removeExpiredTile(location, owner) : dataHandler.removeExpired(location, owner)) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            expired.add(removed);
+            plugin.getLogger().info("Removed " + removed + " protections of inactive owners");
+        }
+    }
+
+    private void loadCursor() {
+        if (!cursorFile.exists()) return;
+
+        try {
+            // backend \t cursor \t rest until
+            String[] parts = new String(Files.readAllBytes(cursorFile.toPath()), StandardCharsets.UTF_8).trim().split("\t", -1);
+            if (parts.length != 3) return;
+
+            backend = parts[0];
+            cursor = parts[1].isEmpty() ? null : parts[1];
+            restUntil = Long.parseLong(parts[2]);
+        } catch (IOException | NumberFormatException e) {
+            plugin.getLogger().warning("Failed to load expiry cursor, starting a new pass: " + e.getMessage());
+        }
+    }
+
+    private synchronized void saveCursor() {
+        String line = (backend == null ? "" : backend) + "\t" + (cursor == null ? "" : cursor) + "\t" + restUntil + "\n";
+        File tempFile = new File(cursorFile.getPath() + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), line.getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile.toPath(), cursorFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save expiry cursor: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.chestlock.data;
+
+import com.chestlock.model.BlockProtection;
+import com.chestlock.model.BlockProtection.FriendPermission;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Encodes friend lists as "uuid:permission;uuid:permission" (PersistentDataContainer format)
+ */
+public final class FriendCodec {
+
+    private FriendCodec() {
+    }
+
+    /**
+     * Parse a friend string into the protection
+     */
+    public static void decode(String friendsStr, BlockProtection protection) {
+        if (friendsStr == null || friendsStr.isEmpty()) return;
+
+        String[] friendEntries = friendsStr.split(";");
+        for (String entry : friendEntries) {
+            if (entry.isEmpty()) continue;
+            String[] parts = entry.split(":");
+            if (parts.length == 2) {
+                UUID friendUuid = UUID.fromString(parts[0]);
+                FriendPermission perm = FriendPermission.valueOf(parts[1]);
+                protection.addFriend(friendUuid, perm);
+            }
+        }
+    }
+
+    /**
+     * Build the friend string for a protection
+     */
+    public static String encode(BlockProtection protection) {
+        StringBuilder friendsBuilder = new StringBuilder();
+        for (Map.Entry<UUID, FriendPermission> entry : protection.getFriends().entrySet()) {
+            if (friendsBuilder.length() > 0) {
+                friendsBuilder.append(";");
+            }
+            friendsBuilder.append(entry.getKey().toString())
+                    .append(":")
+                    .append(entry.getValue().name());
+        }
+        return friendsBuilder.toString();
+    }
+}
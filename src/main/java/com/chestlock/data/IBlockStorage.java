@@ -3,7 +3,12 @@ package com.chestlock.data;
 import com.chestlock.model.BlockProtection;
 import org.bukkit.Location;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Interface for block protection storage
@@ -16,6 +21,15 @@ public interface IBlockStorage {
      */
     void save(Location location, BlockProtection protection);
 
+    /**
+     * Save a change to a protection that is already stored
+     * @param protection The protection with the change applied
+     * @param delta What changed (storage that can write single rows persists only this)
+     */
+    default void update(Location location, BlockProtection protection, ProtectionDelta delta) {
+        save(location, protection);
+    }
+
     /**
      * Get protection data for a location
      */
@@ -41,6 +55,57 @@ public interface IBlockStorage {
      */
     Set<Location> getProtectedLocations();
 
+    /**
+     * Copy of all protections held in memory, keyed by location key (for backend migration)
+     */
+    Map<String, BlockProtection> exportAll();
+
+    /**
+     * Write protections exported from another storage, overwriting existing entries
+     * @return false if the import failed
+     */
+    boolean importAll(Map<String, BlockProtection> protections);
+
+    /**
+     * Stream every stored protection, keyed by location key, without materializing them all
+     * (MySQL reads the tables, not the cache). Runs off the main thread.
+     */
+    void forEachStored(BiConsumer<String, BlockProtection> action);
+
+    /**
+     * Count protections per owner from memory, if memory holds all of them. Main thread,
+     * so the result includes every change made so far; no change from elsewhere is applied
+     * until the result has been handed over.
+     * @param result Receives the counts
+     * @return false if only the backing store has them all
+     */
+    boolean countOwners(Consumer<Map<UUID, Integer>> result);
+
+    /**
+     * Read owners of stored protections a page at a time, resuming from a cursor.
+     * Protections added during a pass may or may not be included. Runs off the main thread.
+     * @param cursor {@link OwnerPage#getNext()} of the previous page, null to start a pass
+     * @param limit Maximum protections in the page
+     */
+    OwnerPage ownerPage(String cursor, int limit);
+
+    /**
+     * Location keys of stored protections in some chunks of one world. Runs off the main thread.
+     * @param chunks Chunks packed with {@link BlockPositions#packChunk}
+     */
+    Set<String> keysInChunks(String world, Collection<Long> chunks);
+
+    /**
+     * Look up stored protections by location key; missing keys are left out
+     */
+    Map<String, BlockProtection> getStored(Collection<String> keys);
+
+    /**
+     * Open a writer for bulk imports
+     * @param batchSize Writes per batch (and per transaction for MySQL)
+     */
+    BulkWriter openBulkWriter(int batchSize);
+
     /**
      * Close/cleanup resources
      */
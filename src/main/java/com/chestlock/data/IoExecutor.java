@@ -0,0 +1,173 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import com.chestlock.metrics.Counter;
+import com.chestlock.metrics.Histogram;
+import org.bukkit.Bukkit;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ChestLock's own executor for storage and database I/O, instead of the server's shared
+ * async pool. Every task gets a virtual thread; a semaphore sized to the connection pool
+ * bounds how many run at once, and the number of tasks waiting for a permit is capped.
+ * When the cap is reached the saturation policy decides: REJECT drops the task (the
+ * caller is told and retries later), CALLER_RUNS runs it on the submitting thread,
+ * except on the main thread, which never blocks on I/O.
+ */
+public class IoExecutor {
+
+    public enum SaturationPolicy {
+        REJECT,
+        CALLER_RUNS
+    }
+
+    private final ChestLock plugin;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final SaturationPolicy policy;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Histogram queueWait;
+    private final Counter rejected;
+    private volatile boolean warnedSaturated;
+
+    public IoExecutor(ChestLock plugin) {
+        this.plugin = plugin;
+
+        // One running task per pooled connection
+        int concurrency = plugin.getConfig().getInt("performance.io.max-concurrency", 0);
+        if (concurrency <= 0) {
+            concurrency = plugin.getConfig().getInt("storage.mysql.pool.maximum-pool-size", 10);
+        }
+        this.permits = new Semaphore(Math.max(1, concurrency), true);
+        this.maxQueued = Math.max(1, plugin.getConfig().getInt("performance.io.max-queued", 1000));
+        SaturationPolicy configured;
+        try {
+            configured = SaturationPolicy.valueOf(
+                    plugin.getConfig().getString("performance.io.on-saturation", "REJECT").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Unknown performance.io.on-saturation, using REJECT");
+            configured = SaturationPolicy.REJECT;
+        }
+        this.policy = configured;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ChestLock-IO-", 0).factory());
+
+        this.queueWait = plugin.getMetrics().getIoQueueWait();
+        this.rejected = plugin.getMetrics().getIoRejected();
+        plugin.getMetrics().getRegistry().gauge("chestlock_io_tasks", "Storage I/O tasks by state",
+                queued::get, "state", "queued");
+        plugin.getMetrics().getRegistry().gauge("chestlock_io_tasks", "Storage I/O tasks by state",
+                active::get, "state", "running");
+    }
+
+    /**
+     * Run a task off the main thread
+     * @return false if the task was rejected (queue full or shut down) and will not run
+     */
+    public boolean execute(Runnable task) {
+        if (executor.isShutdown()) return false;
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return saturated(task);
+        }
+
+        long submitted = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                boolean acquired = false;
+                try {
+                    permits.acquire();
+                    acquired = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    queued.decrementAndGet();
+                }
+                if (!acquired) return;
+
+                queueWait.recordSince(submitted);
+                active.incrementAndGet();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    plugin.getLogger().severe("Storage task failed: " + e);
+                } finally {
+                    active.decrementAndGet();
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Shut down meanwhile
+            queued.decrementAndGet();
+            return false;
+        }
+    }
+
+    private boolean saturated(Runnable task) {
+        if (!warnedSaturated) {
+            warnedSaturated = true;
+            plugin.getLogger().warning("Storage I/O queue is full (" + maxQueued + " tasks), applying " + policy);
+        }
+
+        if (policy == SaturationPolicy.CALLER_RUNS && !Bukkit.isPrimaryThread()) {
+            task.run();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Tasks waiting for a permit plus tasks running
+     */
+    public int getDepth() {
+        return queued.get() + active.get();
+    }
+
+    /**
+     * Wait until no task is queued or running (for tools driving storage directly)
+     * @return false on timeout
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (getDepth() > 0) {
+            if (System.nanoTime() - deadline >= 0) return false;
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop accepting tasks and wait for queued and running ones to finish
+     */
+    public void shutdown() {
+        executor.shutdown();
+        long timeout = Math.max(1, plugin.getConfig().getLong("performance.io.shutdown-timeout", 30));
+        try {
+            if (!executor.awaitTermination(timeout, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Storage I/O tasks still running after " + timeout + "s, continuing shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+}
@@ -0,0 +1,48 @@
+package com.chestlock.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * String keys ("world,x,y,z") used by location-based storage
+ */
+public final class LocationKeys {
+
+    private LocationKeys() {
+    }
+
+    /**
+     * Convert location to string key
+     */
+    public static String toKey(Location loc) {
+        return toKey(loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+    }
+
+    /**
+     * Build a key from raw coordinates (no world lookup, safe off the main thread)
+     */
+    public static String toKey(String world, int x, int y, int z) {
+        return String.format("%s,%d,%d,%d", world, x, y, z);
+    }
+
+    /**
+     * Parse location from string key (null if malformed or the world isn't loaded)
+     */
+    public static Location toLocation(String key) {
+        String[] parts = key.split(",");
+        if (parts.length != 4) return null;
+
+        World world = Bukkit.getWorld(parts[0]);
+        if (world == null) return null;
+
+        try {
+            int x = Integer.parseInt(parts[1]);
+            int y = Integer.parseInt(parts[2]);
+            int z = Integer.parseInt(parts[3]);
+            return new Location(world, x, y, z);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
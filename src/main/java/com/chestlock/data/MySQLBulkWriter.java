@@ -0,0 +1,214 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import com.chestlock.model.BlockProtection;
+import com.chestlock.model.BlockProtection.FriendPermission;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Bulk writer for MySQL: each batch is one transaction with a multi-row upsert for the
+ * protections, one lookup for their ids, a multi-row insert for the friends and the
+ * change log entries for other servers
+ */
+class MySQLBulkWriter implements BulkWriter {
+
+    // Keeps every statement well under the 65,535 placeholder limit
+    static final int MAX_BATCH = 5000;
+    private static final int FRIEND_CHUNK = 5000;
+
+    private final ChestLock plugin;
+    private final DatabaseManager databaseManager;
+    private final WorldIds worldIds;
+    private final ChangeFeed changes;
+    private final int batchSize;
+    private final List<Row> batch;
+    private long written;
+
+    MySQLBulkWriter(ChestLock plugin, DatabaseManager databaseManager, WorldIds worldIds,
+                    ChangeFeed changes, int batchSize) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.worldIds = worldIds;
+        this.changes = changes;
+        this.batchSize = Math.max(1, Math.min(MAX_BATCH, batchSize));
+        this.batch = new ArrayList<>(this.batchSize);
+    }
+
+    @Override
+    public void write(String key, BlockProtection protection) {
+        String[] parts = key.split(",");
+        if (parts.length != 4) {
+            plugin.getLogger().warning("Skipping invalid location key " + key);
+            return;
+        }
+
+        int x, y, z;
+        try {
+            x = Integer.parseInt(parts[1]);
+            y = Integer.parseInt(parts[2]);
+            z = Integer.parseInt(parts[3]);
+        } catch (NumberFormatException e) {
+            plugin.getLogger().warning("Skipping invalid location key " + key);
+            return;
+        }
+
+        batch.add(new Row(parts[0], x, y, z, protection));
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (batch.isEmpty()) return;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            // Registered outside the transaction: a rolled back world row must never
+            // stay in the shared id cache
+            Map<String, Integer> worlds = new HashMap<>();
+            for (Row row : batch) {
+                if (!worlds.containsKey(row.world)) {
+                    worlds.put(row.world, worldIds.getOrCreate(conn, row.world));
+                }
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                writeBatch(conn, worlds);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            databaseManager.reportFailure(e);
+            throw new RuntimeException("Failed to write " + batch.size() + " protections to MySQL", e);
+        }
+
+        written += batch.size();
+        batch.clear();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        plugin.getLogger().info("Imported " + written + " protected blocks into MySQL database");
+    }
+
+    private void writeBatch(Connection conn, Map<String, Integer> worlds) throws SQLException {
+        // Grouped per world; the last write for a position wins, as with single saves
+        Map<Integer, Map<Long, Row>> byWorld = new LinkedHashMap<>();
+        for (Row row : batch) {
+            int worldId = worlds.get(row.world);
+            byWorld.computeIfAbsent(worldId, id -> new LinkedHashMap<>())
+                    .put(BlockPositions.pack(row.x, row.y, row.z), row);
+        }
+
+        for (Map.Entry<Integer, Map<Long, Row>> entry : byWorld.entrySet()) {
+            writeWorld(conn, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void writeWorld(Connection conn, int worldId, Map<Long, Row> rows) throws SQLException {
+        StringBuilder upsert = new StringBuilder("INSERT INTO chestlock_protections " +
+                "(world_id, pos, chunk_x, chunk_z, owner, allow_hopper, allow_redstone) VALUES ");
+        appendPlaceholders(upsert, rows.size(), "(?, ?, ?, ?, ?, ?, ?)");
+        upsert.append(" ON DUPLICATE KEY UPDATE owner=VALUES(owner), allow_hopper=VALUES(allow_hopper), " +
+                "allow_redstone=VALUES(allow_redstone), updated_at=CURRENT_TIMESTAMP");
+
+        try (PreparedStatement stmt = conn.prepareStatement(upsert.toString())) {
+            int i = 1;
+            for (Map.Entry<Long, Row> entry : rows.entrySet()) {
+                Row row = entry.getValue();
+                stmt.setInt(i++, worldId);
+                stmt.setLong(i++, entry.getKey());
+                stmt.setInt(i++, BlockPositions.toChunk(row.x));
+                stmt.setInt(i++, BlockPositions.toChunk(row.z));
+                stmt.setBytes(i++, UuidBytes.toBytes(row.protection.getOwner()));
+                stmt.setBoolean(i++, row.protection.isAllowHopper());
+                stmt.setBoolean(i++, row.protection.isAllowRedstone());
+            }
+            stmt.executeUpdate();
+        }
+
+        // Ids of the rows just written, existing or new
+        StringBuilder select = new StringBuilder("SELECT id, pos FROM chestlock_protections WHERE world_id = ? AND pos IN (");
+        appendPlaceholders(select, rows.size(), "?");
+        select.append(")");
+        Map<Long, Integer> ids = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(select.toString())) {
+            int i = 1;
+            stmt.setInt(i++, worldId);
+            for (long pos : rows.keySet()) {
+                stmt.setLong(i++, pos);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.put(rs.getLong("pos"), rs.getInt("id"));
+                }
+            }
+        }
+
+        StringBuilder delete = new StringBuilder("DELETE FROM chestlock_friends WHERE protection_id IN (");
+        appendPlaceholders(delete, ids.size(), "?");
+        delete.append(")");
+        try (PreparedStatement stmt = conn.prepareStatement(delete.toString())) {
+            int i = 1;
+            for (int id : ids.values()) {
+                stmt.setInt(i++, id);
+            }
+            stmt.executeUpdate();
+        }
+
+        List<Object[]> friends = new ArrayList<>();
+        for (Map.Entry<Long, Row> entry : rows.entrySet()) {
+            int id = ids.get(entry.getKey());
+            for (Map.Entry<UUID, FriendPermission> friend : entry.getValue().protection.getFriends().entrySet()) {
+                friends.add(new Object[]{id, UuidBytes.toBytes(friend.getKey()), friend.getValue().name()});
+            }
+        }
+
+        for (int from = 0; from < friends.size(); from += FRIEND_CHUNK) {
+            List<Object[]> chunk = friends.subList(from, Math.min(friends.size(), from + FRIEND_CHUNK));
+            StringBuilder insert = new StringBuilder("INSERT INTO chestlock_friends (protection_id, friend_uuid, permission) VALUES ");
+            appendPlaceholders(insert, chunk.size(), "(?, ?, ?)");
+            try (PreparedStatement stmt = conn.prepareStatement(insert.toString())) {
+                int i = 1;
+                for (Object[] friend : chunk) {
+                    stmt.setInt(i++, (Integer) friend[0]);
+                    stmt.setBytes(i++, (byte[]) friend[1]);
+                    stmt.setString(i++, (String) friend[2]);
+                }
+                stmt.executeUpdate();
+            }
+            plugin.getMetrics().batchSize("friends").record(chunk.size());
+        }
+
+        changes.recordAll(conn, worldId, rows.keySet());
+    }
+
+    private static void appendPlaceholders(StringBuilder sql, int count, String group) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(group);
+        }
+    }
+
+    private static class Row {
+        final String world;
+        final int x, y, z;
+        final BlockProtection protection;
+
+        Row(String world, int x, int y, int z, BlockProtection protection) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.protection = protection;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Name store for MySQL mode (chestlock_names table)
+ */
+public class MySQLNameStore implements NameStore {
+
+    private static final int LOOKUP_BATCH = 500;
+
+    private final ChestLock plugin;
+    private final DatabaseManager databaseManager;
+
+    public MySQLNameStore(ChestLock plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+    }
+
+    @Override
+    public Map<UUID, String> load(Collection<UUID> uuids) {
+        Map<UUID, String> result = new HashMap<>();
+        List<UUID> list = new ArrayList<>(uuids);
+        // The table may not exist yet while migrations run
+        if (!databaseManager.isSchemaReady()) return result;
+
+        try (Connection conn = databaseManager.getReadConnection()) {
+            for (int from = 0; from < list.size(); from += LOOKUP_BATCH) {
+                List<UUID> chunk = list.subList(from, Math.min(list.size(), from + LOOKUP_BATCH));
+                plugin.getMetrics().batchSize("names").record(chunk.size());
+
+                StringBuilder sql = new StringBuilder("SELECT uuid, name FROM chestlock_names WHERE uuid IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ",?");
+                }
+                sql.append(")");
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i).toString());
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            result.put(UUID.fromString(rs.getString("uuid")), rs.getString("name"));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to load player names from MySQL: " + e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    public void save(UUID uuid, String name) {
+        if (!databaseManager.isSchemaReady()) return;
+
+        String sql = "INSERT INTO chestlock_names (uuid, name) VALUES (?, ?) " +
+                "ON DUPLICATE KEY UPDATE name=VALUES(name), updated_at=CURRENT_TIMESTAMP";
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, uuid.toString());
+            stmt.setString(2, name);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to save player name to MySQL: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void markSeen(UUID uuid, String name, long time) {
+        if (!databaseManager.isSchemaReady()) return;
+
+        // Another server may have seen the player later
+        String sql = "INSERT INTO chestlock_names (uuid, name, last_seen) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE name=VALUES(name), last_seen=GREATEST(COALESCE(last_seen, 0), VALUES(last_seen))";
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, uuid.toString());
+            stmt.setString(2, name);
+            stmt.setLong(3, time);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to save player last-seen time to MySQL: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<UUID, Long> lastSeen(Collection<UUID> uuids) {
+        Map<UUID, Long> result = new HashMap<>();
+        List<UUID> list = new ArrayList<>(uuids);
+        if (!databaseManager.isSchemaReady()) return result;
+
+        try (Connection conn = databaseManager.getReadConnection()) {
+            for (int from = 0; from < list.size(); from += LOOKUP_BATCH) {
+                List<UUID> chunk = list.subList(from, Math.min(list.size(), from + LOOKUP_BATCH));
+
+                StringBuilder sql = new StringBuilder("SELECT uuid, last_seen FROM chestlock_names " +
+                        "WHERE last_seen IS NOT NULL AND uuid IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ",?");
+                }
+                sql.append(")");
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i).toString());
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            result.put(UUID.fromString(rs.getString("uuid")), rs.getLong("last_seen"));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to load player last-seen times from MySQL: " + e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        // Nothing buffered
+    }
+}
@@ -1,169 +1,216 @@
 package com.chestlock.data;
 
 import com.chestlock.ChestLock;
+import com.chestlock.metrics.Counter;
+import com.chestlock.metrics.Histogram;
+import com.chestlock.metrics.LookupTrace;
+import com.chestlock.metrics.Metrics;
 import com.chestlock.model.BlockProtection;
 import com.chestlock.model.BlockProtection.FriendPermission;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * MySQL/MariaDB-based storage for block protections
  */
 public class MySQLStorage implements IBlockStorage {
 
+    private static final int IMPORT_BATCH = 500;
+    // Queued writes sent per transaction
+    private static final int SEND_BATCH = 100;
+    // Rows fetched per round trip when streaming whole tables
+    private static final int STREAM_FETCH_SIZE = 1000;
+    // Chunks per lookup by the chunk index
+    private static final int CHUNK_BATCH = 500;
+    // Delay before retrying a failed load, doubled per failure up to the maximum
+    private static final long LOAD_RETRY_MIN_TICKS = 5 * 20L;
+    private static final long LOAD_RETRY_MAX_TICKS = 300 * 20L;
+
     private final ChestLock plugin;
     private final DatabaseManager databaseManager;
-    private final Map<String, BlockProtection> cache;
+    private final WorldIds worldIds;
+    private volatile Map<String, BlockProtection> cache;
+    // Set once loadAll has read the whole table: misses are then known to be unprotected
+    private volatile boolean complete;
+    private final WriteSpool spool;
+    private final ChangeFeed changes;
+    private final WritePins pins;
+    private volatile boolean denyUnknown;
+    // Set while a sender task is scheduled or running
+    private final AtomicBoolean sending = new AtomicBoolean();
+    // Held while another server's change or a local write is applied to the cache, so
+    // counts see it whole and a remote change never lands over a newer local write
+    private final Object remoteLock = new Object();
+    // Local writes numbered under remoteLock: key -> number of its latest write
+    private final Map<String, Long> localWrites = new HashMap<>();
+    private long writeSeq;
+    // Told (previous owner, new owner; either null) when another server's change is applied
+    private volatile BiConsumer<UUID, UUID> ownerListener;
+    // Told when a retried load has replaced the cache
+    private volatile Runnable loadListener;
+    // Pending retry of a failed load (guarded by this)
+    private BukkitTask loadRetry;
+    private long loadRetryDelay = LOAD_RETRY_MIN_TICKS;
+
+    // Metrics
+    private final AtomicInteger pendingTasks;
+    private final Counter cacheHits;
+    private final Counter dbHits;
+    private final Counter dbMisses;
+    private final Histogram getQuery;
+    private final Histogram saveQuery;
+    private final Histogram friendBatch;
+    private final Histogram sendBatch;
 
     public MySQLStorage(ChestLock plugin, DatabaseManager databaseManager) {
         this.plugin = plugin;
         this.databaseManager = databaseManager;
+        this.worldIds = new WorldIds();
         this.cache = new ConcurrentHashMap<>();
-    }
+        this.spool = new WriteSpool(plugin);
+        this.changes = new ChangeFeed(plugin, databaseManager, this::applyRemoteChange, this::dropCached);
+        // Only needed when reads can go to a lagging replica
+        this.pins = new WritePins(databaseManager.hasReplica()
+                ? Math.max(0, plugin.getConfig().getLong("storage.mysql.replica.pin-duration", 5)) * 1_000_000_000L
+                : 0);
+        readSettings();
+
+        Metrics metrics = plugin.getMetrics();
+        this.pendingTasks = new AtomicInteger();
+        this.cacheHits = metrics.lookup("mysql", "cache_hit");
+        this.dbHits = metrics.lookup("mysql", "db_hit");
+        this.dbMisses = metrics.lookup("mysql", "db_miss");
+        this.getQuery = metrics.query("get");
+        this.saveQuery = metrics.query("save");
+        this.friendBatch = metrics.batchSize("friends");
+        this.sendBatch = metrics.batchSize("outbox");
+        if (databaseManager.exportsMetrics()) {
+            metrics.setDbQueueDepth(pendingTasks::get);
+            metrics.getRegistry().gauge("chestlock_db_spooled_writes",
+                    "Writes in the local outbox not yet committed to the database", spool::size);
+        }
 
-    private String locationToKey(Location loc) {
-        return String.format("%s,%d,%d,%d",
-                loc.getWorld().getName(),
-                loc.getBlockX(),
-                loc.getBlockY(),
-                loc.getBlockZ());
+        // Writes left over from a crash or a shutdown during an outage
+        spool.load();
+        databaseManager.setRecoveryHandler(this::recover);
+        if (!spool.isEmpty()) {
+            int pending = spool.size();
+            runAsync(() -> {
+                if (databaseManager.isAvailable() && ensureSchema() && replaySpool()) {
+                    plugin.getLogger().info("Replayed " + pending + " queued writes from the previous session");
+                }
+            });
+        }
     }
 
     @Override
     public void save(Location location, BlockProtection protection) {
         // Update cache
-        cache.put(locationToKey(location), protection);
-
-        // Save to database asynchronously
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try (Connection conn = databaseManager.getConnection()) {
-                // Insert or update protection
-                String sql = "INSERT INTO chestlock_protections (world, x, y, z, owner, allow_hopper, allow_redstone) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?) " +
-                        "ON DUPLICATE KEY UPDATE owner=VALUES(owner), allow_hopper=VALUES(allow_hopper), " +
-                        "allow_redstone=VALUES(allow_redstone), updated_at=CURRENT_TIMESTAMP";
-
-                int protectionId;
-                try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                    stmt.setString(1, location.getWorld().getName());
-                    stmt.setInt(2, location.getBlockX());
-                    stmt.setInt(3, location.getBlockY());
-                    stmt.setInt(4, location.getBlockZ());
-                    stmt.setString(5, protection.getOwner().toString());
-                    stmt.setBoolean(6, protection.isAllowHopper());
-                    stmt.setBoolean(7, protection.isAllowRedstone());
-                    stmt.executeUpdate();
-
-                    // Get protection ID
-                    try (ResultSet rs = stmt.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            protectionId = rs.getInt(1);
-                        } else {
-                            // If not generated (ON DUPLICATE KEY UPDATE), fetch it
-                            protectionId = getProtectionId(conn, location);
-                        }
-                    }
-                }
-
-                // Delete old friends
-                String deleteFriendsSql = "DELETE FROM chestlock_friends WHERE protection_id = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(deleteFriendsSql)) {
-                    stmt.setInt(1, protectionId);
-                    stmt.executeUpdate();
-                }
+        String key = LocationKeys.toKey(location);
+        synchronized (remoteLock) {
+            cache.put(key, protection);
+            // On disk before returning; sent to the database in the background
+            spool.add(location, protection);
+            localWrites.put(key, ++writeSeq);
+        }
+        pins.pin(key);
+        scheduleSend();
+    }
 
-                // Insert new friends
-                if (!protection.getFriends().isEmpty()) {
-                    String insertFriendSql = "INSERT INTO chestlock_friends (protection_id, friend_uuid, permission) VALUES (?, ?, ?)";
-                    try (PreparedStatement stmt = conn.prepareStatement(insertFriendSql)) {
-                        for (Map.Entry<UUID, FriendPermission> entry : protection.getFriends().entrySet()) {
-                            stmt.setInt(1, protectionId);
-                            stmt.setString(2, entry.getKey().toString());
-                            stmt.setString(3, entry.getValue().name());
-                            stmt.addBatch();
-                        }
-                        stmt.executeBatch();
-                    }
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to save protection to MySQL: " + e.getMessage());
-                e.printStackTrace();
-            }
-        });
+    @Override
+    public void update(Location location, BlockProtection protection, ProtectionDelta delta) {
+        String key = LocationKeys.toKey(location);
+        synchronized (remoteLock) {
+            cache.put(key, protection);
+            // Sent as single-row writes unless a full save is still queued
+            spool.update(location, protection, delta);
+            localWrites.put(key, ++writeSeq);
+        }
+        pins.pin(key);
+        scheduleSend();
     }
 
     @Override
     public BlockProtection get(Location location) {
-        String key = locationToKey(location);
+        LookupTrace trace = LookupTrace.current();
+        long cacheStart = System.nanoTime();
+        String key = LocationKeys.toKey(location);
 
         // Check cache first
-        if (cache.containsKey(key)) {
-            return cache.get(key);
+        BlockProtection cached = cache.get(key);
+        trace.stage(LookupTrace.Stage.CACHE, System.nanoTime() - cacheStart);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        if (complete) {
+            dbMisses.increment();
+            return null;
         }
 
-        // Load from database
-        try (Connection conn = databaseManager.getConnection()) {
-            String sql = "SELECT id, owner, allow_hopper, allow_redstone FROM chestlock_protections " +
-                    "WHERE world = ? AND x = ? AND y = ? AND z = ?";
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, location.getWorld().getName());
-                stmt.setInt(2, location.getBlockX());
-                stmt.setInt(3, location.getBlockY());
-                stmt.setInt(4, location.getBlockZ());
-
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        int protectionId = rs.getInt("id");
-                        UUID owner = UUID.fromString(rs.getString("owner"));
-                        boolean allowHopper = rs.getBoolean("allow_hopper");
-                        boolean allowRedstone = rs.getBoolean("allow_redstone");
-
-                        BlockProtection protection = new BlockProtection(owner);
-                        protection.setAllowHopper(allowHopper);
-                        protection.setAllowRedstone(allowRedstone);
-
-                        // Load friends
-                        loadFriends(conn, protectionId, protection);
+        // Don't wait on a database that is known to be down (or still being migrated)
+        if (!databaseManager.isAvailable() || !databaseManager.isSchemaReady() || spool.isPendingRemove(key)) {
+            dbMisses.increment();
+            return spool.isPendingRemove(key) ? null : unknownBlock();
+        }
 
-                        // Cache it
-                        cache.put(key, protection);
-                        return protection;
-                    }
-                }
+        // Load from database (the primary if this server just wrote it), without a long wait for a connection
+        long start = System.nanoTime();
+        try (Connection conn = databaseManager.getLookupConnection(pins.isPinned(key))) {
+            // A world without an id has nothing stored in it
+            int worldId = worldIds.find(conn, location.getWorld().getName());
+            BlockProtection protection = worldId < 0 ? null : queryProtection(conn, worldId,
+                    BlockPositions.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+            if (protection != null) {
+                // Cache it
+                cache.put(key, protection);
+                getQuery.recordSince(start);
+                databaseManager.reportSuccess(System.nanoTime() - start);
+                trace.stage(LookupTrace.Stage.DB, System.nanoTime() - start);
+                dbHits.increment();
+                return protection;
             }
+            getQuery.recordSince(start);
+            databaseManager.reportSuccess(System.nanoTime() - start);
+        } catch (SQLTransientConnectionException e) {
+            // No free connection within the lookup timeout (counted as a pool timeout)
+            trace.stage(LookupTrace.Stage.DB, System.nanoTime() - start);
+            dbMisses.increment();
+            return unknownBlock();
         } catch (SQLException e) {
             plugin.getLogger().severe("Failed to load protection from MySQL: " + e.getMessage());
+            databaseManager.reportFailure(e);
+            trace.stage(LookupTrace.Stage.DB, System.nanoTime() - start);
+            dbMisses.increment();
+            return unknownBlock();
         }
+        trace.stage(LookupTrace.Stage.DB, System.nanoTime() - start);
 
+        dbMisses.increment();
         return null;
     }
 
     @Override
     public void remove(Location location) {
         // Remove from cache
-        cache.remove(locationToKey(location));
-
-        // Remove from database asynchronously
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try (Connection conn = databaseManager.getConnection()) {
-                String sql = "DELETE FROM chestlock_protections WHERE world = ? AND x = ? AND y = ? AND z = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, location.getWorld().getName());
-                    stmt.setInt(2, location.getBlockX());
-                    stmt.setInt(3, location.getBlockY());
-                    stmt.setInt(4, location.getBlockZ());
-                    stmt.executeUpdate();
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to remove protection from MySQL: " + e.getMessage());
-            }
-        });
+        String key = LocationKeys.toKey(location);
+        synchronized (remoteLock) {
+            cache.remove(key);
+            spool.add(location, null);
+            localWrites.put(key, ++writeSeq);
+        }
+        pins.pin(key);
+        scheduleSend();
     }
 
     @Override
@@ -174,71 +221,137 @@ public class MySQLStorage implements IBlockStorage {
 
     @Override
     public void loadAll() {
-        cache.clear();
+        if (!databaseManager.isAvailable()) {
+            plugin.getLogger().warning("MySQL unavailable, keeping " + cache.size() + " cached protections");
+            return;
+        }
+        // Background migrations run here, behind the readiness gate
+        if (!ensureSchema()) {
+            scheduleLoadRetry();
+            // Polls once the schema is ready (on a retry or recovery)
+            changes.start();
+            return;
+        }
 
-        try (Connection conn = databaseManager.getConnection()) {
-            String sql = "SELECT id, world, x, y, z, owner, allow_hopper, allow_redstone FROM chestlock_protections";
+        // Runs off the main thread: fill a new map and swap it in when complete
+        Map<String, BlockProtection> loadedCache = new ConcurrentHashMap<>();
+        long loadStart;
+        synchronized (remoteLock) {
+            loadStart = writeSeq;
+        }
+        // Two forward-only cursors merged by protection id, as in forEachStored
+        String protectionsSql = "SELECT id, world_id, pos, owner, allow_hopper, allow_redstone FROM chestlock_protections ORDER BY id";
+        String friendsSql = "SELECT protection_id, friend_uuid, permission FROM chestlock_friends ORDER BY protection_id";
+        try (Connection conn = databaseManager.getReadConnection()) {
+            // Changes committed while the table is read are picked up by the next poll
+            changes.markPosition(conn);
+            worldIds.loadAll(conn);
 
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (Connection friendsConn = databaseManager.getReadConnection();
+                 Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                 Statement friendsStmt = friendsConn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(STREAM_FETCH_SIZE);
+                friendsStmt.setFetchSize(STREAM_FETCH_SIZE);
 
-                int loaded = 0;
-                while (rs.next()) {
-                    try {
+                try (ResultSet rs = stmt.executeQuery(protectionsSql);
+                     ResultSet friends = friendsStmt.executeQuery(friendsSql)) {
+                    boolean hasFriend = friends.next();
+                    int loaded = 0;
+                    while (rs.next()) {
                         int protectionId = rs.getInt("id");
-                        String worldName = rs.getString("world");
-                        int x = rs.getInt("x");
-                        int y = rs.getInt("y");
-                        int z = rs.getInt("z");
-                        UUID owner = UUID.fromString(rs.getString("owner"));
-                        boolean allowHopper = rs.getBoolean("allow_hopper");
-                        boolean allowRedstone = rs.getBoolean("allow_redstone");
-
-                        World world = Bukkit.getWorld(worldName);
-                        if (world == null) continue;
-
-                        Location location = new Location(world, x, y, z);
-                        String key = locationToKey(location);
-
-                        BlockProtection protection = new BlockProtection(owner);
-                        protection.setAllowHopper(allowHopper);
-                        protection.setAllowRedstone(allowRedstone);
-
-                        // Load friends
-                        loadFriends(conn, protectionId, protection);
-
-                        cache.put(key, protection);
-                        loaded++;
-                    } catch (Exception e) {
-                        plugin.getLogger().warning("Failed to load protection: " + e.getMessage());
+                        BlockProtection protection = null;
+                        String key = null;
+                        try {
+                            String worldName = worldIds.name(conn, rs.getInt("world_id"));
+                            long pos = rs.getLong("pos");
+                            key = LocationKeys.toKey(worldName,
+                                    BlockPositions.unpackX(pos), BlockPositions.unpackY(pos), BlockPositions.unpackZ(pos));
+
+                            protection = new BlockProtection(UuidBytes.fromBytes(rs.getBytes("owner")));
+                            protection.setAllowHopper(rs.getBoolean("allow_hopper"));
+                            protection.setAllowRedstone(rs.getBoolean("allow_redstone"));
+                        } catch (Exception e) {
+                            plugin.getLogger().warning("Failed to load protection: " + e.getMessage());
+                        }
+
+                        // Skip friends of deleted protections, then take this one's
+                        while (hasFriend && friends.getInt("protection_id") < protectionId) {
+                            hasFriend = friends.next();
+                        }
+                        while (hasFriend && friends.getInt("protection_id") == protectionId) {
+                            if (protection != null) {
+                                try {
+                                    protection.addFriend(UuidBytes.fromBytes(friends.getBytes("friend_uuid")),
+                                            FriendPermission.valueOf(friends.getString("permission")));
+                                } catch (RuntimeException e) {
+                                    plugin.getLogger().warning("Failed to load protection: " + e.getMessage());
+                                    protection = null;
+                                }
+                            }
+                            hasFriend = friends.next();
+                        }
+
+                        if (protection != null) {
+                            loadedCache.put(key, protection);
+                            loaded++;
+                        }
                     }
-                }
 
-                plugin.getLogger().info("Loaded " + loaded + " protected blocks from MySQL database");
+                    plugin.getLogger().info("Loaded " + loaded + " protected blocks from MySQL database");
+                }
             }
+            refreshPinned(loadedCache);
         } catch (SQLException e) {
             plugin.getLogger().severe("Failed to load protections from MySQL: " + e.getMessage());
+            databaseManager.reportFailure(e);
+            scheduleLoadRetry();
+            // Lookups go to the database meanwhile; keep what they cache current
+            changes.start();
+            return;
+        }
+
+        synchronized (remoteLock) {
+            // Writes the database hasn't seen yet win over what it returned, as do writes
+            // sent while it was read (a retried load runs without the readiness gate)
+            spool.overlay(loadedCache);
+            for (Map.Entry<String, Long> write : localWrites.entrySet()) {
+                if (write.getValue() <= loadStart) continue;
+                BlockProtection current = cache.get(write.getKey());
+                if (current != null) {
+                    loadedCache.put(write.getKey(), current);
+                } else {
+                    loadedCache.remove(write.getKey());
+                }
+            }
+            cache = loadedCache;
+            complete = true;
         }
+        synchronized (this) {
+            loadRetryDelay = LOAD_RETRY_MIN_TICKS;
+        }
+        changes.start();
+        // Writes queued while the schema was being migrated
+        scheduleSend();
     }
 
     @Override
     public Set<Location> getProtectedLocations() {
         Set<Location> locations = new HashSet<>();
 
-        try (Connection conn = databaseManager.getConnection()) {
-            String sql = "SELECT world, x, y, z FROM chestlock_protections";
+        try (Connection conn = databaseManager.getReadConnection()) {
+            worldIds.loadAll(conn);
+            String sql = "SELECT world_id, pos FROM chestlock_protections";
 
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery(sql)) {
 
                 while (rs.next()) {
-                    String worldName = rs.getString("world");
-                    World world = Bukkit.getWorld(worldName);
+                    String worldName = worldIds.name(conn, rs.getInt("world_id"));
+                    World world = worldName == null ? null : Bukkit.getWorld(worldName);
                     if (world != null) {
-                        int x = rs.getInt("x");
-                        int y = rs.getInt("y");
-                        int z = rs.getInt("z");
-                        locations.add(new Location(world, x, y, z));
+                        long pos = rs.getLong("pos");
+                        locations.add(new Location(world,
+                                BlockPositions.unpackX(pos), BlockPositions.unpackY(pos), BlockPositions.unpackZ(pos)));
                     }
                 }
             }
@@ -249,29 +362,718 @@ public class MySQLStorage implements IBlockStorage {
         return locations;
     }
 
+    @Override
+    public Map<String, BlockProtection> exportAll() {
+        if (!complete) {
+            plugin.getLogger().warning("MySQL data was not fully loaded, exporting only " + cache.size() + " cached protections");
+        }
+        return new HashMap<>(cache);
+    }
+
+    @Override
+    public boolean importAll(Map<String, BlockProtection> protections) {
+        try (BulkWriter writer = openBulkWriter(IMPORT_BATCH)) {
+            for (Map.Entry<String, BlockProtection> entry : protections.entrySet()) {
+                writer.write(entry.getKey(), entry.getValue());
+                cache.put(entry.getKey(), entry.getValue());
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("Failed to import protections into MySQL: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void forEachStored(BiConsumer<String, BlockProtection> action) {
+        // Two forward-only cursors merged by protection id, so only one row of each is held
+        String protectionsSql = "SELECT id, world_id, pos, owner, allow_hopper, allow_redstone FROM chestlock_protections ORDER BY id";
+        String friendsSql = "SELECT protection_id, friend_uuid, permission FROM chestlock_friends ORDER BY protection_id";
+
+        try (Connection conn = databaseManager.getReadConnection();
+             Connection friendsConn = databaseManager.getReadConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             Statement friendsStmt = friendsConn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            worldIds.loadAll(conn);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            friendsStmt.setFetchSize(STREAM_FETCH_SIZE);
+
+            try (ResultSet rs = stmt.executeQuery(protectionsSql);
+                 ResultSet friends = friendsStmt.executeQuery(friendsSql)) {
+                boolean hasFriend = friends.next();
+                while (rs.next()) {
+                    int protectionId = rs.getInt("id");
+                    String worldName = worldIds.name(conn, rs.getInt("world_id"));
+                    long pos = rs.getLong("pos");
+
+                    BlockProtection protection = new BlockProtection(UuidBytes.fromBytes(rs.getBytes("owner")));
+                    protection.setAllowHopper(rs.getBoolean("allow_hopper"));
+                    protection.setAllowRedstone(rs.getBoolean("allow_redstone"));
+
+                    // Skip friends of deleted protections, then take this one's
+                    while (hasFriend && friends.getInt("protection_id") < protectionId) {
+                        hasFriend = friends.next();
+                    }
+                    while (hasFriend && friends.getInt("protection_id") == protectionId) {
+                        protection.addFriend(UuidBytes.fromBytes(friends.getBytes("friend_uuid")),
+                                FriendPermission.valueOf(friends.getString("permission")));
+                        hasFriend = friends.next();
+                    }
+
+                    action.accept(LocationKeys.toKey(worldName,
+                            BlockPositions.unpackX(pos), BlockPositions.unpackY(pos), BlockPositions.unpackZ(pos)), protection);
+                }
+            }
+        } catch (SQLException e) {
+            databaseManager.reportFailure(e);
+            throw new RuntimeException("Failed to read protections from MySQL", e);
+        }
+    }
+
+    @Override
+    public boolean countOwners(Consumer<Map<UUID, Integer>> result) {
+        // The cache holds everything, with queued writes applied, once loadAll completed
+        if (!complete) return false;
+
+        synchronized (remoteLock) {
+            Map<UUID, Integer> counts = new HashMap<>();
+            for (BlockProtection protection : cache.values()) {
+                counts.merge(protection.getOwner(), 1, Integer::sum);
+            }
+            result.accept(counts);
+        }
+        return true;
+    }
+
+    /**
+     * Listen for owner changes made by other servers sharing the database
+     * @param listener Called off the main thread with the previous and new owner (either may be null)
+     */
+    public void setOwnerListener(BiConsumer<UUID, UUID> listener) {
+        this.ownerListener = listener;
+    }
+
+    /**
+     * Apply settings that can change without reconnecting (unknown-block-policy, sync)
+     */
+    public void applySettings() {
+        readSettings();
+        changes.restart();
+    }
+
+    private void readSettings() {
+        denyUnknown = !"ALLOW".equalsIgnoreCase(
+                plugin.getConfig().getString("storage.mysql.unknown-block-policy", "DENY"));
+    }
+
+    /**
+     * Listen for a retried load replacing the cache after the first load failed
+     * @param listener Called off the main thread
+     */
+    public void setLoadListener(Runnable listener) {
+        this.loadListener = listener;
+    }
+
+    @Override
+    public OwnerPage ownerPage(String cursor, int limit) {
+        // The cursor is the last protection id read
+        long after;
+        try {
+            after = cursor == null ? 0 : Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            after = 0;
+        }
+
+        String sql = "SELECT id, world_id, pos, owner FROM chestlock_protections WHERE id > ? ORDER BY id LIMIT ?";
+        Map<String, UUID> owners = new LinkedHashMap<>();
+        long last = after;
+        int rows = 0;
+        try (Connection conn = databaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, after);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                    last = rs.getLong("id");
+                    String worldName = worldIds.name(conn, rs.getInt("world_id"));
+                    if (worldName == null) continue;
+
+                    long pos = rs.getLong("pos");
+                    owners.put(LocationKeys.toKey(worldName,
+                            BlockPositions.unpackX(pos), BlockPositions.unpackY(pos), BlockPositions.unpackZ(pos)),
+                            UuidBytes.fromBytes(rs.getBytes("owner")));
+                }
+            }
+        } catch (SQLException e) {
+            databaseManager.reportFailure(e);
+            throw new RuntimeException("Failed to read protection owners from MySQL", e);
+        }
+        return new OwnerPage(owners, rows < limit ? null : String.valueOf(last));
+    }
+
+    @Override
+    public Set<String> keysInChunks(String world, Collection<Long> chunks) {
+        // Reads the table through idx_chunk; writes still in the outbox are left out
+        Set<String> keys = new HashSet<>();
+        if (chunks.isEmpty()) return keys;
+
+        List<Long> list = new ArrayList<>(chunks);
+        try (Connection conn = databaseManager.getReadConnection()) {
+            int worldId = worldIds.find(conn, world);
+            if (worldId < 0) return keys;
+
+            for (int from = 0; from < list.size(); from += CHUNK_BATCH) {
+                List<Long> batch = list.subList(from, Math.min(list.size(), from + CHUNK_BATCH));
+                StringBuilder sql = new StringBuilder("SELECT pos FROM chestlock_protections WHERE world_id = ? AND (chunk_x, chunk_z) IN (");
+                for (int i = 0; i < batch.size(); i++) {
+                    sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                }
+                sql.append(")");
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                    int i = 1;
+                    stmt.setInt(i++, worldId);
+                    for (long chunk : batch) {
+                        stmt.setInt(i++, BlockPositions.chunkX(chunk));
+                        stmt.setInt(i++, BlockPositions.chunkZ(chunk));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            long pos = rs.getLong("pos");
+                            keys.add(LocationKeys.toKey(world,
+                                    BlockPositions.unpackX(pos), BlockPositions.unpackY(pos), BlockPositions.unpackZ(pos)));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            databaseManager.reportFailure(e);
+            throw new RuntimeException("Failed to read protections by chunk from MySQL", e);
+        }
+        return keys;
+    }
+
+    @Override
+    public Map<String, BlockProtection> getStored(Collection<String> keys) {
+        Map<String, BlockProtection> found = new HashMap<>();
+        if (keys.isEmpty()) return found;
+
+        // Primary: used to verify rows right after writing them
+        try (Connection conn = databaseManager.getConnection()) {
+            // (world_id, pos) -> key for every key in a known world
+            Map<Integer, Map<Long, String>> byWorld = new HashMap<>();
+            for (String key : keys) {
+                String[] parts = key.split(",");
+                if (parts.length != 4) continue;
+                int worldId = worldIds.find(conn, parts[0]);
+                if (worldId < 0) continue;
+                try {
+                    long pos = BlockPositions.pack(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                    byWorld.computeIfAbsent(worldId, id -> new HashMap<>()).put(pos, key);
+                } catch (NumberFormatException e) {
+                    // Not a location key, so not stored
+                }
+            }
+
+            Map<Integer, BlockProtection> byId = new HashMap<>();
+            for (Map.Entry<Integer, Map<Long, String>> world : byWorld.entrySet()) {
+                StringBuilder sql = new StringBuilder("SELECT id, pos, owner, allow_hopper, allow_redstone " +
+                        "FROM chestlock_protections WHERE world_id = ? AND pos IN (");
+                appendPlaceholders(sql, world.getValue().size());
+                sql.append(")");
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                    int i = 1;
+                    stmt.setInt(i++, world.getKey());
+                    for (long pos : world.getValue().keySet()) {
+                        stmt.setLong(i++, pos);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            BlockProtection protection = new BlockProtection(UuidBytes.fromBytes(rs.getBytes("owner")));
+                            protection.setAllowHopper(rs.getBoolean("allow_hopper"));
+                            protection.setAllowRedstone(rs.getBoolean("allow_redstone"));
+                            byId.put(rs.getInt("id"), protection);
+                            found.put(world.getValue().get(rs.getLong("pos")), protection);
+                        }
+                    }
+                }
+            }
+
+            if (!byId.isEmpty()) {
+                StringBuilder sql = new StringBuilder("SELECT protection_id, friend_uuid, permission " +
+                        "FROM chestlock_friends WHERE protection_id IN (");
+                appendPlaceholders(sql, byId.size());
+                sql.append(")");
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                    int i = 1;
+                    for (int id : byId.keySet()) {
+                        stmt.setInt(i++, id);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            byId.get(rs.getInt("protection_id")).addFriend(UuidBytes.fromBytes(rs.getBytes("friend_uuid")),
+                                    FriendPermission.valueOf(rs.getString("permission")));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            databaseManager.reportFailure(e);
+            throw new RuntimeException("Failed to look up protections in MySQL", e);
+        }
+        return found;
+    }
+
+    @Override
+    public BulkWriter openBulkWriter(int batchSize) {
+        return new MySQLBulkWriter(plugin, databaseManager, worldIds, changes, batchSize);
+    }
+
+    /**
+     * Change log shared with other servers using the same database
+     */
+    public ChangeFeed getChangeFeed() {
+        return changes;
+    }
+
+    /**
+     * The connection pool backing this storage
+     */
+    public DatabaseManager getDatabaseManager() {
+        return databaseManager;
+    }
+
+    /**
+     * Writes in the outbox that the database has not committed yet
+     */
+    public int getPendingWrites() {
+        return spool.size();
+    }
+
     @Override
     public void close() {
+        synchronized (this) {
+            if (loadRetry != null) {
+                loadRetry.cancel();
+                loadRetry = null;
+            }
+        }
+        changes.stop();
+        // Whatever can't be sent now stays in the outbox file for the next start
+        if (databaseManager.isAvailable() && databaseManager.isSchemaReady()) {
+            sendPending();
+        }
+        spool.close();
         cache.clear();
         databaseManager.disconnect();
     }
 
     // Helper methods
 
-    private int getProtectionId(Connection conn, Location location) throws SQLException {
-        String sql = "SELECT id FROM chestlock_protections WHERE world = ? AND x = ? AND y = ? AND z = ?";
+    /**
+     * Result for a block whose protection can't be looked up right now
+     */
+    private BlockProtection unknownBlock() {
+        return denyUnknown ? BlockProtection.UNAVAILABLE : null;
+    }
+
+    /**
+     * Run pending schema migrations (blocking, off the main thread)
+     * @return false if they failed; they resume on the next start
+     */
+    private boolean ensureSchema() {
+        try {
+            databaseManager.ensureSchema();
+            return true;
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("Database schema is not up to date, MySQL storage can't be used: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Start a background sender unless one is already scheduled or the database is down
+     * (the recovery handler drains the outbox when it comes back)
+     */
+    private void scheduleSend() {
+        if (!databaseManager.isAvailable() || !databaseManager.isSchemaReady()) return;
+        if (!sending.compareAndSet(false, true)) return;
+
+        boolean accepted = runAsync(() -> {
+            try {
+                sendPending();
+            } finally {
+                sending.set(false);
+            }
+            // Writes queued after the last batch was taken but before the flag was cleared
+            if (!spool.isEmpty()) {
+                scheduleSend();
+            }
+        });
+        if (!accepted) {
+            // Still in the outbox; the next write schedules the sender again
+            sending.set(false);
+        }
+    }
+
+    private void sendPending() {
+        while (databaseManager.isAvailable()) {
+            long start = System.nanoTime();
+            try (Connection conn = databaseManager.getConnection()) {
+                int sent = spool.send(batch -> writeBatch(conn, batch), SEND_BATCH);
+                if (sent == 0) return;
+                saveQuery.recordSince(start);
+                sendBatch.record(sent);
+                databaseManager.reportSuccess(System.nanoTime() - start);
+            } catch (SQLException e) {
+                // Still in the outbox; sent again once the database recovers
+                plugin.getLogger().severe("Failed to save protections to MySQL: " + e.getMessage());
+                databaseManager.reportFailure(e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send the whole outbox in order; runs on the probe thread while the breaker is half-open
+     */
+    /**
+     * Recovery handler: migrate if that failed before, replay the outbox and retry a
+     * load that failed while the database was down
+     */
+    private boolean recover() {
+        if (!ensureSchema() || !replaySpool()) return false;
+
+        // Runs once the breaker has closed again
+        if (!complete) {
+            scheduleLoadRetry();
+        }
+        return true;
+    }
+
+    /**
+     * Retry a failed load later, backing off while it keeps failing. Until then misses go
+     * to the database and the outbox is only sent once the schema is up to date.
+     */
+    private synchronized void scheduleLoadRetry() {
+        if (complete || loadRetry != null || !plugin.isEnabled()) return;
+
+        long delay = loadRetryDelay;
+        loadRetryDelay = Math.min(delay * 2, LOAD_RETRY_MAX_TICKS);
+        plugin.getLogger().warning("Retrying to load protections from MySQL in " + delay / 20 + "s");
+        loadRetry = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            synchronized (this) {
+                loadRetry = null;
+            }
+            boolean accepted = runAsync(() -> {
+                if (complete) return;
+
+                loadAll();
+                Runnable listener = loadListener;
+                if (complete && listener != null) {
+                    plugin.getLogger().info("Loaded protections from MySQL after retrying");
+                    listener.run();
+                }
+            });
+            if (!accepted) {
+                scheduleLoadRetry();
+            }
+        }, delay);
+    }
+
+    private boolean replaySpool() {
+        if (spool.isEmpty()) return true;
+        if (!databaseManager.isSchemaReady()) return false;
+
+        int pending = spool.size();
+        boolean drained = spool.replay(batch -> {
+            try (Connection conn = databaseManager.getRecoveryConnection()) {
+                writeBatch(conn, batch);
+            }
+        }, SEND_BATCH);
+        if (drained) {
+            plugin.getLogger().info("Replayed " + pending + " queued writes");
+        }
+        return drained;
+    }
+
+    /**
+     * Write protections, changes to them or removals and log the changes, in one transaction
+     */
+    private void writeBatch(Connection conn, List<WriteSpool.Entry> batch) throws SQLException {
+        // Resolved before the transaction so a rollback can't leave a cached id behind
+        int[] worlds = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            WriteSpool.Entry entry = batch.get(i);
+            worlds[i] = entry.getProtection() == null
+                    ? worldIds.find(conn, entry.getWorld())
+                    : worldIds.getOrCreate(conn, entry.getWorld());
+        }
+
+        conn.setAutoCommit(false);
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                // Nothing is stored in a world without an id
+                if (worlds[i] < 0) continue;
+
+                WriteSpool.Entry entry = batch.get(i);
+                long pos = BlockPositions.pack(entry.getX(), entry.getY(), entry.getZ());
+                if (entry.isRemove()) {
+                    deleteProtection(conn, worlds[i], pos);
+                } else if (entry.getDelta() != null) {
+                    writeDelta(conn, worlds[i], pos, entry.getDelta());
+                } else {
+                    writeProtection(conn, worlds[i], pos, entry.getX(), entry.getZ(), entry.getProtection());
+                }
+                changes.record(conn, worlds[i], pos);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        // The window counts from the commit
+        for (WriteSpool.Entry entry : batch) {
+            pins.pin(entry.getKey());
+        }
+    }
+
+    private void writeProtection(Connection conn, int worldId, long pos, int x, int z,
+                                 BlockProtection protection) throws SQLException {
+        // Insert or update protection; LAST_INSERT_ID(id) returns the existing row's id as the generated key
+        String sql = "INSERT INTO chestlock_protections (world_id, pos, chunk_x, chunk_z, owner, allow_hopper, allow_redstone) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE id=LAST_INSERT_ID(id), owner=VALUES(owner), allow_hopper=VALUES(allow_hopper), " +
+                "allow_redstone=VALUES(allow_redstone), updated_at=CURRENT_TIMESTAMP";
+
+        int protectionId;
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, worldId);
+            stmt.setLong(2, pos);
+            stmt.setInt(3, BlockPositions.toChunk(x));
+            stmt.setInt(4, BlockPositions.toChunk(z));
+            stmt.setBytes(5, UuidBytes.toBytes(protection.getOwner()));
+            stmt.setBoolean(6, protection.isAllowHopper());
+            stmt.setBoolean(7, protection.isAllowRedstone());
+            stmt.executeUpdate();
+
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (!rs.next()) throw new SQLException("Failed to get protection ID");
+                protectionId = rs.getInt(1);
+            }
+        }
+
+        // A full save replaces the friend list (single changes go through writeDelta)
+        String deleteFriendsSql = "DELETE FROM chestlock_friends WHERE protection_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(deleteFriendsSql)) {
+            stmt.setInt(1, protectionId);
+            stmt.executeUpdate();
+        }
+
+        // Insert new friends
+        if (!protection.getFriends().isEmpty()) {
+            String insertFriendSql = "INSERT INTO chestlock_friends (protection_id, friend_uuid, permission) VALUES (?, ?, ?)";
+            try (PreparedStatement stmt = conn.prepareStatement(insertFriendSql)) {
+                Map<UUID, FriendPermission> friends = protection.getFriends();
+                for (Map.Entry<UUID, FriendPermission> entry : friends.entrySet()) {
+                    stmt.setInt(1, protectionId);
+                    stmt.setBytes(2, UuidBytes.toBytes(entry.getKey()));
+                    stmt.setString(3, entry.getValue().name());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                friendBatch.record(friends.size());
+            }
+        }
+    }
+
+    /**
+     * Persist a change as single-row statements, addressed by position (a row another
+     * server removed meanwhile just matches nothing)
+     */
+    private void writeDelta(Connection conn, int worldId, long pos, ProtectionDelta delta) throws SQLException {
+        if (delta.hasSettings()) {
+            String sql = "UPDATE chestlock_protections SET allow_hopper = ?, allow_redstone = ?, " +
+                    "updated_at = CURRENT_TIMESTAMP WHERE world_id = ? AND pos = ?";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setBoolean(1, delta.isAllowHopper());
+                stmt.setBoolean(2, delta.isAllowRedstone());
+                stmt.setInt(3, worldId);
+                stmt.setLong(4, pos);
+                stmt.executeUpdate();
+            }
+        }
+
+        for (Map.Entry<UUID, FriendPermission> friend : delta.getFriends().entrySet()) {
+            if (friend.getValue() == null) {
+                String sql = "DELETE f FROM chestlock_friends f JOIN chestlock_protections p ON p.id = f.protection_id " +
+                        "WHERE p.world_id = ? AND p.pos = ? AND f.friend_uuid = ?";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, worldId);
+                    stmt.setLong(2, pos);
+                    stmt.setBytes(3, UuidBytes.toBytes(friend.getKey()));
+                    stmt.executeUpdate();
+                }
+            } else {
+                String sql = "INSERT INTO chestlock_friends (protection_id, friend_uuid, permission) " +
+                        "SELECT id, ?, ? FROM chestlock_protections WHERE world_id = ? AND pos = ? " +
+                        "ON DUPLICATE KEY UPDATE permission = VALUES(permission)";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setBytes(1, UuidBytes.toBytes(friend.getKey()));
+                    stmt.setString(2, friend.getValue().name());
+                    stmt.setInt(3, worldId);
+                    stmt.setLong(4, pos);
+                    stmt.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private void deleteProtection(Connection conn, int worldId, long pos) throws SQLException {
+        String sql = "DELETE FROM chestlock_protections WHERE world_id = ? AND pos = ?";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, location.getWorld().getName());
-            stmt.setInt(2, location.getBlockX());
-            stmt.setInt(3, location.getBlockY());
-            stmt.setInt(4, location.getBlockZ());
+            stmt.setInt(1, worldId);
+            stmt.setLong(2, pos);
+            stmt.executeUpdate();
+        }
+    }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("id");
+    /**
+     * Bring the cache in line with a change another server made (poller thread)
+     */
+    private void applyRemoteChange(Connection conn, int worldId, long pos) throws SQLException {
+        String world = worldIds.name(conn, worldId);
+        if (world == null) return;
+
+        String key = LocationKeys.toKey(world,
+                BlockPositions.unpackX(pos), BlockPositions.unpackY(pos), BlockPositions.unpackZ(pos));
+        synchronized (remoteLock) {
+            // Our queued write is newer and will overwrite the row when replayed
+            if (spool.isPending(key)) return;
+
+            if (!complete) {
+                // Misses go to the database anyway
+                cache.remove(key);
+                return;
+            }
+            // Changes are applied one at a time: older writes can no longer race one
+            long since = writeSeq;
+            localWrites.values().removeIf(seq -> seq <= since);
+        }
+
+        // The change was read from the same server as the row, unless we wrote it
+        // recently and the replica may not have our write yet
+        BlockProtection protection;
+        if (pins.isPinned(key)) {
+            try (Connection primary = databaseManager.getConnection()) {
+                protection = queryProtection(primary, worldId, pos);
+            }
+        } else {
+            protection = queryProtection(conn, worldId, pos);
+        }
+        synchronized (remoteLock) {
+            // A local write made while the row was read is at least as new as what was read
+            if (spool.isPending(key) || localWrites.containsKey(key)) return;
+
+            BlockProtection previous = protection != null ? cache.put(key, protection) : cache.remove(key);
+            UUID previousOwner = previous == null ? null : previous.getOwner();
+            UUID newOwner = protection == null ? null : protection.getOwner();
+            BiConsumer<UUID, UUID> listener = ownerListener;
+            if (listener != null && !Objects.equals(previousOwner, newOwner)) {
+                listener.accept(previousOwner, newOwner);
+            }
+        }
+    }
+
+    /**
+     * Drop cached protections, except writes not sent yet, after the change feed started
+     * without a full load (poller thread)
+     */
+    private void dropCached() {
+        synchronized (remoteLock) {
+            if (complete) return;
+
+            cache.keySet().removeIf(key -> !spool.isPending(key));
+        }
+    }
+
+    /**
+     * Re-read this server's recent writes from the primary after a load from the replica
+     */
+    private void refreshPinned(Map<String, BlockProtection> loadedCache) throws SQLException {
+        List<String> pinned = pins.pinned();
+        if (pinned.isEmpty()) return;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            for (String key : pinned) {
+                String[] parts = key.split(",");
+                int worldId = worldIds.find(conn, parts[0]);
+                BlockProtection protection = worldId < 0 ? null : queryProtection(conn, worldId, BlockPositions.pack(
+                        Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3])));
+                if (protection != null) {
+                    loadedCache.put(key, protection);
+                } else {
+                    loadedCache.remove(key);
                 }
             }
         }
-        throw new SQLException("Failed to get protection ID");
+    }
+
+    /**
+     * Run a database task on the I/O executor, tracked in the queue depth gauge
+     * @return false if the executor is saturated and the task won't run
+     */
+    private boolean runAsync(Runnable task) {
+        pendingTasks.incrementAndGet();
+        boolean accepted = plugin.getIoExecutor().execute(() -> {
+            try {
+                task.run();
+            } finally {
+                pendingTasks.decrementAndGet();
+            }
+        });
+        if (!accepted) {
+            pendingTasks.decrementAndGet();
+        }
+        return accepted;
+    }
+
+    private BlockProtection queryProtection(Connection conn, int worldId, long pos) throws SQLException {
+        String sql = "SELECT id, owner, allow_hopper, allow_redstone FROM chestlock_protections " +
+                "WHERE world_id = ? AND pos = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, worldId);
+            stmt.setLong(2, pos);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) return null;
+
+                int protectionId = rs.getInt("id");
+                UUID owner = UuidBytes.fromBytes(rs.getBytes("owner"));
+                boolean allowHopper = rs.getBoolean("allow_hopper");
+                boolean allowRedstone = rs.getBoolean("allow_redstone");
+
+                BlockProtection protection = new BlockProtection(owner);
+                protection.setAllowHopper(allowHopper);
+                protection.setAllowRedstone(allowRedstone);
+
+                // Load friends
+                loadFriends(conn, protectionId, protection);
+                return protection;
+            }
+        }
+    }
+
+    private static void appendPlaceholders(StringBuilder sql, int count) {
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
     }
 
     private void loadFriends(Connection conn, int protectionId, BlockProtection protection) throws SQLException {
@@ -281,7 +1083,7 @@ public class MySQLStorage implements IBlockStorage {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    UUID friendUuid = UUID.fromString(rs.getString("friend_uuid"));
+                    UUID friendUuid = UuidBytes.fromBytes(rs.getBytes("friend_uuid"));
                     FriendPermission permission = FriendPermission.valueOf(rs.getString("permission"));
                     protection.addFriend(friendUuid, permission);
                 }
@@ -0,0 +1,157 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * UUID -> player name cache backed by the active storage's NameStore.
+ * Lookups never block: a miss returns null and queues a batched background
+ * load, after which open menus are told to re-render.
+ */
+public class NameCache {
+
+    private final ChestLock plugin;
+    private final NameStore store;
+    private final Map<UUID, String> names;
+    private final Set<UUID> requested;
+    private final Queue<UUID> pending;
+    private final AtomicBoolean flushScheduled;
+
+    public NameCache(ChestLock plugin, NameStore store) {
+        this.plugin = plugin;
+        this.store = store;
+        this.names = new ConcurrentHashMap<>();
+        this.requested = ConcurrentHashMap.newKeySet();
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.flushScheduled = new AtomicBoolean();
+    }
+
+    /**
+     * Get a player's name, or null if not known yet (a background lookup is queued)
+     */
+    public String getName(UUID uuid) {
+        String name = names.get(uuid);
+        if (name != null) {
+            return name;
+        }
+
+        Player online = Bukkit.getPlayer(uuid);
+        if (online != null) {
+            update(uuid, online.getName());
+            return online.getName();
+        }
+
+        request(uuid);
+        return null;
+    }
+
+    /**
+     * Get a player's name or a fallback if not known yet
+     */
+    public String getName(UUID uuid, String fallback) {
+        String name = getName(uuid);
+        return name != null ? name : fallback;
+    }
+
+    /**
+     * Record a player's current name (on join); persisted only when it changed
+     */
+    public void update(UUID uuid, String name) {
+        requested.add(uuid);
+        if (name.equals(names.put(uuid, name))) return;
+
+        // Dropped if the I/O queue is full; saved again on a later join
+        if (!plugin.getIoExecutor().execute(() -> store.save(uuid, name))) {
+            names.remove(uuid, name);
+        }
+    }
+
+    /**
+     * Record that a player is online now (join and quit); also updates the name
+     */
+    public void seen(UUID uuid, String name) {
+        requested.add(uuid);
+        names.put(uuid, name);
+        long time = System.currentTimeMillis();
+        plugin.getIoExecutor().execute(() -> store.markSeen(uuid, name, time));
+    }
+
+    /**
+     * When players were last online (blocking, off the main thread only)
+     */
+    public Map<UUID, Long> loadLastSeen(Collection<UUID> uuids) {
+        return store.lastSeen(uuids);
+    }
+
+    /**
+     * Queue background lookups for several players at once
+     */
+    public void preload(Collection<UUID> uuids) {
+        for (UUID uuid : uuids) {
+            if (!names.containsKey(uuid)) {
+                request(uuid);
+            }
+        }
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public void close() {
+        store.close();
+    }
+
+    private void request(UUID uuid) {
+        if (!requested.add(uuid)) return;
+
+        pending.add(uuid);
+        if (flushScheduled.compareAndSet(false, true)) {
+            // Collect everything requested this tick into one lookup
+            if (!plugin.getIoExecutor().execute(this::flush)) {
+                // Stays pending for the next request
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+
+        List<UUID> batch = new ArrayList<>();
+        UUID uuid;
+        while ((uuid = pending.poll()) != null) {
+            batch.add(uuid);
+        }
+        if (batch.isEmpty()) return;
+
+        Map<UUID, String> loaded = new HashMap<>(store.load(batch));
+        for (UUID missing : batch) {
+            if (loaded.containsKey(missing)) continue;
+
+            // Not saved by ChestLock yet: the server may still know the name
+            String name = Bukkit.getOfflinePlayer(missing).getName();
+            if (name != null) {
+                loaded.put(missing, name);
+                store.save(missing, name);
+            } else {
+                // Looked up again on a later request
+                requested.remove(missing);
+            }
+        }
+        if (loaded.isEmpty()) return;
+
+        names.putAll(loaded);
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            for (UUID resolved : loaded.keySet()) {
+                plugin.getMenuManager().forEachSession(menu -> menu.onPlayerResolved(resolved));
+            }
+        });
+    }
+}
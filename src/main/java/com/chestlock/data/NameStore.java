@@ -0,0 +1,39 @@
+package com.chestlock.data;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Persistent UUID -> player name mapping
+ * Implementations: YamlNameStore, MySQLNameStore
+ * Methods may block and are only called off the main thread.
+ */
+public interface NameStore {
+
+    /**
+     * Look up names for the given players (missing players are left out)
+     */
+    Map<UUID, String> load(Collection<UUID> uuids);
+
+    /**
+     * Store or update a player's name
+     */
+    void save(UUID uuid, String name);
+
+    /**
+     * Store a player's name and when they were last online
+     * @param time Epoch milliseconds
+     */
+    void markSeen(UUID uuid, String name, long time);
+
+    /**
+     * When players were last online, in epoch milliseconds (players never recorded are left out)
+     */
+    Map<UUID, Long> lastSeen(Collection<UUID> uuids);
+
+    /**
+     * Flush and release resources
+     */
+    void close();
+}
@@ -0,0 +1,204 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import com.chestlock.metrics.Counter;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drops location-based protections whose block is gone or no longer lockable:
+ * blocks removed without a break event (physics, fire, world edits and resets)
+ * would otherwise leave a record that a new block placed there inherits.
+ * <p>
+ * Loaded chunks are queued and looked up in storage in batches on the I/O executor;
+ * the protections found there, plus single blocks queued by physics and fire events,
+ * are checked on the main thread a few at a time within a per-tick budget. Blocks
+ * are only checked while their chunk is loaded, so this never loads a chunk.
+ */
+public class OrphanCollector {
+
+    // Queued locations beyond this are dropped; the next chunk load checks them again
+    private static final int MAX_CHECKS = 10_000;
+    private static final int MAX_CHUNKS = 50_000;
+
+    private final ChestLock plugin;
+    private final Counter removed;
+    // World -> packed chunks waiting for a storage lookup (main thread only)
+    private final Map<String, LinkedHashSet<Long>> pendingChunks;
+    private int pendingChunkCount;
+    // Location keys waiting for a block check (main thread only)
+    private final LinkedHashSet<String> checks;
+    private final AtomicBoolean lookupRunning;
+    private boolean enabled;
+    private int batchSize;
+    private long checkBudget;
+    private BukkitTask checkTask;
+    private BukkitTask lookupTask;
+
+    public OrphanCollector(ChestLock plugin) {
+        this.plugin = plugin;
+        this.pendingChunks = new LinkedHashMap<>();
+        this.checks = new LinkedHashSet<>();
+        this.lookupRunning = new AtomicBoolean();
+        this.removed = plugin.getMetrics().getRegistry().counter("chestlock_orphaned_protections_removed_total",
+                "Location-based protections removed because their block was gone");
+        plugin.getMetrics().getRegistry().gauge("chestlock_orphan_check_queue",
+                "Blocks waiting for an orphaned protection check", () -> checks.size());
+    }
+
+    /**
+     * (Re)start from the current config (no-op when disabled)
+     */
+    public void start() {
+        stop();
+        enabled = plugin.getConfig().getBoolean("performance.orphan-gc.enabled", true);
+        if (!enabled) return;
+
+        batchSize = Math.max(1, plugin.getConfig().getInt("performance.orphan-gc.batch-size", 256));
+        checkBudget = Math.max(1, plugin.getConfig().getLong("performance.orphan-gc.check-budget", 1)) * 1_000_000L;
+        long interval = Math.max(1, plugin.getConfig().getLong("performance.orphan-gc.interval", 10));
+        checkTask = Bukkit.getScheduler().runTaskTimer(plugin, this::checkQueued, 1L, 1L);
+        lookupTask = Bukkit.getScheduler().runTaskTimer(plugin, this::lookupPending, interval, interval);
+    }
+
+    public void stop() {
+        if (checkTask != null) {
+            checkTask.cancel();
+            checkTask = null;
+        }
+        if (lookupTask != null) {
+            lookupTask.cancel();
+            lookupTask = null;
+        }
+        enabled = false;
+        pendingChunks.clear();
+        pendingChunkCount = 0;
+        checks.clear();
+    }
+
+    /**
+     * Queue a loaded chunk's stored protections for a check (main thread)
+     */
+    public void queueChunk(Chunk chunk) {
+        if (!enabled || pendingChunkCount >= MAX_CHUNKS) return;
+
+        if (pendingChunks.computeIfAbsent(chunk.getWorld().getName(), world -> new LinkedHashSet<>())
+                .add(BlockPositions.packChunk(chunk.getX(), chunk.getZ()))) {
+            pendingChunkCount++;
+        }
+    }
+
+    /**
+     * Queue one block for a check on a later tick, after physics or fire has run (main thread)
+     */
+    public void queueCheck(Block block) {
+        if (!enabled || checks.size() >= MAX_CHECKS) return;
+
+        checks.add(LocationKeys.toKey(block.getWorld().getName(), block.getX(), block.getY(), block.getZ()));
+    }
+
+    /**
+     * Queued chunks and blocks
+     */
+    public int getQueueSize() {
+        return pendingChunkCount + checks.size();
+    }
+
+    public long getRemovedCount() {
+        return removed.get();
+    }
+
+    /**
+     * Hand the next batch of queued chunks to the I/O executor, one batch at a time
+     */
+    private void lookupPending() {
+        if (pendingChunks.isEmpty() || !plugin.getDataHandler().isReady()) return;
+        if (!lookupRunning.compareAndSet(false, true)) return;
+
+        Iterator<Map.Entry<String, LinkedHashSet<Long>>> worlds = pendingChunks.entrySet().iterator();
+        Map.Entry<String, LinkedHashSet<Long>> next = worlds.next();
+        String world = next.getKey();
+        List<Long> batch = new ArrayList<>(Math.min(batchSize, next.getValue().size()));
+        Iterator<Long> it = next.getValue().iterator();
+        while (it.hasNext() && batch.size() < batchSize) {
+            batch.add(it.next());
+            it.remove();
+        }
+        pendingChunkCount -= batch.size();
+        if (next.getValue().isEmpty()) {
+            worlds.remove();
+        }
+
+        IBlockStorage storage = plugin.getDataHandler().getStorage();
+        boolean accepted = plugin.getIoExecutor().execute(() -> {
+            try {
+                Set<String> keys = storage.keysInChunks(world, batch);
+                if (!keys.isEmpty() && plugin.isEnabled()) {
+                    Bukkit.getScheduler().runTask(plugin, () -> {
+                        for (String key : keys) {
+                            if (checks.size() >= MAX_CHECKS) break;
+                            checks.add(key);
+                        }
+                    });
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Failed to look up protections in loaded chunks: " + e.getMessage());
+            } finally {
+                lookupRunning.set(false);
+            }
+        });
+        if (!accepted) {
+            // Saturated: these chunks are checked again on their next load
+            lookupRunning.set(false);
+        }
+    }
+
+    /**
+     * Check queued blocks within the tick budget
+     */
+    private void checkQueued() {
+        if (checks.isEmpty() || !plugin.getDataHandler().isReady()) return;
+
+        long start = System.nanoTime();
+        int count = 0;
+        Iterator<String> it = checks.iterator();
+        do {
+            String key = it.next();
+            it.remove();
+            if (check(key)) {
+                count++;
+            }
+        } while (it.hasNext() && System.nanoTime() - start < checkBudget);
+
+        if (count > 0) {
+            removed.add(count);
+        }
+    }
+
+    /**
+     * @return Whether an orphaned protection was removed
+     */
+    private boolean check(String key) {
+        Location location = LocationKeys.toLocation(key);
+        if (location == null) return false;
+
+        World world = location.getWorld();
+        // Unloaded meanwhile: checked again on the next load
+        if (!world.isChunkLoaded(BlockPositions.toChunk(location.getBlockX()), BlockPositions.toChunk(location.getBlockZ()))) {
+            return false;
+        }
+
+        Block block = location.getBlock();
+        // Tile entities keep their protection in the block itself, so a stored record there is stale too
+        if (plugin.isLockable(block.getType()) && !plugin.getDataHandler().isTileEntity(block)) return false;
+
+        return plugin.getDataHandler().removeOrphan(location);
+    }
+}
@@ -0,0 +1,133 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import org.bukkit.Bukkit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Number of location-based protections per owner, kept up to date on lock and unlock
+ * (and on changes from other servers) so limit checks don't count protections on demand.
+ * <p>
+ * Recounted after every load: from memory on the main thread when the storage holds
+ * everything there, otherwise from the backing store in the background. Changes made
+ * while a background recount runs are journaled and added on top; one that the storage
+ * read already saw is counted twice until the next recount.
+ */
+public class OwnerCounts {
+
+    private final ChestLock plugin;
+    private final Map<UUID, Integer> counts;
+    // Changes since the running recount started (main thread), null when none runs
+    private Map<UUID, Integer> journal;
+    private int generation;
+
+    public OwnerCounts(ChestLock plugin) {
+        this.plugin = plugin;
+        this.counts = new ConcurrentHashMap<>();
+    }
+
+    public int get(UUID owner) {
+        return counts.getOrDefault(owner, 0);
+    }
+
+    public synchronized void increment(UUID owner) {
+        add(counts, owner, 1);
+        if (journal != null) {
+            journal.merge(owner, 1, Integer::sum);
+        }
+    }
+
+    public synchronized void decrement(UUID owner) {
+        add(counts, owner, -1);
+        if (journal != null) {
+            journal.merge(owner, -1, Integer::sum);
+        }
+    }
+
+    /**
+     * A protection changed owner; either may be null for one added or removed (any thread)
+     */
+    public synchronized void ownerChanged(UUID previous, UUID now) {
+        if (previous != null) {
+            decrement(previous);
+        }
+        if (now != null) {
+            increment(now);
+        }
+    }
+
+    /**
+     * Recount from the storage's memory if it holds everything (main thread), otherwise
+     * from storage on the I/O executor and swap the result in on the main thread
+     */
+    public void reconcile(IBlockStorage storage) {
+        synchronized (this) {
+            // Supersedes a recount still running
+            generation++;
+            journal = null;
+        }
+        // Not under this lock: the storage holds its own while counting, and calls back with it held
+        if (storage.countOwners(this::replace)) return;
+
+        startRecount(storage);
+    }
+
+    private synchronized void replace(Map<UUID, Integer> counted) {
+        counts.clear();
+        counts.putAll(counted);
+    }
+
+    private synchronized void startRecount(IBlockStorage storage) {
+        int started = ++generation;
+        journal = new HashMap<>();
+
+        boolean accepted = plugin.getIoExecutor().execute(() -> {
+            Map<UUID, Integer> counted = new HashMap<>();
+            long start = System.nanoTime();
+            try {
+                storage.forEachStored((key, protection) -> add(counted, protection.getOwner(), 1));
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Failed to recount protections per owner: " + e.getMessage());
+                finish(started, null);
+                return;
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000L;
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    finish(started, counted);
+                    plugin.getLogger().info("Counted protections for " + counted.size() + " owners in " + millis + "ms");
+                });
+            }
+        });
+        if (!accepted) {
+            // Keep the incrementally maintained counts
+            journal = null;
+        }
+    }
+
+    private synchronized void finish(int started, Map<UUID, Integer> counted) {
+        // A newer recount replaced this one
+        if (started != generation) return;
+
+        if (counted != null) {
+            for (Map.Entry<UUID, Integer> change : journal.entrySet()) {
+                add(counted, change.getKey(), change.getValue());
+            }
+            counts.clear();
+            counts.putAll(counted);
+        }
+        journal = null;
+    }
+
+    private static void add(Map<UUID, Integer> map, UUID owner, int delta) {
+        // Never below zero, and no entries for owners without protections
+        map.compute(owner, (key, value) -> {
+            int count = (value == null ? 0 : value) + delta;
+            return count > 0 ? count : null;
+        });
+    }
+}
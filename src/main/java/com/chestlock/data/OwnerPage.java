@@ -0,0 +1,33 @@
+package com.chestlock.data;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One page of stored protections' owners, read in the storage's own order for
+ * background sweeps
+ */
+public final class OwnerPage {
+
+    private final Map<String, UUID> owners;
+    private final String next;
+
+    public OwnerPage(Map<String, UUID> owners, String next) {
+        this.owners = owners;
+        this.next = next;
+    }
+
+    /**
+     * Location key -> owner, in scan order
+     */
+    public Map<String, UUID> getOwners() {
+        return owners;
+    }
+
+    /**
+     * Cursor for the following page (opaque, can be persisted), null after the last page
+     */
+    public String getNext() {
+        return next;
+    }
+}
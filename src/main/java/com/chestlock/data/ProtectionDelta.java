@@ -0,0 +1,95 @@
+package com.chestlock.data;
+
+import com.chestlock.model.BlockProtection;
+import com.chestlock.model.BlockProtection.FriendPermission;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A change to an existing protection: friends added, changed or removed and/or new
+ * settings. Storage that can write single rows persists only this instead of the
+ * whole protection. Immutable; several deltas for one block combine with {@link #then}.
+ */
+public final class ProtectionDelta {
+
+    // Friend -> new permission, null for a removed friend
+    private final Map<UUID, FriendPermission> friends;
+    private final boolean hasSettings;
+    private final boolean allowHopper;
+    private final boolean allowRedstone;
+
+    private ProtectionDelta(Map<UUID, FriendPermission> friends, boolean hasSettings,
+                            boolean allowHopper, boolean allowRedstone) {
+        this.friends = Collections.unmodifiableMap(friends);
+        this.hasSettings = hasSettings;
+        this.allowHopper = allowHopper;
+        this.allowRedstone = allowRedstone;
+    }
+
+    public static ProtectionDelta friendAdded(UUID friend, FriendPermission permission) {
+        Map<UUID, FriendPermission> friends = new LinkedHashMap<>();
+        friends.put(friend, permission);
+        return new ProtectionDelta(friends, false, false, false);
+    }
+
+    public static ProtectionDelta friendRemoved(UUID friend) {
+        Map<UUID, FriendPermission> friends = new LinkedHashMap<>();
+        friends.put(friend, null);
+        return new ProtectionDelta(friends, false, false, false);
+    }
+
+    public static ProtectionDelta settings(boolean allowHopper, boolean allowRedstone) {
+        return new ProtectionDelta(new LinkedHashMap<>(), true, allowHopper, allowRedstone);
+    }
+
+    /**
+     * This delta followed by a later one (the later one wins where both touch the same thing)
+     */
+    public ProtectionDelta then(ProtectionDelta later) {
+        Map<UUID, FriendPermission> merged = new LinkedHashMap<>(friends);
+        merged.putAll(later.friends);
+        if (later.hasSettings) {
+            return new ProtectionDelta(merged, true, later.allowHopper, later.allowRedstone);
+        }
+        return new ProtectionDelta(merged, hasSettings, allowHopper, allowRedstone);
+    }
+
+    /**
+     * Apply the change to a protection in place
+     */
+    public void applyTo(BlockProtection protection) {
+        for (Map.Entry<UUID, FriendPermission> friend : friends.entrySet()) {
+            if (friend.getValue() == null) {
+                protection.removeFriend(friend.getKey());
+            } else {
+                protection.addFriend(friend.getKey(), friend.getValue());
+            }
+        }
+        if (hasSettings) {
+            protection.setAllowHopper(allowHopper);
+            protection.setAllowRedstone(allowRedstone);
+        }
+    }
+
+    /**
+     * Changed friends; a null permission means the friend was removed
+     */
+    public Map<UUID, FriendPermission> getFriends() {
+        return friends;
+    }
+
+    public boolean hasSettings() {
+        return hasSettings;
+    }
+
+    public boolean isAllowHopper() {
+        return allowHopper;
+    }
+
+    public boolean isAllowRedstone() {
+        return allowRedstone;
+    }
+}
@@ -0,0 +1,115 @@
+package com.chestlock.data;
+
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Area of one world for region operations: a cuboid, a vertical cylinder around a
+ * point (radius) or a rectangle of whole chunks
+ */
+public final class Region {
+
+    private final World world;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    // Cylinder around (centerX, centerZ), 0 for a plain box
+    private final long radiusSquared;
+    private final int centerX;
+    private final int centerZ;
+
+    private Region(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                   long radiusSquared, int centerX, int centerZ) {
+        this.world = world;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.radiusSquared = radiusSquared;
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+    }
+
+    /**
+     * Box between two corners (inclusive, in any order)
+     */
+    public static Region cuboid(World world, int x1, int y1, int z1, int x2, int y2, int z2) {
+        return new Region(world, Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2),
+                Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2), 0, 0, 0);
+    }
+
+    /**
+     * Every height within a horizontal radius of a block
+     */
+    public static Region radius(World world, int centerX, int centerZ, int radius) {
+        return new Region(world, centerX - radius, world.getMinHeight(), centerZ - radius,
+                centerX + radius, world.getMaxHeight() - 1, centerZ + radius,
+                (long) radius * radius, centerX, centerZ);
+    }
+
+    /**
+     * Whole chunks between two chunk corners (inclusive, in any order)
+     */
+    public static Region chunks(World world, int chunkX1, int chunkZ1, int chunkX2, int chunkZ2) {
+        return new Region(world, Math.min(chunkX1, chunkX2) << 4, world.getMinHeight(), Math.min(chunkZ1, chunkZ2) << 4,
+                (Math.max(chunkX1, chunkX2) << 4) + 15, world.getMaxHeight() - 1, (Math.max(chunkZ1, chunkZ2) << 4) + 15,
+                0, 0, 0);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) return false;
+        if (radiusSquared == 0) return true;
+
+        long dx = x - centerX;
+        long dz = z - centerZ;
+        return dx * dx + dz * dz <= radiusSquared;
+    }
+
+    /**
+     * Whether a location key ("world,x,y,z") lies in the region
+     */
+    public boolean contains(String key) {
+        String[] parts = key.split(",");
+        if (parts.length != 4 || !parts[0].equals(world.getName())) return false;
+
+        try {
+            return contains(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public long getChunkCount() {
+        return (long) (BlockPositions.toChunk(maxX) - BlockPositions.toChunk(minX) + 1)
+                * (BlockPositions.toChunk(maxZ) - BlockPositions.toChunk(minZ) + 1);
+    }
+
+    /**
+     * Chunks overlapping the region's bounding box, packed with {@link BlockPositions#packChunk}
+     */
+    public List<Long> getChunks() {
+        List<Long> chunks = new ArrayList<>();
+        for (int chunkX = BlockPositions.toChunk(minX); chunkX <= BlockPositions.toChunk(maxX); chunkX++) {
+            for (int chunkZ = BlockPositions.toChunk(minZ); chunkZ <= BlockPositions.toChunk(maxZ); chunkZ++) {
+                chunks.add(BlockPositions.packChunk(chunkX, chunkZ));
+            }
+        }
+        return chunks;
+    }
+
+    @Override
+    public String toString() {
+        return world.getName() + " (" + minX + ", " + minY + ", " + minZ + ") ~ (" + maxX + ", " + maxY + ", " + maxZ + ")";
+    }
+}
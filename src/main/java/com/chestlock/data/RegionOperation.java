@@ -0,0 +1,254 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Unlocks, transfers or purges every protection in a region without stalling a tick.
+ * <p>
+ * The region's chunks are looked up in batches on the I/O executor (location storage
+ * by its chunk index, tile entities by the tile index), one batch in flight at a time.
+ * The protections found are changed on the main thread within a per-tick budget;
+ * location storage writes go through the storage's own batching (the MySQL outbox).
+ * Tile entities in chunks that aren't loaded get a pending edit in the tile index
+ * instead of a chunk load.
+ */
+public class RegionOperation {
+
+    public enum Type {
+        /** Remove one player's protections */
+        UNLOCK,
+        /** Give every protection to one player */
+        TRANSFER,
+        /** Remove every protection */
+        PURGE
+    }
+
+    // How often progress is reported
+    private static final long PROGRESS_INTERVAL_NANOS = 5_000_000_000L;
+    // No new lookup while this many protections wait to be changed
+    private static final int MAX_QUEUED = 5000;
+
+    private final ChestLock plugin;
+    private final Type type;
+    private final Region region;
+    // UNLOCK: whose protections, TRANSFER: the new owner, PURGE: null
+    private final UUID player;
+    private final Consumer<String> progress;
+    private final List<Long> chunks;
+    private final ConcurrentLinkedQueue<String> locationKeys;
+    // Location key -> indexed owner
+    private final ConcurrentLinkedQueue<Map.Entry<String, UUID>> tileKeys;
+    private final AtomicBoolean lookupRunning;
+    private volatile String failure;
+    private int batchSize;
+    private long budget;
+    private int nextChunk;
+    private long found;
+    private long changed;
+    private long deferred;
+    private long started;
+    private long lastReport;
+    private boolean finished;
+    private BukkitTask task;
+
+    public RegionOperation(ChestLock plugin, Type type, Region region, UUID player, Consumer<String> progress) {
+        this.plugin = plugin;
+        this.type = type;
+        this.region = region;
+        this.player = player;
+        this.progress = progress;
+        this.chunks = region.getChunks();
+        this.locationKeys = new ConcurrentLinkedQueue<>();
+        this.tileKeys = new ConcurrentLinkedQueue<>();
+        this.lookupRunning = new AtomicBoolean();
+    }
+
+    /**
+     * Start working on the next tick (main thread)
+     */
+    public void start() {
+        batchSize = Math.max(1, plugin.getConfig().getInt("performance.region.chunk-batch", 256));
+        budget = Math.max(1, plugin.getConfig().getLong("performance.region.tick-budget", 2)) * 1_000_000L;
+        started = System.nanoTime();
+        lastReport = started;
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    /**
+     * Stop; changes already made stay (main thread)
+     */
+    public void cancel() {
+        finish("§e영역 작업을 취소했습니다: " + summary());
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public String status() {
+        return String.format(Locale.ROOT, "§e영역 작업 §f%s §7%s §8| §7청크 §f%d/%d §7조회, %s",
+                type, region, Math.min(nextChunk, chunks.size()), chunks.size(), summary());
+    }
+
+    private String summary() {
+        return String.format(Locale.ROOT, "보호 %d개 중 %d개 변경%s (%.1f초)", found, changed,
+                deferred > 0 ? ", 그중 " + deferred + "개는 청크가 로드될 때 적용" : "",
+                (System.nanoTime() - started) / 1e9);
+    }
+
+    private void tick() {
+        if (finished) return;
+        if (failure != null) {
+            finish("§c영역 작업 실패: " + failure + " §7(" + summary() + ")");
+            return;
+        }
+        // Storage is being reloaded
+        if (!plugin.getDataHandler().isReady()) return;
+
+        if (nextChunk < chunks.size() && !lookupRunning.get()
+                && locationKeys.size() + tileKeys.size() < MAX_QUEUED) {
+            lookupNext();
+        }
+
+        long start = System.nanoTime();
+        do {
+            String key = locationKeys.poll();
+            if (key != null) {
+                changeStored(key);
+                continue;
+            }
+            Map.Entry<String, UUID> tile = tileKeys.poll();
+            if (tile == null) break;
+            changeTile(tile.getKey(), tile.getValue());
+        } while (System.nanoTime() - start < budget);
+
+        if (nextChunk >= chunks.size() && !lookupRunning.get() && locationKeys.isEmpty() && tileKeys.isEmpty()) {
+            finish("§a영역 작업 완료: " + summary());
+            return;
+        }
+        if (start - lastReport > PROGRESS_INTERVAL_NANOS) {
+            lastReport = start;
+            progress.accept(status());
+        }
+    }
+
+    /**
+     * Hand the next batch of chunks to the I/O executor
+     */
+    private void lookupNext() {
+        List<Long> batch = new ArrayList<>(chunks.subList(nextChunk, Math.min(chunks.size(), nextChunk + batchSize)));
+        IBlockStorage storage = plugin.getDataHandler().getStorage();
+        TileIndex tileIndex = plugin.getDataHandler().getTileIndex();
+        String world = region.getWorld().getName();
+
+        lookupRunning.set(true);
+        boolean accepted = plugin.getIoExecutor().execute(() -> {
+            try {
+                for (String key : storage.keysInChunks(world, batch)) {
+                    if (region.contains(key)) {
+                        locationKeys.add(key);
+                    }
+                }
+                for (Map.Entry<String, UUID> entry : tileIndex.ownersInChunks(world, batch).entrySet()) {
+                    if (region.contains(entry.getKey()) && matches(entry.getValue())) {
+                        tileKeys.add(entry);
+                    }
+                }
+            } catch (RuntimeException e) {
+                failure = e.getMessage();
+            } finally {
+                lookupRunning.set(false);
+            }
+        });
+        if (accepted) {
+            nextChunk += batch.size();
+        } else {
+            // Saturated, try again next tick
+            lookupRunning.set(false);
+        }
+    }
+
+    /**
+     * Whether a protection with this owner is one the operation changes
+     */
+    private boolean matches(UUID owner) {
+        switch (type) {
+            case UNLOCK:
+                return owner.equals(player);
+            case TRANSFER:
+                return !owner.equals(player);
+            default:
+                return true;
+        }
+    }
+
+    private void changeStored(String key) {
+        Location location = LocationKeys.toLocation(key);
+        if (location == null) return;
+
+        found++;
+        BlockDataHandler dataHandler = plugin.getDataHandler();
+        boolean done;
+        switch (type) {
+            case UNLOCK:
+                done = dataHandler.removeStored(location, player);
+                break;
+            case TRANSFER:
+                done = dataHandler.transferStored(location, null, player);
+                break;
+            default:
+                done = dataHandler.removeStored(location, null);
+                break;
+        }
+        if (done) {
+            changed++;
+        }
+    }
+
+    private void changeTile(String key, UUID indexedOwner) {
+        Location location = LocationKeys.toLocation(key);
+        if (location == null) return;
+
+        found++;
+        TileIndex tileIndex = plugin.getDataHandler().getTileIndex();
+        // Changed since the lookup
+        if (!indexedOwner.equals(tileIndex.getOwner(location))) return;
+
+        UUID from = type == Type.UNLOCK ? player : null;
+        UUID newOwner = type == Type.TRANSFER ? player : null;
+        World world = location.getWorld();
+        if (world.isChunkLoaded(BlockPositions.toChunk(location.getBlockX()), BlockPositions.toChunk(location.getBlockZ()))) {
+            if (plugin.getDataHandler().editTile(location.getBlock(), from, newOwner)) {
+                changed++;
+            }
+            return;
+        }
+
+        // Written into the block when its chunk loads
+        tileIndex.deferEdit(key, newOwner);
+        changed++;
+        deferred++;
+    }
+
+    private void finish(String message) {
+        if (finished) return;
+
+        finished = true;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        plugin.getLogger().info("Region " + type + " in " + region + " finished: " + found + " found, "
+                + changed + " changed, " + deferred + " deferred");
+        progress.accept(message);
+    }
+}
@@ -0,0 +1,219 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import com.chestlock.model.BlockProtection;
+import org.bukkit.Bukkit;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Copies every protection from one storage backend to another off the main thread.
+ * Records are streamed from the source into a batched writer, then streamed again
+ * and compared against the target batch by batch, so memory stays bounded by the
+ * batch size (a YAML side is held in memory anyway, like the file itself).
+ */
+public class StorageConverter {
+
+    // How often progress is reported
+    private static final long PROGRESS_INTERVAL_NANOS = 5_000_000_000L;
+    // Mismatched keys logged by the verification pass
+    private static final int MAX_LOGGED_MISMATCHES = 10;
+
+    private final ChestLock plugin;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public StorageConverter(ChestLock plugin) {
+        this.plugin = plugin;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Start a conversion
+     * @param from Source backend (YAML or MYSQL)
+     * @param to Target backend (YAML or MYSQL), must differ from the source
+     * @param progress Receives progress and result lines on the main thread
+     * @return false if a conversion is already running or the I/O queue is full
+     */
+    public boolean start(String from, String to, Consumer<String> progress) {
+        if (!running.compareAndSet(false, true)) return false;
+
+        int batchSize = Math.max(1, plugin.getConfig().getInt("storage.convert.batch-size", 1000));
+        boolean accepted = plugin.getIoExecutor().execute(() -> {
+            try {
+                convert(from, to, batchSize, message -> report(progress, message));
+            } finally {
+                running.set(false);
+            }
+        });
+        if (!accepted) {
+            running.set(false);
+        }
+        return accepted;
+    }
+
+    private void convert(String from, String to, int batchSize, Consumer<String> progress) {
+        IBlockStorage active = plugin.getDataHandler().getStorage();
+        IBlockStorage source = null;
+        IBlockStorage target = null;
+        try {
+            source = open(from, active);
+            target = open(to, active);
+        } catch (RuntimeException e) {
+            progress.accept("§c저장소를 열 수 없습니다: " + e.getMessage());
+            closeOpened(source, active);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            long copied = copy(source, target, batchSize, progress);
+            progress.accept(String.format(Locale.ROOT, "§a%d개 복사 완료 (%.1f초), 검증 중...",
+                    copied, (System.nanoTime() - start) / 1e9));
+
+            long mismatches = verify(source, target, batchSize, progress);
+            if (mismatches == 0) {
+                progress.accept("§a검증 완료: " + copied + "개 모두 일치합니다");
+            } else {
+                progress.accept("§c검증 실패: " + mismatches + "개가 일치하지 않습니다 (콘솔 로그 확인)");
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("Storage conversion failed: " + e.getMessage());
+            progress.accept("§c변환 실패: " + e.getMessage());
+        } finally {
+            closeOpened(source, active);
+            closeOpened(target, active);
+        }
+
+        // The active MySQL cache and the owner counts don't know the rows written behind their back
+        if (target == active && plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (active instanceof MySQLStorage) {
+                    // Recounts once reloaded
+                    plugin.getDataHandler().loadAllAsync();
+                } else {
+                    plugin.getDataHandler().recountOwners();
+                }
+            });
+        }
+    }
+
+    private long copy(IBlockStorage source, IBlockStorage target, int batchSize, Consumer<String> progress) {
+        long[] copied = {0};
+        long[] lastReport = {System.nanoTime()};
+        long start = System.nanoTime();
+
+        try (BulkWriter writer = target.openBulkWriter(batchSize)) {
+            source.forEachStored((key, protection) -> {
+                writer.write(key, protection);
+                copied[0]++;
+
+                long now = System.nanoTime();
+                if (now - lastReport[0] >= PROGRESS_INTERVAL_NANOS) {
+                    lastReport[0] = now;
+                    progress.accept(String.format(Locale.ROOT, "§7복사 중... %d개 (%.0f개/초)",
+                            copied[0], copied[0] / ((now - start) / 1e9)));
+                }
+            });
+        }
+        return copied[0];
+    }
+
+    /**
+     * Stream the source again and compare each batch with the target
+     * @return Number of missing or different records
+     */
+    private long verify(IBlockStorage source, IBlockStorage target, int batchSize, Consumer<String> progress) {
+        // Looked up with one IN list per world, bounded like the writer's batches
+        int lookupBatch = Math.min(batchSize, MySQLBulkWriter.MAX_BATCH);
+        Map<String, BlockProtection> batch = new HashMap<>();
+        long[] checked = {0};
+        long[] mismatches = {0};
+        long[] lastReport = {System.nanoTime()};
+
+        source.forEachStored((key, protection) -> {
+            batch.put(key, protection);
+            if (batch.size() >= lookupBatch) {
+                mismatches[0] += compare(batch, target);
+                checked[0] += batch.size();
+                batch.clear();
+
+                long now = System.nanoTime();
+                if (now - lastReport[0] >= PROGRESS_INTERVAL_NANOS) {
+                    lastReport[0] = now;
+                    progress.accept("§7검증 중... " + checked[0] + "개");
+                }
+            }
+        });
+        mismatches[0] += compare(batch, target);
+        return mismatches[0];
+    }
+
+    private long compare(Map<String, BlockProtection> expected, IBlockStorage target) {
+        if (expected.isEmpty()) return 0;
+
+        Map<String, BlockProtection> stored = target.getStored(expected.keySet());
+        long mismatches = 0;
+        for (Map.Entry<String, BlockProtection> entry : expected.entrySet()) {
+            if (!sameProtection(entry.getValue(), stored.get(entry.getKey()))) {
+                if (mismatches < MAX_LOGGED_MISMATCHES) {
+                    plugin.getLogger().warning("Conversion mismatch at " + entry.getKey()
+                            + (stored.containsKey(entry.getKey()) ? " (different data)" : " (missing)"));
+                }
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    private static boolean sameProtection(BlockProtection a, BlockProtection b) {
+        return b != null
+                && a.getOwner().equals(b.getOwner())
+                && a.isAllowHopper() == b.isAllowHopper()
+                && a.isAllowRedstone() == b.isAllowRedstone()
+                && a.getFriends().equals(b.getFriends());
+    }
+
+    /**
+     * The active storage if it is of the given type, otherwise a separately opened and loaded one
+     */
+    private IBlockStorage open(String type, IBlockStorage active) {
+        boolean activeIsMySQL = active instanceof MySQLStorage;
+        if (type.equals("MYSQL") == activeIsMySQL) return active;
+
+        if (type.equals("MYSQL")) {
+            // Its gauges would replace those of the pool in use
+            DatabaseManager manager = new DatabaseManager(plugin, false);
+            try {
+                manager.connect();
+                manager.ensureSchema();
+            } catch (RuntimeException e) {
+                manager.disconnect();
+                throw e;
+            }
+            return new MySQLStorage(plugin, manager);
+        }
+
+        // Existing entries are kept, like rows in an existing database
+        YamlStorage storage = new YamlStorage(plugin);
+        storage.loadAll();
+        return storage;
+    }
+
+    private void closeOpened(IBlockStorage storage, IBlockStorage active) {
+        if (storage != null && storage != active) {
+            storage.close();
+        }
+    }
+
+    private void report(Consumer<String> progress, String message) {
+        plugin.getLogger().info("[convert] " + message.replaceAll("§.", ""));
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, () -> progress.accept(message));
+        }
+    }
+}
@@ -0,0 +1,550 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import com.chestlock.metrics.Histogram;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.TileState;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shadow index of tile entity protections (owner by position). The protections
+ * themselves live in each block's PersistentDataContainer; this index lets owner
+ * lookups, counts and listings see them without loading the chunk.
+ * <p>
+ * Kept current by lock/unlock and reconciled by scanning a chunk's tile entities
+ * after it loads, a few chunks per tick within a time budget. Saved to
+ * tile-index.dat in the background and on shutdown.
+ * <p>
+ * Region operations on chunks that aren't loaded change the index right away and
+ * leave a pending edit that is written into the block when its chunk is scanned or
+ * the block is read, whichever comes first. Pending edits are saved with the index.
+ */
+public class TileIndex {
+
+    // Pending edit that unlocks the block
+    private static final UUID REMOVED = new UUID(0L, 0L);
+
+    private final ChestLock plugin;
+    private final NamespacedKey ownerKey;
+    private final File file;
+    // Location key -> owner
+    private final Map<String, UUID> owners;
+    // Owner -> number of indexed protections (changed with owners, under the lock)
+    private final Map<UUID, Integer> ownerCounts;
+    // Chunk id ("world,chunkX,chunkZ") -> location keys in it
+    private final Map<String, Set<String>> chunks;
+    // Chunks scanned this session; the saved file is older for these
+    private final Set<String> scanned;
+    // Chunk ids waiting for a scan (main thread only)
+    private final LinkedHashSet<String> scanQueue;
+    // Location key -> owner still to be written into the block (REMOVED to unlock it)
+    private final Map<String, UUID> edits;
+    // Chunks scanned before their saved pending edits were read
+    private final Set<String> rescan;
+    private final AtomicBoolean dirty;
+    // Held while the file is written
+    private final Object saveLock = new Object();
+    private final Histogram scanDuration;
+    private volatile boolean loaded;
+    // Sorted key snapshot paged through by ownerPage, taken at the start of a pass
+    private volatile String[] pageKeys;
+    private BukkitTask scanTask;
+    private BukkitTask saveTask;
+
+    public TileIndex(ChestLock plugin, NamespacedKey ownerKey) {
+        this.plugin = plugin;
+        this.ownerKey = ownerKey;
+        this.file = new File(plugin.getDataFolder(), "tile-index.dat");
+        this.owners = new ConcurrentHashMap<>();
+        this.ownerCounts = new ConcurrentHashMap<>();
+        this.chunks = new ConcurrentHashMap<>();
+        this.scanned = ConcurrentHashMap.newKeySet();
+        this.scanQueue = new LinkedHashSet<>();
+        this.edits = new ConcurrentHashMap<>();
+        this.rescan = ConcurrentHashMap.newKeySet();
+        this.dirty = new AtomicBoolean();
+        this.scanDuration = plugin.getMetrics().getRegistry().histogram("chestlock_tile_index_scan_seconds",
+                "Time to scan one chunk's tile entities into the protection index", 1e-9);
+        plugin.getMetrics().getRegistry().gauge("chestlock_tile_index_entries",
+                "Tile entity protections in the index", owners::size);
+        plugin.getMetrics().getRegistry().gauge("chestlock_tile_index_scan_queue",
+                "Loaded chunks waiting for an index scan", () -> scanQueue.size());
+    }
+
+    /**
+     * Load the saved index in the background, queue the chunks that are already
+     * loaded and start the scan and save tasks
+     */
+    public void start() {
+        stop();
+        if (!plugin.getIoExecutor().execute(this::load)) {
+            plugin.getLogger().warning("Storage I/O queue is full, tile protection index starts empty");
+            loaded = true;
+        }
+
+        for (World world : Bukkit.getWorlds()) {
+            Chunk[] loadedChunks = world.getLoadedChunks();
+            if (loadedChunks == null) continue;
+            for (Chunk chunk : loadedChunks) {
+                queueScan(chunk);
+            }
+        }
+
+        scanTask = Bukkit.getScheduler().runTaskTimer(plugin, this::scanQueued, 1L, 1L);
+        long interval = Math.max(10, plugin.getConfig().getLong("performance.tile-index.save-interval", 300)) * 20L;
+        saveTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            if (dirty.get()) {
+                plugin.getIoExecutor().execute(this::save);
+            }
+        }, interval, interval);
+    }
+
+    /**
+     * Stop the tasks and save the index (blocking)
+     */
+    public void stop() {
+        if (scanTask != null) {
+            scanTask.cancel();
+            scanTask = null;
+        }
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+            if (dirty.get()) {
+                save();
+            }
+        }
+    }
+
+    /**
+     * Record a lock
+     */
+    public synchronized void put(Location location, UUID owner) {
+        String key = LocationKeys.toKey(location);
+        edits.remove(key);
+        track(owners.put(key, owner), owner);
+        chunks.computeIfAbsent(chunkId(location), id -> ConcurrentHashMap.newKeySet()).add(key);
+        dirty.set(true);
+    }
+
+    /**
+     * Record an unlock
+     */
+    public synchronized void remove(Location location) {
+        String key = LocationKeys.toKey(location);
+        edits.remove(key);
+        UUID owner = owners.remove(key);
+        if (owner == null) return;
+        track(owner, null);
+
+        Set<String> keys = chunks.get(chunkId(location));
+        if (keys != null) {
+            keys.remove(key);
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * Change or remove a protection whose chunk isn't loaded: the index changes now,
+     * the block itself when its chunk is next scanned or the block is read
+     * @param newOwner New owner, null to unlock
+     */
+    public synchronized void deferEdit(String key, UUID newOwner) {
+        String id = chunkIdOfKey(key);
+        if (id == null) return;
+
+        if (newOwner == null) {
+            UUID owner = owners.remove(key);
+            if (owner == null) return;
+            track(owner, null);
+            Set<String> keys = chunks.get(id);
+            if (keys != null) {
+                keys.remove(key);
+            }
+            edits.put(key, REMOVED);
+        } else {
+            track(owners.put(key, newOwner), newOwner);
+            chunks.computeIfAbsent(id, chunk -> ConcurrentHashMap.newKeySet()).add(key);
+            edits.put(key, newOwner);
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * Write a pending edit for this block into it, if there is one (main thread).
+     * Called before the block's protection is read.
+     * @return Whether an edit was written
+     */
+    public boolean applyPendingEdit(Block block) {
+        if (edits.isEmpty()) return false;
+
+        String key = LocationKeys.toKey(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+        UUID edit = edits.remove(key);
+        if (edit == null) return false;
+
+        plugin.getDataHandler().writeTileOwner(block, edit == REMOVED ? null : edit);
+        dirty.set(true);
+        return true;
+    }
+
+    public int getPendingEditCount() {
+        return edits.size();
+    }
+
+    /**
+     * Indexed protections in some chunks of a world: location key -> owner
+     * @param chunkCoordinates Chunks packed with {@link BlockPositions#packChunk}
+     */
+    public Map<String, UUID> ownersInChunks(String world, Collection<Long> chunkCoordinates) {
+        Map<String, UUID> found = new HashMap<>();
+        for (long chunk : chunkCoordinates) {
+            Set<String> keys = chunks.get(chunkId(world, BlockPositions.chunkX(chunk), BlockPositions.chunkZ(chunk)));
+            if (keys == null) continue;
+            for (String key : keys) {
+                UUID owner = owners.get(key);
+                if (owner != null) {
+                    found.put(key, owner);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Owner of the tile entity protection at a location, null if there is none
+     * (or the chunk has not been indexed yet)
+     */
+    public UUID getOwner(Location location) {
+        return owners.get(LocationKeys.toKey(location));
+    }
+
+    /**
+     * Positions of all indexed protections (worlds that aren't loaded are left out)
+     */
+    public Set<Location> getLocations() {
+        Set<Location> locations = new HashSet<>();
+        for (String key : owners.keySet()) {
+            Location location = LocationKeys.toLocation(key);
+            if (location != null) {
+                locations.add(location);
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Location keys of the indexed protections a player owns
+     */
+    public List<String> getOwned(UUID owner) {
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, UUID> entry : owners.entrySet()) {
+            if (entry.getValue().equals(owner)) {
+                keys.add(entry.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * One page of indexed owners in location key order, for background sweeps
+     * @param cursor Null for the first page
+     */
+    public OwnerPage ownerPage(String cursor, int limit) {
+        String[] keys = pageKeys;
+        if (cursor == null || keys == null) {
+            keys = owners.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            pageKeys = keys;
+        }
+
+        int from = 0;
+        if (cursor != null) {
+            int found = Arrays.binarySearch(keys, cursor);
+            from = found >= 0 ? found + 1 : -found - 1;
+        }
+
+        Map<String, UUID> page = new LinkedHashMap<>();
+        int to = Math.min(keys.length, from + limit);
+        for (int i = from; i < to; i++) {
+            // Removed since the snapshot
+            UUID owner = owners.get(keys[i]);
+            if (owner != null) {
+                page.put(keys[i], owner);
+            }
+        }
+        if (to >= keys.length) {
+            pageKeys = null;
+            return new OwnerPage(page, null);
+        }
+        return new OwnerPage(page, keys[to - 1]);
+    }
+
+    /**
+     * Number of indexed protections a player owns
+     */
+    public int countOwned(UUID owner) {
+        return ownerCounts.getOrDefault(owner, 0);
+    }
+
+    public int size() {
+        return owners.size();
+    }
+
+    /**
+     * Whether the saved index has been read (until then only scanned chunks are known)
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Queue a loaded chunk for a scan on a later tick (main thread)
+     */
+    public void queueScan(Chunk chunk) {
+        scanQueue.add(chunkId(chunk.getWorld().getName(), chunk.getX(), chunk.getZ()));
+    }
+
+    public int getScanQueueSize() {
+        return scanQueue.size();
+    }
+
+    // Scanning (main thread)
+
+    private void scanQueued() {
+        if (!rescan.isEmpty()) {
+            scanQueue.addAll(rescan);
+            rescan.clear();
+        }
+        if (scanQueue.isEmpty()) return;
+
+        long budget = Math.max(1, plugin.getConfig().getLong("performance.tile-index.scan-budget", 2)) * 1_000_000L;
+        long start = System.nanoTime();
+        Iterator<String> it = scanQueue.iterator();
+        // At least one chunk per tick, then more while the budget lasts
+        do {
+            String id = it.next();
+            it.remove();
+            scan(id);
+        } while (it.hasNext() && System.nanoTime() - start < budget);
+    }
+
+    private void scan(String id) {
+        int comma = id.lastIndexOf(',');
+        int previous = id.lastIndexOf(',', comma - 1);
+        World world = Bukkit.getWorld(id.substring(0, previous));
+        int chunkX = Integer.parseInt(id.substring(previous + 1, comma));
+        int chunkZ = Integer.parseInt(id.substring(comma + 1));
+        // Unloaded meanwhile: keep what is indexed and scan on the next load
+        if (world == null || !world.isChunkLoaded(chunkX, chunkZ)) return;
+
+        long start = System.nanoTime();
+        Map<String, UUID> found = new HashMap<>();
+        for (BlockState state : world.getChunkAt(chunkX, chunkZ).getTileEntities()) {
+            if (!(state instanceof TileState)) continue;
+
+            // Region edits made while the chunk was unloaded go into the block first
+            if (applyPendingEdit(state.getBlock())) {
+                state = state.getBlock().getState();
+                if (!(state instanceof TileState)) continue;
+            }
+            String owner = ((TileState) state).getPersistentDataContainer().get(ownerKey, PersistentDataType.STRING);
+            if (owner == null) continue;
+            try {
+                found.put(LocationKeys.toKey(world.getName(), state.getX(), state.getY(), state.getZ()),
+                        UUID.fromString(owner));
+            } catch (IllegalArgumentException e) {
+                // Not a protection ChestLock can read either
+            }
+        }
+        replaceChunk(id, found);
+        scanDuration.recordSince(start);
+    }
+
+    private synchronized void replaceChunk(String id, Map<String, UUID> found) {
+        scanned.add(id);
+        Set<String> keys = chunks.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet());
+        for (String key : keys) {
+            if (!found.containsKey(key)) {
+                track(owners.remove(key), null);
+                dirty.set(true);
+            }
+        }
+        keys.retainAll(found.keySet());
+        for (Map.Entry<String, UUID> entry : found.entrySet()) {
+            UUID previous = owners.put(entry.getKey(), entry.getValue());
+            if (!entry.getValue().equals(previous)) {
+                track(previous, entry.getValue());
+                dirty.set(true);
+            }
+            keys.add(entry.getKey());
+        }
+    }
+
+    /**
+     * Move one protection's count from its previous owner (if any) to its new one (if any)
+     */
+    private void track(UUID previous, UUID now) {
+        if (Objects.equals(previous, now)) return;
+        if (previous != null) {
+            ownerCounts.computeIfPresent(previous, (owner, count) -> count > 1 ? count - 1 : null);
+        }
+        if (now != null) {
+            ownerCounts.merge(now, 1, Integer::sum);
+        }
+    }
+
+    // File
+
+    /**
+     * One line per protection: key, tab, owner, plus a tab and "*" while the owner
+     * still has to be written into the block. "key, tab, -" is a pending unlock.
+     */
+    private void load() {
+        Map<String, UUID> saved = new HashMap<>();
+        Map<String, UUID> savedEdits = new HashMap<>();
+        if (file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t");
+                    if (parts.length < 2) continue;
+                    try {
+                        if (parts[1].equals("-")) {
+                            savedEdits.put(parts[0], REMOVED);
+                            continue;
+                        }
+                        UUID owner = UUID.fromString(parts[1]);
+                        saved.put(parts[0], owner);
+                        if (parts.length > 2 && parts[2].equals("*")) {
+                            savedEdits.put(parts[0], owner);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // Cut off by a crash; the next scan of that chunk fixes it
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to read " + file.getName() + ": " + e.getMessage());
+            }
+        }
+
+        synchronized (this) {
+            for (Map.Entry<String, UUID> entry : saved.entrySet()) {
+                String key = entry.getKey();
+                String id = chunkIdOfKey(key);
+                if (id == null) continue;
+                // Already scanned or changed this session
+                if (scanned.contains(id) || owners.containsKey(key)) continue;
+
+                owners.put(key, entry.getValue());
+                track(null, entry.getValue());
+                chunks.computeIfAbsent(id, chunk -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+            for (Map.Entry<String, UUID> entry : savedEdits.entrySet()) {
+                String key = entry.getKey();
+                String id = chunkIdOfKey(key);
+                // Changed this session, or a tile entity edit that no longer matches the index
+                if (id == null || edits.containsKey(key) || !Objects.equals(owners.get(key),
+                        entry.getValue() == REMOVED ? null : entry.getValue())) continue;
+
+                edits.put(key, entry.getValue());
+                if (scanned.contains(id)) {
+                    // The scan read the block before the edit was known
+                    rescan.add(id);
+                }
+            }
+            loaded = true;
+        }
+        if (!saved.isEmpty()) {
+            plugin.getLogger().info("Loaded " + saved.size() + " indexed tile entity protections");
+        }
+    }
+
+    /**
+     * Write the index to a temporary file and move it into place
+     */
+    private void save() {
+        synchronized (saveLock) {
+            Map<String, UUID> snapshot;
+            Map<String, UUID> pending;
+            synchronized (this) {
+                // An unread file holds more than a half-filled index
+                if (!loaded) return;
+                dirty.set(false);
+                snapshot = new HashMap<>(owners);
+                pending = new HashMap<>(edits);
+            }
+
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            try (Writer out = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, UUID> entry : snapshot.entrySet()) {
+                    out.write(entry.getKey());
+                    out.write('\t');
+                    out.write(entry.getValue().toString());
+                    if (entry.getValue().equals(pending.get(entry.getKey()))) {
+                        out.write("\t*");
+                    }
+                    out.write('\n');
+                }
+                for (Map.Entry<String, UUID> entry : pending.entrySet()) {
+                    if (entry.getValue() == REMOVED) {
+                        out.write(entry.getKey());
+                        out.write("\t-\n");
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to save " + file.getName() + ": " + e.getMessage());
+                dirty.set(true);
+                return;
+            }
+
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to replace " + file.getName() + ": " + e.getMessage());
+                dirty.set(true);
+            }
+        }
+    }
+
+    private static String chunkId(Location location) {
+        return chunkId(location.getWorld().getName(),
+                BlockPositions.toChunk(location.getBlockX()), BlockPositions.toChunk(location.getBlockZ()));
+    }
+
+    private static String chunkId(String world, int chunkX, int chunkZ) {
+        return world + "," + chunkX + "," + chunkZ;
+    }
+
+    /**
+     * Chunk id of a location key, null if the key is malformed
+     */
+    private static String chunkIdOfKey(String key) {
+        String[] parts = key.split(",");
+        if (parts.length != 4) return null;
+
+        try {
+            return chunkId(parts[0], BlockPositions.toChunk(Integer.parseInt(parts[1])),
+                    BlockPositions.toChunk(Integer.parseInt(parts[3])));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.chestlock.data;
+
+import java.sql.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * World name <-> id mapping backed by the chestlock_worlds table. Ids never change
+ * once assigned, so both directions are cached for the life of the pool.
+ */
+public class WorldIds {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * Cache every known world (called before bulk reads)
+     */
+    public void loadAll(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name FROM chestlock_worlds")) {
+            while (rs.next()) {
+                remember(rs.getString("name"), rs.getInt("id"));
+            }
+        }
+    }
+
+    /**
+     * Id of a world, or -1 if it has no id yet (so nothing is stored in it)
+     */
+    public int find(Connection conn, String world) throws SQLException {
+        Integer cached = ids.get(world);
+        if (cached != null) return cached;
+
+        // Another server may have registered it since
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM chestlock_worlds WHERE name = ?")) {
+            stmt.setString(1, world);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    int id = rs.getInt("id");
+                    remember(world, id);
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Id of a world, registering it if needed
+     */
+    public int getOrCreate(Connection conn, String world) throws SQLException {
+        int id = find(conn, world);
+        if (id >= 0) return id;
+
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT IGNORE INTO chestlock_worlds (name) VALUES (?)")) {
+            stmt.setString(1, world);
+            stmt.executeUpdate();
+        }
+        id = find(conn, world);
+        if (id < 0) {
+            throw new SQLException("Failed to register world " + world);
+        }
+        return id;
+    }
+
+    /**
+     * Name of a world id (null if unknown)
+     */
+    public String name(Connection conn, int id) throws SQLException {
+        String cached = names.get(id);
+        if (cached != null) return cached;
+
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT name FROM chestlock_worlds WHERE id = ?")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    String name = rs.getString("name");
+                    remember(name, id);
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void remember(String name, int id) {
+        ids.put(name, id);
+        names.put(id, name);
+    }
+}
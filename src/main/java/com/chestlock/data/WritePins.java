@@ -0,0 +1,61 @@
+package com.chestlock.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locations this server wrote recently. Until the window passes, reads of them go to
+ * the primary, since the read replica may not have the write yet.
+ */
+class WritePins {
+
+    // Expired pins are swept once the map grows past this
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    // Key -> System.nanoTime() when the pin ends
+    private final Map<String, Long> pins = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    /**
+     * @param windowNanos How long a write stays pinned (0 = pinning off)
+     */
+    WritePins(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    void pin(String key) {
+        if (windowNanos <= 0) return;
+
+        pins.put(key, System.nanoTime() + windowNanos);
+        if (pins.size() > SWEEP_THRESHOLD) {
+            long now = System.nanoTime();
+            pins.values().removeIf(until -> until - now < 0);
+        }
+    }
+
+    boolean isPinned(String key) {
+        if (windowNanos <= 0) return false;
+
+        Long until = pins.get(key);
+        if (until == null) return false;
+        if (until - System.nanoTime() > 0) return true;
+        pins.remove(key, until);
+        return false;
+    }
+
+    /**
+     * Keys that are still pinned
+     */
+    List<String> pinned() {
+        List<String> keys = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Map.Entry<String, Long> pin : pins.entrySet()) {
+            if (pin.getValue() - now > 0) {
+                keys.add(pin.getKey());
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,577 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+import com.chestlock.metrics.Counter;
+import com.chestlock.model.BlockProtection;
+import com.chestlock.model.BlockProtection.FriendPermission;
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Outbox for database writes. Every save or remove is appended to a local log file
+ * before the caller returns, then sent to the database in batches; the log is
+ * truncated once everything in it has been committed, and replayed on startup after
+ * a crash or a shutdown during an outage.
+ * <p>
+ * In memory, writes are kept in order and coalesced per location: a save or remove
+ * replaces whatever was queued, deltas (friend and settings changes) combine with a
+ * queued delta or fold into a queued save. The log is append-only and compacted when
+ * it grows much larger than the pending set.
+ * <p>
+ * When the database rejects a batch, its writes are sent one at a time so the others
+ * still go through; a write rejected several times is moved to mysql-outbox-rejected.log
+ * instead of blocking the outbox forever.
+ */
+public class WriteSpool {
+
+    /**
+     * Sends a batch of writes to the database in one transaction
+     */
+    public interface Writer {
+        void write(List<Entry> batch) throws SQLException;
+    }
+
+    // Compact when the log holds this many times more records than pending writes
+    private static final int COMPACT_FACTOR = 4;
+    private static final int COMPACT_MIN_RECORDS = 1000;
+    // Rejections before a write is set aside
+    private static final int MAX_REJECTIONS = 3;
+
+    private final ChestLock plugin;
+    private final File file;
+    private final File legacyFile;
+    private final File rejectedFile;
+    private final Counter rejected;
+    private final boolean fsync;
+    private final LinkedHashMap<String, Entry> entries;
+    // Held while a batch is being sent, so batches commit in queue order
+    private final Object sendLock = new Object();
+    private FileOutputStream out;
+    private int logRecords;
+    private boolean logFailed;
+    // A write was set aside but is still in the log
+    private boolean compactPending;
+
+    public WriteSpool(ChestLock plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "mysql-outbox.log");
+        this.legacyFile = new File(plugin.getDataFolder(), "mysql-spool.yml");
+        this.rejectedFile = new File(plugin.getDataFolder(), "mysql-outbox-rejected.log");
+        this.rejected = plugin.getMetrics().getRegistry().counter("chestlock_db_rejected_writes_total",
+                "Queued writes the database kept rejecting, set aside in mysql-outbox-rejected.log");
+        this.fsync = plugin.getConfig().getBoolean("storage.mysql.outbox.fsync", false);
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Queue a save (protection != null) or remove (protection == null) and append it to the log
+     */
+    public synchronized void add(Location location, BlockProtection protection) {
+        Entry entry = new Entry(location.getWorld().getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ(), protection, null);
+        queue(entry);
+        append(format(entry));
+    }
+
+    /**
+     * Queue a change to a stored protection and append it to the log
+     * @param protection The protection with the change applied (queued whole if a save or remove is pending)
+     */
+    public synchronized void update(Location location, BlockProtection protection, ProtectionDelta delta) {
+        String world = location.getWorld().getName();
+        Entry previous = entries.get(LocationKeys.toKey(location));
+        if (previous != null && previous.delta == null) {
+            // The save hasn't gone out yet; it carries the change
+            add(location, protection);
+            return;
+        }
+
+        Entry entry = new Entry(world, location.getBlockX(), location.getBlockY(), location.getBlockZ(), null,
+                previous == null ? delta : previous.delta.then(delta));
+        queue(entry);
+        // Only the new part: replaying the log combines it the same way
+        append(formatDelta(entry.key, delta));
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Send the oldest writes (up to max) and drop them once committed. A write queued
+     * for the same block meanwhile stays queued. If the database rejects the batch, its
+     * writes are sent one at a time and one rejected too often is set aside.
+     * @return Number of writes sent or set aside (0 if the outbox is empty)
+     * @throws SQLException If the batch failed and nothing could be sent; its writes stay queued
+     */
+    public int send(Writer writer, int max) throws SQLException {
+        synchronized (sendLock) {
+            List<Entry> batch = new ArrayList<>();
+            synchronized (this) {
+                for (Entry entry : entries.values()) {
+                    if (batch.size() >= max) break;
+                    batch.add(entry);
+                }
+            }
+            if (batch.isEmpty()) return 0;
+
+            try {
+                writer.write(batch);
+            } catch (SQLException e) {
+                if (DatabaseManager.isConnectionError(e)) throw e;
+                batch = sendEach(writer, batch);
+                if (batch.isEmpty()) throw e;
+            }
+
+            synchronized (this) {
+                for (Entry entry : batch) {
+                    entries.remove(entry.key, entry);
+                }
+                if (entries.isEmpty()) {
+                    truncate();
+                    compactPending = false;
+                } else if (compactPending || (logRecords >= COMPACT_MIN_RECORDS && logRecords > entries.size() * COMPACT_FACTOR)) {
+                    // Writes set aside must not come back from the log on the next start
+                    if (compact()) {
+                        compactPending = false;
+                    }
+                }
+            }
+            return batch.size();
+        }
+    }
+
+    /**
+     * Send a rejected batch one write at a time
+     * @return The writes that were sent or set aside
+     * @throws SQLException If the database became unreachable
+     */
+    private List<Entry> sendEach(Writer writer, List<Entry> batch) throws SQLException {
+        List<Entry> done = new ArrayList<>();
+        for (Entry entry : batch) {
+            try {
+                writer.write(Collections.singletonList(entry));
+            } catch (SQLException e) {
+                if (DatabaseManager.isConnectionError(e)) throw e;
+                // Stays queued in its place and is tried again with the next send
+                if (++entry.rejections < MAX_REJECTIONS) continue;
+                setAside(entry, e);
+            }
+            done.add(entry);
+        }
+        return done;
+    }
+
+    /**
+     * Move a write the database keeps rejecting to the rejected log, where it can be inspected
+     */
+    private void setAside(Entry entry, SQLException e) {
+        plugin.getLogger().severe("MySQL rejected the queued write for " + entry.key + " " + entry.rejections
+                + " times, moving it to " + rejectedFile.getName() + ": " + e.getMessage());
+        rejected.increment();
+        compactPending = true;
+        try (FileOutputStream rejectedOut = new FileOutputStream(rejectedFile, true)) {
+            String record = "# " + new Date() + " " + e.getMessage() + "\n" + format(entry);
+            rejectedOut.write(record.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ioe) {
+            plugin.getLogger().warning("Failed to write " + rejectedFile.getName() + ": " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Send everything in batches. Stops at the first failure and keeps the rest.
+     * @return true if the outbox is empty afterwards
+     */
+    public boolean replay(Writer writer, int batchSize) {
+        try {
+            while (send(writer, batchSize) > 0) {
+                // Keep going until empty
+            }
+            return true;
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Replaying queued database writes failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Close the log file. Unsent writes stay in it for the next start.
+     */
+    public synchronized void close() {
+        if (!entries.isEmpty()) {
+            plugin.getLogger().warning("Keeping " + entries.size() + " unsent database writes in " + file.getName());
+        }
+        closeLog();
+    }
+
+    /**
+     * Load writes left by an earlier session (the log, or the spool file of older versions)
+     */
+    public synchronized void load() {
+        // The old spool file predates the log, so the log's records win
+        boolean legacy = legacyFile.exists();
+        if (legacy) {
+            loadLegacy();
+        }
+
+        if (file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    logRecords++;
+                    Entry entry = parse(line);
+                    if (entry != null) {
+                        queueLoaded(entry);
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to read " + file.getName() + ": " + e.getMessage());
+            }
+        }
+
+        if (legacy) {
+            // Carry them into the log before the old file goes away
+            if (compact() && !legacyFile.delete()) {
+                plugin.getLogger().warning("Failed to delete " + legacyFile.getName());
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            plugin.getLogger().info("Loaded " + entries.size() + " queued database writes");
+        }
+    }
+
+    /**
+     * Whether a write for a location is still queued
+     */
+    public synchronized boolean isPending(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Whether the latest queued write for a location removes it
+     */
+    public synchronized boolean isPendingRemove(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.isRemove();
+    }
+
+    /**
+     * Apply queued writes on top of freshly loaded data
+     */
+    public synchronized void overlay(Map<String, BlockProtection> target) {
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry write = entry.getValue();
+            if (write.delta != null) {
+                BlockProtection loaded = target.get(entry.getKey());
+                if (loaded != null) {
+                    write.delta.applyTo(loaded);
+                }
+            } else if (write.protection == null) {
+                target.remove(entry.getKey());
+            } else {
+                target.put(entry.getKey(), write.protection);
+            }
+        }
+    }
+
+    private void queue(Entry entry) {
+        // Re-insert so the entry moves behind older writes
+        entries.remove(entry.key);
+        entries.put(entry.key, entry);
+    }
+
+    /**
+     * Queue a record read back from the log, combining deltas as {@link #update} did
+     */
+    private void queueLoaded(Entry entry) {
+        Entry previous = entries.get(entry.key);
+        if (entry.delta == null || previous == null) {
+            queue(entry);
+        } else if (previous.delta != null) {
+            queue(new Entry(entry.world, entry.x, entry.y, entry.z, null, previous.delta.then(entry.delta)));
+        } else if (previous.protection != null) {
+            // Loaded protections aren't shared yet, so the save can take the change
+            entry.delta.applyTo(previous.protection);
+            queue(previous);
+        }
+        // A delta after a remove has nothing to change
+    }
+
+    // Log file
+
+    private void append(String record) {
+        try {
+            if (out == null) {
+                out = new FileOutputStream(file, true);
+            }
+            // One write per record, flushed to the OS before the caller goes on
+            out.write(record.getBytes(StandardCharsets.UTF_8));
+            if (fsync) {
+                out.getFD().sync();
+            }
+            logRecords++;
+            logFailed = false;
+        } catch (IOException e) {
+            // Still queued in memory; only a crash before it is sent would lose it
+            if (!logFailed) {
+                plugin.getLogger().severe("Failed to append to " + file.getName() + ": " + e.getMessage());
+                logFailed = true;
+            }
+            closeLog();
+        }
+    }
+
+    private void truncate() {
+        try {
+            if (out != null) {
+                out.getChannel().truncate(0);
+            } else if (file.exists()) {
+                new FileOutputStream(file).close();
+            }
+            logRecords = 0;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to truncate " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite the log with only the pending writes
+     * @return false if the old log is still in place
+     */
+    private boolean compact() {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream tempOut = new FileOutputStream(temp)) {
+            StringBuilder sb = new StringBuilder();
+            for (Entry entry : entries.values()) {
+                sb.append(format(entry));
+            }
+            tempOut.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            tempOut.getFD().sync();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to compact " + file.getName() + ": " + e.getMessage());
+            return false;
+        }
+
+        closeLog();
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logRecords = entries.size();
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to replace " + file.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void closeLog() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to close " + file.getName() + ": " + e.getMessage());
+        }
+        out = null;
+    }
+
+    /**
+     * One tab-separated line: R, key or S, key, owner, hopper, redstone, friends (uuid=PERMISSION,...)
+     * or D, key, hopper, redstone (both empty if unchanged), friends (uuid=PERMISSION or uuid=- if removed)
+     */
+    private static String format(Entry entry) {
+        if (entry.delta != null) {
+            return formatDelta(entry.key, entry.delta);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        BlockProtection protection = entry.protection;
+        if (protection == null) {
+            return sb.append("R\t").append(entry.key).append('\n').toString();
+        }
+
+        sb.append("S\t").append(entry.key)
+                .append('\t').append(protection.getOwner())
+                .append('\t').append(protection.isAllowHopper() ? 1 : 0)
+                .append('\t').append(protection.isAllowRedstone() ? 1 : 0)
+                .append('\t');
+        boolean first = true;
+        for (Map.Entry<UUID, FriendPermission> friend : protection.getFriends().entrySet()) {
+            if (!first) sb.append(',');
+            sb.append(friend.getKey()).append('=').append(friend.getValue().name());
+            first = false;
+        }
+        return sb.append('\n').toString();
+    }
+
+    private static String formatDelta(String key, ProtectionDelta delta) {
+        StringBuilder sb = new StringBuilder("D\t").append(key).append('\t');
+        if (delta.hasSettings()) {
+            sb.append(delta.isAllowHopper() ? 1 : 0).append('\t').append(delta.isAllowRedstone() ? 1 : 0);
+        } else {
+            sb.append('\t');
+        }
+        sb.append('\t');
+        boolean first = true;
+        for (Map.Entry<UUID, FriendPermission> friend : delta.getFriends().entrySet()) {
+            if (!first) sb.append(',');
+            sb.append(friend.getKey()).append('=').append(friend.getValue() == null ? "-" : friend.getValue().name());
+            first = false;
+        }
+        return sb.append('\n').toString();
+    }
+
+    /**
+     * @return null for a malformed line (such as one cut off by a crash)
+     */
+    private Entry parse(String line) {
+        String[] fields = line.split("\t", -1);
+        try {
+            String[] key = fields[1].split(",");
+            if (key.length != 4) throw new IllegalArgumentException("bad location " + fields[1]);
+
+            BlockProtection protection = null;
+            ProtectionDelta delta = null;
+            if (fields[0].equals("D") && fields.length == 5) {
+                delta = parseDelta(fields);
+            } else if (fields[0].equals("S") && fields.length == 6) {
+                protection = new BlockProtection(UUID.fromString(fields[2]));
+                protection.setAllowHopper(fields[3].equals("1"));
+                protection.setAllowRedstone(fields[4].equals("1"));
+                if (!fields[5].isEmpty()) {
+                    for (String friend : fields[5].split(",")) {
+                        String[] parts = friend.split("=");
+                        protection.addFriend(UUID.fromString(parts[0]), FriendPermission.valueOf(parts[1]));
+                    }
+                }
+            } else if (!fields[0].equals("R") || fields.length != 2) {
+                throw new IllegalArgumentException("bad record");
+            }
+            return new Entry(key[0], Integer.parseInt(key[1]), Integer.parseInt(key[2]), Integer.parseInt(key[3]),
+                    protection, delta);
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Skipping invalid queued write in " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ProtectionDelta parseDelta(String[] fields) {
+        ProtectionDelta delta = null;
+        if (!fields[2].isEmpty()) {
+            delta = ProtectionDelta.settings(fields[2].equals("1"), fields[3].equals("1"));
+        }
+        if (!fields[4].isEmpty()) {
+            for (String friend : fields[4].split(",")) {
+                String[] parts = friend.split("=");
+                UUID uuid = UUID.fromString(parts[0]);
+                ProtectionDelta change = parts[1].equals("-")
+                        ? ProtectionDelta.friendRemoved(uuid)
+                        : ProtectionDelta.friendAdded(uuid, FriendPermission.valueOf(parts[1]));
+                delta = delta == null ? change : delta.then(change);
+            }
+        }
+        if (delta == null) throw new IllegalArgumentException("empty change");
+        return delta;
+    }
+
+    /**
+     * Spool file written on shutdown by older versions
+     */
+    private void loadLegacy() {
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(legacyFile);
+        for (String key : config.getKeys(false)) {
+            ConfigurationSection section = config.getConfigurationSection(key);
+            String[] parts = key.split(",");
+            if (section == null || parts.length != 4) continue;
+
+            try {
+                BlockProtection protection = null;
+                if (!section.getBoolean("removed", false)) {
+                    protection = new BlockProtection(UUID.fromString(section.getString("owner")));
+                    protection.setAllowHopper(section.getBoolean("allowHopper", false));
+                    protection.setAllowRedstone(section.getBoolean("allowRedstone", true));
+                    for (String friend : section.getStringList("friends")) {
+                        String[] friendParts = friend.split(":");
+                        if (friendParts.length == 2) {
+                            protection.addFriend(UUID.fromString(friendParts[0]), FriendPermission.valueOf(friendParts[1]));
+                        }
+                    }
+                }
+                queue(new Entry(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                        Integer.parseInt(parts[3]), protection, null));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Skipping invalid spooled write for " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One queued write: a save (protection set), a change to a stored protection
+     * (delta set) or a remove (neither)
+     */
+    public static final class Entry {
+        private final String key;
+        private final String world;
+        private final int x, y, z;
+        private final BlockProtection protection;
+        private final ProtectionDelta delta;
+        // Times the database rejected this write on its own (guarded by the send lock)
+        private int rejections;
+
+        private Entry(String world, int x, int y, int z, BlockProtection protection, ProtectionDelta delta) {
+            this.key = LocationKeys.toKey(world, x, y, z);
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.protection = protection;
+            this.delta = delta;
+        }
+
+        public boolean isRemove() {
+            return protection == null && delta == null;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getWorld() {
+            return world;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public int getZ() {
+            return z;
+        }
+
+        public BlockProtection getProtection() {
+            return protection;
+        }
+
+        public ProtectionDelta getDelta() {
+            return delta;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.chestlock.data;
+
+import com.chestlock.ChestLock;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Name store for YAML mode: a compact "uuid name" line file (names.dat).
+ * Read on first use, appended on change and rewritten without duplicates on close.
+ * Last-seen times are kept the same way in "uuid millis" lines (last-seen.dat).
+ */
+public class YamlNameStore implements NameStore {
+
+    private final ChestLock plugin;
+    private final File dataFile;
+    private final File seenFile;
+    private final Map<UUID, String> names;
+    private final Map<UUID, Long> seen;
+    private boolean loaded;
+    private int appended;
+    private int seenAppended;
+
+    public YamlNameStore(ChestLock plugin) {
+        this.plugin = plugin;
+        this.dataFile = new File(plugin.getDataFolder(), "names.dat");
+        this.seenFile = new File(plugin.getDataFolder(), "last-seen.dat");
+        this.names = new HashMap<>();
+        this.seen = new HashMap<>();
+    }
+
+    @Override
+    public synchronized Map<UUID, String> load(Collection<UUID> uuids) {
+        ensureLoaded();
+
+        Map<UUID, String> result = new HashMap<>();
+        for (UUID uuid : uuids) {
+            String name = names.get(uuid);
+            if (name != null) {
+                result.put(uuid, name);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void save(UUID uuid, String name) {
+        ensureLoaded();
+        if (name.equals(names.put(uuid, name))) return;
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(dataFile, true), StandardCharsets.UTF_8)) {
+            writer.write(uuid + " " + name + "\n");
+            appended++;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save player name: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void markSeen(UUID uuid, String name, long time) {
+        save(uuid, name);
+
+        Long previous = seen.get(uuid);
+        if (previous != null && previous >= time) return;
+        seen.put(uuid, time);
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(seenFile, true), StandardCharsets.UTF_8)) {
+            writer.write(uuid + " " + time + "\n");
+            seenAppended++;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save player last-seen time: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized Map<UUID, Long> lastSeen(Collection<UUID> uuids) {
+        ensureLoaded();
+
+        Map<UUID, Long> result = new HashMap<>();
+        for (UUID uuid : uuids) {
+            Long time = seen.get(uuid);
+            if (time != null) {
+                result.put(uuid, time);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!loaded) return;
+
+        // Rewrite without superseded entries
+        if (appended > 0 && rewrite(dataFile, names)) {
+            appended = 0;
+        }
+        if (seenAppended > 0 && rewrite(seenFile, seen)) {
+            seenAppended = 0;
+        }
+    }
+
+    private boolean rewrite(File file, Map<UUID, ?> entries) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            for (Map.Entry<UUID, ?> entry : entries.entrySet()) {
+                writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to compact " + file.getName() + ": " + e.getMessage());
+            return false;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to replace " + file.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+
+        if (dataFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(dataFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int space = line.indexOf(' ');
+                    if (space <= 0) continue;
+                    try {
+                        names.put(UUID.fromString(line.substring(0, space)), line.substring(space + 1));
+                    } catch (IllegalArgumentException ignored) {
+                        // Skip corrupted line
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to load names file: " + e.getMessage());
+            }
+        }
+
+        if (seenFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(seenFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int space = line.indexOf(' ');
+                    if (space <= 0) continue;
+                    try {
+                        // Later lines win
+                        seen.put(UUID.fromString(line.substring(0, space)), Long.parseLong(line.substring(space + 1)));
+                    } catch (IllegalArgumentException ignored) {
+                        // Skip corrupted line
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to load last-seen file: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package com.chestlock.data;
 
 import com.chestlock.ChestLock;
+import com.chestlock.metrics.Counter;
+import com.chestlock.metrics.LookupTrace;
 import com.chestlock.model.BlockProtection;
 import com.chestlock.model.BlockProtection.FriendPermission;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -13,68 +13,54 @@ import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * YAML file-based storage for block protections
  */
 public class YamlStorage implements IBlockStorage {
     private final ChestLock plugin;
-    private final Map<String, BlockProtection> protectedBlocks;
+    private volatile Map<String, BlockProtection> protectedBlocks;
+    // Keys of protectedBlocks by chunk
+    private volatile ChunkKeyIndex chunkIndex;
     private final File dataFile;
+    private final Counter hits;
+    private final Counter misses;
+    // Sorted key snapshot paged through by ownerPage, taken at the start of a pass
+    private volatile String[] pageKeys;
 
     public YamlStorage(ChestLock plugin) {
         this.plugin = plugin;
         this.protectedBlocks = new ConcurrentHashMap<>();
+        this.chunkIndex = new ChunkKeyIndex();
         this.dataFile = new File(plugin.getDataFolder(), "protections.yml");
-    }
-
-    /**
-     * Convert location to string key
-     */
-    private String locationToKey(Location loc) {
-        return String.format("%s,%d,%d,%d",
-                loc.getWorld().getName(),
-                loc.getBlockX(),
-                loc.getBlockY(),
-                loc.getBlockZ());
-    }
-
-    /**
-     * Parse location from string key
-     */
-    private Location keyToLocation(String key) {
-        String[] parts = key.split(",");
-        if (parts.length != 4) return null;
-
-        World world = Bukkit.getWorld(parts[0]);
-        if (world == null) return null;
-
-        try {
-            int x = Integer.parseInt(parts[1]);
-            int y = Integer.parseInt(parts[2]);
-            int z = Integer.parseInt(parts[3]);
-            return new Location(world, x, y, z);
-        } catch (NumberFormatException e) {
-            return null;
-        }
+        this.hits = plugin.getMetrics().lookup("yaml", "hit");
+        this.misses = plugin.getMetrics().lookup("yaml", "miss");
     }
 
     @Override
     public void save(Location location, BlockProtection protection) {
-        String key = locationToKey(location);
+        String key = LocationKeys.toKey(location);
         protectedBlocks.put(key, protection);
+        chunkIndex.add(key);
     }
 
     @Override
     public BlockProtection get(Location location) {
-        String key = locationToKey(location);
-        return protectedBlocks.get(key);
+        long start = System.nanoTime();
+        String key = LocationKeys.toKey(location);
+        BlockProtection protection = protectedBlocks.get(key);
+        (protection != null ? hits : misses).increment();
+        LookupTrace.current().stage(LookupTrace.Stage.CACHE, System.nanoTime() - start);
+        return protection;
     }
 
     @Override
     public void remove(Location location) {
-        String key = locationToKey(location);
+        String key = LocationKeys.toKey(location);
         protectedBlocks.remove(key);
+        chunkIndex.remove(key);
     }
 
     @Override
@@ -113,8 +99,9 @@ public class YamlStorage implements IBlockStorage {
             return;
         }
 
+        // Runs off the main thread: fill a new map and swap it in when complete
         YamlConfiguration config = YamlConfiguration.loadConfiguration(dataFile);
-        protectedBlocks.clear();
+        Map<String, BlockProtection> loadedBlocks = new ConcurrentHashMap<>();
 
         int loaded = 0;
         for (String key : config.getKeys(false)) {
@@ -142,13 +129,15 @@ public class YamlStorage implements IBlockStorage {
                     }
                 }
 
-                protectedBlocks.put(key, protection);
+                loadedBlocks.put(key, protection);
                 loaded++;
             } catch (Exception e) {
                 plugin.getLogger().warning("Failed to load protection for " + key + ": " + e.getMessage());
             }
         }
 
+        chunkIndex = ChunkKeyIndex.of(loadedBlocks.keySet());
+        protectedBlocks = loadedBlocks;
         plugin.getLogger().info("Loaded " + loaded + " protected blocks from YAML file");
     }
 
@@ -156,7 +145,7 @@ public class YamlStorage implements IBlockStorage {
     public Set<Location> getProtectedLocations() {
         Set<Location> locations = new HashSet<>();
         for (String key : protectedBlocks.keySet()) {
-            Location loc = keyToLocation(key);
+            Location loc = LocationKeys.toLocation(key);
             if (loc != null) {
                 locations.add(loc);
             }
@@ -164,6 +153,112 @@ public class YamlStorage implements IBlockStorage {
         return locations;
     }
 
+    @Override
+    public Map<String, BlockProtection> exportAll() {
+        return new HashMap<>(protectedBlocks);
+    }
+
+    @Override
+    public boolean importAll(Map<String, BlockProtection> protections) {
+        protectedBlocks.putAll(protections);
+        for (String key : protections.keySet()) {
+            chunkIndex.add(key);
+        }
+        // Write right away so a crash doesn't lose the migrated data
+        saveAll();
+        plugin.getLogger().info("Imported " + protections.size() + " protected blocks into YAML file");
+        return true;
+    }
+
+    @Override
+    public void forEachStored(BiConsumer<String, BlockProtection> action) {
+        // Everything is in memory already, the file is only a snapshot of this map
+        protectedBlocks.forEach(action);
+    }
+
+    @Override
+    public boolean countOwners(Consumer<Map<UUID, Integer>> result) {
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (BlockProtection protection : protectedBlocks.values()) {
+            counts.merge(protection.getOwner(), 1, Integer::sum);
+        }
+        result.accept(counts);
+        return true;
+    }
+
+    @Override
+    public OwnerPage ownerPage(String cursor, int limit) {
+        String[] keys = pageKeys;
+        if (cursor == null || keys == null) {
+            keys = protectedBlocks.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            pageKeys = keys;
+        }
+
+        int from = 0;
+        if (cursor != null) {
+            int found = Arrays.binarySearch(keys, cursor);
+            from = found >= 0 ? found + 1 : -found - 1;
+        }
+
+        Map<String, UUID> owners = new LinkedHashMap<>();
+        int to = Math.min(keys.length, from + limit);
+        for (int i = from; i < to; i++) {
+            // Removed since the snapshot
+            BlockProtection protection = protectedBlocks.get(keys[i]);
+            if (protection != null) {
+                owners.put(keys[i], protection.getOwner());
+            }
+        }
+        if (to >= keys.length) {
+            pageKeys = null;
+            return new OwnerPage(owners, null);
+        }
+        return new OwnerPage(owners, keys[to - 1]);
+    }
+
+    @Override
+    public Set<String> keysInChunks(String world, Collection<Long> chunks) {
+        return chunkIndex.get(world, chunks);
+    }
+
+    @Override
+    public Map<String, BlockProtection> getStored(Collection<String> keys) {
+        Map<String, BlockProtection> found = new HashMap<>();
+        for (String key : keys) {
+            BlockProtection protection = protectedBlocks.get(key);
+            if (protection != null) {
+                found.put(key, protection);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public BulkWriter openBulkWriter(int batchSize) {
+        return new BulkWriter() {
+            private int written;
+
+            @Override
+            public void write(String key, BlockProtection protection) {
+                protectedBlocks.put(key, protection);
+                chunkIndex.add(key);
+                written++;
+            }
+
+            @Override
+            public void flush() {
+                // The file is written once on close
+            }
+
+            @Override
+            public void close() {
+                saveAll();
+                plugin.getLogger().info("Imported " + written + " protected blocks into YAML file");
+            }
+        };
+    }
+
     @Override
     public void close() {
         saveAll();
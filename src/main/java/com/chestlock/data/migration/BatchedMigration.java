@@ -0,0 +1,115 @@
+package com.chestlock.data.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Migration that copies rows into shadow tables in key-ordered batches and swaps
+ * them in with one atomic rename. The originals are untouched until the swap, so
+ * no backup copy is needed. The migrator commits a checkpoint with every batch,
+ * so an interrupted run resumes where it stopped.
+ */
+public interface BatchedMigration extends Migration {
+
+    /**
+     * One table copy, processed in ascending key order
+     */
+    interface Step {
+
+        /**
+         * Checkpoint name, unique within the migration
+         */
+        String getName();
+
+        /**
+         * Rows left after the given key (for progress logging)
+         */
+        long countRemaining(Connection connection, long afterKey) throws SQLException;
+
+        /**
+         * Highest key of the next batch of at most limit rows after the given key
+         * @return -1 if no rows are left
+         */
+        long nextKey(Connection connection, long afterKey, int limit) throws SQLException;
+
+        /**
+         * Copy rows with afterKey < key <= upToKey into the shadow table
+         * @return Number of rows copied
+         */
+        int copyRange(Connection connection, long afterKey, long upToKey) throws SQLException;
+    }
+
+    /**
+     * Whether the new tables are already in place (the swap ran but the version was not recorded)
+     */
+    boolean isApplied(Connection connection) throws SQLException;
+
+    /**
+     * Create the shadow tables
+     * @param resume Keep existing shadow tables and their rows (a checkpoint exists)
+     * @return false if the shadow tables were recreated empty, so copying starts over
+     */
+    boolean prepare(Connection connection, boolean resume) throws SQLException;
+
+    /**
+     * Copy steps, in order
+     */
+    List<Step> getSteps();
+
+    /**
+     * Swap the shadow tables in and drop the originals
+     */
+    void swap(Connection connection) throws SQLException;
+
+    /**
+     * Run every step without checkpoints
+     */
+    @Override
+    default void migrate(Connection connection) throws SQLException {
+        prepare(connection, false);
+        for (Step step : getSteps()) {
+            long key = 0;
+            long next;
+            while ((next = step.nextKey(connection, key, 1000)) >= 0) {
+                step.copyRange(connection, key, next);
+                key = next;
+            }
+        }
+        swap(connection);
+    }
+
+    /**
+     * nextKey for a table with an ascending integer key column
+     */
+    static long nextKey(Connection connection, String table, String column, long afterKey, int limit) throws SQLException {
+        String sql = "SELECT MAX(" + column + ") FROM (SELECT " + column + " FROM " + table +
+                " WHERE " + column + " > ? ORDER BY " + column + " LIMIT ?) batch";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, afterKey);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    long key = rs.getLong(1);
+                    if (!rs.wasNull()) return key;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * countRemaining for a table with an ascending integer key column
+     */
+    static long countRemaining(Connection connection, String table, String column, long afterKey) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + table + " WHERE " + column + " > ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, afterKey);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+}
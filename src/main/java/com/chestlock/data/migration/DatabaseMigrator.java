@@ -12,6 +12,7 @@ import java.util.List;
  * - Automatic version tracking
  * - Safe migration execution
  * - Backup and rollback support
+ * - Resumable batched copies with checkpoints for large tables
  * - Data integrity validation
  */
 public class DatabaseMigrator {
@@ -19,14 +20,23 @@ public class DatabaseMigrator {
     private final ChestLock plugin;
     private final DatabaseManager databaseManager;
     private final List<Migration> migrations;
+    private final int batchSize;
 
     // Current schema version (update this when adding new migrations)
-    private static final int CURRENT_VERSION = 1;
+    private static final int CURRENT_VERSION = 5;
+
+    // How often batched migrations log progress
+    private static final long PROGRESS_INTERVAL_NANOS = 5_000_000_000L;
+
+    // Named lock serializing migrations across servers sharing the database
+    private static final String LOCK_NAME = "chestlock_migrate";
+    private static final int LOCK_TIMEOUT_SECONDS = 600;
 
     public DatabaseMigrator(ChestLock plugin, DatabaseManager databaseManager) {
         this.plugin = plugin;
         this.databaseManager = databaseManager;
         this.migrations = new ArrayList<>();
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("storage.mysql.migration.batch-size", 1000));
 
         // Register all migrations in order
         registerMigrations();
@@ -37,7 +47,11 @@ public class DatabaseMigrator {
      */
     private void registerMigrations() {
         migrations.add(new MigrationV1());
-        // migrations.add(new MigrationV2()); // Uncomment when needed
+        migrations.add(new MigrationV2());
+        migrations.add(new MigrationV3());
+        migrations.add(new MigrationV4());
+        migrations.add(new MigrationV5());
+
         // Add future migrations here
     }
 
@@ -46,35 +60,76 @@ public class DatabaseMigrator {
      */
     public void migrate() {
         try (Connection conn = databaseManager.getConnection()) {
-            // Ensure schema version table exists
-            createSchemaVersionTable(conn);
-
-            // Get current database version
-            int currentDbVersion = getCurrentVersion(conn);
-            plugin.getLogger().info("Current database schema version: " + currentDbVersion);
-
-            // Check if migration is needed
-            if (currentDbVersion >= CURRENT_VERSION) {
-                plugin.getLogger().info("Database schema is up to date!");
-                return;
+            // Only one server migrates at a time; the others wait and then find it done
+            acquireLock(conn);
+            try {
+                migrateLocked(conn);
+            } finally {
+                releaseLock(conn);
             }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Database migration failed: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to migrate database", e);
+        }
+    }
+
+    /**
+     * Run pending migrations while holding the migration lock
+     */
+    private void migrateLocked(Connection conn) throws SQLException {
+        // Ensure schema version table exists
+        createSchemaVersionTable(conn);
+
+        // Read after taking the lock, another server may just have migrated
+        int currentDbVersion = getCurrentVersion(conn);
+        plugin.getLogger().info("Current database schema version: " + currentDbVersion);
+
+        // Check if migration is needed
+        if (currentDbVersion >= CURRENT_VERSION) {
+            plugin.getLogger().info("Database schema is up to date!");
+            return;
+        }
 
-            plugin.getLogger().info("Starting database migration from version " +
-                currentDbVersion + " to " + CURRENT_VERSION);
+        plugin.getLogger().info("Starting database migration from version " +
+            currentDbVersion + " to " + CURRENT_VERSION);
 
-            // Execute pending migrations
-            for (Migration migration : migrations) {
-                if (migration.getVersion() > currentDbVersion) {
+        // Execute pending migrations
+        for (Migration migration : migrations) {
+            if (migration.getVersion() > currentDbVersion) {
+                if (migration instanceof BatchedMigration) {
+                    executeBatchedMigration(conn, (BatchedMigration) migration);
+                } else {
                     executeMigration(conn, migration);
                 }
             }
+        }
 
-            plugin.getLogger().info("Database migration completed successfully!");
+        plugin.getLogger().info("Database migration completed successfully!");
+    }
 
+    /**
+     * Take the server-wide migration lock (MySQL named lock, held by this connection)
+     */
+    private void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another server to finish migrating");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
         } catch (SQLException e) {
-            plugin.getLogger().severe("Database migration failed: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Failed to migrate database", e);
+            // Released anyway when the connection closes
+            plugin.getLogger().warning("Failed to release migration lock: " + e.getMessage());
         }
     }
 
@@ -86,7 +141,10 @@ public class DatabaseMigrator {
             ": " + migration.getDescription());
 
         // Create backup tables before migration
-        createBackupTables(conn, migration.getVersion());
+        boolean backup = migration.requiresBackup();
+        if (backup) {
+            createBackupTables(conn, migration.getVersion());
+        }
 
         // Disable auto-commit for transaction support
         boolean originalAutoCommit = conn.getAutoCommit();
@@ -107,7 +165,9 @@ public class DatabaseMigrator {
                 plugin.getLogger().info("Migration to version " + migration.getVersion() + " completed successfully");
 
                 // Drop backup tables after successful migration
-                dropBackupTables(conn, migration.getVersion());
+                if (backup) {
+                    dropBackupTables(conn, migration.getVersion());
+                }
             } else {
                 throw new SQLException("Data integrity validation failed");
             }
@@ -118,7 +178,9 @@ public class DatabaseMigrator {
             conn.rollback();
 
             // Attempt to restore from backup
-            restoreFromBackup(conn, migration.getVersion());
+            if (backup) {
+                restoreFromBackup(conn, migration.getVersion());
+            }
 
             throw e;
         } finally {
@@ -127,6 +189,164 @@ public class DatabaseMigrator {
         }
     }
 
+    /**
+     * Execute a batched migration: each batch is its own transaction together with its
+     * checkpoint, so locks are short and a failed or interrupted run resumes later.
+     * Shadow tables and checkpoints are kept on failure; the original tables stay in use.
+     */
+    private void executeBatchedMigration(Connection conn, BatchedMigration migration) throws SQLException {
+        int version = migration.getVersion();
+        plugin.getLogger().info("Executing migration to version " + version + ": " + migration.getDescription());
+
+        createProgressTable(conn);
+        boolean originalAutoCommit = conn.getAutoCommit();
+        try {
+            conn.setAutoCommit(true);
+            if (migration.isApplied(conn)) {
+                // Swapped before a crash, only the version is missing
+                plugin.getLogger().info("Migration to version " + version + " was already applied");
+            } else {
+                boolean resume = hasProgress(conn, version);
+                if (resume) {
+                    plugin.getLogger().info("Resuming migration to version " + version + " from its checkpoint");
+                }
+                if (!migration.prepare(conn, resume) && resume) {
+                    plugin.getLogger().warning("Shadow tables for version " + version + " are gone, starting over");
+                    clearProgress(conn, version);
+                }
+
+                conn.setAutoCommit(false);
+                for (BatchedMigration.Step step : migration.getSteps()) {
+                    copyStep(conn, version, step);
+                }
+                conn.setAutoCommit(true);
+
+                migration.swap(conn);
+            }
+
+            if (!validateDataIntegrity(conn)) {
+                throw new SQLException("Data integrity validation failed");
+            }
+            conn.setAutoCommit(false);
+            updateSchemaVersion(conn, version);
+            clearProgress(conn, version);
+            conn.commit();
+
+            plugin.getLogger().info("Migration to version " + version + " completed successfully");
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Migration to version " + version + " failed: " + e.getMessage()
+                    + " (progress is kept, it resumes on the next start)");
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            conn.setAutoCommit(originalAutoCommit);
+        }
+    }
+
+    /**
+     * Copy one step batch by batch from its checkpoint
+     */
+    private void copyStep(Connection conn, int version, BatchedMigration.Step step) throws SQLException {
+        long[] checkpoint = loadProgress(conn, version, step.getName());
+        long lastKey = checkpoint[0];
+        long copied = checkpoint[1];
+        if (checkpoint[2] != 0) return;
+
+        long total = copied + step.countRemaining(conn, lastKey);
+        conn.commit();
+        plugin.getLogger().info("Migrating " + step.getName() + ": " + total + " rows in batches of " + batchSize);
+
+        long lastLog = System.nanoTime();
+        while (true) {
+            long nextKey = step.nextKey(conn, lastKey, batchSize);
+            if (nextKey < 0) break;
+
+            copied += step.copyRange(conn, lastKey, nextKey);
+            lastKey = nextKey;
+            saveProgress(conn, version, step.getName(), lastKey, copied, false);
+            conn.commit();
+
+            if (System.nanoTime() - lastLog >= PROGRESS_INTERVAL_NANOS) {
+                lastLog = System.nanoTime();
+                plugin.getLogger().info(String.format("Migrating %s: %d/%d rows (%.1f%%)",
+                        step.getName(), copied, total, total == 0 ? 100.0 : copied * 100.0 / total));
+            }
+        }
+
+        saveProgress(conn, version, step.getName(), lastKey, copied, true);
+        conn.commit();
+        plugin.getLogger().info("Migrated " + step.getName() + ": " + copied + " rows");
+    }
+
+    /**
+     * Create checkpoint table for batched migrations
+     */
+    private void createProgressTable(Connection conn) throws SQLException {
+        String sql =
+            "CREATE TABLE IF NOT EXISTS chestlock_migration_progress (" +
+            "  version INT NOT NULL," +
+            "  step VARCHAR(64) NOT NULL," +
+            "  last_key BIGINT NOT NULL," +
+            "  copied BIGINT NOT NULL," +
+            "  done BOOLEAN NOT NULL DEFAULT FALSE," +
+            "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+            "  PRIMARY KEY (version, step)" +
+            ") ENGINE=InnoDB";
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    private boolean hasProgress(Connection conn, int version) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM chestlock_migration_progress WHERE version = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, version);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Checkpoint of a step as {last key, rows copied, done (0/1)}
+     */
+    private long[] loadProgress(Connection conn, int version, String step) throws SQLException {
+        String sql = "SELECT last_key, copied, done FROM chestlock_migration_progress WHERE version = ? AND step = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, version);
+            stmt.setString(2, step);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new long[]{rs.getLong("last_key"), rs.getLong("copied"), rs.getBoolean("done") ? 1 : 0};
+                }
+            }
+        }
+        return new long[]{0, 0, 0};
+    }
+
+    private void saveProgress(Connection conn, int version, String step, long lastKey, long copied, boolean done) throws SQLException {
+        String sql = "INSERT INTO chestlock_migration_progress (version, step, last_key, copied, done) VALUES (?, ?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE last_key=VALUES(last_key), copied=VALUES(copied), done=VALUES(done)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, version);
+            stmt.setString(2, step);
+            stmt.setLong(3, lastKey);
+            stmt.setLong(4, copied);
+            stmt.setBoolean(5, done);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void clearProgress(Connection conn, int version) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM chestlock_migration_progress WHERE version = ?")) {
+            stmt.setInt(1, version);
+            stmt.executeUpdate();
+        }
+    }
+
     /**
      * Create schema version tracking table
      */
@@ -24,4 +24,12 @@ public interface Migration {
      * Get description of this migration
      */
     String getDescription();
+
+    /**
+     * Whether existing tables are copied to backups first (not needed for migrations
+     * that only add tables)
+     */
+    default boolean requiresBackup() {
+        return true;
+    }
 }
@@ -51,6 +51,12 @@ public class MigrationV1 implements Migration {
         }
     }
 
+    @Override
+    public boolean requiresBackup() {
+        // Initial schema only creates tables
+        return false;
+    }
+
     @Override
     public String getDescription() {
         return "Create initial schema with protections and friends tables";
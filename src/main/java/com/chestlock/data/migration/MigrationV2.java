@@ -1,15 +1,24 @@
 package com.chestlock.data.migration;
 
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
+import com.chestlock.data.BlockPositions;
+import com.chestlock.data.UuidBytes;
+import com.chestlock.data.WorldIds;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
 
 /**
- * Example migration for future updates - Version 2
- * This is a placeholder showing how to safely add new columns
+ * Compact protection layout - Version 2
+ * - World names move to chestlock_worlds, rows keep a small world id
+ * - Owner and friend UUIDs are stored as BINARY(16)
+ * - x/y/z become one packed BIGINT pos plus chunk columns, looked up by (world_id, pos)
+ * Rows are copied into shadow tables by id (keeping protection ids), then the tables are swapped.
  */
-public class MigrationV2 implements Migration {
+public class MigrationV2 implements BatchedMigration {
+
+    private final WorldIds worlds = new WorldIds();
 
     @Override
     public int getVersion() {
@@ -17,53 +26,198 @@ public class MigrationV2 implements Migration {
     }
 
     @Override
-    public void migrate(Connection connection) throws SQLException {
-        // Example: Add a new column to protections table
-        // This is commented out as it's not needed yet, but shows the pattern
+    public boolean isApplied(Connection connection) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chestlock_protections' AND COLUMN_NAME = 'pos'";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    @Override
+    public boolean prepare(Connection connection, boolean resume) throws SQLException {
+        // A checkpoint is only good while its shadow rows are still there
+        resume = resume && tableExists(connection, "chestlock_protections_v2") && tableExists(connection, "chestlock_friends_v2");
 
-        /*
         try (Statement stmt = connection.createStatement()) {
-            // Check if column exists before adding
-            if (!columnExists(connection, "chestlock_protections", "block_type")) {
-                // Add new column safely
-                stmt.executeUpdate(
-                    "ALTER TABLE chestlock_protections " +
-                    "ADD COLUMN block_type VARCHAR(50) DEFAULT NULL"
-                );
-
-                // Add index if needed
-                stmt.executeUpdate(
-                    "ALTER TABLE chestlock_protections " +
-                    "ADD INDEX idx_block_type (block_type)"
-                );
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS chestlock_worlds (" +
+                "  id INT AUTO_INCREMENT PRIMARY KEY," +
+                "  name VARCHAR(255) NOT NULL," +
+                "  UNIQUE KEY unique_name (name)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci"
+            );
+
+            if (!resume) {
+                // Leftovers from an attempt whose checkpoint is gone
+                stmt.executeUpdate("DROP TABLE IF EXISTS chestlock_friends_v2");
+                stmt.executeUpdate("DROP TABLE IF EXISTS chestlock_protections_v2");
             }
+
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS chestlock_protections_v2 (" +
+                "  id INT AUTO_INCREMENT PRIMARY KEY," +
+                "  world_id INT NOT NULL," +
+                "  pos BIGINT NOT NULL," +
+                "  chunk_x INT NOT NULL," +
+                "  chunk_z INT NOT NULL," +
+                "  owner BINARY(16) NOT NULL," +
+                "  allow_hopper BOOLEAN DEFAULT FALSE," +
+                "  allow_redstone BOOLEAN DEFAULT TRUE," +
+                "  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+                "  UNIQUE KEY unique_position (world_id, pos)," +
+                "  INDEX idx_chunk (world_id, chunk_x, chunk_z)," +
+                "  INDEX idx_owner (owner)," +
+                "  FOREIGN KEY (world_id) REFERENCES chestlock_worlds(id)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci"
+            );
+
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS chestlock_friends_v2 (" +
+                "  id INT AUTO_INCREMENT PRIMARY KEY," +
+                "  protection_id INT NOT NULL," +
+                "  friend_uuid BINARY(16) NOT NULL," +
+                "  permission VARCHAR(20) NOT NULL," +
+                "  added_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "  UNIQUE KEY unique_friend (protection_id, friend_uuid)," +
+                "  FOREIGN KEY (protection_id) REFERENCES chestlock_protections_v2(id) ON DELETE CASCADE," +
+                "  INDEX idx_friend_uuid (friend_uuid)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci"
+            );
+        }
+        return resume;
+    }
+
+    @Override
+    public List<Step> getSteps() {
+        return Arrays.asList(new ProtectionsStep(), new FriendsStep());
+    }
+
+    @Override
+    public void swap(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // One atomic rename, so nothing ever sees a missing table
+            stmt.executeUpdate(
+                "RENAME TABLE chestlock_friends TO chestlock_friends_v1_old," +
+                " chestlock_protections TO chestlock_protections_v1_old," +
+                " chestlock_protections_v2 TO chestlock_protections," +
+                " chestlock_friends_v2 TO chestlock_friends"
+            );
+            stmt.executeUpdate("DROP TABLE chestlock_friends_v1_old");
+            stmt.executeUpdate("DROP TABLE chestlock_protections_v1_old");
         }
-        */
     }
 
     @Override
     public String getDescription() {
-        return "Example migration - add block_type column (placeholder for future updates)";
+        return "Compact protection layout with world ids, binary UUIDs and packed positions";
     }
 
     /**
-     * Helper method to check if a column exists
+     * Protections, converted row by row in Java
      */
-    private boolean columnExists(Connection conn, String tableName, String columnName) throws SQLException {
-        String query = String.format(
-            "SELECT COUNT(*) FROM information_schema.COLUMNS " +
-            "WHERE TABLE_SCHEMA = DATABASE() " +
-            "AND TABLE_NAME = '%s' " +
-            "AND COLUMN_NAME = '%s'",
-            tableName, columnName
-        );
-
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+    private class ProtectionsStep implements Step {
+
+        @Override
+        public String getName() {
+            return "protections";
+        }
+
+        @Override
+        public long countRemaining(Connection connection, long afterKey) throws SQLException {
+            return BatchedMigration.countRemaining(connection, "chestlock_protections", "id", afterKey);
+        }
+
+        @Override
+        public long nextKey(Connection connection, long afterKey, int limit) throws SQLException {
+            return BatchedMigration.nextKey(connection, "chestlock_protections", "id", afterKey, limit);
+        }
+
+        @Override
+        public int copyRange(Connection connection, long afterKey, long upToKey) throws SQLException {
+            String select = "SELECT id, world, x, y, z, owner, allow_hopper, allow_redstone, created_at, updated_at " +
+                    "FROM chestlock_protections WHERE id > ? AND id <= ?";
+            // IGNORE keeps the first row if a restored backup (no unique key) holds duplicates
+            String insert = "INSERT IGNORE INTO chestlock_protections_v2 (id, world_id, pos, chunk_x, chunk_z, owner, " +
+                    "allow_hopper, allow_redstone, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+            int rows = 0;
+            try (PreparedStatement selectStmt = connection.prepareStatement(select);
+                 PreparedStatement insertStmt = connection.prepareStatement(insert)) {
+                selectStmt.setLong(1, afterKey);
+                selectStmt.setLong(2, upToKey);
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    while (rs.next()) {
+                        int x = rs.getInt("x");
+                        int y = rs.getInt("y");
+                        int z = rs.getInt("z");
+
+                        insertStmt.setInt(1, rs.getInt("id"));
+                        insertStmt.setInt(2, worlds.getOrCreate(connection, rs.getString("world")));
+                        insertStmt.setLong(3, BlockPositions.pack(x, y, z));
+                        insertStmt.setInt(4, BlockPositions.toChunk(x));
+                        insertStmt.setInt(5, BlockPositions.toChunk(z));
+                        insertStmt.setBytes(6, UuidBytes.toBytes(UUID.fromString(rs.getString("owner"))));
+                        insertStmt.setBoolean(7, rs.getBoolean("allow_hopper"));
+                        insertStmt.setBoolean(8, rs.getBoolean("allow_redstone"));
+                        insertStmt.setTimestamp(9, rs.getTimestamp("created_at"));
+                        insertStmt.setTimestamp(10, rs.getTimestamp("updated_at"));
+                        insertStmt.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows > 0) {
+                    insertStmt.executeBatch();
+                }
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Friends, converted in SQL
+     */
+    private static class FriendsStep implements Step {
+
+        @Override
+        public String getName() {
+            return "friends";
+        }
+
+        @Override
+        public long countRemaining(Connection connection, long afterKey) throws SQLException {
+            return BatchedMigration.countRemaining(connection, "chestlock_friends", "id", afterKey);
+        }
+
+        @Override
+        public long nextKey(Connection connection, long afterKey, int limit) throws SQLException {
+            return BatchedMigration.nextKey(connection, "chestlock_friends", "id", afterKey, limit);
+        }
+
+        @Override
+        public int copyRange(Connection connection, long afterKey, long upToKey) throws SQLException {
+            // The join drops friends whose protection did not make it (restored backups have no foreign keys)
+            String copy = "INSERT INTO chestlock_friends_v2 (id, protection_id, friend_uuid, permission, added_at) " +
+                    "SELECT f.id, f.protection_id, UNHEX(REPLACE(f.friend_uuid, '-', '')), f.permission, f.added_at " +
+                    "FROM chestlock_friends f JOIN chestlock_protections_v2 p ON p.id = f.protection_id " +
+                    "WHERE f.id > ? AND f.id <= ?";
+            try (PreparedStatement stmt = connection.prepareStatement(copy)) {
+                stmt.setLong(1, afterKey);
+                stmt.setLong(2, upToKey);
+                return stmt.executeUpdate();
             }
         }
-        return false;
     }
 }
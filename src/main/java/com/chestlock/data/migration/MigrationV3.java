@@ -0,0 +1,40 @@
+package com.chestlock.data.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Player name cache table - Version 3
+ */
+public class MigrationV3 implements Migration {
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS chestlock_names (" +
+                "  uuid VARCHAR(36) NOT NULL PRIMARY KEY," +
+                "  name VARCHAR(16) NOT NULL," +
+                "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci"
+            );
+        }
+    }
+
+    @Override
+    public boolean requiresBackup() {
+        // Only adds a table
+        return false;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Add player name cache table";
+    }
+}
@@ -0,0 +1,43 @@
+package com.chestlock.data.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Change log for cross-server cache invalidation - Version 4
+ */
+public class MigrationV4 implements Migration {
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS chestlock_changes (" +
+                "  id BIGINT AUTO_INCREMENT PRIMARY KEY," +
+                "  world_id INT NOT NULL," +
+                "  pos BIGINT NOT NULL," +
+                "  node BINARY(16) NOT NULL," +
+                "  changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "  INDEX idx_changed_at (changed_at)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci"
+            );
+        }
+    }
+
+    @Override
+    public boolean requiresBackup() {
+        // Only adds a table
+        return false;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Add change log table for cross-server cache invalidation";
+    }
+}
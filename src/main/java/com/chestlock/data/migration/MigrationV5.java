@@ -0,0 +1,34 @@
+package com.chestlock.data.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Last-seen time for protection expiry - Version 5
+ */
+public class MigrationV5 implements Migration {
+
+    @Override
+    public int getVersion() {
+        return 5;
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE chestlock_names ADD COLUMN IF NOT EXISTS last_seen BIGINT NULL");
+        }
+    }
+
+    @Override
+    public boolean requiresBackup() {
+        // Only adds a nullable column to the name table
+        return false;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Add player last-seen time";
+    }
+}
@@ -3,33 +3,35 @@ package com.chestlock.gui;
 import com.chestlock.ChestLock;
 import com.chestlock.model.BlockProtection;
 import com.chestlock.model.BlockProtection.FriendPermission;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
 
 import java.util.*;
 
 /**
- * Friend management GUI
+ * Paginated friend management GUI
  */
-public class FriendMenuGUI {
+public class FriendMenuGUI extends Menu {
 
-    private final ChestLock plugin;
-    private final Player player;
-    private final Block block;
-    private final Inventory inventory;
+    private static final int PAGE_SIZE = 45;
+
+    private int page;
+    private boolean hasNextPage;
+
+    // Friend shown in each skull slot
+    private final UUID[] slotFriends = new UUID[PAGE_SIZE];
+    private final FriendPermission[] slotPermissions = new FriendPermission[PAGE_SIZE];
 
     public FriendMenuGUI(ChestLock plugin, Player player, Block block) {
-        this.plugin = plugin;
-        this.player = player;
-        this.block = block;
-        this.inventory = Bukkit.createInventory(null, 54, "§6친구 관리");
+        this(plugin, player, block, 0);
+    }
+
+    public FriendMenuGUI(ChestLock plugin, Player player, Block block, int page) {
+        super(plugin, player, block, 54, "§6친구 관리");
+        this.page = page;
 
         setupInventory();
     }
@@ -38,68 +40,118 @@ public class FriendMenuGUI {
         BlockProtection protection = plugin.getDataHandler().getProtection(block);
         if (protection == null) return;
 
-        // Add friend button
-        setItem(49, Material.EMERALD, "§a온라인 플레이어 추가",
-                "§7온라인 플레이어를",
-                "§7친구로 추가합니다.");
-
-        // Back button
-        setItem(45, Material.ARROW, "§c뒤로 가기",
-                "§7이전 메뉴로 돌아갑니다.");
-
-        // Display current friends
-        int slot = 0;
-        for (Map.Entry<UUID, FriendPermission> entry : protection.getFriends().entrySet()) {
-            if (slot >= 45) break; // Don't overflow
-
-            UUID friendUuid = entry.getKey();
-            FriendPermission perm = entry.getValue();
-
-            OfflinePlayer friend = Bukkit.getOfflinePlayer(friendUuid);
-            String permDisplay = perm == FriendPermission.READ_ONLY ? "§e읽기 전용" : "§a읽기/쓰기";
-
-            ItemStack skull = new ItemStack(Material.PLAYER_HEAD);
-            SkullMeta meta = (SkullMeta) skull.getItemMeta();
-            meta.setOwningPlayer(friend);
-            meta.setDisplayName("§e" + (friend.getName() != null ? friend.getName() : "Unknown"));
-            meta.setLore(Arrays.asList(
-                    "§7권한: " + permDisplay,
-                    "§7",
-                    "§e좌클릭: §f권한 변경",
-                    "§c우클릭: §f제거"
-            ));
-            skull.setItemMeta(meta);
-
-            inventory.setItem(slot, skull);
-            slot++;
+        // Friends with known names first, in name order
+        Map<UUID, FriendPermission> friends = protection.getFriends();
+        plugin.getNameCache().preload(friends.keySet());
+
+        List<UUID> sorted = new ArrayList<>(friends.keySet());
+        sorted.sort(Comparator.comparing((UUID uuid) -> plugin.getNameCache().getName(uuid),
+                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
+        int pages = Math.max(1, (sorted.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        page = Math.min(Math.max(page, 0), pages - 1);
+        hasNextPage = page < pages - 1;
+
+        // Display this page of friends
+        int start = page * PAGE_SIZE;
+        for (int slot = 0; slot < PAGE_SIZE && start + slot < sorted.size(); slot++) {
+            UUID friendUuid = sorted.get(start + slot);
+            slotFriends[slot] = friendUuid;
+            slotPermissions[slot] = friends.get(friendUuid);
+            renderFriend(slot);
         }
 
-        // Fill empty slots
-        ItemStack filler = new ItemStack(Material.GRAY_STAINED_GLASS_PANE);
-        ItemMeta fillerMeta = filler.getItemMeta();
-        fillerMeta.setDisplayName(" ");
-        filler.setItemMeta(fillerMeta);
-
-        for (int i = 0; i < 45; i++) {
-            if (inventory.getItem(i) == null) {
-                inventory.setItem(i, filler);
-            }
+        // Navigation row
+        inventory.setItem(45, items().backToLockMenu());
+        if (page > 0) {
+            inventory.setItem(48, items().previousPage());
+        }
+        inventory.setItem(49, items().addFriend());
+        if (hasNextPage) {
+            inventory.setItem(50, items().nextPage());
         }
+        if (pages > 1) {
+            inventory.setItem(53, MenuItems.create(Material.PAPER, "§e페이지 " + (page + 1) + "/" + pages,
+                    "§7친구: §f" + sorted.size() + "명"));
+        }
+
+        // Fill empty slots
+        fill(0, PAGE_SIZE);
+    }
+
+    private void renderFriend(int slot) {
+        UUID friendUuid = slotFriends[slot];
+        String name = plugin.getNameCache().getName(friendUuid, "Unknown");
+        String permDisplay = slotPermissions[slot] == FriendPermission.READ_ONLY ? "§e읽기 전용" : "§a읽기/쓰기";
+
+        inventory.setItem(slot, heads().getHead(friendUuid, plugin.getNameCache().getName(friendUuid),
+                "§e" + name,
+                Arrays.asList(
+                        "§7권한: " + permDisplay,
+                        "§7",
+                        "§e좌클릭: §f권한 변경",
+                        "§c우클릭: §f제거"
+                )));
     }
 
-    private void setItem(int slot, Material material, String name, String... lore) {
-        ItemStack item = new ItemStack(material);
-        ItemMeta meta = item.getItemMeta();
-        meta.setDisplayName(name);
-        meta.setLore(Arrays.asList(lore));
-        item.setItemMeta(meta);
-        inventory.setItem(slot, item);
+    @Override
+    public void onPlayerResolved(UUID uuid) {
+        for (int slot = 0; slot < slotFriends.length; slot++) {
+            if (uuid.equals(slotFriends[slot])) {
+                renderFriend(slot);
+            }
+        }
     }
 
-    public void open() {
-        player.openInventory(inventory);
+    @Override
+    public void onClick(InventoryClickEvent event, int slot) {
+        switch (slot) {
+            case 45: // Back button
+                new LockMenuGUI(plugin, player, block).open();
+                return;
+
+            case 48: // Previous page
+                if (page > 0) {
+                    new FriendMenuGUI(plugin, player, block, page - 1).open();
+                }
+                return;
+
+            case 49: // Add friend button
+                new OnlinePlayerSelectorGUI(plugin, player, block).open();
+                return;
+
+            case 50: // Next page
+                if (hasNextPage) {
+                    new FriendMenuGUI(plugin, player, block, page + 1).open();
+                }
+                return;
+        }
 
-        // Register click handler
-        Bukkit.getPluginManager().registerEvents(new FriendMenuClickListener(plugin, player, block, inventory), plugin);
+        // Friend skull clicked
+        if (slot < PAGE_SIZE && slotFriends[slot] != null) {
+            BlockProtection protection = plugin.getDataHandler().getProtection(block);
+            if (protection == null) return;
+
+            UUID friendUuid = slotFriends[slot];
+
+            if (event.getClick() == ClickType.LEFT) {
+                // Toggle permission
+                FriendPermission currentPerm = protection.getFriendPermission(friendUuid);
+                if (currentPerm != null) {
+                    FriendPermission newPerm = currentPerm == FriendPermission.READ_ONLY ?
+                            FriendPermission.READ_WRITE : FriendPermission.READ_ONLY;
+                    plugin.getDataHandler().addFriend(block, friendUuid, newPerm);
+                    plugin.getMessages().send(player, "permission-changed");
+                    slotPermissions[slot] = newPerm;
+                    renderFriend(slot);
+                }
+            } else if (event.getClick() == ClickType.RIGHT) {
+                // Remove friend
+                plugin.getDataHandler().removeFriend(block, friendUuid);
+                plugin.getMessages().send(player, "friend-removed",
+                        "player", plugin.getNameCache().getName(friendUuid, "Unknown"));
+                new FriendMenuGUI(plugin, player, block, page).open();
+            }
+        }
     }
 }
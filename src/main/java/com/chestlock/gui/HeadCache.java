@@ -0,0 +1,136 @@
+package com.chestlock.gui;
+
+import com.chestlock.ChestLock;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.profile.PlayerProfile;
+
+import java.util.*;
+
+/**
+ * Bounded cache of player head items keyed by UUID.
+ * Profiles of offline players are resolved off the main thread; until then a
+ * plain placeholder head is returned and open menus are refreshed once it resolves.
+ * Only used from the main thread.
+ */
+public class HeadCache {
+
+    // Don't retry a failed profile lookup for this long
+    private static final long RETRY_DELAY_MILLIS = 10 * 60 * 1000L;
+
+    private final ChestLock plugin;
+    private final Map<UUID, ItemStack> heads;
+    private final Set<UUID> resolving;
+    private final Map<UUID, Long> failed;
+    private ItemStack placeholder;
+
+    public HeadCache(ChestLock plugin) {
+        this.plugin = plugin;
+        int maxSize = Math.max(16, plugin.getConfig().getInt("performance.head-cache-size", 500));
+        this.heads = new LinkedHashMap<UUID, ItemStack>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, ItemStack> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.resolving = new HashSet<>();
+        this.failed = new HashMap<>();
+    }
+
+    /**
+     * Get a head with display name and lore applied
+     */
+    public ItemStack getHead(UUID uuid, String name, String displayName, List<String> lore) {
+        ItemStack head = getHead(uuid, name).clone();
+        ItemMeta meta = head.getItemMeta();
+        meta.setDisplayName(displayName);
+        meta.setLore(lore);
+        head.setItemMeta(meta);
+        return head;
+    }
+
+    /**
+     * Get the cached head for a player, or a placeholder while the profile resolves
+     */
+    public ItemStack getHead(UUID uuid, String name) {
+        ItemStack head = heads.get(uuid);
+        if (head != null) {
+            return head;
+        }
+
+        // Online players already carry a complete profile
+        Player online = Bukkit.getPlayer(uuid);
+        if (online != null) {
+            head = createHead(online.getPlayerProfile());
+            heads.put(uuid, head);
+            return head;
+        }
+
+        resolveAsync(uuid, name);
+        return placeholder();
+    }
+
+    /**
+     * Check if a resolved head is cached for the player
+     */
+    public boolean isResolved(UUID uuid) {
+        return heads.containsKey(uuid);
+    }
+
+    public int size() {
+        return heads.size();
+    }
+
+    public void clear() {
+        heads.clear();
+        failed.clear();
+    }
+
+    private void resolveAsync(UUID uuid, String name) {
+        if (resolving.contains(uuid)) return;
+
+        Long failedAt = failed.get(uuid);
+        if (failedAt != null && System.currentTimeMillis() - failedAt < RETRY_DELAY_MILLIS) return;
+
+        resolving.add(uuid);
+        PlayerProfile profile = Bukkit.createPlayerProfile(uuid, name);
+
+        // update() performs the lookup on the server's background executor
+        profile.update().whenComplete((resolved, error) ->
+                Bukkit.getScheduler().runTask(plugin, () -> complete(uuid, resolved, error)));
+    }
+
+    private void complete(UUID uuid, PlayerProfile resolved, Throwable error) {
+        resolving.remove(uuid);
+
+        if (error != null || resolved == null || !resolved.isComplete()) {
+            failed.put(uuid, System.currentTimeMillis());
+            return;
+        }
+
+        failed.remove(uuid);
+        heads.put(uuid, createHead(resolved));
+
+        // Swap the placeholder in any open menu showing this player
+        plugin.getMenuManager().forEachSession(menu -> menu.onPlayerResolved(uuid));
+    }
+
+    private ItemStack placeholder() {
+        if (placeholder == null) {
+            placeholder = new ItemStack(Material.PLAYER_HEAD);
+        }
+        return placeholder;
+    }
+
+    private static ItemStack createHead(PlayerProfile profile) {
+        ItemStack head = new ItemStack(Material.PLAYER_HEAD);
+        SkullMeta meta = (SkullMeta) head.getItemMeta();
+        meta.setOwnerProfile(profile);
+        head.setItemMeta(meta);
+        return head;
+    }
+}
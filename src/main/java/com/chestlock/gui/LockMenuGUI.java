@@ -2,31 +2,18 @@ package com.chestlock.gui;
 
 import com.chestlock.ChestLock;
 import com.chestlock.model.BlockProtection;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-
-import java.util.Arrays;
+import org.bukkit.event.inventory.InventoryClickEvent;
 
 /**
  * Main lock menu GUI for managing block protection
  */
-public class LockMenuGUI {
-
-    private final ChestLock plugin;
-    private final Player player;
-    private final Block block;
-    private final Inventory inventory;
+public class LockMenuGUI extends Menu {
 
     public LockMenuGUI(ChestLock plugin, Player player, Block block) {
-        this.plugin = plugin;
-        this.player = player;
-        this.block = block;
-        this.inventory = Bukkit.createInventory(null, 27, "§6ChestLock 메뉴");
+        super(plugin, player, block, 27, "§6ChestLock 메뉴");
 
         setupInventory();
     }
@@ -36,76 +23,83 @@ public class LockMenuGUI {
 
         if (protection == null) {
             // Not locked - show lock option
-            setItem(13, Material.TRIPWIRE_HOOK, "§a블록 잠그기",
-                    "§7이 블록을 잠가서",
-                    "§7다른 사람이 접근하지",
-                    "§7못하도록 합니다.");
+            inventory.setItem(13, items().lock());
         } else {
             // Already locked
             if (protection.getOwner().equals(player.getUniqueId())) {
                 // Owner - show management options
-                setItem(10, Material.TRIPWIRE_HOOK, "§c블록 잠금 해제",
-                        "§7블록의 잠금을 해제합니다.");
+                inventory.setItem(10, items().unlock());
 
-                setItem(12, Material.PLAYER_HEAD, "§e친구 관리",
+                inventory.setItem(12, MenuItems.create(Material.PLAYER_HEAD, "§e친구 관리",
                         "§7친구를 추가하거나",
                         "§7제거합니다.",
                         "§7",
-                        "§e현재 친구: §f" + protection.getFriends().size() + "명");
-
-                String hopperStatus = protection.isAllowHopper() ? "§a허용됨" : "§c차단됨";
-                setItem(14, Material.HOPPER, "§e호퍼 설정",
-                        "§7호퍼의 아이템 이동을",
-                        "§7허용하거나 차단합니다.",
-                        "§7",
-                        "§e현재: " + hopperStatus);
+                        "§e현재 친구: §f" + protection.getFriends().size() + "명"));
 
-                String redstoneStatus = protection.isAllowRedstone() ? "§a허용됨" : "§c차단됨";
-                setItem(16, Material.REDSTONE, "§e레드스톤 설정",
-                        "§7레드스톤 신호를",
-                        "§7허용하거나 차단합니다.",
-                        "§7",
-                        "§e현재: " + redstoneStatus);
+                inventory.setItem(14, items().hopper(protection.isAllowHopper()));
+                inventory.setItem(16, items().redstone(protection.isAllowRedstone()));
             } else if (protection.canAccess(player.getUniqueId())) {
                 // Friend - show info
-                setItem(13, Material.IRON_DOOR, "§e보호된 블록",
-                        "§7이 블록은 다른 플레이어가",
-                        "§7소유하고 있습니다.",
-                        "§7",
-                        "§a당신은 접근 권한이 있습니다.");
+                inventory.setItem(13, items().friendAccess());
             } else {
                 // No access
-                setItem(13, Material.IRON_DOOR, "§c접근 불가",
-                        "§7이 블록은 보호되어 있습니다.");
+                inventory.setItem(13, items().noAccess());
             }
         }
 
         // Fill empty slots
-        ItemStack filler = new ItemStack(Material.GRAY_STAINED_GLASS_PANE);
-        ItemMeta fillerMeta = filler.getItemMeta();
-        fillerMeta.setDisplayName(" ");
-        filler.setItemMeta(fillerMeta);
+        fill(0, inventory.getSize());
+    }
 
-        for (int i = 0; i < inventory.getSize(); i++) {
-            if (inventory.getItem(i) == null) {
-                inventory.setItem(i, filler);
+    @Override
+    public void onClick(InventoryClickEvent event, int slot) {
+        BlockProtection protection = plugin.getDataHandler().getProtection(block);
+
+        if (protection == null) {
+            // Not locked - lock it
+            if (slot == 13) {
+                // Counters kept on lock/unlock, no counting here
+                int limit = plugin.getPermissionCache().getLockLimit(player);
+                if (limit >= 0 && plugin.getDataHandler().getOwnedCount(player.getUniqueId()) >= limit) {
+                    plugin.getMessages().send(player, "lock-limit", "limit", String.valueOf(limit));
+                    player.closeInventory();
+                    return;
+                }
+                plugin.getDataHandler().lockBlock(block, player.getUniqueId());
+                plugin.getMessages().send(player, "locked");
+                player.closeInventory();
+            }
+        } else if (protection.getOwner().equals(player.getUniqueId())) {
+            // Owner options
+            switch (slot) {
+                case 10: // Unlock
+                    plugin.getDataHandler().unlockBlock(block);
+                    plugin.getMessages().send(player, "unlocked");
+                    player.closeInventory();
+                    break;
+
+                case 12: // Friends management
+                    new FriendMenuGUI(plugin, player, block).open();
+                    break;
+
+                case 14: // Hopper toggle
+                    boolean newHopperState = !protection.isAllowHopper();
+                    plugin.getDataHandler().updateSettings(block, newHopperState, protection.isAllowRedstone());
+                    plugin.getMessages().send(player, "hopper-toggled", "state", stateText(newHopperState));
+                    inventory.setItem(14, items().hopper(newHopperState));
+                    break;
+
+                case 16: // Redstone toggle
+                    boolean newRedstoneState = !protection.isAllowRedstone();
+                    plugin.getDataHandler().updateSettings(block, protection.isAllowHopper(), newRedstoneState);
+                    plugin.getMessages().send(player, "redstone-toggled", "state", stateText(newRedstoneState));
+                    inventory.setItem(16, items().redstone(newRedstoneState));
+                    break;
             }
         }
     }
 
-    private void setItem(int slot, Material material, String name, String... lore) {
-        ItemStack item = new ItemStack(material);
-        ItemMeta meta = item.getItemMeta();
-        meta.setDisplayName(name);
-        meta.setLore(Arrays.asList(lore));
-        item.setItemMeta(meta);
-        inventory.setItem(slot, item);
-    }
-
-    public void open() {
-        player.openInventory(inventory);
-
-        // Register click handler
-        Bukkit.getPluginManager().registerEvents(new LockMenuClickListener(plugin, player, block, inventory), plugin);
+    private String stateText(boolean allowed) {
+        return plugin.getMessages().plain(player, allowed ? "state-allowed" : "state-blocked").render();
     }
 }
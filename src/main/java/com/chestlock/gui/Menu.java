@@ -0,0 +1,81 @@
+package com.chestlock.gui;
+
+import com.chestlock.ChestLock;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+import java.util.UUID;
+
+/**
+ * Base class for ChestLock menus. The menu is the holder of its own inventory,
+ * so {@link MenuListener} can route clicks without per-menu listeners.
+ */
+public abstract class Menu implements InventoryHolder {
+
+    protected final ChestLock plugin;
+    protected final Player player;
+    protected final Block block;
+    protected final Inventory inventory;
+
+    protected Menu(ChestLock plugin, Player player, Block block, int size, String title) {
+        this.plugin = plugin;
+        this.player = player;
+        this.block = block;
+        this.inventory = Bukkit.createInventory(this, size, title);
+    }
+
+    /**
+     * Handle a click inside this menu's inventory (already cancelled)
+     * @param slot Slot in the menu inventory
+     */
+    public abstract void onClick(InventoryClickEvent event, int slot);
+
+    /**
+     * Called when a player head or name used by this menu finished resolving
+     */
+    public void onPlayerResolved(UUID uuid) {
+    }
+
+    /**
+     * Open this menu for its player
+     */
+    public void open() {
+        plugin.getMenuManager().open(this);
+    }
+
+    protected MenuItems items() {
+        return plugin.getMenuManager().getItems();
+    }
+
+    protected HeadCache heads() {
+        return plugin.getMenuManager().getHeadCache();
+    }
+
+    /**
+     * Fill all empty slots in [from, to) with the filler pane
+     */
+    protected void fill(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (inventory.getItem(i) == null) {
+                inventory.setItem(i, items().filler());
+            }
+        }
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public Block getBlock() {
+        return block;
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+}
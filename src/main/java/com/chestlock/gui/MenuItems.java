@@ -0,0 +1,149 @@
+package com.chestlock.gui;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Arrays;
+
+/**
+ * Static menu buttons and filler panes, built once and reused for every menu
+ * (inventories copy items on setItem, so sharing these instances is safe)
+ */
+public class MenuItems {
+
+    private final ItemStack filler;
+    private final ItemStack lock;
+    private final ItemStack unlock;
+    private final ItemStack friendAccess;
+    private final ItemStack noAccess;
+    private final ItemStack hopperAllowed;
+    private final ItemStack hopperBlocked;
+    private final ItemStack redstoneAllowed;
+    private final ItemStack redstoneBlocked;
+    private final ItemStack backToLockMenu;
+    private final ItemStack backToFriendMenu;
+    private final ItemStack addFriend;
+    private final ItemStack previousPage;
+    private final ItemStack nextPage;
+    private final ItemStack search;
+
+    MenuItems() {
+        filler = create(Material.GRAY_STAINED_GLASS_PANE, " ");
+
+        lock = create(Material.TRIPWIRE_HOOK, "§a블록 잠그기",
+                "§7이 블록을 잠가서",
+                "§7다른 사람이 접근하지",
+                "§7못하도록 합니다.");
+        unlock = create(Material.TRIPWIRE_HOOK, "§c블록 잠금 해제",
+                "§7블록의 잠금을 해제합니다.");
+        friendAccess = create(Material.IRON_DOOR, "§e보호된 블록",
+                "§7이 블록은 다른 플레이어가",
+                "§7소유하고 있습니다.",
+                "§7",
+                "§a당신은 접근 권한이 있습니다.");
+        noAccess = create(Material.IRON_DOOR, "§c접근 불가",
+                "§7이 블록은 보호되어 있습니다.");
+
+        hopperAllowed = hopper("§a허용됨");
+        hopperBlocked = hopper("§c차단됨");
+        redstoneAllowed = redstone("§a허용됨");
+        redstoneBlocked = redstone("§c차단됨");
+
+        backToLockMenu = create(Material.ARROW, "§c뒤로 가기",
+                "§7이전 메뉴로 돌아갑니다.");
+        backToFriendMenu = create(Material.ARROW, "§c뒤로 가기",
+                "§7친구 메뉴로 돌아갑니다.");
+        addFriend = create(Material.EMERALD, "§a온라인 플레이어 추가",
+                "§7온라인 플레이어를",
+                "§7친구로 추가합니다.");
+
+        previousPage = create(Material.ARROW, "§e이전 페이지");
+        nextPage = create(Material.ARROW, "§e다음 페이지");
+        search = create(Material.COMPASS, "§e이름으로 검색",
+                "§7채팅으로 입력한 글자로 시작하는",
+                "§7플레이어만 표시합니다.");
+    }
+
+    private static ItemStack hopper(String status) {
+        return create(Material.HOPPER, "§e호퍼 설정",
+                "§7호퍼의 아이템 이동을",
+                "§7허용하거나 차단합니다.",
+                "§7",
+                "§e현재: " + status);
+    }
+
+    private static ItemStack redstone(String status) {
+        return create(Material.REDSTONE, "§e레드스톤 설정",
+                "§7레드스톤 신호를",
+                "§7허용하거나 차단합니다.",
+                "§7",
+                "§e현재: " + status);
+    }
+
+    /**
+     * Build a named item with lore
+     */
+    static ItemStack create(Material material, String name, String... lore) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        meta.setDisplayName(name);
+        if (lore.length > 0) {
+            meta.setLore(Arrays.asList(lore));
+        }
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    public ItemStack filler() {
+        return filler;
+    }
+
+    public ItemStack lock() {
+        return lock;
+    }
+
+    public ItemStack unlock() {
+        return unlock;
+    }
+
+    public ItemStack friendAccess() {
+        return friendAccess;
+    }
+
+    public ItemStack noAccess() {
+        return noAccess;
+    }
+
+    public ItemStack hopper(boolean allowed) {
+        return allowed ? hopperAllowed : hopperBlocked;
+    }
+
+    public ItemStack redstone(boolean allowed) {
+        return allowed ? redstoneAllowed : redstoneBlocked;
+    }
+
+    public ItemStack backToLockMenu() {
+        return backToLockMenu;
+    }
+
+    public ItemStack backToFriendMenu() {
+        return backToFriendMenu;
+    }
+
+    public ItemStack addFriend() {
+        return addFriend;
+    }
+
+    public ItemStack previousPage() {
+        return previousPage;
+    }
+
+    public ItemStack nextPage() {
+        return nextPage;
+    }
+
+    public ItemStack search() {
+        return search;
+    }
+}
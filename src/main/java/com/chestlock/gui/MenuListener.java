@@ -0,0 +1,93 @@
+package com.chestlock.gui;
+
+import com.chestlock.ChestLock;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryEvent;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Single permanently registered dispatcher for all ChestLock menus
+ */
+public class MenuListener implements Listener {
+
+    private final ChestLock plugin;
+    private final MenuManager menuManager;
+
+    public MenuListener(ChestLock plugin, MenuManager menuManager) {
+        this.plugin = plugin;
+        this.menuManager = menuManager;
+    }
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onClick(InventoryClickEvent event) {
+        Menu menu = findMenu(event.getWhoClicked(), event);
+        if (menu == null) return;
+
+        event.setCancelled(true);
+
+        // Ignore clicks in the player's own inventory
+        int rawSlot = event.getRawSlot();
+        if (rawSlot < 0 || rawSlot >= menu.getInventory().getSize()) return;
+        if (event.getCurrentItem() == null) return;
+
+        menu.onClick(event, rawSlot);
+    }
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onDrag(InventoryDragEvent event) {
+        if (findMenu(event.getWhoClicked(), event) != null) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onClose(InventoryCloseEvent event) {
+        Menu menu = menuManager.getSession(event.getPlayer().getUniqueId());
+        if (menu != null && event.getInventory().getHolder() == menu) {
+            menuManager.endSession(event.getPlayer().getUniqueId(), menu);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onChat(AsyncPlayerChatEvent event) {
+        Player player = event.getPlayer();
+        Block block = menuManager.takeSearchPrompt(player.getUniqueId());
+        if (block == null) return;
+
+        event.setCancelled(true);
+        String input = event.getMessage().trim();
+        String query = input.isEmpty() || input.equalsIgnoreCase("cancel") || input.equals("취소") ? null : input;
+
+        // Chat is async - open the menu on the main thread
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (player.isOnline()) {
+                new OnlinePlayerSelectorGUI(plugin, player, block, 0, query).open();
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        menuManager.endSession(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Resolve the menu for an inventory event; the session lookup rejects
+     * non-menu inventories before touching the holder
+     */
+    private Menu findMenu(HumanEntity who, InventoryEvent event) {
+        Menu menu = menuManager.getSession(who.getUniqueId());
+        if (menu == null) return null;
+        return event.getInventory().getHolder() == menu ? menu : null;
+    }
+}
@@ -0,0 +1,138 @@
+package com.chestlock.gui;
+
+import com.chestlock.ChestLock;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Registry of open menu sessions (one per player)
+ * Sessions are removed on close and on quit, so nothing outlives the player.
+ */
+public class MenuManager {
+
+    // How long a search prompt waits for the player's chat message
+    private static final long SEARCH_PROMPT_NANOS = 60_000_000_000L;
+
+    private final ChestLock plugin;
+    private final Map<UUID, Menu> sessions;
+    private final Map<UUID, SearchPrompt> searchPrompts;
+    private final HeadCache headCache;
+    private MenuItems items;
+
+    public MenuManager(ChestLock plugin) {
+        this.plugin = plugin;
+        this.sessions = new ConcurrentHashMap<>();
+        this.searchPrompts = new ConcurrentHashMap<>();
+        this.headCache = new HeadCache(plugin);
+    }
+
+    /**
+     * Open a menu and register it as the player's session
+     */
+    public void open(Menu menu) {
+        Player player = menu.getPlayer();
+        // Opening any menu abandons a search that was never typed
+        searchPrompts.remove(player.getUniqueId());
+        player.openInventory(menu.getInventory());
+        sessions.put(player.getUniqueId(), menu);
+    }
+
+    /**
+     * Get the player's open menu, or null
+     */
+    public Menu getSession(UUID uuid) {
+        return sessions.get(uuid);
+    }
+
+    /**
+     * End a session if it is still the given menu
+     */
+    public void endSession(UUID uuid, Menu menu) {
+        sessions.remove(uuid, menu);
+        searchPrompts.remove(uuid);
+    }
+
+    /**
+     * End the player's session regardless of which menu it is
+     */
+    public void endSession(UUID uuid) {
+        sessions.remove(uuid);
+        searchPrompts.remove(uuid);
+    }
+
+    /**
+     * Wait for the player's next chat message as a player-selector search (call after
+     * closing the menu, since closing one clears the prompt)
+     */
+    public void promptSearch(Player player, Block block) {
+        searchPrompts.put(player.getUniqueId(), new SearchPrompt(block, System.nanoTime() + SEARCH_PROMPT_NANOS));
+    }
+
+    /**
+     * Take the pending search prompt for a player, or null if there is none or it timed out
+     */
+    public Block takeSearchPrompt(UUID uuid) {
+        SearchPrompt prompt = searchPrompts.remove(uuid);
+        if (prompt == null || System.nanoTime() - prompt.deadline > 0) return null;
+        return prompt.block;
+    }
+
+    /**
+     * Close every open menu (on disable)
+     */
+    public void closeAll() {
+        for (Menu menu : new ArrayList<>(sessions.values())) {
+            if (menu.getPlayer().isOnline()) {
+                menu.getPlayer().closeInventory();
+            }
+        }
+        sessions.clear();
+        searchPrompts.clear();
+    }
+
+    /**
+     * Run an action for every open menu
+     */
+    public void forEachSession(Consumer<Menu> action) {
+        for (Menu menu : sessions.values()) {
+            action.accept(menu);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public HeadCache getHeadCache() {
+        return headCache;
+    }
+
+    /**
+     * Cached static menu items, built on first use
+     */
+    public MenuItems getItems() {
+        if (items == null) {
+            items = new MenuItems();
+        }
+        return items;
+    }
+
+    /**
+     * Block a search prompt belongs to and when it stops waiting (System.nanoTime)
+     */
+    private static final class SearchPrompt {
+        private final Block block;
+        private final long deadline;
+
+        private SearchPrompt(Block block, long deadline) {
+            this.block = block;
+            this.deadline = deadline;
+        }
+    }
+}
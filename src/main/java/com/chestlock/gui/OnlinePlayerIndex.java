@@ -0,0 +1,71 @@
+package com.chestlock.gui;
+
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Online players sorted by lower-case name, maintained on join and quit,
+ * for paging and name-prefix search in the player selector
+ */
+public class OnlinePlayerIndex {
+
+    private final NavigableMap<String, UUID> byName;
+    private final Map<UUID, String> keys;
+    private final Map<UUID, String> displayNames;
+
+    public OnlinePlayerIndex() {
+        this.byName = new ConcurrentSkipListMap<>();
+        this.keys = new ConcurrentHashMap<>();
+        this.displayNames = new ConcurrentHashMap<>();
+    }
+
+    public void add(Player player) {
+        remove(player.getUniqueId());
+
+        String key = player.getName().toLowerCase(Locale.ROOT);
+        byName.put(key, player.getUniqueId());
+        keys.put(player.getUniqueId(), key);
+        displayNames.put(player.getUniqueId(), player.getName());
+    }
+
+    public void remove(UUID uuid) {
+        String key = keys.remove(uuid);
+        if (key != null) {
+            byName.remove(key, uuid);
+        }
+        displayNames.remove(uuid);
+    }
+
+    /**
+     * Players whose name starts with the prefix (all players if null/empty), in name order
+     * @param excluded Players to leave out
+     */
+    public List<UUID> search(String prefix, Set<UUID> excluded) {
+        Collection<UUID> matches;
+        if (prefix == null || prefix.isEmpty()) {
+            matches = byName.values();
+        } else {
+            String from = prefix.toLowerCase(Locale.ROOT);
+            matches = byName.subMap(from, true, from + Character.MAX_VALUE, false).values();
+        }
+
+        List<UUID> result = new ArrayList<>(Math.min(matches.size(), 64));
+        for (UUID uuid : matches) {
+            if (!excluded.contains(uuid)) {
+                result.add(uuid);
+            }
+        }
+        return result;
+    }
+
+    public String getName(UUID uuid) {
+        return displayNames.get(uuid);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+}
@@ -3,135 +3,128 @@ package com.chestlock.gui;
 import com.chestlock.ChestLock;
 import com.chestlock.model.BlockProtection;
 import com.chestlock.model.BlockProtection.FriendPermission;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.event.inventory.InventoryCloseEvent;
-import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.inventory.meta.SkullMeta;
 
-import java.util.Arrays;
+import java.util.*;
 
 /**
- * GUI to select online players to add as friends
+ * Paginated, searchable GUI to select online players to add as friends
  */
-public class OnlinePlayerSelectorGUI implements Listener {
+public class OnlinePlayerSelectorGUI extends Menu {
 
-    private final ChestLock plugin;
-    private final Player player;
-    private final Block block;
-    private final Inventory inventory;
+    private static final int PAGE_SIZE = 45;
+
+    private static final List<String> LORE = Arrays.asList(
+            "§7클릭하여 친구로 추가",
+            "§7기본 권한: §e읽기 전용"
+    );
+
+    private final String query;
+    private int page;
+    private boolean hasNextPage;
+
+    // Player shown in each skull slot
+    private final UUID[] slotPlayers = new UUID[PAGE_SIZE];
 
     public OnlinePlayerSelectorGUI(ChestLock plugin, Player player, Block block) {
-        this.plugin = plugin;
-        this.player = player;
-        this.block = block;
-        this.inventory = Bukkit.createInventory(null, 54, "§6플레이어 선택");
+        this(plugin, player, block, 0, null);
+    }
+
+    public OnlinePlayerSelectorGUI(ChestLock plugin, Player player, Block block, int page, String query) {
+        super(plugin, player, block, 54, "§6플레이어 선택");
+        this.page = page;
+        this.query = query;
 
         setupInventory();
     }
 
     private void setupInventory() {
-        // Back button
-        setItem(49, Material.ARROW, "§c뒤로 가기", "§7친구 메뉴로 돌아갑니다.");
-
-        // Show online players
-        int slot = 0;
-        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-            if (slot >= 45) break;
-            if (onlinePlayer.equals(player)) continue; // Skip self
-
-            BlockProtection protection = plugin.getDataHandler().getProtection(block);
-            if (protection != null && protection.isFriend(onlinePlayer.getUniqueId())) {
-                continue; // Skip already added friends
-            }
-
-            ItemStack skull = new ItemStack(Material.PLAYER_HEAD);
-            SkullMeta meta = (SkullMeta) skull.getItemMeta();
-            meta.setOwningPlayer(onlinePlayer);
-            meta.setDisplayName("§e" + onlinePlayer.getName());
-            meta.setLore(Arrays.asList(
-                    "§7클릭하여 친구로 추가",
-                    "§7기본 권한: §e읽기 전용"
-            ));
-            skull.setItemMeta(meta);
-
-            inventory.setItem(slot, skull);
-            slot++;
+        // Resolve protection once and exclude self and existing friends
+        BlockProtection protection = plugin.getDataHandler().getProtection(block);
+        Set<UUID> excluded = protection != null ? new HashSet<>(protection.getFriends().keySet()) : new HashSet<>();
+        excluded.add(player.getUniqueId());
+
+        List<UUID> candidates = plugin.getOnlinePlayerIndex().search(query, excluded);
+        int pages = Math.max(1, (candidates.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        page = Math.min(Math.max(page, 0), pages - 1);
+        hasNextPage = page < pages - 1;
+
+        // Show this page of players
+        int start = page * PAGE_SIZE;
+        for (int slot = 0; slot < PAGE_SIZE && start + slot < candidates.size(); slot++) {
+            UUID uuid = candidates.get(start + slot);
+            String name = plugin.getOnlinePlayerIndex().getName(uuid);
+            if (name == null) continue; // Left while building
+
+            inventory.setItem(slot, heads().getHead(uuid, name, "§e" + name, LORE));
+            slotPlayers[slot] = uuid;
         }
 
-        // Fill empty slots
-        ItemStack filler = new ItemStack(Material.GRAY_STAINED_GLASS_PANE);
-        ItemMeta fillerMeta = filler.getItemMeta();
-        fillerMeta.setDisplayName(" ");
-        filler.setItemMeta(fillerMeta);
-
-        for (int i = 0; i < 49; i++) {
-            if (inventory.getItem(i) == null) {
-                inventory.setItem(i, filler);
-            }
+        // Navigation row
+        inventory.setItem(45, items().search());
+        if (query != null) {
+            inventory.setItem(46, MenuItems.create(Material.BARRIER, "§c검색 초기화",
+                    "§7현재 검색어: §f" + query));
         }
-    }
-
-    private void setItem(int slot, Material material, String name, String... lore) {
-        ItemStack item = new ItemStack(material);
-        ItemMeta meta = item.getItemMeta();
-        meta.setDisplayName(name);
-        meta.setLore(Arrays.asList(lore));
-        item.setItemMeta(meta);
-        inventory.setItem(slot, item);
-    }
+        if (page > 0) {
+            inventory.setItem(48, items().previousPage());
+        }
+        inventory.setItem(49, items().backToFriendMenu());
+        if (hasNextPage) {
+            inventory.setItem(50, items().nextPage());
+        }
+        inventory.setItem(53, MenuItems.create(Material.PAPER, "§e페이지 " + (page + 1) + "/" + pages,
+                "§7온라인 플레이어: §f" + candidates.size() + "명"));
 
-    public void open() {
-        player.openInventory(inventory);
-        Bukkit.getPluginManager().registerEvents(this, plugin);
+        // Fill empty slots
+        fill(0, PAGE_SIZE);
     }
 
-    @EventHandler
-    public void onClick(InventoryClickEvent event) {
-        if (!event.getInventory().equals(inventory)) return;
-        if (!event.getWhoClicked().equals(player)) return;
-
-        event.setCancelled(true);
-
-        if (event.getCurrentItem() == null) return;
-
-        int slot = event.getSlot();
+    @Override
+    public void onClick(InventoryClickEvent event, int slot) {
+        switch (slot) {
+            case 45: // Search by name prefix (typed in chat)
+                player.closeInventory();
+                plugin.getMenuManager().promptSearch(player, block);
+                plugin.getMessages().send(player, "search-prompt");
+                return;
+
+            case 46: // Clear search
+                if (query != null) {
+                    new OnlinePlayerSelectorGUI(plugin, player, block).open();
+                }
+                return;
+
+            case 48: // Previous page
+                if (page > 0) {
+                    new OnlinePlayerSelectorGUI(plugin, player, block, page - 1, query).open();
+                }
+                return;
+
+            case 49: // Back button
+                new FriendMenuGUI(plugin, player, block).open();
+                return;
 
-        // Back button
-        if (slot == 49) {
-            player.closeInventory();
-            new FriendMenuGUI(plugin, player, block).open();
-            return;
+            case 50: // Next page
+                if (hasNextPage) {
+                    new OnlinePlayerSelectorGUI(plugin, player, block, page + 1, query).open();
+                }
+                return;
         }
 
         // Player skull clicked
-        if (slot < 45 && event.getCurrentItem().getItemMeta() instanceof SkullMeta) {
-            SkullMeta meta = (SkullMeta) event.getCurrentItem().getItemMeta();
-            Player selectedPlayer = meta.getOwningPlayer() instanceof Player ? (Player) meta.getOwningPlayer() : null;
-
-            if (selectedPlayer != null) {
-                plugin.getDataHandler().addFriend(block, selectedPlayer.getUniqueId(), FriendPermission.READ_ONLY);
-                player.sendMessage(plugin.getMessage("friend-added")
-                        .replace("%player%", selectedPlayer.getName()));
-                player.closeInventory();
+        if (slot < PAGE_SIZE && slotPlayers[slot] != null) {
+            UUID selected = slotPlayers[slot];
+            String name = plugin.getOnlinePlayerIndex().getName(selected);
+
+            if (name != null) {
+                plugin.getDataHandler().addFriend(block, selected, FriendPermission.READ_ONLY);
+                plugin.getMessages().send(player, "friend-added", "player", name);
                 new FriendMenuGUI(plugin, player, block).open();
             }
         }
     }
-
-    @EventHandler
-    public void onClose(InventoryCloseEvent event) {
-        if (!event.getInventory().equals(inventory)) return;
-        if (!event.getPlayer().equals(player)) return;
-
-        HandlerList.unregisterAll(this);
-    }
 }
@@ -1,7 +1,9 @@
 package com.chestlock.listeners;
 
 import com.chestlock.ChestLock;
+import com.chestlock.metrics.ListenerTimer;
 import com.chestlock.model.BlockProtection;
+import com.chestlock.permission.PermissionCache;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -15,35 +17,50 @@ import org.bukkit.event.block.BlockBreakEvent;
 public class BlockBreakListener implements Listener {
 
     private final ChestLock plugin;
+    private final ListenerTimer timer;
 
     public BlockBreakListener(ChestLock plugin) {
         this.plugin = plugin;
+        this.timer = plugin.getMetrics().listener("break");
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
-        Block block = event.getBlock();
-        Player player = event.getPlayer();
+        long start = timer.start();
+        try {
+            Block block = event.getBlock();
+            Player player = event.getPlayer();
 
-        if (!plugin.isLockable(block.getType())) return;
+            if (!plugin.isLockable(block.getType())) return;
 
-        BlockProtection protection = plugin.getDataHandler().getProtection(block);
-        if (protection == null) return;
+            BlockProtection protection = plugin.getDataHandler().getProtection(block);
+            if (protection == null) return;
 
-        // Bypass permission
-        if (player.hasPermission("chestlock.bypass") || player.hasPermission("chestlock.admin")) {
-            plugin.getDataHandler().unlockBlock(block);
-            return;
-        }
+            // Bypass permission
+            if (plugin.getPermissionCache().has(player, PermissionCache.BYPASS | PermissionCache.ADMIN)) {
+                plugin.getDataHandler().unlockBlock(block);
+                return;
+            }
 
-        // Only owner can break
-        if (!protection.getOwner().equals(player.getUniqueId())) {
-            event.setCancelled(true);
-            player.sendMessage(plugin.getMessage("not-owner"));
-            return;
-        }
+            // Storage can't tell who owns it right now
+            if (protection.isPlaceholder()) {
+                event.setCancelled(true);
+                plugin.getMessages().sendThrottled(player,
+                        protection == BlockProtection.LOADING ? "data-loading" : "storage-unavailable");
+                return;
+            }
 
-        // Remove protection when broken
-        plugin.getDataHandler().unlockBlock(block);
+            // Only owner can break
+            if (!protection.getOwner().equals(player.getUniqueId())) {
+                event.setCancelled(true);
+                plugin.getMessages().sendThrottled(player, "not-owner");
+                return;
+            }
+
+            // Remove protection when broken
+            plugin.getDataHandler().unlockBlock(block);
+        } finally {
+            timer.stop(start);
+        }
     }
 }
@@ -2,6 +2,8 @@ package com.chestlock.listeners;
 
 import com.chestlock.ChestLock;
 import com.chestlock.gui.LockMenuGUI;
+import com.chestlock.message.MessageTemplate;
+import com.chestlock.metrics.ListenerTimer;
 import com.chestlock.model.BlockProtection;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
@@ -17,57 +19,71 @@ import org.bukkit.event.player.PlayerInteractEvent;
 public class BlockInteractListener implements Listener {
 
     private final ChestLock plugin;
+    private final ListenerTimer timer;
 
     public BlockInteractListener(ChestLock plugin) {
         this.plugin = plugin;
+        this.timer = plugin.getMetrics().listener("interact");
     }
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerInteract(PlayerInteractEvent event) {
-        if (event.getAction() != Action.RIGHT_CLICK_BLOCK) return;
+        long start = timer.start();
+        try {
+            if (event.getAction() != Action.RIGHT_CLICK_BLOCK) return;
 
-        Block block = event.getClickedBlock();
-        if (block == null) return;
+            Block block = event.getClickedBlock();
+            if (block == null) return;
 
-        if (!plugin.isLockable(block.getType())) return;
+            if (!plugin.isLockable(block.getType())) return;
 
-        Player player = event.getPlayer();
+            Player player = event.getPlayer();
 
-        // Shift + Right Click = Open lock menu
-        if (player.isSneaking() && event.getItem() == null) {
-            event.setCancelled(true);
+            // Shift + Right Click = Open lock menu
+            if (player.isSneaking() && event.getItem() == null) {
+                event.setCancelled(true);
 
-            if (!player.hasPermission("chestlock.lock")) {
-                player.sendMessage(plugin.getMessage("no-permission"));
+                if (!plugin.getPermissionCache().canLock(player)) {
+                    plugin.getMessages().send(player, "no-permission");
+                    return;
+                }
+
+                // Open lock menu
+                new LockMenuGUI(plugin, player, block).open();
                 return;
             }
 
-            // Open lock menu
-            new LockMenuGUI(plugin, player, block).open();
-            return;
-        }
-
-        // Normal right click = Check access
-        BlockProtection protection = plugin.getDataHandler().getProtection(block);
-        if (protection == null) {
-            // Not protected, show hint
-            if (!plugin.getDataHandler().isProtected(block)) {
-                String hint = plugin.getMessageWithoutPrefix("lock-hint");
-                if (!hint.isEmpty()) {
-                    player.sendActionBar(hint);
+            // Normal right click = Check access
+            BlockProtection protection = plugin.getDataHandler().getProtection(block);
+            if (protection == null) {
+                // Not protected, show hint
+                if (!plugin.getDataHandler().isProtected(block)) {
+                    MessageTemplate hint = plugin.getMessages().plain(player, "lock-hint");
+                    if (!hint.isEmpty()) {
+                        player.sendActionBar(hint.render());
+                    }
                 }
+                return;
             }
-            return;
-        }
 
-        // Check if player can access
-        if (player.hasPermission("chestlock.bypass")) {
-            return; // Bypass permission
-        }
+            // Check if player can access
+            if (plugin.getPermissionCache().canBypass(player)) {
+                return; // Bypass permission
+            }
+
+            if (protection.isPlaceholder()) {
+                event.setCancelled(true);
+                plugin.getMessages().sendThrottled(player,
+                        protection == BlockProtection.LOADING ? "data-loading" : "storage-unavailable");
+                return;
+            }
 
-        if (!protection.canAccess(player.getUniqueId())) {
-            event.setCancelled(true);
-            player.sendMessage(plugin.getMessage("no-permission"));
+            if (!protection.canAccess(player.getUniqueId())) {
+                event.setCancelled(true);
+                plugin.getMessages().sendThrottled(player, "no-permission");
+            }
+        } finally {
+            timer.stop(start);
         }
     }
 }
@@ -1,8 +1,6 @@
 package com.chestlock.listeners;
 
 import com.chestlock.ChestLock;
-import org.bukkit.block.Block;
-import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -21,10 +19,7 @@ public class BlockPlaceListener implements Listener {
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockPlace(BlockPlaceEvent event) {
-        Block block = event.getBlock();
-        Player player = event.getPlayer();
-
-        if (!plugin.isLockable(block.getType())) return;
+        if (!plugin.isLockable(event.getBlock().getType())) return;
 
         // Auto-lock is optional - for now just allow placement
         // Future: Add config option for auto-lock on place
@@ -0,0 +1,42 @@
+package com.chestlock.listeners;
+
+import com.chestlock.ChestLock;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+
+/**
+ * Queues lockable blocks that can disappear without a break event (a door losing
+ * its support, fire) for an orphaned protection check on a later tick
+ */
+public class BlockRemovalListener implements Listener {
+
+    private final ChestLock plugin;
+
+    public BlockRemovalListener(ChestLock plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Fires for every neighbour update, so this only filters by type and queues
+     * (not timed: the timer would cost more than the handler)
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPhysics(BlockPhysicsEvent event) {
+        Block block = event.getBlock();
+        if (!plugin.isLockable(block.getType())) return;
+
+        plugin.getDataHandler().getOrphanCollector().queueCheck(block);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        Block block = event.getBlock();
+        if (!plugin.isLockable(block.getType())) return;
+
+        plugin.getDataHandler().getOrphanCollector().queueCheck(block);
+    }
+}
@@ -0,0 +1,32 @@
+package com.chestlock.listeners;
+
+import com.chestlock.ChestLock;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+
+/**
+ * Queues loaded chunks for the tile entity protection index and the orphaned
+ * protection check
+ */
+public class ChunkListener implements Listener {
+
+    private final ChestLock plugin;
+
+    public ChunkListener(ChestLock plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        // Records left in a regenerated chunk (world reset) are orphans too
+        plugin.getDataHandler().getOrphanCollector().queueChunk(event.getChunk());
+
+        // Freshly generated chunks hold no tile protections
+        if (event.isNewChunk()) return;
+
+        // Scanned on a later tick, not while the chunk is loading
+        plugin.getDataHandler().getTileIndex().queueScan(event.getChunk());
+    }
+}
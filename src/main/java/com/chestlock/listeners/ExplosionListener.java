@@ -1,13 +1,16 @@
 package com.chestlock.listeners;
 
 import com.chestlock.ChestLock;
+import com.chestlock.metrics.ListenerTimer;
 import org.bukkit.block.Block;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockExplodeEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Prevents explosions from destroying protected blocks
@@ -15,14 +18,39 @@ import java.util.Iterator;
 public class ExplosionListener implements Listener {
 
     private final ChestLock plugin;
+    private final ListenerTimer timer;
 
     public ExplosionListener(ChestLock plugin) {
         this.plugin = plugin;
+        this.timer = plugin.getMetrics().listener("explosion");
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onEntityExplode(EntityExplodeEvent event) {
-        Iterator<Block> iterator = event.blockList().iterator();
+        long start = timer.start();
+        try {
+            keepProtected(event.blockList());
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+    /**
+     * Beds and respawn anchors; protected blocks survive these too, so explosions
+     * never change a player's lock count
+     */
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        long start = timer.start();
+        try {
+            keepProtected(event.blockList());
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+    private void keepProtected(List<Block> blocks) {
+        Iterator<Block> iterator = blocks.iterator();
 
         while (iterator.hasNext()) {
             Block block = iterator.next();
@@ -1,6 +1,7 @@
 package com.chestlock.listeners;
 
 import com.chestlock.ChestLock;
+import com.chestlock.metrics.ListenerTimer;
 import com.chestlock.model.BlockProtection;
 import org.bukkit.block.Block;
 import org.bukkit.event.EventHandler;
@@ -14,34 +15,41 @@ import org.bukkit.event.inventory.InventoryMoveItemEvent;
 public class HopperListener implements Listener {
 
     private final ChestLock plugin;
+    private final ListenerTimer timer;
 
     public HopperListener(ChestLock plugin) {
         this.plugin = plugin;
+        this.timer = plugin.getMetrics().listener("hopper");
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onHopperMove(InventoryMoveItemEvent event) {
-        // Check source container
-        if (event.getSource().getLocation() != null) {
-            Block sourceBlock = event.getSource().getLocation().getBlock();
-            if (plugin.isLockable(sourceBlock.getType())) {
-                BlockProtection protection = plugin.getDataHandler().getProtection(sourceBlock);
-                if (protection != null && !protection.isAllowHopper()) {
-                    event.setCancelled(true);
-                    return;
+        long start = timer.start();
+        try {
+            // Check source container
+            if (event.getSource().getLocation() != null) {
+                Block sourceBlock = event.getSource().getLocation().getBlock();
+                if (plugin.isLockable(sourceBlock.getType())) {
+                    BlockProtection protection = plugin.getDataHandler().getProtection(sourceBlock);
+                    if (protection != null && !protection.isAllowHopper()) {
+                        event.setCancelled(true);
+                        return;
+                    }
                 }
             }
-        }
 
-        // Check destination container
-        if (event.getDestination().getLocation() != null) {
-            Block destBlock = event.getDestination().getLocation().getBlock();
-            if (plugin.isLockable(destBlock.getType())) {
-                BlockProtection protection = plugin.getDataHandler().getProtection(destBlock);
-                if (protection != null && !protection.isAllowHopper()) {
-                    event.setCancelled(true);
+            // Check destination container
+            if (event.getDestination().getLocation() != null) {
+                Block destBlock = event.getDestination().getLocation().getBlock();
+                if (plugin.isLockable(destBlock.getType())) {
+                    BlockProtection protection = plugin.getDataHandler().getProtection(destBlock);
+                    if (protection != null && !protection.isAllowHopper()) {
+                        event.setCancelled(true);
+                    }
                 }
             }
+        } finally {
+            timer.stop(start);
         }
     }
 }
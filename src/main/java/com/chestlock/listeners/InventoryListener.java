@@ -1,6 +1,7 @@
 package com.chestlock.listeners;
 
 import com.chestlock.ChestLock;
+import com.chestlock.metrics.ListenerTimer;
 import com.chestlock.model.BlockProtection;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
@@ -15,34 +16,48 @@ import org.bukkit.event.inventory.InventoryOpenEvent;
 public class InventoryListener implements Listener {
 
     private final ChestLock plugin;
+    private final ListenerTimer timer;
 
     public InventoryListener(ChestLock plugin) {
         this.plugin = plugin;
+        this.timer = plugin.getMetrics().listener("inventory_open");
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onInventoryOpen(InventoryOpenEvent event) {
-        if (!(event.getPlayer() instanceof Player)) return;
-
-        Player player = (Player) event.getPlayer();
-
-        if (event.getInventory().getLocation() == null) return;
-
-        Block block = event.getInventory().getLocation().getBlock();
-        if (!plugin.isLockable(block.getType())) return;
-
-        BlockProtection protection = plugin.getDataHandler().getProtection(block);
-        if (protection == null) return;
-
-        // Bypass permission
-        if (player.hasPermission("chestlock.bypass")) {
-            return;
-        }
-
-        // Check access
-        if (!protection.canAccess(player.getUniqueId())) {
-            event.setCancelled(true);
-            player.sendMessage(plugin.getMessage("no-permission"));
+        long start = timer.start();
+        try {
+            if (!(event.getPlayer() instanceof Player)) return;
+
+            Player player = (Player) event.getPlayer();
+
+            if (event.getInventory().getLocation() == null) return;
+
+            Block block = event.getInventory().getLocation().getBlock();
+            if (!plugin.isLockable(block.getType())) return;
+
+            BlockProtection protection = plugin.getDataHandler().getProtection(block);
+            if (protection == null) return;
+
+            // Bypass permission
+            if (plugin.getPermissionCache().canBypass(player)) {
+                return;
+            }
+
+            if (protection.isPlaceholder()) {
+                event.setCancelled(true);
+                plugin.getMessages().sendThrottled(player,
+                        protection == BlockProtection.LOADING ? "data-loading" : "storage-unavailable");
+                return;
+            }
+
+            // Check access
+            if (!protection.canAccess(player.getUniqueId())) {
+                event.setCancelled(true);
+                plugin.getMessages().sendThrottled(player, "no-permission");
+            }
+        } finally {
+            timer.stop(start);
         }
     }
 }
@@ -1,6 +1,7 @@
 package com.chestlock.listeners;
 
 import com.chestlock.ChestLock;
+import com.chestlock.metrics.ListenerTimer;
 import org.bukkit.block.Block;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -14,28 +15,40 @@ import org.bukkit.event.block.BlockPistonRetractEvent;
 public class PistonListener implements Listener {
 
     private final ChestLock plugin;
+    private final ListenerTimer timer;
 
     public PistonListener(ChestLock plugin) {
         this.plugin = plugin;
+        this.timer = plugin.getMetrics().listener("piston");
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onPistonExtend(BlockPistonExtendEvent event) {
-        for (Block block : event.getBlocks()) {
-            if (plugin.isLockable(block.getType()) && plugin.getDataHandler().isProtected(block)) {
-                event.setCancelled(true);
-                return;
+        long start = timer.start();
+        try {
+            for (Block block : event.getBlocks()) {
+                if (plugin.isLockable(block.getType()) && plugin.getDataHandler().isProtected(block)) {
+                    event.setCancelled(true);
+                    return;
+                }
             }
+        } finally {
+            timer.stop(start);
         }
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onPistonRetract(BlockPistonRetractEvent event) {
-        for (Block block : event.getBlocks()) {
-            if (plugin.isLockable(block.getType()) && plugin.getDataHandler().isProtected(block)) {
-                event.setCancelled(true);
-                return;
+        long start = timer.start();
+        try {
+            for (Block block : event.getBlocks()) {
+                if (plugin.isLockable(block.getType()) && plugin.getDataHandler().isProtected(block)) {
+                    event.setCancelled(true);
+                    return;
+                }
             }
+        } finally {
+            timer.stop(start);
         }
     }
 }
@@ -0,0 +1,63 @@
+package com.chestlock.listeners;
+
+import com.chestlock.ChestLock;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+
+/**
+ * Keeps per-player cached state up to date
+ */
+public class PlayerListener implements Listener {
+
+    private final ChestLock plugin;
+
+    public PlayerListener(ChestLock plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        plugin.getPermissionCache().refresh(event.getPlayer());
+        plugin.getOnlinePlayerIndex().add(event.getPlayer());
+        plugin.getNameCache().seen(event.getPlayer().getUniqueId(), event.getPlayer().getName());
+        plugin.getExpirySweeper().seen(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        plugin.getOnlinePlayerIndex().remove(event.getPlayer().getUniqueId());
+
+        plugin.getPermissionCache().invalidate(event.getPlayer().getUniqueId());
+        plugin.getMessages().forget(event.getPlayer().getUniqueId());
+        // Last-seen time for protection expiry
+        plugin.getNameCache().seen(event.getPlayer().getUniqueId(), event.getPlayer().getName());
+        plugin.getExpirySweeper().seen(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        // Per-world permissions may differ
+        plugin.getPermissionCache().refresh(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(PluginEnableEvent event) {
+        // A permissions plugin (re)loading changes everyone's permissions
+        if (event.getPlugin() != plugin) {
+            plugin.getPermissionCache().refreshAll();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        if (event.getPlugin() != plugin) {
+            plugin.getPermissionCache().refreshAll();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.chestlock.message;
+
+import com.chestlock.ChestLock;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All plugin messages, compiled once at enable/reload.
+ * Per-locale overrides from 'locale-messages' are picked by the player's client locale,
+ * falling back to the language (e.g. en_gb -> en) and then to 'messages'.
+ */
+public class MessageCatalog {
+
+    private final Bundle defaults;
+    private final Map<String, Bundle> locales;
+    private final Map<String, Bundle> resolvedLocales;
+    private final Map<UUID, Throttle> throttles;
+    private final long cooldownMillis;
+
+    private MessageCatalog(Bundle defaults, Map<String, Bundle> locales, long cooldownMillis) {
+        this.defaults = defaults;
+        this.locales = locales;
+        this.resolvedLocales = new ConcurrentHashMap<>();
+        this.throttles = new ConcurrentHashMap<>();
+        this.cooldownMillis = cooldownMillis;
+    }
+
+    /**
+     * Compile the catalog from the current plugin config
+     */
+    public static MessageCatalog load(ChestLock plugin) {
+        ConfigurationSection messages = plugin.getConfig().getConfigurationSection("messages");
+        Bundle defaults = Bundle.compile(messages, null);
+
+        Map<String, Bundle> locales = new HashMap<>();
+        ConfigurationSection localeSection = plugin.getConfig().getConfigurationSection("locale-messages");
+        if (localeSection != null) {
+            for (String locale : localeSection.getKeys(false)) {
+                ConfigurationSection section = localeSection.getConfigurationSection(locale);
+                if (section != null) {
+                    locales.put(locale.toLowerCase(Locale.ROOT), Bundle.compile(section, defaults));
+                }
+            }
+        }
+
+        long cooldown = plugin.getConfig().getLong("performance.message-cooldown", 1000);
+        return new MessageCatalog(defaults, locales, cooldown);
+    }
+
+    /**
+     * Message with prefix in the server default language
+     */
+    public MessageTemplate prefixed(String key) {
+        return defaults.prefixed(key);
+    }
+
+    /**
+     * Message without prefix in the server default language
+     */
+    public MessageTemplate plain(String key) {
+        return defaults.plain(key);
+    }
+
+    /**
+     * Message with prefix in the recipient's language
+     */
+    public MessageTemplate prefixed(CommandSender recipient, String key) {
+        return bundleFor(recipient).prefixed(key);
+    }
+
+    /**
+     * Message without prefix in the recipient's language
+     */
+    public MessageTemplate plain(CommandSender recipient, String key) {
+        return bundleFor(recipient).plain(key);
+    }
+
+    /**
+     * Send a prefixed message, e.g. send(player, "friend-added", "player", name)
+     */
+    public void send(CommandSender recipient, String key, String... replacements) {
+        MessageTemplate template = prefixed(recipient, key);
+        recipient.sendMessage(template.render(replacements));
+    }
+
+    /**
+     * Send a prefixed message unless the same message was sent to this player
+     * within the configured cooldown (used for denial spam on repeated clicks)
+     */
+    public void sendThrottled(Player player, String key, String... replacements) {
+        if (cooldownMillis > 0) {
+            long now = System.currentTimeMillis();
+            Throttle throttle = throttles.computeIfAbsent(player.getUniqueId(), uuid -> new Throttle());
+            if (key.equals(throttle.lastKey) && now - throttle.lastSent < cooldownMillis) {
+                return;
+            }
+            throttle.lastKey = key;
+            throttle.lastSent = now;
+        }
+        send(player, key, replacements);
+    }
+
+    /**
+     * Forget throttle state for a player (on quit)
+     */
+    public void forget(UUID uuid) {
+        throttles.remove(uuid);
+    }
+
+    private Bundle bundleFor(CommandSender recipient) {
+        if (locales.isEmpty() || !(recipient instanceof Player)) {
+            return defaults;
+        }
+
+        String locale = ((Player) recipient).getLocale();
+        if (locale == null) {
+            return defaults;
+        }
+
+        Bundle bundle = resolvedLocales.get(locale);
+        if (bundle == null) {
+            bundle = resolveLocale(locale);
+            resolvedLocales.put(locale, bundle);
+        }
+        return bundle;
+    }
+
+    private Bundle resolveLocale(String locale) {
+        String normalized = locale.toLowerCase(Locale.ROOT);
+        Bundle bundle = locales.get(normalized);
+        if (bundle != null) return bundle;
+
+        int separator = normalized.indexOf('_');
+        if (separator > 0) {
+            bundle = locales.get(normalized.substring(0, separator));
+            if (bundle != null) return bundle;
+        }
+        return defaults;
+    }
+
+    private static String colorize(String message) {
+        return ChatColor.translateAlternateColorCodes('&', message);
+    }
+
+    /**
+     * Compiled messages for one language
+     */
+    private static final class Bundle {
+        private final Bundle parent;
+        private final String prefix;
+        private final Map<String, MessageTemplate> prefixed;
+        private final Map<String, MessageTemplate> plain;
+
+        private Bundle(Bundle parent, String prefix) {
+            this.parent = parent;
+            this.prefix = prefix;
+            this.prefixed = new ConcurrentHashMap<>();
+            this.plain = new ConcurrentHashMap<>();
+        }
+
+        static Bundle compile(ConfigurationSection section, Bundle parent) {
+            String rawPrefix = section != null ? section.getString("prefix") : null;
+            String prefix = rawPrefix != null ? colorize(rawPrefix) : (parent != null ? parent.prefix : "");
+            Bundle bundle = new Bundle(parent, prefix);
+
+            if (section != null) {
+                for (String key : section.getKeys(false)) {
+                    String raw = section.getString(key);
+                    if (raw == null) continue;
+                    String message = colorize(raw);
+                    bundle.plain.put(key, MessageTemplate.compile(message));
+                    bundle.prefixed.put(key, MessageTemplate.compile(prefix + " " + message));
+                }
+            }
+            return bundle;
+        }
+
+        MessageTemplate prefixed(String key) {
+            MessageTemplate template = prefixed.get(key);
+            if (template != null) return template;
+            if (parent != null) {
+                // Inherit the text but keep this locale's prefix
+                template = MessageTemplate.compile(prefix + " " + parent.plain(key).render());
+            } else {
+                template = MessageTemplate.compile(prefix + " ");
+            }
+            prefixed.put(key, template);
+            return template;
+        }
+
+        MessageTemplate plain(String key) {
+            MessageTemplate template = plain.get(key);
+            if (template != null) return template;
+            template = parent != null ? parent.plain(key) : MessageTemplate.EMPTY;
+            plain.put(key, template);
+            return template;
+        }
+    }
+
+    private static final class Throttle {
+        private volatile String lastKey;
+        private volatile long lastSent;
+    }
+}
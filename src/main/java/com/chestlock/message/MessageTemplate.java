@@ -0,0 +1,128 @@
+package com.chestlock.message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message compiled once from config: colors are already translated and
+ * %placeholder% tokens are split out so rendering is a single append pass
+ */
+public final class MessageTemplate {
+
+    public static final MessageTemplate EMPTY = new MessageTemplate("", new String[]{""}, new String[0]);
+
+    private final String text;
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private MessageTemplate(String text, String[] literals, String[] placeholders) {
+        this.text = text;
+        this.literals = literals;
+        this.placeholders = placeholders;
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compile an already colorized string into literal and placeholder segments
+     */
+    public static MessageTemplate compile(String message) {
+        if (message == null || message.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+
+        int start = 0;
+        int pos = 0;
+        while (pos < message.length()) {
+            int open = message.indexOf('%', pos);
+            if (open < 0) break;
+            int close = message.indexOf('%', open + 1);
+            if (close < 0) break;
+
+            String name = message.substring(open + 1, close);
+            if (isPlaceholderName(name)) {
+                literals.add(message.substring(start, open));
+                placeholders.add(name);
+                start = close + 1;
+                pos = close + 1;
+            } else {
+                // Not a placeholder (e.g. "50%"), the closing % may open the next one
+                pos = close;
+            }
+        }
+        literals.add(message.substring(start));
+
+        return new MessageTemplate(message, literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    private static boolean isPlaceholderName(String name) {
+        if (name.isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9') && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return text.isEmpty();
+    }
+
+    public boolean hasPlaceholders() {
+        return placeholders.length > 0;
+    }
+
+    /**
+     * Render without substitutions (placeholders are left as-is)
+     */
+    public String render() {
+        return text;
+    }
+
+    /**
+     * Render with name/value pairs, e.g. render("player", name)
+     */
+    public String render(String... replacements) {
+        if (placeholders.length == 0) {
+            return text;
+        }
+
+        StringBuilder builder = new StringBuilder(literalLength + placeholders.length * 16);
+        for (int i = 0; i < placeholders.length; i++) {
+            builder.append(literals[i]);
+
+            String value = lookup(placeholders[i], replacements);
+            if (value != null) {
+                builder.append(value);
+            } else {
+                builder.append('%').append(placeholders[i]).append('%');
+            }
+        }
+        builder.append(literals[placeholders.length]);
+        return builder.toString();
+    }
+
+    private static String lookup(String name, String[] replacements) {
+        for (int i = 0; i + 1 < replacements.length; i += 2) {
+            if (name.equals(replacements[i])) {
+                return replacements[i + 1];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,46 @@
+package com.chestlock.metrics;
+
+/**
+ * Times one event handler into its latency histogram and reports
+ * invocations over budget to the slow event watchdog
+ */
+public final class ListenerTimer {
+
+    private final String name;
+    private final Histogram histogram;
+    private volatile SlowEventWatchdog watchdog;
+    private volatile long budgetNanos = Long.MAX_VALUE;
+
+    ListenerTimer(String name, Histogram histogram) {
+        this.name = name;
+        this.histogram = histogram;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    void watch(SlowEventWatchdog watchdog) {
+        this.watchdog = watchdog;
+        this.budgetNanos = watchdog.getBudget(name);
+    }
+
+    public long start() {
+        if (watchdog != null) {
+            LookupTrace.current().reset();
+        }
+        return System.nanoTime();
+    }
+
+    public void stop(long start) {
+        long elapsed = System.nanoTime() - start;
+        histogram.record(elapsed);
+        if (elapsed > budgetNanos) {
+            watchdog.report(this, elapsed, budgetNanos, LookupTrace.current());
+        }
+    }
+}
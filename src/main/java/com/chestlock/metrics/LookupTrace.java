@@ -0,0 +1,94 @@
+package com.chestlock.metrics;
+
+import org.bukkit.block.Block;
+
+/**
+ * Per-thread record of the protection lookups made during one event handler:
+ * which path each took (cache, PDC or database) and the time spent per stage.
+ * Reset when a handler starts; read by the slow event watchdog when it ends.
+ */
+public final class LookupTrace {
+
+    /**
+     * Lookup stages
+     */
+    public enum Stage {
+        CACHE, PDC, DB
+    }
+
+    private static final ThreadLocal<LookupTrace> CURRENT = ThreadLocal.withInitial(LookupTrace::new);
+    private static final Stage[] STAGES = Stage.values();
+
+    private final long[] stageNanos;
+    private int pathMask;
+    private int lookups;
+    private Block slowestBlock;
+    private long slowestNanos;
+
+    private LookupTrace() {
+        this.stageNanos = new long[STAGES.length];
+    }
+
+    /**
+     * The trace for the calling thread
+     */
+    public static LookupTrace current() {
+        return CURRENT.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < stageNanos.length; i++) {
+            stageNanos[i] = 0;
+        }
+        pathMask = 0;
+        lookups = 0;
+        slowestBlock = null;
+        slowestNanos = 0;
+    }
+
+    /**
+     * Add time spent in a stage
+     */
+    public void stage(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+        pathMask |= 1 << stage.ordinal();
+    }
+
+    /**
+     * Record a completed lookup, keeping the slowest block
+     */
+    public void lookup(Block block, long nanos) {
+        lookups++;
+        if (slowestBlock == null || nanos > slowestNanos) {
+            slowestBlock = block;
+            slowestNanos = nanos;
+        }
+    }
+
+    public int getLookups() {
+        return lookups;
+    }
+
+    public Block getSlowestBlock() {
+        return slowestBlock;
+    }
+
+    public long getStageNanos(Stage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * Stages taken, e.g. "CACHE>DB" (or "none")
+     */
+    public String describePath() {
+        if (pathMask == 0) return "none";
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : STAGES) {
+            if ((pathMask & (1 << stage.ordinal())) != 0) {
+                if (builder.length() > 0) builder.append('>');
+                builder.append(stage.name());
+            }
+        }
+        return builder.toString();
+    }
+}
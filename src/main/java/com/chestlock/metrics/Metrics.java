@@ -0,0 +1,166 @@
+package com.chestlock.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * ChestLock's metrics: listener latency, storage lookups, PDC decodes, database
+ * queue/pool/batch figures, I/O queue latency and load/save durations, all held in one registry
+ */
+public class Metrics {
+
+    private static final double NANOS = 1e-9;
+
+    private final MetricsRegistry registry;
+    private final Map<String, ListenerTimer> listeners;
+    private final Map<String, Counter> lookups;
+    private final Map<String, Histogram> queries;
+    private final Map<String, Histogram> batches;
+    private final Counter pdcDecodes;
+    private final Histogram loadDuration;
+    private final Histogram saveDuration;
+    private final Histogram poolWait;
+    private final Counter poolTimeouts;
+    private final Histogram ioQueueWait;
+    private final Counter ioRejected;
+    private volatile LongSupplier dbQueueDepth;
+    private SlowEventWatchdog watchdog;
+
+    public Metrics() {
+        this.registry = new MetricsRegistry();
+        this.listeners = new LinkedHashMap<>();
+        this.lookups = new LinkedHashMap<>();
+        this.queries = new LinkedHashMap<>();
+        this.batches = new LinkedHashMap<>();
+        this.pdcDecodes = registry.counter("chestlock_pdc_decodes_total",
+                "Protections decoded from tile entity PersistentDataContainers");
+        this.loadDuration = registry.histogram("chestlock_storage_load_seconds",
+                "Time to load all protections from storage", NANOS);
+        this.saveDuration = registry.histogram("chestlock_storage_save_seconds",
+                "Time to save all protections to storage", NANOS);
+        this.poolWait = registry.histogram("chestlock_db_pool_wait_seconds",
+                "Time spent waiting for a database connection from the pool", NANOS);
+        this.poolTimeouts = registry.counter("chestlock_db_pool_timeouts_total",
+                "Database connection requests that timed out");
+        this.ioQueueWait = registry.histogram("chestlock_io_queue_seconds",
+                "Time storage I/O tasks wait before they start running", NANOS);
+        this.ioRejected = registry.counter("chestlock_io_rejected_total",
+                "Storage I/O tasks rejected because the queue was full");
+        this.dbQueueDepth = () -> 0;
+        registry.gauge("chestlock_db_queue_depth", "Asynchronous database tasks waiting or running",
+                () -> dbQueueDepth.getAsLong());
+    }
+
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Timer for an event handler (created once per listener)
+     */
+    public synchronized ListenerTimer listener(String name) {
+        return listeners.computeIfAbsent(name, key -> {
+            ListenerTimer timer = new ListenerTimer(key,
+                    registry.histogram("chestlock_listener_seconds", "Event handler execution time", NANOS, "listener", key));
+            if (watchdog != null) {
+                timer.watch(watchdog);
+            }
+            return timer;
+        });
+    }
+
+    /**
+     * Attach the slow event watchdog to every current and future listener timer
+     */
+    public synchronized void setWatchdog(SlowEventWatchdog watchdog) {
+        this.watchdog = watchdog;
+        for (ListenerTimer timer : listeners.values()) {
+            timer.watch(watchdog);
+        }
+    }
+
+    public synchronized SlowEventWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * Storage lookup counter by backend and result (hit, miss, cache_hit, db_hit, db_miss)
+     */
+    public synchronized Counter lookup(String backend, String result) {
+        return lookups.computeIfAbsent(backend + " " + result, key -> registry.counter("chestlock_storage_lookups_total",
+                "Protection lookups for non-tile blocks", "backend", backend, "result", result));
+    }
+
+    /**
+     * Database statement latency by operation
+     */
+    public synchronized Histogram query(String operation) {
+        return queries.computeIfAbsent(operation, key -> registry.histogram("chestlock_db_query_seconds",
+                "Database operation time", NANOS, "op", key));
+    }
+
+    /**
+     * Rows per batched statement by operation
+     */
+    public synchronized Histogram batchSize(String operation) {
+        return batches.computeIfAbsent(operation, key -> registry.histogram("chestlock_db_batch_size",
+                "Rows per batched database statement", 1, "op", key));
+    }
+
+    /**
+     * Source for the database queue depth gauge
+     */
+    public void setDbQueueDepth(LongSupplier supplier) {
+        this.dbQueueDepth = supplier != null ? supplier : () -> 0;
+    }
+
+    public long getDbQueueDepth() {
+        return dbQueueDepth.getAsLong();
+    }
+
+    public synchronized Map<String, ListenerTimer> getListeners() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(listeners));
+    }
+
+    public synchronized Map<String, Counter> getLookups() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(lookups));
+    }
+
+    public synchronized Map<String, Histogram> getQueries() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(queries));
+    }
+
+    public synchronized Map<String, Histogram> getBatchSizes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(batches));
+    }
+
+    public Counter getPdcDecodes() {
+        return pdcDecodes;
+    }
+
+    public Histogram getLoadDuration() {
+        return loadDuration;
+    }
+
+    public Histogram getSaveDuration() {
+        return saveDuration;
+    }
+
+    public Histogram getPoolWait() {
+        return poolWait;
+    }
+
+    public Counter getPoolTimeouts() {
+        return poolTimeouts;
+    }
+
+    public Histogram getIoQueueWait() {
+        return ioQueueWait;
+    }
+
+    public Counter getIoRejected() {
+        return ioRejected;
+    }
+}
@@ -0,0 +1,132 @@
+package com.chestlock.metrics;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and histograms grouped into families, exportable in the
+ * Prometheus text format. Lookups happen at construction time; hot paths keep
+ * a reference to the metric itself.
+ */
+public class MetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<String, Family> families;
+
+    public MetricsRegistry() {
+        this.families = new LinkedHashMap<>();
+    }
+
+    /**
+     * Get or create a counter
+     * @param labels Alternating label names and values
+     */
+    public synchronized Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").metrics.computeIfAbsent(labels(labels), key -> new Counter());
+    }
+
+    /**
+     * Get or create a histogram, exported as a summary with quantiles
+     * @param scale Export multiplier (1e-9 for nanoseconds recorded as seconds)
+     */
+    public synchronized Histogram histogram(String name, String help, double scale, String... labels) {
+        return (Histogram) family(name, help, "summary").metrics.computeIfAbsent(labels(labels), key -> new Histogram(scale));
+    }
+
+    /**
+     * Register or replace a gauge read at export time
+     */
+    public synchronized void gauge(String name, String help, LongSupplier supplier, String... labels) {
+        family(name, help, "gauge").metrics.put(labels(labels), supplier);
+    }
+
+    /**
+     * Write every metric in the Prometheus text exposition format
+     */
+    public synchronized void writePrometheus(Appendable out) throws IOException {
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+
+            for (Map.Entry<String, Object> metric : family.metrics.entrySet()) {
+                String labels = metric.getKey();
+                Object value = metric.getValue();
+                if (value instanceof Counter) {
+                    sample(out, name, labels, null, ((Counter) value).get());
+                } else if (value instanceof LongSupplier) {
+                    sample(out, name, labels, null, ((LongSupplier) value).getAsLong());
+                } else if (value instanceof Histogram) {
+                    Histogram histogram = (Histogram) value;
+                    Histogram.Snapshot snapshot = histogram.snapshot();
+                    for (double quantile : QUANTILES) {
+                        sample(out, name, labels, "quantile=\"" + quantile + "\"",
+                                snapshot.getValueAt(quantile) * histogram.getScale());
+                    }
+                    sample(out, name + "_sum", labels, null, snapshot.getSum() * histogram.getScale());
+                    sample(out, name + "_count", labels, null, snapshot.getCount());
+                }
+            }
+        }
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static String labels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (builder.length() > 0) builder.append(',');
+            builder.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return builder.toString();
+    }
+
+    private static void sample(Appendable out, String name, String labels, String extra, double value) throws IOException {
+        out.append(name);
+        if (!labels.isEmpty() || extra != null) {
+            out.append('{').append(labels);
+            if (extra != null) {
+                if (!labels.isEmpty()) out.append(',');
+                out.append(extra);
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append(Long.toString((long) value));
+        } else {
+            out.append(String.format(Locale.ROOT, "%.9g", value));
+        }
+        out.append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Family {
+        private final String help;
+        private final String type;
+        private final Map<String, Object> metrics;
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+            this.metrics = new LinkedHashMap<>();
+        }
+    }
+}
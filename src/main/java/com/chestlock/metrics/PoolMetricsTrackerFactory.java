@@ -0,0 +1,40 @@
+package com.chestlock.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Feeds HikariCP pool wait times, timeouts and pool occupancy into ChestLock's metrics
+ */
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final Metrics metrics;
+
+    public PoolMetricsTrackerFactory(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        MetricsRegistry registry = metrics.getRegistry();
+        registry.gauge("chestlock_db_pool_connections", "Pool connections by state",
+                poolStats::getActiveConnections, "state", "active");
+        registry.gauge("chestlock_db_pool_connections", "Pool connections by state",
+                poolStats::getIdleConnections, "state", "idle");
+        registry.gauge("chestlock_db_pool_pending_threads", "Threads waiting for a pool connection",
+                poolStats::getPendingThreads);
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                metrics.getPoolWait().record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                metrics.getPoolTimeouts().increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.chestlock.metrics;
+
+import com.chestlock.ChestLock;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Periodically writes the metrics registry to a Prometheus text file for
+ * node_exporter's textfile collector. The file is written next to the target
+ * and renamed into place so the collector never reads a partial file.
+ */
+public class PrometheusExporter {
+
+    private final ChestLock plugin;
+    private BukkitTask exportTask;
+    private Path target;
+
+    public PrometheusExporter(ChestLock plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Start exporting (file and interval from config, empty file disables it)
+     */
+    public void start() {
+        stop();
+
+        String file = plugin.getConfig().getString("metrics.prometheus-file", "");
+        if (file == null || file.isEmpty()) return;
+
+        Path path = Path.of(file);
+        target = path.isAbsolute() ? path : plugin.getDataFolder().toPath().resolve(path);
+        long interval = Math.max(1, plugin.getConfig().getLong("metrics.export-interval", 30)) * 20L;
+        exportTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::export, interval, interval);
+    }
+
+    /**
+     * Stop exporting
+     */
+    public void stop() {
+        if (exportTask != null) {
+            exportTask.cancel();
+            exportTask = null;
+        }
+    }
+
+    /**
+     * Write the current values to the target file
+     */
+    public void export() {
+        Path path = target;
+        if (path == null) return;
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                plugin.getMetrics().getRegistry().writePrometheus(writer);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to write metrics to " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.chestlock.metrics;
+
+/**
+ * One event handler invocation that exceeded its time budget
+ */
+public final class SlowEvent {
+
+    private final long timestamp;
+    private final String listener;
+    private final long elapsedNanos;
+    private final long budgetNanos;
+    private final String block;
+    private final String backend;
+    private final String path;
+    private final int lookups;
+    private final long cacheNanos;
+    private final long pdcNanos;
+    private final long dbNanos;
+
+    SlowEvent(long timestamp, String listener, long elapsedNanos, long budgetNanos, String block, String backend,
+              LookupTrace trace) {
+        this.timestamp = timestamp;
+        this.listener = listener;
+        this.elapsedNanos = elapsedNanos;
+        this.budgetNanos = budgetNanos;
+        this.block = block;
+        this.backend = backend;
+        this.path = trace.describePath();
+        this.lookups = trace.getLookups();
+        this.cacheNanos = trace.getStageNanos(LookupTrace.Stage.CACHE);
+        this.pdcNanos = trace.getStageNanos(LookupTrace.Stage.PDC);
+        this.dbNanos = trace.getStageNanos(LookupTrace.Stage.DB);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getListener() {
+        return listener;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public String getBlock() {
+        return block;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getLookups() {
+        return lookups;
+    }
+
+    public long getCacheNanos() {
+        return cacheNanos;
+    }
+
+    public long getPdcNanos() {
+        return pdcNanos;
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+}
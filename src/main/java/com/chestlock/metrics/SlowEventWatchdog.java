@@ -0,0 +1,139 @@
+package com.chestlock.metrics;
+
+import com.chestlock.ChestLock;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flags event handler invocations that exceed their time budget: logs a
+ * rate-limited diagnostic (block, backend, lookup path, per-stage time) and
+ * keeps the most recent ones in a ring buffer for /chestlock slow
+ */
+public class SlowEventWatchdog {
+
+    private final ChestLock plugin;
+    private final Map<String, Long> lastLogged;
+    private final Map<String, Integer> suppressed;
+    private SlowEvent[] history;
+    private int next;
+    private int size;
+    private long defaultBudgetNanos;
+    private Map<String, Long> budgets;
+    private long logIntervalMillis;
+
+    public SlowEventWatchdog(ChestLock plugin) {
+        this.plugin = plugin;
+        this.lastLogged = new HashMap<>();
+        this.suppressed = new HashMap<>();
+        this.history = new SlowEvent[0];
+        this.budgets = Collections.emptyMap();
+    }
+
+    /**
+     * Read budgets from config and apply them to every listener timer
+     */
+    public void start() {
+        synchronized (this) {
+            defaultBudgetNanos = millisToNanos(plugin.getConfig().getDouble("diagnostics.slow-event-budget", 5));
+            logIntervalMillis = Math.max(0, plugin.getConfig().getLong("diagnostics.log-interval", 30)) * 1000L;
+
+            Map<String, Long> configured = new HashMap<>();
+            ConfigurationSection section = plugin.getConfig().getConfigurationSection("diagnostics.budgets");
+            if (section != null) {
+                for (String listener : section.getKeys(false)) {
+                    configured.put(listener, millisToNanos(section.getDouble(listener)));
+                }
+            }
+            budgets = configured;
+
+            int historySize = Math.max(1, plugin.getConfig().getInt("diagnostics.history-size", 50));
+            if (historySize != history.length) {
+                List<SlowEvent> kept = getRecent(historySize);
+                history = new SlowEvent[historySize];
+                next = 0;
+                size = 0;
+                for (int i = kept.size() - 1; i >= 0; i--) {
+                    add(kept.get(i));
+                }
+            }
+        }
+        plugin.getMetrics().setWatchdog(this);
+    }
+
+    /**
+     * Budget for a listener in nanoseconds (Long.MAX_VALUE when disabled)
+     */
+    public synchronized long getBudget(String listener) {
+        return budgets.getOrDefault(listener, defaultBudgetNanos);
+    }
+
+    /**
+     * Called by ListenerTimer when an invocation ran over budget
+     */
+    void report(ListenerTimer timer, long elapsedNanos, long budgetNanos, LookupTrace trace) {
+        SlowEvent event = new SlowEvent(System.currentTimeMillis(), timer.getName(), elapsedNanos, budgetNanos,
+                describe(trace.getSlowestBlock()), plugin.getDataHandler().getBackendName(), trace);
+
+        int skipped;
+        synchronized (this) {
+            add(event);
+
+            Long last = lastLogged.get(event.getListener());
+            if (last != null && event.getTimestamp() - last < logIntervalMillis) {
+                suppressed.merge(event.getListener(), 1, Integer::sum);
+                return;
+            }
+            lastLogged.put(event.getListener(), event.getTimestamp());
+            Integer count = suppressed.remove(event.getListener());
+            skipped = count != null ? count : 0;
+        }
+
+        plugin.getLogger().warning(String.format(Locale.ROOT,
+                "Slow %s handler: %.2fms (budget %.2fms) block=%s backend=%s path=%s lookups=%d "
+                        + "cache=%.2fms pdc=%.2fms db=%.2fms%s",
+                event.getListener(), nanosToMillis(elapsedNanos), nanosToMillis(budgetNanos), event.getBlock(),
+                event.getBackend(), event.getPath(), event.getLookups(),
+                nanosToMillis(event.getCacheNanos()), nanosToMillis(event.getPdcNanos()),
+                nanosToMillis(event.getDbNanos()),
+                skipped > 0 ? " (" + skipped + " more since last report)" : ""));
+    }
+
+    /**
+     * Most recent slow events, newest first
+     */
+    public synchronized List<SlowEvent> getRecent(int limit) {
+        List<SlowEvent> events = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, size); i++) {
+            int index = (next - 1 - i + history.length) % history.length;
+            events.add(history[index]);
+        }
+        return events;
+    }
+
+    public synchronized int getHistorySize() {
+        return size;
+    }
+
+    private void add(SlowEvent event) {
+        history[next] = event;
+        next = (next + 1) % history.length;
+        size = Math.min(size + 1, history.length);
+    }
+
+    private static String describe(Block block) {
+        if (block == null) return "-";
+        return block.getWorld().getName() + "," + block.getX() + "," + block.getY() + "," + block.getZ()
+                + "(" + block.getType() + ")";
+    }
+
+    private static long millisToNanos(double millis) {
+        return millis > 0 ? (long) (millis * TimeUnit.MILLISECONDS.toNanos(1)) : Long.MAX_VALUE;
+    }
+
+    static double nanosToMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
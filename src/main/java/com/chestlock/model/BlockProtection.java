@@ -6,14 +6,30 @@ import java.util.*;
  * Represents a protected block with owner and friends
  */
 public class BlockProtection {
+
+    /**
+     * Stand-in for a block whose protection can't be determined right now
+     * (storage unavailable); nobody but bypass holders can access it
+     */
+    public static final BlockProtection UNAVAILABLE = new Placeholder();
+
+    /**
+     * Stand-in for a location-based block while protections are still loading
+     */
+    public static final BlockProtection LOADING = new Placeholder();
+
     private final UUID owner;
     private final Map<UUID, FriendPermission> friends;
     private boolean allowHopper;
     private boolean allowRedstone;
 
     public BlockProtection(UUID owner) {
+        this(owner, new HashMap<>());
+    }
+
+    private BlockProtection(UUID owner, Map<UUID, FriendPermission> friends) {
         this.owner = owner;
-        this.friends = new HashMap<>();
+        this.friends = friends;
         this.allowHopper = false;
         this.allowRedstone = true;
     }
@@ -22,6 +38,13 @@ public class BlockProtection {
         return owner;
     }
 
+    /**
+     * Whether this is a stand-in (UNAVAILABLE or LOADING) rather than real protection data
+     */
+    public boolean isPlaceholder() {
+        return this == UNAVAILABLE || this == LOADING;
+    }
+
     public Map<UUID, FriendPermission> getFriends() {
         return new HashMap<>(friends);
     }
@@ -70,6 +93,36 @@ public class BlockProtection {
         this.allowRedstone = allowRedstone;
     }
 
+    /**
+     * Shared stand-ins are immutable, so nothing can turn them into real data
+     */
+    private static final class Placeholder extends BlockProtection {
+
+        private Placeholder() {
+            super(new UUID(0L, 0L), Collections.emptyMap());
+        }
+
+        @Override
+        public void addFriend(UUID friendUuid, FriendPermission permission) {
+            throw new UnsupportedOperationException("Placeholder protections can't be changed");
+        }
+
+        @Override
+        public void removeFriend(UUID friendUuid) {
+            throw new UnsupportedOperationException("Placeholder protections can't be changed");
+        }
+
+        @Override
+        public void setAllowHopper(boolean allowHopper) {
+            throw new UnsupportedOperationException("Placeholder protections can't be changed");
+        }
+
+        @Override
+        public void setAllowRedstone(boolean allowRedstone) {
+            throw new UnsupportedOperationException("Placeholder protections can't be changed");
+        }
+    }
+
     public enum FriendPermission {
         READ_ONLY(true, false),
         READ_WRITE(true, true);
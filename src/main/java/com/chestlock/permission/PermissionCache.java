@@ -0,0 +1,169 @@
+package com.chestlock.permission;
+
+import com.chestlock.ChestLock;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches ChestLock permission state per player as a small capability bitset
+ * so listeners don't resolve permission strings on every event
+ */
+public class PermissionCache {
+
+    public static final int LOCK = 1;
+    public static final int BYPASS = 1 << 1;
+    public static final int ADMIN = 1 << 2;
+
+    private final ChestLock plugin;
+    private final Map<UUID, Integer> capabilities;
+    // Lock limit per player (-1 = unlimited)
+    private final Map<UUID, Integer> lockLimits;
+    // Limit group -> limit, from lock-limits.groups
+    private Map<String, Integer> limitGroups;
+    private int defaultLimit;
+    private boolean limitsEnabled;
+    private BukkitTask refreshTask;
+
+    public PermissionCache(ChestLock plugin) {
+        this.plugin = plugin;
+        this.capabilities = new ConcurrentHashMap<>();
+        this.lockLimits = new ConcurrentHashMap<>();
+        this.limitGroups = new LinkedHashMap<>();
+    }
+
+    /**
+     * Start the periodic refresh task (interval from config, 0 disables it)
+     */
+    public void start() {
+        stop();
+        loadLimits();
+        refreshAll();
+
+        long interval = plugin.getConfig().getLong("performance.permission-refresh-interval", 100);
+        if (interval > 0) {
+            refreshTask = Bukkit.getScheduler().runTaskTimer(plugin, this::refreshAll, interval, interval);
+        }
+    }
+
+    /**
+     * Stop the periodic refresh task
+     */
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+    }
+
+    /**
+     * Recompute capabilities for a single player
+     */
+    public void refresh(Player player) {
+        capabilities.put(player.getUniqueId(), compute(player));
+        lockLimits.put(player.getUniqueId(), computeLimit(player));
+    }
+
+    /**
+     * Recompute capabilities for every online player
+     */
+    public void refreshAll() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            refresh(player);
+        }
+    }
+
+    /**
+     * Forget a player (on quit)
+     */
+    public void invalidate(UUID uuid) {
+        capabilities.remove(uuid);
+        lockLimits.remove(uuid);
+    }
+
+    public boolean canLock(Player player) {
+        return has(player, LOCK);
+    }
+
+    public boolean canBypass(Player player) {
+        return has(player, BYPASS);
+    }
+
+    public boolean isAdmin(Player player) {
+        return has(player, ADMIN);
+    }
+
+    /**
+     * Check if the player has any of the given capability flags
+     */
+    public boolean has(Player player, int flags) {
+        Integer bits = capabilities.get(player.getUniqueId());
+        if (bits == null) {
+            // Not cached yet (e.g. event before join completed) - resolve once and remember
+            int computed = compute(player);
+            capabilities.put(player.getUniqueId(), computed);
+            return (computed & flags) != 0;
+        }
+        return (bits & flags) != 0;
+    }
+
+    /**
+     * How many blocks a player may lock
+     * @return -1 if unlimited
+     */
+    public int getLockLimit(Player player) {
+        if (!limitsEnabled) return -1;
+
+        Integer limit = lockLimits.get(player.getUniqueId());
+        if (limit == null) {
+            limit = computeLimit(player);
+            lockLimits.put(player.getUniqueId(), limit);
+        }
+        return limit;
+    }
+
+    private void loadLimits() {
+        limitsEnabled = plugin.getConfig().getBoolean("lock-limits.enabled", false);
+        defaultLimit = plugin.getConfig().getInt("lock-limits.default", -1);
+        Map<String, Integer> groups = new LinkedHashMap<>();
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("lock-limits.groups");
+        if (section != null) {
+            for (String group : section.getKeys(false)) {
+                groups.put(group, section.getInt(group, -1));
+            }
+        }
+        limitGroups = groups;
+    }
+
+    /**
+     * The largest limit among the player's chestlock.limit.<group> permissions,
+     * or the default if they have none; bypass and admin are unlimited
+     */
+    private int computeLimit(Player player) {
+        if (!limitsEnabled) return -1;
+        if (player.hasPermission("chestlock.bypass") || player.hasPermission("chestlock.admin")) return -1;
+
+        Integer best = null;
+        for (Map.Entry<String, Integer> group : limitGroups.entrySet()) {
+            if (!player.hasPermission("chestlock.limit." + group.getKey())) continue;
+            int limit = group.getValue();
+            if (limit < 0) return -1;
+            best = best == null ? limit : Math.max(best, limit);
+        }
+        return best != null ? best : defaultLimit;
+    }
+
+    private int compute(Player player) {
+        int bits = 0;
+        if (player.hasPermission("chestlock.lock")) bits |= LOCK;
+        if (player.hasPermission("chestlock.bypass")) bits |= BYPASS;
+        if (player.hasPermission("chestlock.admin")) bits |= ADMIN;
+        return bits;
+    }
+}